@@ -1,29 +1,128 @@
 package org.timeflow;
 
 import com.formdev.flatlaf.FlatLightLaf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.event.TimetableEventBus;
+import org.timeflow.metrics.Metrics;
+import org.timeflow.metrics.MetricsLogReporter;
+import org.timeflow.server.BasicAuthenticator;
+import org.timeflow.server.CalendarFeedHandler;
+import org.timeflow.server.EmbeddedHttpServer;
+import org.timeflow.server.EventStreamHandler;
+import org.timeflow.server.MetricsHandler;
+import org.timeflow.server.RequestAuthenticator;
+import org.timeflow.server.TimeFlowServer;
+import org.timeflow.server.TokenAuthenticator;
 import org.timeflow.ui.LoginFrame;
+import org.timeflow.service.AuthenticationService;
+import org.timeflow.service.CalendarFeedService;
+import org.timeflow.service.ChangeDigestScheduler;
 import org.timeflow.service.DataSeeder;
 import javax.swing.*;
+import java.awt.GraphicsEnvironment;
 import org.timeflow.util.Config;
+import org.timeflow.util.HibernateUtil;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class Main {
+    private static final Logger logger = LoggerFactory.getLogger(Main.class);
+
     public static void main(String[] args) {
+        long mainStart = System.nanoTime();
+        if (Arrays.asList(args).contains("--cds-training")) {
+            runCdsTraining();
+            return;
+        }
+
+        // Hibernate boots on its own thread while the look-and-feel loads and the login window opens
+        CompletableFuture<Void> startup = HibernateUtil.startAsync().thenRun(() -> new DataSeeder().seedInitialData());
+        MetricsLogReporter.start(Config.getInt("METRICS_LOG_INTERVAL_SECONDS", 0));
+
+        if (Arrays.asList(args).contains("--server")) {
+            runServer(startup);
+            return;
+        }
+        // Off by default here: every desktop client would otherwise run its own flush
+        startup.thenRun(() -> ChangeDigestScheduler.start(Config.getInt("CHANGE_DIGEST_INTERVAL_MINUTES", 0)));
+
         try {
             UIManager.setLookAndFeel(new FlatLightLaf());
             UIManager.put("Button.arc", 10);
             UIManager.put("Component.arc", 10);
         } catch (Exception e) {
-            System.err.println("Failed to set FlatLaf look-and-feel: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Failed to set FlatLaf look-and-feel: {}", e.getMessage(), e);
         }
-        new DataSeeder().seedInitialData(); // <-- ADD THIS LINE
-        System.out.println(Config.USERNAME);
-        System.out.println(Config.EMAIL_PASSWORD);
 
         // Launch the LoginFrame on the Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
             LoginFrame loginFrame = new LoginFrame();
             loginFrame.setVisible(true);
+            Metrics.timer("timeflow.startup", "phase", "login-window").record(System.nanoTime() - mainStart);
         });
+
+        // Optional endpoints for other clients: live updates (Server-Sent Events) and .ics feeds
+        int eventServerPort = Config.getInt("EVENT_SERVER_PORT", 0);
+        if (eventServerPort > 0) {
+            try {
+                // This port serves no login endpoint, so event streams also accept Basic credentials
+                AuthenticationService authService = AuthenticationService.getInstance();
+                RequestAuthenticator authenticator = RequestAuthenticator.firstOf(
+                        new TokenAuthenticator(authService), new BasicAuthenticator(authService));
+                EmbeddedHttpServer eventServer = new EmbeddedHttpServer(eventServerPort)
+                        .addHandler("/api/v1/events", new EventStreamHandler(TimetableEventBus.getInstance(), authenticator))
+                        .addHandler("/api/v1/calendar/", new CalendarFeedHandler(CalendarFeedService.getInstance()));
+                MetricsHandler.mount(eventServer, Config.get("METRICS_TOKEN", null));
+                eventServer.start();
+            } catch (Exception e) {
+                logger.error("Failed to start event server on port {}: {}", eventServerPort, e.getMessage(), e);
+            }
+        }
+    }
+
+    // Exercises startup code paths without a database or display, so that
+    // -XX:ArchiveClassesAtExit records the classes a real start loads (see the appcds profile)
+    private static void runCdsTraining() {
+        try {
+            UIManager.setLookAndFeel(new FlatLightLaf());
+            if (!GraphicsEnvironment.isHeadless()) {
+                new LoginFrame().dispose();
+            }
+            HibernateUtil.buildMetadataOnly();
+            logger.info("AppCDS training run complete");
+        } catch (Exception e) {
+            logger.error("AppCDS training run failed: {}", e.getMessage(), e);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    // Headless mode: serve the REST API instead of opening the desktop client
+    private static void runServer(CompletableFuture<Void> startup) {
+        // The server is useless without the database, so wait for it (and the seed check) here
+        try {
+            startup.join();
+        } catch (CompletionException e) {
+            logger.error("Failed to connect to the database: {}", e.getCause().getMessage(), e.getCause());
+            System.exit(1);
+        }
+        int port = Config.getInt("SERVER_PORT", 8080);
+        try {
+            TimeFlowServer server = new TimeFlowServer(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                ChangeDigestScheduler.stop();
+                server.stop();
+                HibernateUtil.shutdown();
+            }, "timeflow-shutdown"));
+            server.start();
+            ChangeDigestScheduler.start(Config.getInt("CHANGE_DIGEST_INTERVAL_MINUTES", 15));
+            logger.info("TimeFlow server listening on port {}, API under /api/v1", server.getPort());
+        } catch (Exception e) {
+            logger.error("Failed to start TimeFlow server on port {}: {}", port, e.getMessage(), e);
+            System.exit(1);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package org.timeflow.auth;
+
+import org.timeflow.entity.User;
+import org.timeflow.entity.UserRole;
+
+import java.time.Instant;
+
+/**
+ * A signed-in API user. The user is looked up at login and kept here, so per-request
+ * authorization is a field read rather than a database query; it is read again only when
+ * the users' reference data version has moved since (see AuthenticationService.resolveSession).
+ */
+public class AuthSession {
+    private final String id;
+    private final String token;
+    private volatile User user;
+    // Version of the users reference data the user above was read at
+    private volatile long usersVersion = -1;
+    private final Instant createdAt;
+    private final Instant expiresAt;
+    private volatile Instant lastSeenAt;
+
+    AuthSession(String id, String token, User user, Instant createdAt, Instant expiresAt) {
+        this.id = id;
+        this.token = token;
+        this.user = user;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.lastSeenAt = createdAt;
+    }
+
+    public boolean hasRole(UserRole... roles) {
+        for (UserRole role : roles) {
+            if (user.getRole() == role) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void touch(Instant now) {
+        lastSeenAt = now;
+    }
+
+    // Replaces the cached user with one read at the given users version
+    public void refresh(User user, long usersVersion) {
+        this.user = user;
+        this.usersVersion = usersVersion;
+    }
+
+    public String getId() { return id; }
+    public String getToken() { return token; }
+    public User getUser() { return user; }
+    public long getUsersVersion() { return usersVersion; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public Instant getLastSeenAt() { return lastSeenAt; }
+}
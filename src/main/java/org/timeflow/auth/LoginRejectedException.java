@@ -0,0 +1,18 @@
+package org.timeflow.auth;
+
+/**
+ * Thrown when a login is refused before the password is checked: too many recent failures
+ * for the account or client address, or the verification pool is saturated.
+ */
+public class LoginRejectedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public LoginRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
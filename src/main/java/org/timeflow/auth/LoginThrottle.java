@@ -0,0 +1,91 @@
+package org.timeflow.auth;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts failed logins per account and per client address over a sliding window. Once a
+ * key reaches its limit, further attempts are refused until the window has passed, so
+ * password guessing cannot keep the BCrypt pool busy.
+ */
+public class LoginThrottle {
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private final Map<String, Failures> accounts = new ConcurrentHashMap<>();
+    private final Map<String, Failures> addresses = new ConcurrentHashMap<>();
+    private final int maxAccountFailures;
+    private final int maxAddressFailures;
+    private final long windowMillis;
+
+    public LoginThrottle(int maxAccountFailures, int maxAddressFailures, Duration window) {
+        this.maxAccountFailures = maxAccountFailures;
+        this.maxAddressFailures = maxAddressFailures;
+        this.windowMillis = window.toMillis();
+    }
+
+    // Throws LoginRejectedException if either the account or the address is locked out
+    public void checkAllowed(String username, String address) {
+        long now = System.currentTimeMillis();
+        check(accounts, accountKey(username), maxAccountFailures, now, "Too many failed attempts for this account");
+        if (address != null) {
+            check(addresses, address, maxAddressFailures, now, "Too many failed attempts from this address");
+        }
+    }
+
+    public void recordFailure(String username, String address) {
+        long now = System.currentTimeMillis();
+        record(accounts, accountKey(username), now);
+        if (address != null) {
+            record(addresses, address, now);
+        }
+    }
+
+    // A successful login clears the account's failures; the address keeps its count
+    public void recordSuccess(String username) {
+        accounts.remove(accountKey(username));
+    }
+
+    private void check(Map<String, Failures> map, String key, int limit, long now, String message) {
+        Failures failures = map.get(key);
+        if (failures == null) {
+            return;
+        }
+        synchronized (failures) {
+            if (now - failures.windowStart >= windowMillis) {
+                map.remove(key, failures);
+            } else if (failures.count >= limit) {
+                long retryAfter = Math.max(1, (failures.windowStart + windowMillis - now) / 1000);
+                throw new LoginRejectedException(message + "; try again in " + retryAfter + " seconds", retryAfter);
+            }
+        }
+    }
+
+    private void record(Map<String, Failures> map, String key, long now) {
+        if (map.size() > SWEEP_THRESHOLD) {
+            map.values().removeIf(failures -> now - failures.windowStart >= windowMillis);
+        }
+        Failures failures = map.computeIfAbsent(key, k -> new Failures(now));
+        synchronized (failures) {
+            if (now - failures.windowStart >= windowMillis) {
+                failures.windowStart = now;
+                failures.count = 0;
+            }
+            failures.count++;
+        }
+    }
+
+    private static String accountKey(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Failures {
+        private long windowStart;
+        private int count;
+
+        private Failures(long windowStart) {
+            this.windowStart = windowStart;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.timeflow.auth;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.timeflow.util.Config;
+
+/**
+ * The one BCrypt encoder used across the application, at the work factor configured by
+ * BCRYPT_COST (default 10). Hashes made at a lower cost are upgraded when their owner next
+ * signs in successfully.
+ */
+public final class PasswordHasher {
+    private static final PasswordHasher INSTANCE = new PasswordHasher(Config.getInt("BCRYPT_COST", 10));
+
+    private final int cost;
+    private final BCryptPasswordEncoder encoder;
+
+    public PasswordHasher(int cost) {
+        this.cost = cost;
+        this.encoder = new BCryptPasswordEncoder(cost);
+    }
+
+    public static PasswordHasher getInstance() {
+        return INSTANCE;
+    }
+
+    public String encode(String rawPassword) {
+        return encoder.encode(rawPassword);
+    }
+
+    public boolean matches(String rawPassword, String hash) {
+        return hash != null && encoder.matches(rawPassword, hash);
+    }
+
+    // True when the hash was made with a lower work factor than the configured one
+    public boolean needsRehash(String hash) {
+        return isHashed(hash) && encoder.upgradeEncoding(hash);
+    }
+
+    public static boolean isHashed(String value) {
+        return value != null && (value.startsWith("$2a$") || value.startsWith("$2b$") || value.startsWith("$2y$"));
+    }
+
+    public int getCost() {
+        return cost;
+    }
+}
@@ -0,0 +1,114 @@
+package org.timeflow.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt checks on a fixed-size pool with a bounded queue. A login burst then queues
+ * instead of claiming every CPU, and once the queue is full further logins are turned
+ * away immediately rather than waiting indefinitely.
+ */
+public class PasswordVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordVerifier.class);
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAdder totalVerifyNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+
+    public PasswordVerifier(PasswordHasher hasher, int threads, int queueCapacity, long timeoutMillis) {
+        this.hasher = hasher;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean verify(String rawPassword, String hash) {
+        return run(() -> hasher.matches(rawPassword, hash));
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> hasher.encode(rawPassword));
+    }
+
+    private <T> T run(Callable<T> work) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                long queued = startedAt - submittedAt;
+                totalQueueNanos.add(queued);
+                maxQueueNanos.accumulateAndGet(queued, Math::max);
+                try {
+                    return work.call();
+                } finally {
+                    totalVerifyNanos.add(System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.debug("Password verification queue full ({} waiting), rejecting login", executor.getQueue().size());
+            throw new LoginRejectedException("The server is busy processing sign-ins; please try again shortly", 2);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new LoginRejectedException("Sign-in timed out while the server is busy; please try again", 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while verifying password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password verification failed", e.getCause());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long done = completed.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("bcryptCost", hasher.getCost());
+        metrics.put("threads", executor.getMaximumPoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        metrics.put("completed", done);
+        metrics.put("rejected", rejected.sum());
+        metrics.put("timedOut", timedOut.sum());
+        metrics.put("avgQueueMillis", done == 0 ? 0.0 : totalQueueNanos.sum() / 1e6 / done);
+        metrics.put("maxQueueMillis", maxQueueNanos.get() / 1e6);
+        metrics.put("avgVerifyMillis", done == 0 ? 0.0 : totalVerifyNanos.sum() / 1e6 / done);
+        return metrics;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
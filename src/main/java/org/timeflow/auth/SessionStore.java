@@ -0,0 +1,117 @@
+package org.timeflow.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.entity.User;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory store of API sessions. Sessions end after an idle timeout or an absolute
+ * lifetime, whichever comes first; expired entries are dropped on lookup and swept
+ * periodically in the background.
+ */
+public class SessionStore {
+    private static final Logger logger = LoggerFactory.getLogger(SessionStore.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, AuthSession> sessions = new ConcurrentHashMap<>();
+    private final TokenSigner signer;
+    private final Duration idleTimeout;
+    private final Duration maxLifetime;
+    private final ScheduledExecutorService sweeper;
+
+    public SessionStore(TokenSigner signer, Duration idleTimeout, Duration maxLifetime) {
+        this.signer = signer;
+        this.idleTimeout = idleTimeout;
+        this.maxLifetime = maxLifetime;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, Math.min(idleTimeout.toSeconds(), 60));
+        sweeper.scheduleAtFixedRate(this::evictExpired, period, period, TimeUnit.SECONDS);
+    }
+
+    public AuthSession create(User user) {
+        String id = randomId();
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(maxLifetime);
+        String token = signer.sign(id + ":" + user.getId() + ":" + expiresAt.getEpochSecond());
+        AuthSession session = new AuthSession(id, token, user, now, expiresAt);
+        sessions.put(id, session);
+        return session;
+    }
+
+    // Returns the live session for a token, or null if the token is forged, unknown or expired
+    public AuthSession resolve(String token) {
+        String payload = signer.verify(token);
+        if (payload == null) {
+            return null;
+        }
+        String[] parts = payload.split(":");
+        if (parts.length != 3) {
+            return null;
+        }
+        AuthSession session = sessions.get(parts[0]);
+        if (session == null || !Objects.equals(String.valueOf(session.getUser().getId()), parts[1])) {
+            return null;
+        }
+        Instant now = Instant.now();
+        if (isExpired(session, now)) {
+            sessions.remove(session.getId(), session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    public void revoke(AuthSession session) {
+        sessions.remove(session.getId(), session);
+    }
+
+    // Ends every session of a user, e.g. after a password change or deactivation
+    public int revokeUser(Long userId) {
+        int before = sessions.size();
+        sessions.values().removeIf(session -> Objects.equals(session.getUser().getId(), userId));
+        return before - sessions.size();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    void evictExpired() {
+        Instant now = Instant.now();
+        int before = sessions.size();
+        sessions.values().removeIf(session -> isExpired(session, now));
+        int evicted = before - sessions.size();
+        if (evicted > 0) {
+            logger.debug("Evicted {} expired sessions, {} active", evicted, sessions.size());
+        }
+    }
+
+    private boolean isExpired(AuthSession session, Instant now) {
+        return !now.isBefore(session.getExpiresAt()) || !now.isBefore(session.getLastSeenAt().plus(idleTimeout));
+    }
+
+    private static String randomId() {
+        byte[] bytes = new byte[18];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -1,18 +1,37 @@
 package org.timeflow.dao;
 
+import jakarta.persistence.Entity;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.Parameter;
+import jakarta.persistence.TypedQuery;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StaleStateException;
 import org.hibernate.Transaction;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.Query;
+import org.hibernate.stat.SessionStatistics;
+import org.timeflow.metrics.Metrics;
+import org.timeflow.metrics.QueryScope;
+import org.timeflow.util.Config;
 import org.timeflow.util.HibernateUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public abstract class BaseDAO<T, ID extends Serializable> {
 
     public static final Logger logger = LoggerFactory.getLogger(BaseDAO.class);
+    private static final Logger slowQueryLogger = LoggerFactory.getLogger("org.timeflow.dao.SlowQuery");
+    private static final long SLOW_QUERY_NANOS = Config.getInt("SLOW_QUERY_MS", 500) * 1_000_000L;
     private final Class<T> entityClass;
     protected SessionFactory sessionFactory;
 
@@ -23,55 +42,128 @@ public abstract class BaseDAO<T, ID extends Serializable> {
 
     // Create operation
     public T save(T entity) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("save");
         Transaction transaction = null;
         try (Session session = sessionFactory.openSession()) {
             transaction = session.beginTransaction();
             session.persist(entity);
+            bumpReferenceVersion(session, List.of(entity));
             transaction.commit();
+            afterReferenceCommit();
             logger.info("Entity saved successfully: {}", entity.getClass().getSimpleName());
             return entity;
         } catch (Exception e) {
+            failed = true;
             if (transaction != null) {
                 transaction.rollback();
             }
             logger.error("Error saving entity: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to save entity", e);
+        } finally {
+            recordTiming("save", start, failed, scope);
+        }
+    }
+
+    // Bulk create in one transaction: inserts go out in JDBC batches of JDBC_BATCH_SIZE and the
+    // session is cleared after each, so memory stays flat for large imports
+    public List<T> saveAll(Collection<? extends T> entities) {
+        List<T> saved = new ArrayList<>(entities);
+        if (saved.isEmpty()) {
+            return saved;
+        }
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("saveAll");
+        int batchSize = HibernateUtil.getJdbcBatchSize();
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            session.setJdbcBatchSize(batchSize);
+            transaction = session.beginTransaction();
+            for (int i = 0; i < saved.size(); i++) {
+                session.persist(saved.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            bumpReferenceVersion(session, saved);
+            transaction.commit();
+            afterReferenceCommit();
+            logger.info("Saved {} {} entities", saved.size(), entityClass.getSimpleName());
+            return saved;
+        } catch (Exception e) {
+            failed = true;
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error saving {} entities: {}", entityClass.getSimpleName(), e.getMessage(), e);
+            throw new RuntimeException("Failed to save entities", e);
+        } finally {
+            recordTiming("saveAll", start, failed, scope);
         }
     }
 
     // Read operation
     public T findById(ID id) {
-        try (Session session = sessionFactory.openSession()) {
-            return session.find(entityClass, id);
+        try {
+            return inSession("findById", session -> session.find(entityClass, id));
         } catch (Exception e) {
             logger.error("Error finding entity by id {}: {}", id, e.getMessage(), e);
             throw new RuntimeException("Failed to find entity", e);
         }
     }
 
-    // Update operation
+    // Update operation. Returns the merged copy: for versioned entities its version is the new
+    // one, so callers that keep editing must continue with the returned instance. A stale copy
+    // fails with OptimisticUpdateException and nothing is written.
     public T update(T entity) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("update");
         Transaction transaction = null;
         try (Session session = sessionFactory.openSession()) {
             transaction = session.beginTransaction();
-            session.merge(entity);
+            T merged = session.merge(entity);
+            bumpReferenceVersion(session, List.of(merged));
             transaction.commit();
+            afterReferenceCommit();
             logger.info("Entity updated successfully: {}", entity.getClass().getSimpleName());
-            return entity;
+            return merged;
         } catch (Exception e) {
+            failed = true;
             if (transaction != null) {
                 transaction.rollback();
             }
+            if (isStale(e)) {
+                logger.warn("Stale update of {} {} rejected", entityClass.getSimpleName(), idOf(entity));
+                throw new OptimisticUpdateException(entityClass.getSimpleName(), idOf(entity), e);
+            }
             logger.error("Error updating entity: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to update entity", e);
+        } finally {
+            recordTiming("update", start, failed, scope);
+        }
+    }
+
+    // Cheaper than findAll().isEmpty(): fetches at most one id and none of the eager associations
+    public boolean existsAny() {
+        try {
+            return !list("existsAny", session -> session
+                    .createQuery("SELECT e.id FROM " + entityClass.getSimpleName() + " e", Object.class)
+                    .setMaxResults(1))
+                    .isEmpty();
+        } catch (Exception e) {
+            logger.error("Error checking for {} rows: {}", entityClass.getSimpleName(), e.getMessage(), e);
+            throw new RuntimeException("Failed to check for entities", e);
         }
     }
 
     // Fixed findAll to return List<T>
     public List<T> findAll() {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM " + entityClass.getSimpleName(), entityClass)
-                    .getResultList();
+        try {
+            return list("findAll", session -> session.createQuery("FROM " + entityClass.getSimpleName(), entityClass));
         } catch (Exception e) {
             logger.error("Error finding all entities: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to find all entities", e);
@@ -82,18 +174,26 @@ public abstract class BaseDAO<T, ID extends Serializable> {
 
     // Delete operation
     public void delete(T entity) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("delete");
         Transaction transaction = null;
         try (Session session = sessionFactory.openSession()) {
             transaction = session.beginTransaction();
             session.remove(entity);
+            bumpReferenceVersion(session, List.of(entity));
             transaction.commit();
+            afterReferenceCommit();
             logger.info("Entity deleted successfully: {}", entity.getClass().getSimpleName());
         } catch (Exception e) {
+            failed = true;
             if (transaction != null) {
                 transaction.rollback();
             }
             logger.error("Error deleting entity: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to delete entity", e);
+        } finally {
+            recordTiming("delete", start, failed, scope);
         }
     }
 
@@ -108,4 +208,194 @@ public abstract class BaseDAO<T, ID extends Serializable> {
     }
 
     // --- END: ADD THESE TWO METHODS ---
-}
\ No newline at end of file
+
+    // Runs one HQL UPDATE or DELETE in its own transaction and returns the rows it changed
+    protected int executeUpdate(String operation, String hql, Consumer<MutationQuery> paramSetter) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope(operation);
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            MutationQuery query = session.createMutationQuery(hql);
+            paramSetter.accept(query);
+            int updated = query.executeUpdate();
+            bumpReferenceVersion(session);
+            transaction.commit();
+            afterReferenceCommit();
+            return updated;
+        } catch (Exception e) {
+            failed = true;
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error running {}.{}: {}", entityClass.getSimpleName(), operation, e.getMessage(), e);
+            throw new RuntimeException("Failed to update " + entityClass.getSimpleName() + " rows", e);
+        } finally {
+            recordTiming(operation, start, failed, scope);
+        }
+    }
+
+    // Runs one DAO call in a session of its own. Its time, SQL statements and the entities and
+    // collections it loaded are attributed to entity/operation in the timeflow.dao metrics
+    protected <R> R inSession(String operation, Function<Session, R> work) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        QueryScope scope = openScope(operation);
+        try (Session session = sessionFactory.openSession()) {
+            R result = work.apply(session);
+            recordLoads(operation, session.getStatistics());
+            failed = false;
+            return result;
+        } finally {
+            recordTiming(operation, start, failed, scope);
+        }
+    }
+
+    // Runs the query built by buildQuery; queries slower than SLOW_QUERY_MS are logged with
+    // their HQL and bind parameters
+    protected <R> List<R> list(String operation, Function<Session, ? extends TypedQuery<R>> buildQuery) {
+        return inSession(operation, session -> {
+            TypedQuery<R> query = buildQuery.apply(session);
+            long start = System.nanoTime();
+            List<R> result = query.getResultList();
+            logIfSlow(operation, start, query);
+            return result;
+        });
+    }
+
+    // First row of the query, or null when there is none
+    protected <R> R first(String operation, Function<Session, ? extends TypedQuery<R>> buildQuery) {
+        List<R> results = list(operation, buildQuery);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    // Name of the DAO method that called the helper invoking this, e.g. findRoomConflicts for
+    // TimetableDAO.executeQuery; lets the query helpers attribute metrics without a parameter
+    protected static String callingMethod() {
+        return StackWalker.getInstance()
+                .walk(frames -> frames.skip(2).findFirst())
+                .map(StackWalker.StackFrame::getMethodName)
+                .orElse("query");
+    }
+
+    protected QueryScope openScope(String operation) {
+        return QueryScope.open(entityClass.getSimpleName() + "." + operation);
+    }
+
+    // Closes the call's scope and feeds the timeflow.dao timer, statement count and error counter
+    protected void recordTiming(String operation, long startNanos, boolean failed, QueryScope scope) {
+        scope.close();
+        String entity = entityClass.getSimpleName();
+        Metrics.timer("timeflow.dao", "entity", entity, "op", operation).record(System.nanoTime() - startNanos);
+        Metrics.counter("timeflow.dao.statements", "entity", entity, "op", operation).increment(scope.getStatements());
+        if (failed) {
+            Metrics.counter("timeflow.dao.errors", "entity", entity, "op", operation).increment();
+        }
+    }
+
+    private void recordLoads(String operation, SessionStatistics statistics) {
+        String entity = entityClass.getSimpleName();
+        Metrics.counter("timeflow.dao.entities", "entity", entity, "op", operation)
+                .increment(statistics.getEntityCount());
+        Metrics.counter("timeflow.dao.collections", "entity", entity, "op", operation)
+                .increment(statistics.getCollectionCount());
+    }
+
+    protected void logIfSlow(String operation, long startNanos, TypedQuery<?> query) {
+        long elapsed = System.nanoTime() - startNanos;
+        if (elapsed < SLOW_QUERY_NANOS) {
+            return;
+        }
+        String entity = entityClass.getSimpleName();
+        Metrics.counter("timeflow.dao.slow", "entity", entity, "op", operation).increment();
+        String hql = query instanceof Query ? ((Query<?>) query).getQueryString() : String.valueOf(query);
+        slowQueryLogger.warn("{}.{} took {} ms: {} with {}",
+                entity, operation, elapsed / 1_000_000, hql, describeParameters(query));
+    }
+
+    private static String describeParameters(TypedQuery<?> query) {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        try {
+            for (Parameter<?> parameter : query.getParameters()) {
+                String name = parameter.getName() != null ? parameter.getName() : "?" + parameter.getPosition();
+                String value;
+                try {
+                    value = describeValue(query.getParameterValue(parameter));
+                } catch (IllegalStateException e) {
+                    value = "<unbound>";
+                }
+                joiner.add(name + "=" + value);
+            }
+        } catch (RuntimeException e) {
+            return "<parameters unavailable>";
+        }
+        return joiner.toString();
+    }
+
+    // Entities are shown as Type#id so logging never walks their associations
+    private static String describeValue(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value.getClass().isAnnotationPresent(Entity.class)) {
+            Object id = idOf(value);
+            return value.getClass().getSimpleName() + (id != null ? "#" + id : "");
+        }
+        if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            StringJoiner joiner = new StringJoiner(", ", "[", values.size() > 5 ? ", ... " + values.size() + " values]" : "]");
+            Iterator<?> iterator = values.iterator();
+            for (int i = 0; i < 5 && iterator.hasNext(); i++) {
+                joiner.add(describeValue(iterator.next()));
+            }
+            return joiner.toString();
+        }
+        String text = value instanceof String ? "'" + value + "'" : value.toString();
+        return text.length() > 100 ? text.substring(0, 100) + "..." : text;
+    }
+
+    // Hibernate reports a version mismatch as OptimisticLockException from merge, or as a
+    // StaleStateException when the row changed between merge and commit
+    protected static boolean isStale(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object idOf(Object entity) {
+        try {
+            return entity.getClass().getMethod("getId").invoke(entity);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // Reference data DAOs (courses, rooms, departments, users) return the name their writes
+    // are versioned under, see ReferenceDataVersion
+    protected String referenceDataName() {
+        return null;
+    }
+
+    protected void bumpReferenceVersion(Session session) {
+        String name = referenceDataName();
+        if (name != null) {
+            ReferenceDataVersionDAO.bump(session, name);
+        }
+    }
+
+    // Entity writes go through here; a DAO that versions some of its rows separately as well
+    // (UserDAO: lecturers) overrides it
+    protected void bumpReferenceVersion(Session session, Collection<? extends T> written) {
+        bumpReferenceVersion(session);
+    }
+
+    protected void afterReferenceCommit() {
+        if (referenceDataName() != null) {
+            ReferenceDataVersionDAO.markCommitted();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.timeflow.dao;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.timeflow.entity.CalendarFeedToken;
+import org.timeflow.entity.User;
+import org.timeflow.metrics.QueryScope;
+
+import java.time.LocalDateTime;
+
+public class CalendarFeedTokenDAO extends BaseDAO<CalendarFeedToken, Long> {
+
+    public CalendarFeedTokenDAO() {
+        super(CalendarFeedToken.class);
+    }
+
+    // The unrevoked token with this hash, with its user loaded
+    public CalendarFeedToken findActiveByHash(String tokenHash) {
+        return first("findActiveByHash", session -> session.createQuery(
+                        "FROM CalendarFeedToken t JOIN FETCH t.user " +
+                                "WHERE t.tokenHash = :tokenHash AND t.revokedAt IS NULL", CalendarFeedToken.class)
+                .setParameter("tokenHash", tokenHash));
+    }
+
+    public int revokeAll(User user) {
+        return executeUpdate("revokeAll",
+                "UPDATE CalendarFeedToken t SET t.revokedAt = :now WHERE t.user = :user AND t.revokedAt IS NULL",
+                query -> query
+                        .setParameter("now", LocalDateTime.now())
+                        .setParameter("user", user));
+    }
+
+    // Revokes the user's tokens and saves the new one in one transaction, so a user never
+    // holds two live feed addresses
+    public CalendarFeedToken replace(CalendarFeedToken token) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("replace");
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            session.createMutationQuery(
+                            "UPDATE CalendarFeedToken t SET t.revokedAt = :now " +
+                                    "WHERE t.user = :user AND t.revokedAt IS NULL")
+                    .setParameter("now", token.getCreatedAt())
+                    .setParameter("user", token.getUser())
+                    .executeUpdate();
+            session.persist(token);
+            transaction.commit();
+            return token;
+        } catch (Exception e) {
+            failed = true;
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error issuing calendar feed token for user {}: {}",
+                    token.getUser().getId(), e.getMessage(), e);
+            throw new RuntimeException("Failed to issue calendar feed token", e);
+        } finally {
+            recordTiming("replace", start, failed, scope);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package org.timeflow.dao;
 
 import org.timeflow.entity.*;
-import org.hibernate.Session;
 import jakarta.persistence.criteria.*;
-import jakarta.persistence.TypedQuery;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class ConflictDAO extends BaseDAO<Conflict, Long> {
 
@@ -15,14 +18,11 @@ public class ConflictDAO extends BaseDAO<Conflict, Long> {
 
     @Override
     public List<Conflict> findAll() {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("FROM Conflict d ORDER BY d.name", Conflict.class)
-                    .getResultList();
-        }
+        return list("findAll", session -> session.createQuery("FROM Conflict d ORDER BY d.detectedAt DESC", Conflict.class));
     }
 
     public List<Conflict> findByStatus(ConflictStatus status) {
-        try (Session session = sessionFactory.openSession()) {
+        return list("findByStatus", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Conflict> query = cb.createQuery(Conflict.class);
             Root<Conflict> root = query.from(Conflict.class);
@@ -32,13 +32,32 @@ public class ConflictDAO extends BaseDAO<Conflict, Long> {
                     .orderBy(cb.desc(root.get("detectedAt")));
 
             // --- FIX: Removed incorrect cast ---
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
+    }
+
+    public List<Conflict> findByTerm(AcademicTerm term) {
+        return list("findByTerm", session -> {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<Conflict> query = cb.createQuery(Conflict.class);
+            Root<Conflict> root = query.from(Conflict.class);
+
+            query.select(root)
+                    .where(inTerm(cb, root, term))
+                    .orderBy(cb.desc(root.get("detectedAt")));
+            return session.createQuery(query);
+        });
+    }
+
+    // Conflicts are partitioned by term like their timetables; naming it reads one partition
+    private static Predicate inTerm(CriteriaBuilder cb, Root<Conflict> root, AcademicTerm term) {
+        return cb.and(cb.equal(root.get("academicYear"), term.academicYear()),
+                cb.equal(root.get("semester"), term.semester()));
     }
 
     // Find conflicts by timetable using Criteria API
     public List<Conflict> findByTimetable(Timetable timetable) {
-        try (Session session = sessionFactory.openSession()) {
+        return list("findByTimetable", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Conflict> query = cb.createQuery(Conflict.class);
             Root<Conflict> root = query.from(Conflict.class);
@@ -47,16 +66,58 @@ public class ConflictDAO extends BaseDAO<Conflict, Long> {
             Predicate timetable2Match = cb.equal(root.get("timetable2"), timetable);
 
             query.select(root)
-                    .where(cb.or(timetable1Match, timetable2Match));
+                    .where(inTerm(cb, root, timetable.getTerm()), cb.or(timetable1Match, timetable2Match));
 
             // --- FIX: Removed incorrect cast ---
-            return session.createQuery(query).getResultList();
+            return session.createQuery(query);
+        });
+    }
+
+    // Which of the given timetables take part in a DETECTED or APPEALED conflict, in one query
+    public Set<Long> findTimetableIdsWithUnresolvedConflicts(Collection<Long> timetableIds) {
+        if (timetableIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<Object[]> pairs = list("findTimetableIdsWithUnresolvedConflicts", session -> session
+                .createQuery("SELECT c.timetable1.id, c.timetable2.id FROM Conflict c " +
+                        "WHERE c.status IN :unresolved " +
+                        "AND (c.timetable1.id IN :ids OR c.timetable2.id IN :ids)", Object[].class)
+                .setParameterList("unresolved", List.of(ConflictStatus.DETECTED, ConflictStatus.APPEALED))
+                .setParameterList("ids", timetableIds));
+        Set<Long> wanted = new HashSet<>(timetableIds);
+        Set<Long> blocked = new HashSet<>();
+        for (Object[] pair : pairs) {
+            for (Object id : pair) {
+                if (wanted.contains(id)) {
+                    blocked.add((Long) id);
+                }
+            }
+        }
+        return blocked;
+    }
+
+    // Marks DETECTED conflicts resolved in one UPDATE, e.g. once a room re-pack has cleared them
+    public int resolveAll(Collection<Long> conflictIds, String resolution, User resolvedBy) {
+        if (conflictIds.isEmpty()) {
+            return 0;
         }
+        return executeUpdate("resolveAll",
+                "UPDATE VERSIONED Conflict c SET c.status = :resolved, c.resolutionNotes = :resolution, " +
+                        "c.resolvedBy = :resolvedBy, c.resolvedAt = :resolvedAt " +
+                        "WHERE c.id IN :ids AND c.status = :detected",
+                query -> {
+                    query.setParameter("resolved", ConflictStatus.RESOLVED);
+                    query.setParameter("resolution", resolution);
+                    query.setParameter("resolvedBy", resolvedBy);
+                    query.setParameter("resolvedAt", LocalDateTime.now());
+                    query.setParameter("detected", ConflictStatus.DETECTED);
+                    query.setParameterList("ids", conflictIds);
+                });
     }
 
     // Find conflicts by type using Criteria API
     public List<Conflict> findByType(ConflictType type) {
-        try (Session session = sessionFactory.openSession()) {
+        return list("findByType", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Conflict> query = cb.createQuery(Conflict.class);
             Root<Conflict> root = query.from(Conflict.class);
@@ -66,13 +127,13 @@ public class ConflictDAO extends BaseDAO<Conflict, Long> {
                     .orderBy(cb.desc(root.get("detectedAt")));
 
             // --- FIX: Removed incorrect cast ---
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Find unresolved conflicts using Criteria API
     public List<Conflict> findUnresolvedConflicts() {
-        try (Session session = sessionFactory.openSession()) {
+        return list("findUnresolvedConflicts", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Conflict> query = cb.createQuery(Conflict.class);
             Root<Conflict> root = query.from(Conflict.class);
@@ -84,13 +145,13 @@ public class ConflictDAO extends BaseDAO<Conflict, Long> {
                     .orderBy(cb.desc(root.get("detectedAt")));
 
             // --- FIX: Removed incorrect cast ---
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Find conflicts for a specific department using Criteria API with joins
     public List<Conflict> findByDepartment(Department department) {
-        try (Session session = sessionFactory.openSession()) {
+        return list("findByDepartment", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Conflict> query = cb.createQuery(Conflict.class);
             Root<Conflict> root = query.from(Conflict.class);
@@ -108,13 +169,13 @@ public class ConflictDAO extends BaseDAO<Conflict, Long> {
                     .orderBy(cb.desc(root.get("detectedAt")));
 
             // --- FIX: Removed incorrect cast ---
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Find conflicts involving a specific lecturer using Criteria API with joins
     public List<Conflict> findByLecturer(User lecturer) {
-        try (Session session = sessionFactory.openSession()) {
+        return list("findByLecturer", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Conflict> query = cb.createQuery(Conflict.class);
             Root<Conflict> root = query.from(Conflict.class);
@@ -132,13 +193,13 @@ public class ConflictDAO extends BaseDAO<Conflict, Long> {
                     .orderBy(cb.desc(root.get("detectedAt")));
 
             // --- FIX: Removed incorrect cast ---
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Check if conflict already exists using Criteria API
     public Conflict findExistingConflict(Timetable timetable1, Timetable timetable2) {
-        try (Session session = sessionFactory.openSession()) {
+        return first("findExistingConflict", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Conflict> query = cb.createQuery(Conflict.class);
             Root<Conflict> root = query.from(Conflict.class);
@@ -153,19 +214,16 @@ public class ConflictDAO extends BaseDAO<Conflict, Long> {
                     cb.equal(root.get("timetable2"), timetable1)
             );
 
-            query.select(root).where(cb.or(combo1, combo2));
+            query.select(root).where(inTerm(cb, root, timetable1.getTerm()), cb.or(combo1, combo2));
 
             // --- FIX: Removed incorrect cast ---
-            TypedQuery<Conflict> typedQuery = session.createQuery(query);
-            List<Conflict> results = typedQuery.getResultList();
-
-            return results.isEmpty() ? null : results.get(0);
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Get conflict statistics using Criteria API with groupBy and multiselect
     public List<ConflictStatistic> getConflictStats() {
-        try (Session session = sessionFactory.openSession()) {
+        return list("getConflictStats", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<ConflictStatistic> query = cb.createQuery(ConflictStatistic.class);
             Root<Conflict> root = query.from(Conflict.class);
@@ -182,8 +240,8 @@ public class ConflictDAO extends BaseDAO<Conflict, Long> {
                     );
 
             // --- FIX: Changed the return type to match the method signature ---
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Helper class for statistics result
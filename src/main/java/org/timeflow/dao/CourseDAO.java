@@ -1,13 +1,12 @@
 package org.timeflow.dao;
 
-import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.timeflow.entity.Course;
 import org.timeflow.entity.Department;
+import org.timeflow.entity.ReferenceDataVersion;
 import org.timeflow.entity.User;
 import jakarta.persistence.criteria.*;
-import jakarta.persistence.TypedQuery;
 
 import java.util.Collections;
 import java.util.List;
@@ -19,9 +18,14 @@ public class CourseDAO extends BaseDAO<Course, Long> {
         super(Course.class);
     }
 
+    @Override
+    protected String referenceDataName() {
+        return ReferenceDataVersion.COURSES;
+    }
+
     // Find course by code using Criteria API
     public Course findByCode(String code) {
-        try (Session session = sessionFactory.openSession()) {
+        return first("findByCode", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Course> query = cb.createQuery(Course.class);
             Root<Course> root = query.from(Course.class);
@@ -29,16 +33,13 @@ public class CourseDAO extends BaseDAO<Course, Long> {
             query.select(root)
                     .where(cb.equal(root.get("code"), code));
 
-            TypedQuery<Course> typedQuery = session.createQuery(query);
-            List<Course> results = typedQuery.getResultList();
-
-            return results.isEmpty() ? null : results.get(0);
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Find courses by department using Criteria API
     public List<Course> findByDepartment(Department department) {
-        try (Session session = sessionFactory.openSession()) {
+        return list("findByDepartment", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Course> query = cb.createQuery(Course.class);
             Root<Course> root = query.from(Course.class);
@@ -47,13 +48,13 @@ public class CourseDAO extends BaseDAO<Course, Long> {
                     .where(cb.equal(root.get("department"), department))
                     .orderBy(cb.asc(root.get("level")), cb.asc(root.get("name")));
 
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Find courses by lecturer using Criteria API
     public List<Course> findByLecturer(User lecturer) {
-        try (Session session = sessionFactory.openSession()) {
+        return list("findByLecturer", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Course> query = cb.createQuery(Course.class);
             Root<Course> root = query.from(Course.class);
@@ -62,13 +63,13 @@ public class CourseDAO extends BaseDAO<Course, Long> {
                     .where(cb.equal(root.get("lecturer"), lecturer))
                     .orderBy(cb.asc(root.get("name")));
 
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Find courses by department and level using Criteria API
     public List<Course> findByDepartmentAndLevel(Department department, int level) {
-        try (Session session = sessionFactory.openSession()) {
+        return list("findByDepartmentAndLevel", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<Course> query = cb.createQuery(Course.class);
             Root<Course> root = query.from(Course.class);
@@ -80,8 +81,8 @@ public class CourseDAO extends BaseDAO<Course, Long> {
                     .where(cb.and(departmentMatch, levelMatch))
                     .orderBy(cb.asc(root.get("name")));
 
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Find borrowed courses using Criteria API with joins
@@ -96,7 +97,7 @@ public class CourseDAO extends BaseDAO<Course, Long> {
 
     // Get course statistics using Criteria API with multiselect and joins
     public List<CourseStatistic> getCourseStats() {
-        try (Session session = sessionFactory.openSession()) {
+        return list("getCourseStats", session -> {
             CriteriaBuilder cb = session.getCriteriaBuilder();
             CriteriaQuery<CourseStatistic> query = cb.createQuery(CourseStatistic.class);
             Root<Course> courseRoot = query.from(Course.class);
@@ -127,8 +128,8 @@ public class CourseDAO extends BaseDAO<Course, Long> {
                             cb.asc(courseRoot.get("name"))
                     );
 
-            return session.createQuery(query).getResultList();
-        }
+            return session.createQuery(query);
+        });
     }
 
     // Helper class for course statistics result
@@ -7,14 +7,14 @@ public class DAOFactory {
     private CourseDAO courseDAO;
     private TimetableDAO timetableDAO;
     private ConflictDAO conflictDAO;
+    private RoomDAO roomDAO;
+    private TimetableChangeDAO timetableChangeDAO;
+    private ReferenceDataVersionDAO referenceDataVersionDAO;
+    private EnrollmentDAO enrollmentDAO;
+    private CalendarFeedTokenDAO calendarFeedTokenDAO;
 
     private DAOFactory() {
-        // Initialize all DAOs
-        userDAO = new UserDAO();
-        departmentDAO = new DepartmentDAO();
-        courseDAO = new CourseDAO();
-        timetableDAO = new TimetableDAO();
-        conflictDAO = new ConflictDAO();
+        // DAOs are created on first use so services can be constructed without touching Hibernate
     }
 
     public static synchronized DAOFactory getInstance() {
@@ -25,9 +25,53 @@ public class DAOFactory {
     }
 
     // Getters for all DAOs
-    public UserDAO getUserDAO() { return userDAO; }
-    public DepartmentDAO getDepartmentDAO() { return departmentDAO; }
-    public CourseDAO getCourseDAO() { return courseDAO; }
-    public TimetableDAO getTimetableDAO() { return timetableDAO; }
-    public ConflictDAO getConflictDAO() { return conflictDAO; }
+    public synchronized UserDAO getUserDAO() {
+        if (userDAO == null) userDAO = new UserDAO();
+        return userDAO;
+    }
+
+    public synchronized DepartmentDAO getDepartmentDAO() {
+        if (departmentDAO == null) departmentDAO = new DepartmentDAO();
+        return departmentDAO;
+    }
+
+    public synchronized CourseDAO getCourseDAO() {
+        if (courseDAO == null) courseDAO = new CourseDAO();
+        return courseDAO;
+    }
+
+    public synchronized TimetableDAO getTimetableDAO() {
+        if (timetableDAO == null) timetableDAO = new TimetableDAO();
+        return timetableDAO;
+    }
+
+    public synchronized ConflictDAO getConflictDAO() {
+        if (conflictDAO == null) conflictDAO = new ConflictDAO();
+        return conflictDAO;
+    }
+
+    public synchronized RoomDAO getRoomDAO() {
+        if (roomDAO == null) roomDAO = new RoomDAO();
+        return roomDAO;
+    }
+
+    public synchronized TimetableChangeDAO getTimetableChangeDAO() {
+        if (timetableChangeDAO == null) timetableChangeDAO = new TimetableChangeDAO();
+        return timetableChangeDAO;
+    }
+
+    public synchronized ReferenceDataVersionDAO getReferenceDataVersionDAO() {
+        if (referenceDataVersionDAO == null) referenceDataVersionDAO = new ReferenceDataVersionDAO();
+        return referenceDataVersionDAO;
+    }
+
+    public synchronized EnrollmentDAO getEnrollmentDAO() {
+        if (enrollmentDAO == null) enrollmentDAO = new EnrollmentDAO();
+        return enrollmentDAO;
+    }
+
+    public synchronized CalendarFeedTokenDAO getCalendarFeedTokenDAO() {
+        if (calendarFeedTokenDAO == null) calendarFeedTokenDAO = new CalendarFeedTokenDAO();
+        return calendarFeedTokenDAO;
+    }
 }
@@ -2,6 +2,7 @@ package org.timeflow.dao;
 
 import org.hibernate.Session;
 import org.timeflow.entity.Department;
+import org.timeflow.entity.ReferenceDataVersion;
 
 import java.util.List;
 
@@ -10,6 +11,11 @@ public class DepartmentDAO extends BaseDAO<Department, Long> {
         super(Department.class);
     }
 
+    @Override
+    protected String referenceDataName() {
+        return ReferenceDataVersion.DEPARTMENTS;
+    }
+
     @Override
     public List<Department> findAll() {
         try (Session session = sessionFactory.openSession()) {
@@ -0,0 +1,182 @@
+package org.timeflow.dao;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.timeflow.entity.Course;
+import org.timeflow.entity.Department;
+import org.timeflow.entity.Enrollment;
+import org.timeflow.entity.ReferenceDataVersion;
+import org.timeflow.entity.User;
+import org.timeflow.metrics.QueryScope;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class EnrollmentDAO extends BaseDAO<Enrollment, Long> {
+    // Rows fetched per round trip while streaming a year's enrollments
+    private static final int STREAM_FETCH_SIZE = 10_000;
+
+    public EnrollmentDAO() {
+        super(Enrollment.class);
+    }
+
+    // Writes bump their academic year's version (ReferenceDataVersion.enrollments) rather than
+    // one row for all enrollments, so StudentClashIndex notices other clients' changes to a year
+    // through ReferenceDataCache's version check, and applies its own without a rebuild.
+
+    // Saves the enrollment and returns its year's version after the write
+    public long enroll(Enrollment enrollment) {
+        return inYearTransaction("enroll", enrollment.getAcademicYear(), session -> {
+            session.persist(enrollment);
+            return 1;
+        });
+    }
+
+    public List<Course> findCourses(User student, int academicYear) {
+        return list("findCourses", session -> session.createQuery(
+                        "SELECT e.course FROM Enrollment e " +
+                                "WHERE e.student = :student AND e.academicYear = :academicYear " +
+                                "ORDER BY e.course.code", Course.class)
+                .setParameter("student", student)
+                .setParameter("academicYear", academicYear));
+    }
+
+    public List<User> findStudents(Course course, int academicYear) {
+        return list("findStudents", session -> session.createQuery(
+                        "SELECT e.student FROM Enrollment e " +
+                                "WHERE e.course = :course AND e.academicYear = :academicYear " +
+                                "AND e.student.isActive = true ORDER BY e.student.username", User.class)
+                .setParameter("course", course)
+                .setParameter("academicYear", academicYear));
+    }
+
+    public Enrollment find(User student, Course course, int academicYear) {
+        return first("find", session -> session.createQuery(
+                        "FROM Enrollment e WHERE e.student = :student AND e.course = :course " +
+                                "AND e.academicYear = :academicYear", Enrollment.class)
+                .setParameter("student", student)
+                .setParameter("course", course)
+                .setParameter("academicYear", academicYear));
+    }
+
+    // Returns the year's version after the withdrawal, or 0 if the student was not enrolled
+    public long withdraw(User student, Course course, int academicYear) {
+        return inYearTransaction("withdraw", academicYear, session -> session.createMutationQuery(
+                        "DELETE FROM Enrollment e WHERE e.student = :student AND e.course = :course " +
+                                "AND e.academicYear = :academicYear")
+                .setParameter("student", student)
+                .setParameter("course", course)
+                .setParameter("academicYear", academicYear)
+                .executeUpdate());
+    }
+
+    public List<Long> findStudentIds(Long courseId, int academicYear) {
+        return list("findStudentIds", session -> session.createQuery(
+                        "SELECT e.student.id FROM Enrollment e " +
+                                "WHERE e.course.id = :courseId AND e.academicYear = :academicYear", Long.class)
+                .setParameter("courseId", courseId)
+                .setParameter("academicYear", academicYear));
+    }
+
+    // Streams (course id, student id) for every enrollment of the year, ordered by course and
+    // then student, without loading entities; returns the number of rows
+    public long forEachCourseStudent(int academicYear, BiConsumer<Long, Long> consumer) {
+        return inSession("forEachCourseStudent", session -> {
+            long rows = 0;
+            try (Stream<Object[]> stream = session.createQuery(
+                            "SELECT e.course.id, e.student.id FROM Enrollment e " +
+                                    "WHERE e.academicYear = :academicYear ORDER BY e.course.id, e.student.id",
+                            Object[].class)
+                    .setParameter("academicYear", academicYear)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .getResultStream()) {
+                for (Object[] row : (Iterable<Object[]>) stream::iterator) {
+                    consumer.accept((Long) row[0], (Long) row[1]);
+                    rows++;
+                }
+            }
+            return rows;
+        });
+    }
+
+    // Enrolls the cohort's active students who have no enrollments in the year yet in every
+    // course of their department and level, in one INSERT ... SELECT. Carry-overs and electives
+    // are added on top with save.
+    public int enrollCohort(Department department, int level, int academicYear) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("enrollCohort");
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            int enrolled = session.createNativeMutationQuery(
+                            "INSERT INTO enrollments (id, student_id, course_id, academic_year, enrolled_at) " +
+                                    "SELECT nextval('enrollments_seq'), u.id, c.id, :academicYear, :enrolledAt " +
+                                    "FROM users u JOIN courses c ON c.department_id = u.department_id " +
+                                    "AND c.academic_level = u.academic_level " +
+                                    "WHERE u.role = 'STUDENT' AND u.is_active " +
+                                    "AND u.department_id = :departmentId AND u.academic_level = :level " +
+                                    "AND NOT EXISTS (SELECT 1 FROM enrollments e " +
+                                    "WHERE e.student_id = u.id AND e.academic_year = :academicYear)")
+                    .setParameter("academicYear", academicYear)
+                    .setParameter("enrolledAt", LocalDateTime.now())
+                    .setParameter("departmentId", department.getId())
+                    .setParameter("level", level)
+                    .executeUpdate();
+            if (enrolled > 0) {
+                ReferenceDataVersionDAO.bump(session, ReferenceDataVersion.enrollments(academicYear));
+            }
+            transaction.commit();
+            if (enrolled > 0) {
+                ReferenceDataVersionDAO.markCommitted();
+            }
+            return enrolled;
+        } catch (Exception e) {
+            failed = true;
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error enrolling cohort {} level {} for {}: {}",
+                    department.getCode(), level, academicYear, e.getMessage(), e);
+            throw new RuntimeException("Failed to enroll cohort", e);
+        } finally {
+            recordTiming("enrollCohort", start, failed, scope);
+        }
+    }
+
+    // Runs the write and bumps the year's version last, so the version row is locked only
+    // for the commit; returns the new version, or 0 when the write changed no rows
+    private long inYearTransaction(String operation, int academicYear, Function<Session, Integer> work) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope(operation);
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            int changed = work.apply(session);
+            long version = 0;
+            if (changed > 0) {
+                session.flush();
+                version = ReferenceDataVersionDAO.bumpAndGet(session, ReferenceDataVersion.enrollments(academicYear));
+            }
+            transaction.commit();
+            if (changed > 0) {
+                ReferenceDataVersionDAO.markCommitted();
+            }
+            return version;
+        } catch (Exception e) {
+            failed = true;
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error running Enrollment.{} for {}: {}", operation, academicYear, e.getMessage(), e);
+            throw new RuntimeException("Failed to update enrollments", e);
+        } finally {
+            recordTiming(operation, start, failed, scope);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.timeflow.dao;
+
+/**
+ * An update was based on a copy of the entity that someone else has changed since it was
+ * read; nothing was written. Services retry operations that re-read what they change (see
+ * BaseService.retryOnConflict); edits made on a copy the user was looking at are reported so
+ * they can reload and reapply them.
+ */
+public class OptimisticUpdateException extends RuntimeException {
+    private final String entityName;
+    private final Object id;
+
+    public OptimisticUpdateException(String entityName, Object id, Throwable cause) {
+        super(entityName + " " + id + " was changed by someone else; reload it and try again", cause);
+        this.entityName = entityName;
+        this.id = id;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Object getId() {
+        return id;
+    }
+}
@@ -0,0 +1,61 @@
+package org.timeflow.dao;
+
+import org.hibernate.Session;
+import org.timeflow.entity.ReferenceDataVersion;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ReferenceDataVersionDAO extends BaseDAO<ReferenceDataVersion, String> {
+    // Writes committed by this process, so local caches can react without waiting for their next poll
+    private static final AtomicLong localWrites = new AtomicLong();
+
+    public ReferenceDataVersionDAO() {
+        super(ReferenceDataVersion.class);
+    }
+
+    // Current version of every kind of reference data, in a single small query
+    public Map<String, Long> findVersions() {
+        try (Session session = sessionFactory.openSession()) {
+            List<ReferenceDataVersion> rows = session.createQuery("FROM ReferenceDataVersion", ReferenceDataVersion.class)
+                    .getResultList();
+            Map<String, Long> versions = new HashMap<>();
+            for (ReferenceDataVersion row : rows) {
+                versions.put(row.getName(), row.getVersion());
+            }
+            return versions;
+        } catch (Exception e) {
+            logger.error("Error reading reference data versions: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to read reference data versions", e);
+        }
+    }
+
+    public static long getLocalWriteCount() {
+        return localWrites.get();
+    }
+
+    static void markCommitted() {
+        localWrites.incrementAndGet();
+    }
+
+    // Runs inside the caller's transaction so the bump commits or rolls back with the write
+    static void bump(Session session, String name) {
+        int updated = session.createMutationQuery(
+                        "UPDATE ReferenceDataVersion v SET v.version = v.version + 1 WHERE v.name = :name")
+                .setParameter("name", name)
+                .executeUpdate();
+        if (updated == 0) {
+            session.persist(new ReferenceDataVersion(name, 1L));
+        }
+    }
+
+    // As bump, returning the version the caller's write will commit as
+    static long bumpAndGet(Session session, String name) {
+        bump(session, name);
+        return session.createQuery("SELECT v.version FROM ReferenceDataVersion v WHERE v.name = :name", Long.class)
+                .setParameter("name", name)
+                .getSingleResult();
+    }
+}
@@ -1,6 +1,7 @@
 package org.timeflow.dao;
 
 import org.timeflow.entity.Room;
+import org.timeflow.entity.ReferenceDataVersion;
 import org.hibernate.Session;
 import java.util.List;
 
@@ -10,6 +11,11 @@ public class RoomDAO extends BaseDAO<Room, Long> {
         super(Room.class);
     }
 
+    @Override
+    protected String referenceDataName() {
+        return ReferenceDataVersion.ROOMS;
+    }
+
     @Override
     public List<Room> findAll() {
         try (Session session = sessionFactory.openSession()) {
@@ -86,10 +86,10 @@ public class ScheduleDAO extends BaseDAO<Timetable, Long> {
     }
 
     private <T> List<T> executeQuery(String hql, Class<T> resultClass, Consumer<Query<T>> paramSetter) {
-        try (Session session = sessionFactory.openSession()) {
+        return list(callingMethod(), session -> {
             Query<T> query = session.createQuery(hql, resultClass);
             paramSetter.accept(query);
-            return query.list();
-        }
+            return query;
+        });
     }
 }
\ No newline at end of file
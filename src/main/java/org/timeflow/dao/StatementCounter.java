@@ -0,0 +1,17 @@
+package org.timeflow.dao;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.timeflow.metrics.QueryScope;
+
+/**
+ * Hibernate StatementInspector that reports each prepared statement to the thread's open
+ * {@link QueryScope}s. Registered by HibernateUtil; the SQL is passed through unchanged.
+ */
+public class StatementCounter implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryScope.statementPrepared(sql);
+        return sql;
+    }
+}
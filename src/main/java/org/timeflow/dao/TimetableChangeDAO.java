@@ -0,0 +1,85 @@
+package org.timeflow.dao;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.timeflow.entity.ChangeDigestDelivery;
+import org.timeflow.entity.TimetableChange;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class TimetableChangeDAO extends BaseDAO<TimetableChange, Long> {
+
+    public TimetableChangeDAO() {
+        super(TimetableChange.class);
+    }
+
+    // All changes not yet included in a sent digest, oldest first
+    public List<TimetableChange> findPending() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                            "FROM TimetableChange c WHERE c.notifiedAt IS NULL ORDER BY c.changedAt, c.id",
+                            TimetableChange.class)
+                    .getResultList();
+        }
+    }
+
+    // Claims unclaimed changes for one digest; fewer rows than ids means another run got there first
+    public int claim(Collection<Long> changeIds, long digestId) {
+        return executeUpdate("claim",
+                "UPDATE TimetableChange c SET c.digestId = :digestId " +
+                        "WHERE c.id IN (:ids) AND c.digestId IS NULL AND c.notifiedAt IS NULL",
+                query -> query
+                        .setParameter("digestId", digestId)
+                        .setParameterList("ids", changeIds));
+    }
+
+    public Set<Long> findDeliveredStudentIds(long digestId) {
+        return new HashSet<>(list("findDeliveredStudentIds", session -> session.createQuery(
+                        "SELECT d.studentId FROM ChangeDigestDelivery d WHERE d.digestId = :digestId", Long.class)
+                .setParameter("digestId", digestId)));
+    }
+
+    // Called right after each student's email is sent, so a retry does not send it again
+    public void recordDelivery(long digestId, long studentId) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            session.persist(new ChangeDigestDelivery(digestId, studentId));
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error recording digest {} delivery to student {}: {}", digestId, studentId, e.getMessage(), e);
+            throw new RuntimeException("Failed to record change digest delivery", e);
+        }
+    }
+
+    // Stamps a digest's changes once every student has it, and drops its delivery rows
+    public int markNotified(long digestId, LocalDateTime notifiedAt) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            int updated = session.createMutationQuery(
+                            "UPDATE TimetableChange c SET c.notifiedAt = :notifiedAt WHERE c.digestId = :digestId")
+                    .setParameter("notifiedAt", notifiedAt)
+                    .setParameter("digestId", digestId)
+                    .executeUpdate();
+            session.createMutationQuery("DELETE FROM ChangeDigestDelivery d WHERE d.digestId = :digestId")
+                    .setParameter("digestId", digestId)
+                    .executeUpdate();
+            transaction.commit();
+            return updated;
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error marking timetable changes as notified: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to mark timetable changes as notified", e);
+        }
+    }
+}
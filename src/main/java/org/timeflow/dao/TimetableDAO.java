@@ -1,53 +1,100 @@
 package org.timeflow.dao;
 
 import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.timeflow.entity.*;
+import org.timeflow.metrics.QueryScope;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
 public class TimetableDAO extends BaseDAO<Timetable, Long> {
 
+    // Whether the schema is partitioned by term, once known, and the years whose partitions exist
+    private volatile Boolean partitioned;
+    private final Set<Integer> partitionedYears = ConcurrentHashMap.newKeySet();
+
     public TimetableDAO() {
         super(Timetable.class);
     }
 
     private <T> List<T> executeQuery(String hql, Class<T> resultClass, Consumer<Query<T>> paramSetter) {
-        try (Session session = sessionFactory.openSession()) {
+        return list(callingMethod(), session -> {
             Query<T> query = session.createQuery(hql, resultClass);
             paramSetter.accept(query);
-            return query.list();
-        }
+            return query;
+        });
+    }
+
+    // The filter every term-scoped query uses. Naming the term lets PostgreSQL prune the
+    // timetables table down to that term's partition (migration V4)
+    private static final String IN_TERM = "t.academicYear = :academicYear AND t.semester = :semester ";
+
+    private static void setTerm(Query<?> query, AcademicTerm term) {
+        query.setParameter("academicYear", term.academicYear());
+        query.setParameter("semester", term.semester());
     }
 
     // --- METHOD RESTORED ---
     // This method is required by the ConflictDetectionService.
-    public List<Timetable> findByCourse(Course course) {
+    public List<Timetable> findByCourse(Course course, AcademicTerm term) {
         return executeQuery(
-                "FROM Timetable t WHERE t.course = :course ORDER BY t.dayOfWeek, t.startTime",
+                "FROM Timetable t WHERE t.course = :course AND " + IN_TERM + "ORDER BY t.dayOfWeek, t.startTime",
                 Timetable.class,
-                query -> query.setParameter("course", course)
+                query -> {
+                    query.setParameter("course", course);
+                    setTerm(query, term);
+                }
         );
     }
 
-    public List<Timetable> findAllByDepartment(Department department) {
-        String hql = "FROM Timetable t WHERE t.course.department = :department ORDER BY t.dayOfWeek, t.startTime";
+    // A department's slots (every department's for null) in the given academic year and later;
+    // earlier years' partitions are not read
+    public List<Timetable> findFromYear(Department department, int fromAcademicYear) {
+        String hql = "FROM Timetable t WHERE t.academicYear >= :fromAcademicYear " +
+                (department != null ? "AND t.course.department = :department " : "") +
+                "ORDER BY t.dayOfWeek, t.startTime";
         return executeQuery(hql, Timetable.class, query -> {
-            query.setParameter("department", department);
+            query.setParameter("fromAcademicYear", fromAcademicYear);
+            if (department != null) {
+                query.setParameter("department", department);
+            }
         });
     }
 
+    public List<Timetable> findByDepartment(Department department, AcademicTerm term) {
+        return executeQuery(
+                "FROM Timetable t WHERE t.course.department = :department AND " + IN_TERM +
+                        "ORDER BY t.dayOfWeek, t.startTime",
+                Timetable.class,
+                query -> {
+                    query.setParameter("department", department);
+                    setTerm(query, term);
+                }
+        );
+    }
+
     public List<Timetable> findOverlappingStudentSchedules(Department department, int level, DayOfWeek dayOfWeek,
                                                            LocalTime startTime, LocalTime endTime,
-                                                           SemesterType semester, Long excludeId) {
+                                                           AcademicTerm term, Long excludeId) {
         String hql = "FROM Timetable t " +
                 "WHERE t.course.department = :department " +
                 "AND t.course.level = :level " +
-                "AND t.semester = :semester " +
+                "AND " + IN_TERM +
                 "AND t.dayOfWeek = :dayOfWeek " +
                 "AND t.startTime < :endTime AND t.endTime > :startTime " +
                 "AND t.status != :rejectedStatus" +
@@ -56,7 +103,7 @@ public class TimetableDAO extends BaseDAO<Timetable, Long> {
         return executeQuery(hql, Timetable.class, query -> {
             query.setParameter("department", department);
             query.setParameter("level", level);
-            query.setParameter("semester", semester);
+            setTerm(query, term);
             query.setParameter("dayOfWeek", dayOfWeek);
             query.setParameter("startTime", startTime);
             query.setParameter("endTime", endTime);
@@ -69,10 +116,10 @@ public class TimetableDAO extends BaseDAO<Timetable, Long> {
 
     public List<Timetable> findRoomConflicts(Room room, DayOfWeek dayOfWeek,
                                              LocalTime startTime, LocalTime endTime,
-                                             SemesterType semester, Long excludeId) {
+                                             AcademicTerm term, Long excludeId) {
         String hql = "FROM Timetable t " +
                 "WHERE t.room = :room " +
-                "AND t.semester = :semester " +
+                "AND " + IN_TERM +
                 "AND t.dayOfWeek = :dayOfWeek " +
                 "AND t.startTime < :endTime AND t.endTime > :startTime " +
                 "AND t.status != :rejectedStatus" +
@@ -80,7 +127,35 @@ public class TimetableDAO extends BaseDAO<Timetable, Long> {
 
         return executeQuery(hql, Timetable.class, query -> {
             query.setParameter("room", room);
-            query.setParameter("semester", semester);
+            setTerm(query, term);
+            query.setParameter("dayOfWeek", dayOfWeek);
+            query.setParameter("startTime", startTime);
+            query.setParameter("endTime", endTime);
+            query.setParameter("rejectedStatus", TimetableStatus.REJECTED);
+            if (excludeId != null) {
+                query.setParameter("excludeId", excludeId);
+            }
+        });
+    }
+
+    // Slots of the given courses overlapping the time; the courses come from StudentClashIndex
+    public List<Timetable> findCourseConflicts(Collection<Long> courseIds, DayOfWeek dayOfWeek,
+                                               LocalTime startTime, LocalTime endTime,
+                                               AcademicTerm term, Long excludeId) {
+        if (courseIds.isEmpty()) {
+            return List.of();
+        }
+        String hql = "FROM Timetable t " +
+                "WHERE t.course.id IN (:courseIds) " +
+                "AND " + IN_TERM +
+                "AND t.dayOfWeek = :dayOfWeek " +
+                "AND t.startTime < :endTime AND t.endTime > :startTime " +
+                "AND t.status != :rejectedStatus" +
+                (excludeId != null ? " AND t.id != :excludeId" : "");
+
+        return executeQuery(hql, Timetable.class, query -> {
+            query.setParameterList("courseIds", courseIds);
+            setTerm(query, term);
             query.setParameter("dayOfWeek", dayOfWeek);
             query.setParameter("startTime", startTime);
             query.setParameter("endTime", endTime);
@@ -93,10 +168,10 @@ public class TimetableDAO extends BaseDAO<Timetable, Long> {
 
     public List<Timetable> findLecturerConflicts(User lecturer, DayOfWeek dayOfWeek,
                                                  LocalTime startTime, LocalTime endTime,
-                                                 SemesterType semester, Long excludeId) {
+                                                 AcademicTerm term, Long excludeId) {
         String hql = "FROM Timetable t " +
                 "WHERE t.course.lecturer = :lecturer " +
-                "AND t.semester = :semester " +
+                "AND " + IN_TERM +
                 "AND t.dayOfWeek = :dayOfWeek " +
                 "AND t.startTime < :endTime AND t.endTime > :startTime " +
                 "AND t.status != :rejectedStatus" +
@@ -104,7 +179,7 @@ public class TimetableDAO extends BaseDAO<Timetable, Long> {
 
         return executeQuery(hql, Timetable.class, query -> {
             query.setParameter("lecturer", lecturer);
-            query.setParameter("semester", semester);
+            setTerm(query, term);
             query.setParameter("dayOfWeek", dayOfWeek);
             query.setParameter("startTime", startTime);
             query.setParameter("endTime", endTime);
@@ -115,42 +190,498 @@ public class TimetableDAO extends BaseDAO<Timetable, Long> {
         });
     }
 
-    public List<Timetable> findApprovedTimetables(Department department, int level, SemesterType semester) {
+    public List<Timetable> findApprovedTimetables(Department department, int level, AcademicTerm term) {
         return executeQuery(
                 "FROM Timetable t " +
                         "WHERE t.course.department = :department " +
                         "AND t.course.level = :level " +
-                        "AND t.semester = :semester " +
+                        "AND " + IN_TERM +
                         "AND t.status = :status " +
                         "ORDER BY t.dayOfWeek, t.startTime",
                 Timetable.class,
                 query -> {
                     query.setParameter("department", department);
                     query.setParameter("level", level);
-                    query.setParameter("semester", semester);
+                    setTerm(query, term);
                     query.setParameter("status", TimetableStatus.APPROVED);
                 }
         );
     }
 
-    public List<Timetable> findByStatus(TimetableStatus status) {
+    // All approved slots of a term with their course, department, lecturer and room in one query,
+    // used for bulk exports that would otherwise issue one query per cohort
+    public List<Timetable> findApprovedByTerm(AcademicTerm term) {
         return executeQuery(
-                "FROM Timetable t WHERE t.status = :status ORDER BY t.createdAt DESC",
+                "SELECT t FROM Timetable t " +
+                        "JOIN FETCH t.course c " +
+                        "JOIN FETCH c.department " +
+                        "LEFT JOIN FETCH c.lecturer " +
+                        "LEFT JOIN FETCH t.room " +
+                        "LEFT JOIN FETCH t.approvedBy " +
+                        "WHERE " + IN_TERM +
+                        "AND t.status = :status " +
+                        "ORDER BY t.dayOfWeek, t.startTime",
                 Timetable.class,
-                query -> query.setParameter("status", status)
+                query -> {
+                    setTerm(query, term);
+                    query.setParameter("status", TimetableStatus.APPROVED);
+                }
         );
     }
 
-    public List<Timetable> findByLecturer(User lecturer, SemesterType semester) {
+    // One page of timetables ordered by id, starting after the given id (keyset paging keeps late
+    // pages as cheap as the first), from the given academic year on. A null department returns
+    // timetables of every department.
+    public List<Timetable> findPageAfter(Department department, int fromAcademicYear, long afterId, int pageSize) {
+        return executeQuery(
+                "SELECT t FROM Timetable t " +
+                        "JOIN FETCH t.course c " +
+                        "JOIN FETCH c.department d " +
+                        "LEFT JOIN FETCH c.lecturer " +
+                        "LEFT JOIN FETCH t.room " +
+                        "LEFT JOIN FETCH t.approvedBy " +
+                        "WHERE t.id > :afterId AND t.academicYear >= :fromAcademicYear " +
+                        (department != null ? "AND d = :department " : "") +
+                        "ORDER BY t.id",
+                Timetable.class,
+                query -> {
+                    query.setParameter("afterId", afterId);
+                    query.setParameter("fromAcademicYear", fromAcademicYear);
+                    if (department != null) {
+                        query.setParameter("department", department);
+                    }
+                    query.setMaxResults(pageSize);
+                }
+        );
+    }
+
+    // The listed timetables in one query; ids without a row are left out
+    // The listed timetables that findPageAfter would return for the same department and year,
+    // so a paged view can refresh changed rows without reloading its pages
+    public List<Timetable> findInPagesByIds(Department department, int fromAcademicYear, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return executeQuery(
+                "SELECT t FROM Timetable t " +
+                        "JOIN FETCH t.course c " +
+                        "JOIN FETCH c.department d " +
+                        "LEFT JOIN FETCH c.lecturer " +
+                        "LEFT JOIN FETCH t.room " +
+                        "LEFT JOIN FETCH t.approvedBy " +
+                        "WHERE t.id IN :ids AND t.academicYear >= :fromAcademicYear " +
+                        (department != null ? "AND d = :department " : "") +
+                        "ORDER BY t.id",
+                Timetable.class,
+                query -> {
+                    query.setParameterList("ids", ids);
+                    query.setParameter("fromAcademicYear", fromAcademicYear);
+                    if (department != null) {
+                        query.setParameter("department", department);
+                    }
+                }
+        );
+    }
+
+    public List<Timetable> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return executeQuery(
+                "FROM Timetable t WHERE t.id IN :ids ORDER BY t.id",
+                Timetable.class,
+                query -> query.setParameterList("ids", ids)
+        );
+    }
+
+    // Approves the listed slots in one versioned UPDATE. The statement re-checks that each slot
+    // is not approved yet and has no unresolved conflict, so a conflict recorded since the caller
+    // looked is never approved over. Returns the number of slots approved.
+    public int approveAll(Collection<Long> ids, User approvedBy, LocalDateTime approvedAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return executeUpdate("approveAll",
+                "UPDATE VERSIONED Timetable t " +
+                        "SET t.status = :approved, t.approvedAt = :approvedAt, t.approvedBy = :approvedBy " +
+                        "WHERE t.id IN :ids AND t.status <> :approved " +
+                        "AND NOT EXISTS (SELECT 1 FROM Conflict c WHERE c.status IN :unresolved " +
+                        "AND (c.timetable1 = t OR c.timetable2 = t))",
+                query -> {
+                    query.setParameter("approved", TimetableStatus.APPROVED);
+                    query.setParameter("approvedAt", approvedAt);
+                    query.setParameter("approvedBy", approvedBy);
+                    query.setParameterList("ids", ids);
+                    query.setParameterList("unresolved", List.of(ConflictStatus.DETECTED, ConflictStatus.APPEALED));
+                });
+    }
+
+    // Rejects the listed slots that are not rejected yet in one versioned UPDATE; returns the count
+    public int rejectAll(Collection<Long> ids, String reason) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return executeUpdate("rejectAll",
+                "UPDATE VERSIONED Timetable t SET t.status = :rejected, t.description = :reason " +
+                        "WHERE t.id IN :ids AND t.status <> :rejected",
+                query -> {
+                    query.setParameter("rejected", TimetableStatus.REJECTED);
+                    query.setParameter("reason", reason);
+                    query.setParameterList("ids", ids);
+                });
+    }
+
+    // Every slot of one term that is not rejected, with the associations conflict checks read
+    public List<Timetable> findTerm(AcademicTerm term) {
+        return executeQuery(
+                "SELECT t FROM Timetable t " +
+                        "JOIN FETCH t.course c " +
+                        "JOIN FETCH c.department " +
+                        "LEFT JOIN FETCH c.lecturer " +
+                        "LEFT JOIN FETCH t.room " +
+                        "LEFT JOIN FETCH t.approvedBy " +
+                        "WHERE " + IN_TERM +
+                        "AND t.status <> :rejected",
+                Timetable.class,
+                query -> {
+                    setTerm(query, term);
+                    query.setParameter("rejected", TimetableStatus.REJECTED);
+                }
+        );
+    }
+
+    // Copies a term's approved weekly slots into another year of the same semester as DRAFT
+    // slots with a single INSERT ... SELECT, all in one transaction; a departmentId limits the
+    // copy to that department's courses. Retired rooms and reassigned lecturers (old id -> new id)
+    // are remapped through a temporary mapping table. A course has one lecturer for every term,
+    // so lecturer reassignments update the courses being copied. Those courses are locked first,
+    // which holds off new slots for them, and the codes of the ones that also have slots in
+    // another term from fromAcademicYear on, other than the target, are looked up in the same
+    // transaction: if there are any, nothing is written and they are returned as refused.
+    // Slots already in the target term (same course, day and start) are not copied again, so a
+    // rollover can be re-run. Single-date slots are tied to their date and are not copied. Each
+    // copied row takes its id from one nextval of the pooled sequence, which stays clear of the id
+    // blocks Hibernate hands out.
+    public CopyResult copyTerm(SemesterType semester, int fromYear, int toYear, Long departmentId,
+                               Map<Long, Long> roomReplacements, Map<Long, Long> lecturerReassignments,
+                               int fromAcademicYear, LocalDateTime createdAt) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("copyTerm");
+        Transaction transaction = null;
+        String inDepartment = departmentId != null
+                ? "AND t.course_id IN (SELECT d.id FROM courses d WHERE d.department_id = :departmentId) "
+                : "";
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            session.createNativeMutationQuery(
+                            "CREATE TEMPORARY TABLE rollover_map (kind VARCHAR(8) NOT NULL, " +
+                                    "old_id BIGINT NOT NULL, new_id BIGINT NOT NULL) ON COMMIT DROP")
+                    .executeUpdate();
+            insertMappings(session, "ROOM", roomReplacements);
+            insertMappings(session, "LECTURER", lecturerReassignments);
+
+            int reassigned = 0;
+            if (!lecturerReassignments.isEmpty()) {
+                // FOR UPDATE conflicts with the key-share lock a new timetable row takes on its course
+                NativeQuery<Long> lock = session.createNativeQuery(
+                        "SELECT c.id FROM courses c " +
+                                "WHERE c.lecturer_id IN (SELECT old_id FROM rollover_map WHERE kind = 'LECTURER') " +
+                                "AND c.id IN (SELECT t.course_id FROM timetables t " +
+                                "WHERE t.semester = :semester AND t.academic_year = :fromYear AND t.status = 'APPROVED' " +
+                                inDepartment + ") FOR UPDATE", Long.class);
+                lock.setParameter("semester", semester.name())
+                        .setParameter("fromYear", fromYear);
+                if (departmentId != null) {
+                    lock.setParameter("departmentId", departmentId);
+                }
+                List<Long> courseIds = lock.list();
+                if (!courseIds.isEmpty()) {
+                    List<String> refused = session.createQuery(
+                                    "SELECT c.code FROM Course c WHERE c.id IN :courseIds " +
+                                            "AND EXISTS (SELECT 1 FROM Timetable o WHERE o.course = c AND o.status <> :rejected " +
+                                            "AND o.academicYear >= :fromAcademicYear " +
+                                            "AND NOT (o.semester = :semester AND o.academicYear = :toYear)) " +
+                                            "ORDER BY c.code", String.class)
+                            .setParameterList("courseIds", courseIds)
+                            .setParameter("rejected", TimetableStatus.REJECTED)
+                            .setParameter("fromAcademicYear", fromAcademicYear)
+                            .setParameter("semester", semester)
+                            .setParameter("toYear", toYear)
+                            .getResultList();
+                    if (!refused.isEmpty()) {
+                        transaction.rollback();
+                        return new CopyResult(List.of(), refused);
+                    }
+                    reassigned = session.createNativeMutationQuery(
+                                    "UPDATE courses SET version = version + 1, lecturer_id = " +
+                                            "(SELECT m.new_id FROM rollover_map m WHERE m.kind = 'LECTURER' AND m.old_id = courses.lecturer_id) " +
+                                            "WHERE id IN (:courseIds)")
+                            .setParameterList("courseIds", courseIds)
+                            .executeUpdate();
+                    ReferenceDataVersionDAO.bump(session, ReferenceDataVersion.COURSES);
+                }
+            }
+
+            NativeQuery<Long> copy = session.createNativeQuery(
+                    "INSERT INTO timetables (id, version, course_id, dayOfWeek, start_time, end_time, room_id, " +
+                            "type, status, semester, academic_year, created_at, description) " +
+                            "SELECT nextval('timetables_seq'), 0, t.course_id, t.dayOfWeek, t.start_time, t.end_time, " +
+                            "COALESCE(m.new_id, t.room_id), t.type, 'DRAFT', t.semester, :toYear, :createdAt, t.description " +
+                            "FROM timetables t " +
+                            "LEFT JOIN rollover_map m ON m.kind = 'ROOM' AND m.old_id = t.room_id " +
+                            "WHERE t.semester = :semester AND t.academic_year = :fromYear " +
+                            "AND t.status = 'APPROVED' AND t.specific_date IS NULL " +
+                            inDepartment +
+                            "AND NOT EXISTS (SELECT 1 FROM timetables x WHERE x.semester = t.semester " +
+                            "AND x.academic_year = :toYear AND x.course_id = t.course_id " +
+                            "AND x.dayOfWeek = t.dayOfWeek AND x.start_time = t.start_time " +
+                            "AND x.status <> 'REJECTED') " +
+                            "RETURNING id", Long.class);
+            copy.setParameter("semester", semester.name())
+                    .setParameter("fromYear", fromYear)
+                    .setParameter("toYear", toYear)
+                    .setParameter("createdAt", createdAt);
+            if (departmentId != null) {
+                copy.setParameter("departmentId", departmentId);
+            }
+            List<Long> copied = copy.list();
+            transaction.commit();
+            if (reassigned > 0) {
+                ReferenceDataVersionDAO.markCommitted();
+            }
+            logger.info("Copied {} {} slots from {} to {}; {} courses reassigned",
+                    copied.size(), semester, fromYear, toYear, reassigned);
+            return new CopyResult(copied, List.of());
+        } catch (Exception e) {
+            failed = true;
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("Error copying {} {} to {}: {}", semester, fromYear, toYear, e.getMessage(), e);
+            throw new RuntimeException("Failed to roll over term", e);
+        } finally {
+            recordTiming("copyTerm", start, failed, scope);
+        }
+    }
+
+    // What copyTerm did: the ids of the copied slots, or, when it wrote nothing because lecturer
+    // reassignments would change who teaches in other terms, the codes of those courses
+    public static class CopyResult {
+        private final List<Long> copied;
+        private final List<String> refusedCourses;
+
+        public CopyResult(List<Long> copied, List<String> refusedCourses) {
+            this.copied = copied;
+            this.refusedCourses = refusedCourses;
+        }
+
+        public List<Long> getCopied() { return copied; }
+        public List<String> getRefusedCourses() { return refusedCourses; }
+    }
+
+    private static void insertMappings(Session session, String kind, Map<Long, Long> mappings) {
+        for (Map.Entry<Long, Long> mapping : mappings.entrySet()) {
+            session.createNativeMutationQuery("INSERT INTO rollover_map (kind, old_id, new_id) VALUES (:kind, :oldId, :newId)")
+                    .setParameter("kind", kind)
+                    .setParameter("oldId", mapping.getKey())
+                    .setParameter("newId", mapping.getValue())
+                    .executeUpdate();
+        }
+    }
+
+    // Moves slots to new rooms in a single transaction, each only if it still has the version it
+    // was read with and is not approved: a slot edited since keeps its room, since the room it
+    // was packed into may no longer be free at its new time. Returns the ids of the slots moved
+    public Set<Long> moveRooms(Collection<Timetable> slots, Map<Long, Room> moves) {
+        if (moves.isEmpty()) {
+            return Set.of();
+        }
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("moveRooms");
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            Set<Long> moved = new HashSet<>();
+            for (Timetable slot : slots) {
+                Room room = moves.get(slot.getId());
+                if (room == null) {
+                    continue;
+                }
+                int updated = session.createMutationQuery(
+                                "UPDATE VERSIONED Timetable t SET t.room.id = :roomId " +
+                                        "WHERE t.id = :id AND t.version = :version AND t.status <> :approved")
+                        .setParameter("roomId", room.getId())
+                        .setParameter("id", slot.getId())
+                        .setParameter("version", slot.getVersion())
+                        .setParameter("approved", TimetableStatus.APPROVED)
+                        .executeUpdate();
+                if (updated > 0) {
+                    moved.add(slot.getId());
+                }
+            }
+            transaction.commit();
+            return moved;
+        } catch (Exception e) {
+            failed = true;
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error moving timetables to new rooms: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to move timetables to new rooms", e);
+        } finally {
+            recordTiming("moveRooms", start, failed, scope);
+        }
+    }
+
+    // Flags freshly copied DRAFT slots that the conflict sweep found clashing, in one UPDATE
+    public int markConflicted(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return executeUpdate("markConflicted",
+                "UPDATE VERSIONED Timetable t SET t.status = :conflicted WHERE t.id IN :ids AND t.status = :draft",
+                query -> {
+                    query.setParameter("conflicted", TimetableStatus.CONFLICTED);
+                    query.setParameter("draft", TimetableStatus.DRAFT);
+                    query.setParameterList("ids", ids);
+                });
+    }
+
+    // Writes a what-if sandbox's accepted changes in one transaction: edited slots and deleted
+    // slots with their conflicts. Each slot is written from the copy that was edited, so one
+    // changed by someone else since the sandbox was opened fails the whole commit with
+    // OptimisticUpdateException and nothing is written. The term as stored after those writes,
+    // including slots other users created or moved meanwhile, and its DETECTED conflicts are then
+    // handed to recheck in the same transaction; it may set the statuses of the (managed) slots,
+    // and the conflicts it returns are recorded and resolved before the commit.
+    // Returns the updated slots with their new versions
+    public List<Timetable> commitChanges(List<Timetable> updated, List<Timetable> deleted, AcademicTerm term,
+                                         BiFunction<List<Timetable>, List<Conflict>, ConflictChanges> recheck,
+                                         String resolution, User resolvedBy) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("commitChanges");
+        Transaction transaction = null;
+        Long slotId = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            List<Timetable> merged = new ArrayList<>();
+            for (Timetable slot : updated) {
+                slotId = slot.getId();
+                merged.add(session.merge(slot));
+            }
+            if (!deleted.isEmpty()) {
+                List<Long> ids = new ArrayList<>();
+                for (Timetable slot : deleted) {
+                    slotId = slot.getId();
+                    Timetable stored = session.find(Timetable.class, slotId);
+                    if (stored == null || stored.getVersion() != slot.getVersion()) {
+                        throw new OptimisticUpdateException("Timetable", slotId, null);
+                    }
+                    ids.add(slotId);
+                }
+                session.createMutationQuery("DELETE FROM Conflict c WHERE c.timetable1.id IN :ids OR c.timetable2.id IN :ids")
+                        .setParameterList("ids", ids)
+                        .executeUpdate();
+                session.createMutationQuery("DELETE FROM Timetable t WHERE t.id IN :ids")
+                        .setParameterList("ids", ids)
+                        .executeUpdate();
+            }
+            session.flush();
+
+            Query<Timetable> termQuery = session.createQuery(
+                    "SELECT t FROM Timetable t " +
+                            "JOIN FETCH t.course c " +
+                            "JOIN FETCH c.department " +
+                            "LEFT JOIN FETCH c.lecturer " +
+                            "LEFT JOIN FETCH t.room " +
+                            "WHERE " + IN_TERM +
+                            "AND t.status <> :rejected", Timetable.class);
+            setTerm(termQuery, term);
+            List<Timetable> termSlots = termQuery.setParameter("rejected", TimetableStatus.REJECTED).getResultList();
+            List<Conflict> recorded = session.createQuery(
+                            "FROM Conflict c WHERE c.academicYear = :academicYear AND c.semester = :semester " +
+                                    "AND c.status = :detected", Conflict.class)
+                    .setParameter("academicYear", term.academicYear())
+                    .setParameter("semester", term.semester())
+                    .setParameter("detected", ConflictStatus.DETECTED)
+                    .getResultList();
+            ConflictChanges changes = recheck.apply(termSlots, recorded);
+
+            LocalDateTime now = LocalDateTime.now();
+            for (Conflict conflict : changes.getCleared()) {
+                conflict.setStatus(ConflictStatus.RESOLVED);
+                conflict.setResolutionNotes(resolution);
+                conflict.setResolvedBy(resolvedBy);
+                conflict.setResolvedAt(now);
+            }
+            for (Conflict conflict : changes.getDetected()) {
+                session.persist(conflict);
+            }
+            transaction.commit();
+            logger.info("Committed {} updated and {} deleted timetables, {} new and {} cleared conflicts",
+                    merged.size(), deleted.size(), changes.getDetected().size(), changes.getCleared().size());
+            return merged;
+        } catch (Exception e) {
+            failed = true;
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            if (e instanceof OptimisticUpdateException) {
+                logger.warn("Stale commit of timetable {} rejected", slotId);
+                throw (OptimisticUpdateException) e;
+            }
+            if (isStale(e)) {
+                logger.warn("Stale commit of timetable {} rejected", slotId);
+                throw new OptimisticUpdateException("Timetable", slotId, e);
+            }
+            logger.error("Error committing timetable changes: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to commit timetable changes", e);
+        } finally {
+            recordTiming("commitChanges", start, failed, scope);
+        }
+    }
+
+    // What commitChanges' re-check found: new conflicts to record, and DETECTED conflicts on
+    // record (from the list it was given) that the changes cleared
+    public static class ConflictChanges {
+        private final List<Conflict> detected;
+        private final List<Conflict> cleared;
+
+        public ConflictChanges(List<Conflict> detected, List<Conflict> cleared) {
+            this.detected = detected;
+            this.cleared = cleared;
+        }
+
+        public List<Conflict> getDetected() { return detected; }
+        public List<Conflict> getCleared() { return cleared; }
+    }
+
+    // Slots in a status from the given academic year on, newest first
+    public List<Timetable> findByStatus(TimetableStatus status, int fromAcademicYear) {
+        return executeQuery(
+                "FROM Timetable t WHERE t.status = :status AND t.academicYear >= :fromAcademicYear " +
+                        "ORDER BY t.createdAt DESC",
+                Timetable.class,
+                query -> {
+                    query.setParameter("status", status);
+                    query.setParameter("fromAcademicYear", fromAcademicYear);
+                }
+        );
+    }
+
+    public List<Timetable> findByLecturer(User lecturer, AcademicTerm term) {
         return executeQuery(
                 "FROM Timetable t " +
                         "WHERE t.course.lecturer = :lecturer " +
-                        "AND t.semester = :semester " +
+                        "AND " + IN_TERM +
                         "ORDER BY t.dayOfWeek, t.startTime",
                 Timetable.class,
                 query -> {
                     query.setParameter("lecturer", lecturer);
-                    query.setParameter("semester", semester);
+                    setTerm(query, term);
                 }
         );
     }
@@ -159,6 +690,8 @@ public class TimetableDAO extends BaseDAO<Timetable, Long> {
         return executeQuery(
                 "FROM Timetable t " +
                         "WHERE t.specificDate BETWEEN :startDate AND :endDate " +
+                        // Redundant with the dates, but lets the partitions outside the range be skipped
+                        "AND t.academicYear BETWEEN :fromAcademicYear AND :toAcademicYear " +
                         "AND t.type IN (:examTypes) " +
                         "AND t.course.department = :department " +
                         "AND t.status = :approvedStatus " +
@@ -167,10 +700,52 @@ public class TimetableDAO extends BaseDAO<Timetable, Long> {
                 query -> {
                     query.setParameter("startDate", startDate);
                     query.setParameter("endDate", endDate);
+                    query.setParameter("fromAcademicYear", SemesterType.academicYearOf(startDate));
+                    query.setParameter("toAcademicYear", SemesterType.academicYearOf(endDate));
                     query.setParameter("examTypes", List.of(ActivityType.EXAM, ActivityType.TEST));
                     query.setParameter("department", department);
                     query.setParameter("approvedStatus", TimetableStatus.APPROVED);
                 }
         );
     }
-}
\ No newline at end of file
+
+    // On a partitioned schema (migration V4) rows can only be inserted into years that have
+    // partitions, so this creates the year's timetables and conflicts partitions if missing.
+    // Schemas created by hbm2ddl are not partitioned and are left alone.
+    public void ensureTermPartitions(int academicYear) {
+        if (Boolean.FALSE.equals(partitioned) || partitionedYears.contains(academicYear)) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("ensureTermPartitions");
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            if (partitioned == null) {
+                partitioned = session.createNativeQuery(
+                                "SELECT to_regproc('timeflow_create_term_partitions') IS NOT NULL", Boolean.class)
+                        .getSingleResult();
+            }
+            if (partitioned) {
+                Integer created = session.createNativeQuery("SELECT timeflow_create_term_partitions(:academicYear)", Integer.class)
+                        .setParameter("academicYear", academicYear)
+                        .getSingleResult();
+                partitionedYears.add(academicYear);
+                if (created > 0) {
+                    logger.info("Created {} partitions for academic year {}", created, academicYear);
+                }
+            }
+            transaction.commit();
+        } catch (Exception e) {
+            failed = true;
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            logger.error("Error creating partitions for academic year {}: {}", academicYear, e.getMessage(), e);
+            throw new RuntimeException("Failed to prepare academic year " + academicYear, e);
+        } finally {
+            recordTiming("ensureTermPartitions", start, failed, scope);
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package org.timeflow.dao;
 
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.timeflow.auth.PasswordHasher;
 import org.timeflow.entity.User;
+import org.timeflow.entity.ReferenceDataVersion;
 import org.timeflow.entity.UserRole;
 import org.timeflow.entity.Department;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
+import org.timeflow.metrics.QueryScope;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Consumer;
 
 public class UserDAO extends BaseDAO<User, Long> {
@@ -17,6 +23,20 @@ public class UserDAO extends BaseDAO<User, Long> {
         super(User.class);
     }
 
+    @Override
+    protected String referenceDataName() {
+        return ReferenceDataVersion.USERS;
+    }
+
+    // Signups, student imports and password rehashes leave the lecturer list as it is
+    @Override
+    protected void bumpReferenceVersion(Session session, Collection<? extends User> written) {
+        super.bumpReferenceVersion(session, written);
+        if (written.stream().anyMatch(user -> user.getRole() == UserRole.LECTURER)) {
+            ReferenceDataVersionDAO.bump(session, ReferenceDataVersion.LECTURERS);
+        }
+    }
+
     // Find user by username
     public User findByUsername(String username) {
         return executeUniqueQuery(
@@ -35,14 +55,33 @@ public class UserDAO extends BaseDAO<User, Long> {
         );
     }
 
+    // Users holding any of the given usernames or emails, in one query; emails match regardless
+    // of case (migration V6 indexes lower(email) for this). Callers keep the lists to a few
+    // thousand values so the IN lists stay within the driver's bind limit
+    public List<User> findByUsernamesOrEmails(Collection<String> usernames, Collection<String> emails) {
+        if (usernames.isEmpty() && emails.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> lowerEmails = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            lowerEmails.add(email.toLowerCase(Locale.ROOT));
+        }
+        return executeQuery(
+                "FROM User u WHERE u.username IN :usernames OR lower(u.email) IN :emails",
+                User.class,
+                query -> {
+                    // An empty IN list is not valid SQL everywhere; a value no row can hold stands in
+                    query.setParameterList("usernames", usernames.isEmpty() ? List.of("") : usernames);
+                    query.setParameterList("emails", lowerEmails.isEmpty() ? List.of("") : lowerEmails);
+                }
+        );
+    }
+
     // Authenticate user
     public User authenticate(String username, String password) {
-        try (Session session = sessionFactory.openSession()) {
-            User user = session.bySimpleNaturalId(User.class).load(username);
-            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
-            // Note: In production, use proper password hashing verification
-            if (user != null && encoder.matches(password,user.getPassword())) {
+        try {
+            User user = inSession("authenticate", session -> session.bySimpleNaturalId(User.class).load(username));
+            if (user != null && PasswordHasher.getInstance().matches(password, user.getPassword())) {
                 logger.info("{} authenticated",user.getUsername());
                 return user;
             }
@@ -88,6 +127,16 @@ public class UserDAO extends BaseDAO<User, Long> {
         );
     }
 
+    // Active students per (department id, level), as {departmentId, level, count} rows
+    public List<Object[]> countActiveStudentsByCohort() {
+        return executeQuery(
+                "SELECT u.department.id, u.level, COUNT(u) FROM User u " +
+                        "WHERE u.role = :role AND u.isActive = true GROUP BY u.department.id, u.level",
+                Object[].class,
+                query -> query.setParameter("role", UserRole.STUDENT)
+        );
+    }
+
     // Find lecturers by department
     public List<User> findLecturersByDepartment(Department department) {
         return executeQuery(
@@ -102,6 +151,9 @@ public class UserDAO extends BaseDAO<User, Long> {
 
     // Deactivate user (soft delete)
     public void deactivateUser(Long userId) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        QueryScope scope = openScope("deactivateUser");
         Transaction transaction = null;
         try (Session session = sessionFactory.openSession()) {
             transaction = session.beginTransaction();
@@ -109,29 +161,38 @@ public class UserDAO extends BaseDAO<User, Long> {
             if (user != null) {
                 user.setActive(false);
                 session.merge(user);
+                bumpReferenceVersion(session, List.of(user));
             }
             transaction.commit();
+            afterReferenceCommit();
         } catch (Exception e) {
+            failed = true;
             if (transaction != null) {
                 transaction.rollback();
             }
             throw new RuntimeException("Failed to deactivate user", e);
+        } finally {
+            recordTiming("deactivateUser", start, failed, scope);
         }
     }
 
     private <T> List<T> executeQuery(String hql, Class<T> resultClass, Consumer<Query<T>> paramSetter) {
-        try (Session session = sessionFactory.openSession()) {
+        return list(callingMethod(), session -> {
             Query<T> query = session.createQuery(hql, resultClass);
             paramSetter.accept(query);
-            return query.list();
-        }
+            return query;
+        });
     }
 
     private <T> T executeUniqueQuery(String hql, Class<T> resultClass, Consumer<Query<T>> paramSetter) {
-        try (Session session = sessionFactory.openSession()) {
+        String operation = callingMethod();
+        return inSession(operation, session -> {
             Query<T> query = session.createQuery(hql, resultClass);
             paramSetter.accept(query);
-            return query.uniqueResult();
-        }
+            long start = System.nanoTime();
+            T result = query.uniqueResult();
+            logIfSlow(operation, start, query);
+            return result;
+        });
     }
 }
\ No newline at end of file
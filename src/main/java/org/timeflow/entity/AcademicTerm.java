@@ -0,0 +1,44 @@
+package org.timeflow.entity;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One run of a semester: the semester and the academic year it belongs to. Timetables and
+ * conflicts are keyed and, on PostgreSQL, partitioned by term (migration V4), so a query that
+ * names the term reads only that term's partition.
+ */
+public record AcademicTerm(int academicYear, SemesterType semester) {
+
+    public AcademicTerm {
+        Objects.requireNonNull(semester, "semester");
+    }
+
+    // The term whose dates contain today
+    public static AcademicTerm current() {
+        return of(LocalDate.now());
+    }
+
+    public static AcademicTerm of(LocalDate date) {
+        return new AcademicTerm(SemesterType.academicYearOf(date), SemesterType.of(date));
+    }
+
+    // The semester's current run, or its next one if it is not running
+    public static AcademicTerm upcoming(SemesterType semester) {
+        return new AcademicTerm(semester.upcomingAcademicYear(), semester);
+    }
+
+    public LocalDate startDate() {
+        return semester.startDate(academicYear);
+    }
+
+    public LocalDate endDate() {
+        return semester.endDate(academicYear);
+    }
+
+    // e.g. "First Semester 2025/26"
+    @Override
+    public String toString() {
+        return String.format("%s %d/%02d", semester, academicYear, (academicYear + 1) % 100);
+    }
+}
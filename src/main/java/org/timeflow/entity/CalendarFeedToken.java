@@ -0,0 +1,49 @@
+package org.timeflow.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A secret address for a user's calendar feed. Only the SHA-256 of the token is stored, so
+// the token itself is shown once when issued; revoking it ends the subscription
+@Entity
+@Table(name = "calendar_feed_tokens",
+        indexes = @Index(name = "calendar_feed_tokens_user_idx", columnList = "user_id"))
+public class CalendarFeedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "calendar_feed_tokens_seq")
+    @SequenceGenerator(name = "calendar_feed_tokens_seq", sequenceName = "calendar_feed_tokens_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    public CalendarFeedToken() {
+    }
+
+    public CalendarFeedToken(User user, String tokenHash) {
+        this.user = user;
+        this.tokenHash = tokenHash;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(LocalDateTime revokedAt) { this.revokedAt = revokedAt; }
+}
@@ -0,0 +1,43 @@
+package org.timeflow.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One student's copy of a change digest that has been sent. A digest is the set of changes
+// claimed under one digest id (see TimetableChange.digestId); a retry skips these students
+@Entity
+@Table(name = "change_digest_deliveries",
+        uniqueConstraints = @UniqueConstraint(name = "change_digest_deliveries_key", columnNames = {"digest_id", "student_id"}))
+public class ChangeDigestDelivery {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_digest_deliveries_seq")
+    @SequenceGenerator(name = "change_digest_deliveries_seq", sequenceName = "change_digest_deliveries_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "digest_id", nullable = false)
+    private Long digestId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    public ChangeDigestDelivery() {
+    }
+
+    public ChangeDigestDelivery(Long digestId, Long studentId) {
+        this.digestId = digestId;
+        this.studentId = studentId;
+        this.sentAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getDigestId() { return digestId; }
+    public void setDigestId(Long digestId) { this.digestId = digestId; }
+    public Long getStudentId() { return studentId; }
+    public void setStudentId(Long studentId) { this.studentId = studentId; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+}
@@ -1,19 +1,38 @@
 package org.timeflow.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.PartitionKey;
+
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "conflicts")
 public class Conflict {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "conflicts_seq")
+    @SequenceGenerator(name = "conflicts_seq", sequenceName = "conflicts_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // The term of the two slots, which a conflict never spans; conflicts are partitioned by it
+    // alongside their timetables
+    @Column(name = "academic_year", nullable = false)
+    @PartitionKey
+    private int academicYear;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "semester", nullable = false)
+    @PartitionKey
+    private SemesterType semester;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "timetable_id_1")
     private Timetable timetable1;
 
+    // The same slot as timetable1 for a CAPACITY_VIOLATION, which involves one slot only
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "timetable_id_2")
     private Timetable timetable2;
@@ -44,6 +63,7 @@ public class Conflict {
     public Conflict(Timetable timetable1, Timetable timetable2, ConflictType type) {
         this.timetable1 = timetable1;
         this.timetable2 = timetable2;
+        setTerm(timetable1.getTerm());
         this.type = type;
         this.status = ConflictStatus.DETECTED;
         this.detectedAt = LocalDateTime.now();
@@ -58,6 +78,23 @@ public class Conflict {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public AcademicTerm getTerm() {
+        return new AcademicTerm(academicYear, semester);
+    }
+
+    public void setTerm(AcademicTerm term) {
+        this.academicYear = term.academicYear();
+        this.semester = term.semester();
+    }
+
     public Timetable getTimetable1() {
         return timetable1;
     }
@@ -1,5 +1,5 @@
 package org.timeflow.entity;
 
 public enum ConflictType {
-    TIME_CONFLICT, ROOM_CONFLICT, LECTURER_CONFLICT, TIME_OVERLAP, BORROWED_COURSE_CONFLICT
+    TIME_CONFLICT, ROOM_CONFLICT, LECTURER_CONFLICT, TIME_OVERLAP, BORROWED_COURSE_CONFLICT, STUDENT_CLASH, CAPACITY_VIOLATION
 }
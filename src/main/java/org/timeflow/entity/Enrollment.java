@@ -0,0 +1,53 @@
+package org.timeflow.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A student taking a course in one academic year, whatever the course's department and level:
+// carry-overs and electives are enrolled like the cohort's own courses
+@Entity
+@Table(name = "enrollments",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "course_id", "academic_year"}),
+        indexes = @Index(name = "enrollments_year_course_idx", columnList = "academic_year, course_id"))
+public class Enrollment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "enrollments_seq")
+    @SequenceGenerator(name = "enrollments_seq", sequenceName = "enrollments_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
+    private Long id;
+
+    // Lazy: the clash index reads ids only, and there are far more enrollments than students
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "student_id", nullable = false)
+    private User student;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "course_id", nullable = false)
+    private Course course;
+
+    @Column(name = "academic_year", nullable = false)
+    private int academicYear;
+
+    @Column(name = "enrolled_at")
+    private LocalDateTime enrolledAt;
+
+    public Enrollment() {
+    }
+
+    public Enrollment(User student, Course course, int academicYear) {
+        this.student = student;
+        this.course = course;
+        this.academicYear = academicYear;
+        this.enrolledAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public User getStudent() { return student; }
+    public void setStudent(User student) { this.student = student; }
+    public Course getCourse() { return course; }
+    public void setCourse(Course course) { this.course = course; }
+    public int getAcademicYear() { return academicYear; }
+    public void setAcademicYear(int academicYear) { this.academicYear = academicYear; }
+    public LocalDateTime getEnrolledAt() { return enrolledAt; }
+    public void setEnrolledAt(LocalDateTime enrolledAt) { this.enrolledAt = enrolledAt; }
+}
@@ -0,0 +1,16 @@
+package org.timeflow.entity;
+
+/**
+ * Generated ids come from one PostgreSQL sequence per table ({@code <table>_seq}) through
+ * Hibernate's pooled-lo optimizer: each nextval reserves a block of ALLOCATION_SIZE ids that
+ * are then handed out without a round trip, which is what lets inserts be JDBC-batched.
+ *
+ * The sequences' INCREMENT BY must equal ALLOCATION_SIZE; change both together, see
+ * db/migration/V1__pooled_sequence_ids.sql.
+ */
+public final class IdGeneration {
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGeneration() {
+    }
+}
@@ -0,0 +1,41 @@
+package org.timeflow.entity;
+
+import jakarta.persistence.*;
+
+// One row per kind of reference data; the version is bumped in the same transaction as every
+// write to that kind, so clients can tell whether their cached copy is still current
+@Entity
+@Table(name = "reference_data_versions")
+public class ReferenceDataVersion {
+    public static final String COURSES = "courses";
+    public static final String ROOMS = "rooms";
+    public static final String DEPARTMENTS = "departments";
+    public static final String USERS = "users";
+    // Moved only by writes to lecturer accounts, which the lecturer pickers are built from
+    public static final String LECTURERS = "lecturers";
+    public static final String ENROLLMENTS = "enrollments";
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private long version;
+
+    public ReferenceDataVersion() {}
+
+    // Enrollments are versioned per academic year, so a year's writes do not invalidate others
+    public static String enrollments(int academicYear) {
+        return ENROLLMENTS + ":" + academicYear;
+    }
+
+    public ReferenceDataVersion(String name, long version) {
+        this.name = name;
+        this.version = version;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
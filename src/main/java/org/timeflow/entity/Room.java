@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 @Table(name = "rooms")
 public class Room {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rooms_seq")
+    @SequenceGenerator(name = "rooms_seq", sequenceName = "rooms_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true, nullable = false)
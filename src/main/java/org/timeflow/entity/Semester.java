@@ -10,7 +10,8 @@ import java.util.List;
 @Table(name = "semesters")
 public class Semester {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "semesters_seq")
+    @SequenceGenerator(name = "semesters_seq", sequenceName = "semesters_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -1,5 +1,8 @@
 package org.timeflow.entity;
 
+import java.time.LocalDate;
+import java.time.Month;
+
 public enum SemesterType {
     FIRST_SEMESTER("First Semester"),
     SECOND_SEMESTER("Second Semester");
@@ -10,6 +13,45 @@ public enum SemesterType {
         this.displayName = displayName;
     }
 
+    public static SemesterType current() {
+        return of(LocalDate.now());
+    }
+
+    // February to July is the second semester; August to January the first
+    public static SemesterType of(LocalDate date) {
+        int month = date.getMonthValue();
+        return (month >= 2 && month <= 7) ? SECOND_SEMESTER : FIRST_SEMESTER;
+    }
+
+    public static int currentAcademicYear() {
+        return academicYearOf(LocalDate.now());
+    }
+
+    // Academic years are named by the calendar year they start in, in August
+    public static int academicYearOf(LocalDate date) {
+        return date.getMonthValue() >= 8 ? date.getYear() : date.getYear() - 1;
+    }
+
+    // The academic year of this semester's current run, or of its next one if it is not running
+    public int upcomingAcademicYear() {
+        int year = currentAcademicYear();
+        return LocalDate.now().isAfter(endDate(year)) ? year + 1 : year;
+    }
+
+    // First day of this semester in the academic year that starts in the given calendar year
+    public LocalDate startDate(int academicStartYear) {
+        return this == FIRST_SEMESTER
+                ? LocalDate.of(academicStartYear, Month.AUGUST, 1)
+                : LocalDate.of(academicStartYear + 1, Month.FEBRUARY, 1);
+    }
+
+    // Last day of this semester in the academic year that starts in the given calendar year
+    public LocalDate endDate(int academicStartYear) {
+        return this == FIRST_SEMESTER
+                ? LocalDate.of(academicStartYear + 1, Month.JANUARY, 31)
+                : LocalDate.of(academicStartYear + 1, Month.JULY, 31);
+    }
+
     @Override
     public String toString() { return displayName; }
-}
\ No newline at end of file
+}
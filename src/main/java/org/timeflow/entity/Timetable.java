@@ -1,6 +1,8 @@
 package org.timeflow.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.PartitionKey;
+
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -10,9 +12,15 @@ import java.time.LocalTime;
 @Table(name = "timetables")
 public class Timetable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "timetables_seq")
+    @SequenceGenerator(name = "timetables_seq", sequenceName = "timetables_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
+    // Bumped on every update; a write based on an older copy fails instead of overwriting
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "course_id")
     private Course course;
@@ -38,9 +46,17 @@ public class Timetable {
 
     // --- MODIFIED: Changed from Semester object to SemesterType enum ---
     @Enumerated(EnumType.STRING)
-    @Column(name = "semester")
+    @Column(name = "semester", updatable = false)
+    @PartitionKey
     private SemesterType semester;
 
+    // Calendar year the academic year starts in; with the semester it identifies the term.
+    // Both are partition keys, so updates and deletes by id name the row's partition. A slot
+    // never changes term: conflicts reference it by (id, academic_year, semester)
+    @Column(name = "academic_year", nullable = false, updatable = false)
+    @PartitionKey
+    private int academicYear;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -75,8 +91,30 @@ public class Timetable {
 
 
 
+    @PrePersist
+    private void defaultAcademicYear() {
+        if (academicYear == 0 && semester != null) {
+            academicYear = getTerm().academicYear();
+        }
+    }
+
+    // Slots created without an explicit year belong to the semester's current or next run
+    public AcademicTerm getTerm() {
+        if (semester == null) {
+            return null;
+        }
+        return academicYear != 0 ? new AcademicTerm(academicYear, semester) : AcademicTerm.upcoming(semester);
+    }
+
+    public void setTerm(AcademicTerm term) {
+        this.semester = term.semester();
+        this.academicYear = term.academicYear();
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
     public Course getCourse() { return course; }
     public void setCourse(Course course) { this.course = course; }
     public DayOfWeek getDayOfWeek() { return dayOfWeek; }
@@ -105,4 +143,6 @@ public class Timetable {
     // --- MODIFIED: Getter and Setter for SemesterType ---
     public SemesterType getSemester() { return semester; }
     public void setSemester(SemesterType semester) { this.semester = semester; }
+    public int getAcademicYear() { return academicYear; }
+    public void setAcademicYear(int academicYear) { this.academicYear = academicYear; }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package org.timeflow.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A change to a student-visible (approved) slot, waiting to go out in the next cohort digest
+@Entity
+@Table(name = "timetable_changes")
+public class TimetableChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "timetable_changes_seq")
+    @SequenceGenerator(name = "timetable_changes_seq", sequenceName = "timetable_changes_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
+    private Long id;
+
+    // Plain id rather than a relation: cancelled slots may already be deleted
+    @Column(name = "timetable_id", nullable = false)
+    private Long timetableId;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "department_id")
+    private Department department;
+
+    @Column(name = "academic_level")
+    private int level;
+
+    @Enumerated(EnumType.STRING)
+    private SemesterType semester;
+
+    @Column(name = "academic_year")
+    private int academicYear;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false)
+    private TimetableChangeType changeType;
+
+    @Column(name = "course_code")
+    private String courseCode;
+
+    @Column(name = "course_name")
+    private String courseName;
+
+    @Column(name = "previous_slot")
+    private String previousSlot;
+
+    @Column(name = "current_slot")
+    private String currentSlot;
+
+    @Column(name = "changed_at")
+    private LocalDateTime changedAt;
+
+    @Column(name = "notified_at")
+    private LocalDateTime notifiedAt;
+
+    // The digest this change was claimed for, set before any of its emails go out
+    @Column(name = "digest_id")
+    private Long digestId;
+
+    public TimetableChange() {
+    }
+
+    public TimetableChange(Timetable timetable, TimetableChangeType changeType, String previousSlot, String currentSlot) {
+        this.timetableId = timetable.getId();
+        this.department = timetable.getCourse().getDepartment();
+        this.level = timetable.getCourse().getLevel();
+        this.semester = timetable.getSemester();
+        this.academicYear = timetable.getAcademicYear();
+        this.changeType = changeType;
+        this.courseCode = timetable.getCourse().getCode();
+        this.courseName = timetable.getCourse().getName();
+        this.previousSlot = previousSlot;
+        this.currentSlot = currentSlot;
+        this.changedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getTimetableId() { return timetableId; }
+    public void setTimetableId(Long timetableId) { this.timetableId = timetableId; }
+    public Department getDepartment() { return department; }
+    public void setDepartment(Department department) { this.department = department; }
+    public int getLevel() { return level; }
+    public void setLevel(int level) { this.level = level; }
+    public SemesterType getSemester() { return semester; }
+    public void setSemester(SemesterType semester) { this.semester = semester; }
+    public int getAcademicYear() { return academicYear; }
+    public void setAcademicYear(int academicYear) { this.academicYear = academicYear; }
+    public TimetableChangeType getChangeType() { return changeType; }
+    public void setChangeType(TimetableChangeType changeType) { this.changeType = changeType; }
+    public String getCourseCode() { return courseCode; }
+    public void setCourseCode(String courseCode) { this.courseCode = courseCode; }
+    public String getCourseName() { return courseName; }
+    public void setCourseName(String courseName) { this.courseName = courseName; }
+    public String getPreviousSlot() { return previousSlot; }
+    public void setPreviousSlot(String previousSlot) { this.previousSlot = previousSlot; }
+    public String getCurrentSlot() { return currentSlot; }
+    public void setCurrentSlot(String currentSlot) { this.currentSlot = currentSlot; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
+    public LocalDateTime getNotifiedAt() { return notifiedAt; }
+    public void setNotifiedAt(LocalDateTime notifiedAt) { this.notifiedAt = notifiedAt; }
+    public Long getDigestId() { return digestId; }
+    public void setDigestId(Long digestId) { this.digestId = digestId; }
+}
@@ -0,0 +1,5 @@
+package org.timeflow.entity;
+
+public enum TimetableChangeType {
+    ADDED, MOVED, CANCELLED
+}
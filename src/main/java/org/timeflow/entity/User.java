@@ -2,14 +2,15 @@ package org.timeflow.entity;
 
 import jakarta.persistence.*;
 import org.hibernate.annotations.NaturalId;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.timeflow.auth.PasswordHasher;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "Users")
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -57,9 +58,8 @@ public class User {
     @PrePersist
     @PreUpdate
     private void hashPassword() {
-        if (password != null && !password.startsWith("$2a$")) { // already hashed?
-            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-            password = encoder.encode(password);
+        if (password != null && !PasswordHasher.isHashed(password)) {
+            password = PasswordHasher.getInstance().encode(password);
         }
     }
 
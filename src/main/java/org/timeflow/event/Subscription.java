@@ -0,0 +1,63 @@
+package org.timeflow.event;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A subscriber's bounded mailbox. Publishing never blocks: when the queue is full the
+ * oldest event is dropped, so a slow client only loses its own backlog.
+ */
+public class Subscription implements AutoCloseable {
+    private final TimetableEventBus bus;
+    private final Set<String> topics;
+    private final BlockingQueue<TimetableEvent> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    Subscription(TimetableEventBus bus, Set<String> topics, int capacity) {
+        this.bus = bus;
+        this.topics = topics;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    void offer(TimetableEvent event) {
+        while (!closed && !queue.offer(event)) {
+            if (queue.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    // Waits up to the timeout for the next event; returns null if none arrived
+    public TimetableEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    public Set<String> getTopics() {
+        return topics;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getBacklog() {
+        return queue.size();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            bus.unsubscribe(this);
+            queue.clear();
+        }
+    }
+}
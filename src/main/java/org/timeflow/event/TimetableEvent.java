@@ -0,0 +1,79 @@
+package org.timeflow.event;
+
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.User;
+import org.timeflow.service.CohortKey;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable description of a timetable change. It carries the cohort and lecturer the
+ * slot belonged to before the change as well as after, so a slot moved between
+ * cohorts reaches subscribers on both sides.
+ */
+public class TimetableEvent {
+    public static final String TOPIC_ALL = "all";
+
+    private final TimetableEventType type;
+    private final Long timetableId;
+    private final String courseCode;
+    private final String status;
+    private final CohortKey cohort;
+    private final CohortKey previousCohort;
+    private final Long lecturerId;
+    private final Long previousLecturerId;
+    private final LocalDateTime occurredAt;
+
+    public TimetableEvent(TimetableEventType type, Timetable before, Timetable after) {
+        Timetable current = after != null ? after : before;
+        this.type = type;
+        this.timetableId = current.getId();
+        this.courseCode = current.getCourse().getCode();
+        this.status = current.getStatus() != null ? current.getStatus().name() : null;
+        this.cohort = after != null ? CohortKey.of(after) : null;
+        this.previousCohort = before != null ? CohortKey.of(before) : null;
+        this.lecturerId = lecturerId(after);
+        this.previousLecturerId = lecturerId(before);
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static String cohortTopic(CohortKey cohort) {
+        return "cohort:" + cohort.departmentId() + ":" + cohort.level() + ":" + cohort.term().semester().name()
+                + ":" + cohort.term().academicYear();
+    }
+
+    public static String lecturerTopic(Long lecturerId) {
+        return "lecturer:" + lecturerId;
+    }
+
+    // Every topic this event fans out to, including the catch-all topic
+    public Set<String> topics() {
+        Set<String> topics = new LinkedHashSet<>();
+        topics.add(TOPIC_ALL);
+        if (cohort != null) topics.add(cohortTopic(cohort));
+        if (previousCohort != null) topics.add(cohortTopic(previousCohort));
+        if (lecturerId != null) topics.add(lecturerTopic(lecturerId));
+        if (previousLecturerId != null) topics.add(lecturerTopic(previousLecturerId));
+        return topics;
+    }
+
+    private static Long lecturerId(Timetable timetable) {
+        if (timetable == null) {
+            return null;
+        }
+        User lecturer = timetable.getCourse().getLecturer();
+        return lecturer != null ? lecturer.getId() : null;
+    }
+
+    public TimetableEventType getType() { return type; }
+    public Long getTimetableId() { return timetableId; }
+    public String getCourseCode() { return courseCode; }
+    public String getStatus() { return status; }
+    public CohortKey getCohort() { return cohort; }
+    public CohortKey getPreviousCohort() { return previousCohort; }
+    public Long getLecturerId() { return lecturerId; }
+    public Long getPreviousLecturerId() { return previousLecturerId; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
@@ -0,0 +1,97 @@
+package org.timeflow.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe hub for timetable changes. Remote clients get a bounded
+ * {@link Subscription} per connection, keyed by topic (cohort, lecturer or "all").
+ * In-process listeners, such as caches, are called synchronously and must be fast.
+ */
+public class TimetableEventBus {
+    private static final Logger logger = LoggerFactory.getLogger(TimetableEventBus.class);
+    private static final TimetableEventBus INSTANCE = new TimetableEventBus();
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private final Map<String, Set<Subscription>> subscriptionsByTopic = new ConcurrentHashMap<>();
+    private final Collection<Consumer<TimetableEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    public static TimetableEventBus getInstance() {
+        return INSTANCE;
+    }
+
+    public void publish(TimetableEvent event) {
+        // A subscriber on several matching topics still receives the event once
+        Set<Subscription> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String topic : event.topics()) {
+            Set<Subscription> subscribers = subscriptionsByTopic.get(topic);
+            if (subscribers != null) {
+                targets.addAll(subscribers);
+            }
+        }
+        for (Subscription subscription : targets) {
+            subscription.offer(event);
+        }
+        for (Consumer<TimetableEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                logger.error("Timetable event listener failed for {}", event.getType(), e);
+            }
+        }
+        logger.debug("Published {} for timetable {} to {} subscribers", event.getType(), event.getTimetableId(), targets.size());
+    }
+
+    public Subscription subscribe(Collection<String> topics) {
+        return subscribe(topics, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public Subscription subscribe(Collection<String> topics, int capacity) {
+        Subscription subscription = new Subscription(this, Collections.unmodifiableSet(new LinkedHashSet<>(topics)), capacity);
+        for (String topic : subscription.getTopics()) {
+            // Added under the map's lock, so a concurrent unsubscribe cannot drop the set as empty
+            // between it being looked up and the subscription being added to it
+            subscriptionsByTopic.compute(topic, (t, subscribers) -> {
+                Set<Subscription> set = subscribers != null ? subscribers : new CopyOnWriteArraySet<>();
+                set.add(subscription);
+                return set;
+            });
+        }
+        return subscription;
+    }
+
+    void unsubscribe(Subscription subscription) {
+        for (String topic : subscription.getTopics()) {
+            subscriptionsByTopic.computeIfPresent(topic, (t, subscribers) -> {
+                subscribers.remove(subscription);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    public void addListener(Consumer<TimetableEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<TimetableEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    public int getSubscriberCount() {
+        Set<Subscription> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        subscriptionsByTopic.values().forEach(all::addAll);
+        return all.size();
+    }
+}
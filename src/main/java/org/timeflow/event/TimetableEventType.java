@@ -0,0 +1,5 @@
+package org.timeflow.event;
+
+public enum TimetableEventType {
+    CREATED, UPDATED, APPROVED, REJECTED, DELETED
+}
@@ -0,0 +1,85 @@
+package org.timeflow.mail;
+
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps every message in memory instead of delivering it. The message is still
+ * fully MIME-encoded so the cost of building it matches a real send.
+ */
+public class CapturingMailTransport implements MailTransport {
+    private final Session session = Session.getInstance(new Properties());
+    private final List<CapturedMessage> messages = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean retainMessages = true;
+
+    @Override
+    public Session getSession() {
+        return session;
+    }
+
+    @Override
+    public void send(MimeMessage message) throws MessagingException {
+        message.saveChanges();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try {
+            message.writeTo(raw);
+        } catch (IOException e) {
+            throw new MessagingException("Failed to encode message", e);
+        }
+        if (retainMessages) {
+            messages.add(new CapturedMessage(addresses(message.getAllRecipients()), message.getSubject(), raw.toString()));
+        }
+    }
+
+    // Benchmarks turn retention off so large runs do not measure heap growth
+    public void setRetainMessages(boolean retainMessages) {
+        this.retainMessages = retainMessages;
+    }
+
+    public List<CapturedMessage> getMessages() {
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
+    }
+
+    public int count() {
+        return messages.size();
+    }
+
+    public void clear() {
+        messages.clear();
+    }
+
+    private static List<String> addresses(Address[] recipients) {
+        if (recipients == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(recipients).map(Address::toString).collect(Collectors.toList());
+    }
+
+    public static class CapturedMessage {
+        private final List<String> recipients;
+        private final String subject;
+        private final String raw;
+
+        public CapturedMessage(List<String> recipients, String subject, String raw) {
+            this.recipients = recipients;
+            this.subject = subject;
+            this.raw = raw;
+        }
+
+        public List<String> getRecipients() { return recipients; }
+        public String getSubject() { return subject; }
+        public String getRaw() { return raw; }
+    }
+}
@@ -0,0 +1,61 @@
+package org.timeflow.mail;
+
+import org.timeflow.metrics.EmailSendEvent;
+import org.timeflow.metrics.Metrics;
+import org.timeflow.metrics.Timer;
+
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+/**
+ * Times every send of the wrapped transport (timeflow.mail.send) and emits an
+ * {@link EmailSendEvent} to JDK Flight Recorder when it is recording.
+ */
+public class InstrumentedMailTransport implements MailTransport {
+    private final MailTransport delegate;
+    private final String transportName;
+    private final Timer sendTimer;
+
+    private InstrumentedMailTransport(MailTransport delegate) {
+        this.delegate = delegate;
+        this.transportName = delegate.getClass().getSimpleName();
+        this.sendTimer = Metrics.timer("timeflow.mail.send", "transport", transportName);
+    }
+
+    public static MailTransport wrap(MailTransport transport) {
+        return transport instanceof InstrumentedMailTransport ? transport : new InstrumentedMailTransport(transport);
+    }
+
+    @Override
+    public Session getSession() {
+        return delegate.getSession();
+    }
+
+    @Override
+    public void send(MimeMessage message) throws MessagingException {
+        EmailSendEvent event = new EmailSendEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            delegate.send(message);
+            succeeded = true;
+        } finally {
+            sendTimer.record(System.nanoTime() - start);
+            if (!succeeded) {
+                Metrics.counter("timeflow.mail.errors", "transport", transportName).increment();
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                Address[] recipients = message.getAllRecipients();
+                event.transport = transportName;
+                event.subject = message.getSubject();
+                event.recipients = recipients != null ? recipients.length : 0;
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.timeflow.mail;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process SMTP server for offline runs. It speaks just enough of RFC 5321
+ * (EHLO/HELO, MAIL, RCPT, DATA, RSET, NOOP, QUIT) for JavaMail to deliver to it,
+ * counts what it receives and discards the content.
+ */
+public class LocalSmtpServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LocalSmtpServer.class);
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "local-smtp");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong receivedMessages = new AtomicLong();
+    private final AtomicLong receivedRecipients = new AtomicLong();
+    private volatile boolean running = true;
+
+    public LocalSmtpServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        workers.execute(this::acceptLoop);
+        logger.info("Local SMTP server listening on port {}", getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getReceivedMessages() {
+        return receivedMessages.get();
+    }
+
+    public long getReceivedRecipients() {
+        return receivedRecipients.get();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                workers.execute(() -> handle(socket));
+            } catch (SocketException e) {
+                if (running) {
+                    logger.error("Local SMTP server socket failed", e);
+                }
+                return;
+            } catch (IOException e) {
+                logger.error("Error accepting SMTP connection", e);
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            reply(out, "220 localhost TimeFlow local SMTP");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO":
+                    case "HELO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "MAIL":
+                        recipients.clear();
+                        reply(out, "250 OK");
+                        break;
+                    case "RCPT":
+                        recipients.add(line);
+                        reply(out, "250 OK");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        readData(in);
+                        receivedMessages.incrementAndGet();
+                        receivedRecipients.addAndGet(recipients.size());
+                        recipients.clear();
+                        reply(out, "250 OK");
+                        break;
+                    case "RSET":
+                        recipients.clear();
+                        reply(out, "250 OK");
+                        break;
+                    case "NOOP":
+                        reply(out, "250 OK");
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    default:
+                        reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.warn("Local SMTP session ended abnormally: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void readData(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(".")) {
+                return;
+            }
+        }
+    }
+
+    private void reply(Writer out, String response) throws IOException {
+        out.write(response);
+        out.write("\r\n");
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        workers.shutdownNow();
+    }
+}
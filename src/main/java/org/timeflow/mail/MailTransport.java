@@ -0,0 +1,16 @@
+package org.timeflow.mail;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+/**
+ * Delivery channel used by the notification services. Implementations own the
+ * {@link Session} so messages are built against the same configuration they are sent with.
+ */
+public interface MailTransport {
+
+    Session getSession();
+
+    void send(MimeMessage message) throws MessagingException;
+}
@@ -0,0 +1,52 @@
+package org.timeflow.mail;
+
+import org.timeflow.util.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public final class MailTransports {
+    private static MailTransport defaultTransport;
+    private static LocalSmtpServer localServer;
+
+    private MailTransports() {
+    }
+
+    // Shared transport selected by MAIL_TRANSPORT in .env
+    public static synchronized MailTransport getDefault() {
+        if (defaultTransport == null) {
+            defaultTransport = create(Config.MAIL_TRANSPORT);
+        }
+        return defaultTransport;
+    }
+
+    // Lets tools and benchmarks swap the transport used by every NotificationService
+    public static synchronized void setDefault(MailTransport transport) {
+        defaultTransport = transport;
+    }
+
+    public static synchronized MailTransport create(String mode) {
+        switch (mode.trim().toLowerCase()) {
+            case "capture":
+                return new CapturingMailTransport();
+            case "local":
+                return new SmtpMailTransport("localhost", getLocalServer().getPort());
+            case "smtp":
+                Config.requireSmtpCredentials();
+                return new SmtpMailTransport(Config.SMTP_HOST, Config.SMTP_PORT, Config.USERNAME, Config.EMAIL_PASSWORD);
+            default:
+                throw new IllegalStateException("Unknown MAIL_TRANSPORT: " + mode);
+        }
+    }
+
+    public static synchronized LocalSmtpServer getLocalServer() {
+        if (localServer == null) {
+            try {
+                localServer = new LocalSmtpServer(Integer.parseInt(Config.LOCAL_SMTP_PORT));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start local SMTP server", e);
+            }
+        }
+        return localServer;
+    }
+}
@@ -0,0 +1,47 @@
+package org.timeflow.mail;
+
+import javax.mail.Authenticator;
+import javax.mail.MessagingException;
+import javax.mail.PasswordAuthentication;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Properties;
+
+public class SmtpMailTransport implements MailTransport {
+    private final Session session;
+
+    // Authenticated STARTTLS relay, e.g. the production mail server
+    public SmtpMailTransport(String host, String port, String username, String password) {
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.starttls.enable", "true");
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", port);
+
+        this.session = Session.getInstance(props, new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(username, password);
+            }
+        });
+    }
+
+    // Plain, unauthenticated relay, e.g. the in-process LocalSmtpServer
+    public SmtpMailTransport(String host, int port) {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        this.session = Session.getInstance(props);
+    }
+
+    @Override
+    public Session getSession() {
+        return session;
+    }
+
+    @Override
+    public void send(MimeMessage message) throws MessagingException {
+        Transport.send(message);
+    }
+}
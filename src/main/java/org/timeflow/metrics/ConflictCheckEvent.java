@@ -0,0 +1,23 @@
+package org.timeflow.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Shows up in JDK Flight Recorder recordings (e.g. jcmd <pid> JFR.start) under "TimeFlow"
+@Name("org.timeflow.ConflictCheck")
+@Label("Conflict Check")
+@Category("TimeFlow")
+@Description("Conflict detection for one timetable slot")
+public class ConflictCheckEvent extends Event {
+    @Label("Timetable Id")
+    public long timetableId;
+
+    @Label("Course Code")
+    public String courseCode;
+
+    @Label("Conflicts Found")
+    public int conflictsFound;
+}
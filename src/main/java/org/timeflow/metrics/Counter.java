@@ -0,0 +1,28 @@
+package org.timeflow.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Counter {
+    private final MetricId id;
+    private final LongAdder count = new LongAdder();
+
+    Counter(MetricId id) {
+        this.id = id;
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void increment(long amount) {
+        count.add(amount);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public MetricId getId() {
+        return id;
+    }
+}
@@ -0,0 +1,25 @@
+package org.timeflow.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.timeflow.EmailSend")
+@Label("Email Send")
+@Category("TimeFlow")
+@Description("Delivery of one notification email through the mail transport")
+public class EmailSendEvent extends Event {
+    @Label("Transport")
+    public String transport;
+
+    @Label("Subject")
+    public String subject;
+
+    @Label("Recipients")
+    public int recipients;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
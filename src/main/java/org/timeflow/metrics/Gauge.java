@@ -0,0 +1,22 @@
+package org.timeflow.metrics;
+
+import java.util.function.DoubleSupplier;
+
+// A value read when the metrics are scraped rather than recorded as it changes
+public final class Gauge {
+    private final MetricId id;
+    private final DoubleSupplier value;
+
+    Gauge(MetricId id, DoubleSupplier value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    public double value() {
+        return value.getAsDouble();
+    }
+
+    public MetricId getId() {
+        return id;
+    }
+}
@@ -0,0 +1,64 @@
+package org.timeflow.metrics;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Metric name plus an ordered list of tag key/value pairs, e.g.
+ * {@code timeflow.dao ["entity", "Timetable", "op", "save"]}.
+ */
+public final class MetricId {
+    private final String name;
+    private final String[] tags;
+
+    MetricId(String name, String... tags) {
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be key/value pairs: " + Arrays.toString(tags));
+        }
+        this.name = name;
+        this.tags = tags.clone();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int tagCount() {
+        return tags.length / 2;
+    }
+
+    public String tagKey(int i) {
+        return tags[2 * i];
+    }
+
+    public String tagValue(int i) {
+        return tags[2 * i + 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MetricId)) return false;
+        MetricId other = (MetricId) o;
+        return name.equals(other.name) && Arrays.equals(tags, other.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, Arrays.hashCode(tags));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name);
+        if (tags.length > 0) {
+            sb.append('{');
+            for (int i = 0; i < tagCount(); i++) {
+                if (i > 0) sb.append(',');
+                sb.append(tagKey(i)).append('=').append(tagValue(i));
+            }
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package org.timeflow.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide registry of timers, counters and gauges. Metric names use dots
+ * ({@code timeflow.dao}); the Prometheus output turns them into underscores.
+ *
+ * <pre>
+ * Timer timer = Metrics.timer("timeflow.report", "report", "conflicts");
+ * long start = System.nanoTime();
+ * ...
+ * timer.record(System.nanoTime() - start);
+ * </pre>
+ */
+public final class Metrics {
+    private static final Map<MetricId, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<MetricId, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<MetricId, Gauge> gauges = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static Timer timer(String name, String... tags) {
+        return timers.computeIfAbsent(new MetricId(name, tags), Timer::new);
+    }
+
+    public static Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(new MetricId(name, tags), Counter::new);
+    }
+
+    // Registers (or replaces) a gauge; the supplier is called on every scrape
+    public static Gauge gauge(String name, DoubleSupplier value, String... tags) {
+        MetricId id = new MetricId(name, tags);
+        Gauge gauge = new Gauge(id, value);
+        gauges.put(id, gauge);
+        return gauge;
+    }
+
+    public static Collection<Timer> getTimers() {
+        List<Timer> list = new ArrayList<>(timers.values());
+        list.sort(Comparator.comparing(t -> t.getId().toString()));
+        return list;
+    }
+
+    public static Collection<Counter> getCounters() {
+        List<Counter> list = new ArrayList<>(counters.values());
+        list.sort(Comparator.comparing(c -> c.getId().toString()));
+        return list;
+    }
+
+    public static Collection<Gauge> getGauges() {
+        List<Gauge> list = new ArrayList<>(gauges.values());
+        list.sort(Comparator.comparing(g -> g.getId().toString()));
+        return list;
+    }
+
+    // Prometheus text exposition format (version 0.0.4)
+    public static String scrape() {
+        StringBuilder out = new StringBuilder();
+        String lastName = null;
+        for (Timer timer : getTimers()) {
+            String name = promName(timer.getId().getName()) + "_seconds";
+            if (!name.equals(lastName)) {
+                out.append("# TYPE ").append(name).append(" histogram\n");
+                lastName = name;
+            }
+            long[] cumulative = timer.cumulativeBuckets();
+            for (int i = 0; i < Timer.BUCKETS.length; i++) {
+                out.append(name).append("_bucket");
+                appendLabels(out, timer.getId(), "le", String.valueOf(Timer.BUCKETS[i]));
+                out.append(' ').append(cumulative[i]).append('\n');
+            }
+            out.append(name).append("_bucket");
+            appendLabels(out, timer.getId(), "le", "+Inf");
+            out.append(' ').append(timer.count()).append('\n');
+            out.append(name).append("_count");
+            appendLabels(out, timer.getId(), null, null);
+            out.append(' ').append(timer.count()).append('\n');
+            out.append(name).append("_sum");
+            appendLabels(out, timer.getId(), null, null);
+            out.append(' ').append(String.format(Locale.ROOT, "%.6f", timer.totalNanos() / 1e9)).append('\n');
+        }
+        lastName = null;
+        for (Counter counter : getCounters()) {
+            String name = promName(counter.getId().getName()) + "_total";
+            if (!name.equals(lastName)) {
+                out.append("# TYPE ").append(name).append(" counter\n");
+                lastName = name;
+            }
+            out.append(name);
+            appendLabels(out, counter.getId(), null, null);
+            out.append(' ').append(counter.count()).append('\n');
+        }
+        lastName = null;
+        for (Gauge gauge : getGauges()) {
+            String name = promName(gauge.getId().getName());
+            if (!name.equals(lastName)) {
+                out.append("# TYPE ").append(name).append(" gauge\n");
+                lastName = name;
+            }
+            out.append(name);
+            appendLabels(out, gauge.getId(), null, null);
+            out.append(' ').append(String.format(Locale.ROOT, "%.6f", gauge.value())).append('\n');
+        }
+        return out.toString();
+    }
+
+    // One line per metric, for the periodic log dump
+    public static List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (Timer timer : getTimers()) {
+            if (timer.count() > 0) {
+                lines.add(String.format(Locale.ROOT, "%s count=%d mean=%.2fms max=%.2fms",
+                        timer.getId(), timer.count(), timer.meanMillis(), timer.maxNanos() / 1e6));
+            }
+        }
+        for (Counter counter : getCounters()) {
+            lines.add(counter.getId() + " count=" + counter.count());
+        }
+        for (Gauge gauge : getGauges()) {
+            lines.add(String.format(Locale.ROOT, "%s value=%.2f", gauge.getId(), gauge.value()));
+        }
+        return lines;
+    }
+
+    private static void appendLabels(StringBuilder out, MetricId id, String extraKey, String extraValue) {
+        if (id.tagCount() == 0 && extraKey == null) {
+            return;
+        }
+        out.append('{');
+        boolean first = true;
+        for (int i = 0; i < id.tagCount(); i++) {
+            if (!first) out.append(',');
+            out.append(promName(id.tagKey(i))).append("=\"").append(escape(id.tagValue(i))).append('"');
+            first = false;
+        }
+        if (extraKey != null) {
+            if (!first) out.append(',');
+            out.append(extraKey).append("=\"").append(extraValue).append('"');
+        }
+        out.append('}');
+    }
+
+    private static String promName(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
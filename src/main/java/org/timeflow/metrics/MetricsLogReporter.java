@@ -0,0 +1,46 @@
+package org.timeflow.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes {@link Metrics#summary()} to the log at a fixed interval, for installations
+ * that have no Prometheus to scrape /metrics.
+ */
+public final class MetricsLogReporter {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsLogReporter.class);
+    private static ScheduledExecutorService scheduler;
+
+    private MetricsLogReporter() {
+    }
+
+    public static synchronized void start(int intervalSeconds) {
+        if (scheduler != null || intervalSeconds <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-log-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(MetricsLogReporter::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        logger.info("Logging metrics every {} seconds", intervalSeconds);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public static void report() {
+        for (String line : Metrics.summary()) {
+            logger.info("metric {}", line);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.timeflow.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.util.Config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements the current thread issues while the scope is open. Every DAO
+ * call opens a plain scope (see BaseDAO); service operations, API requests and UI loads
+ * open a checked one, which warns when a single call issues more than
+ * N_PLUS_ONE_THRESHOLD statements - usually an eager association being loaded row by row.
+ *
+ * <pre>
+ * QueryScope scope = QueryScope.checked("timetable.approve");
+ * try {
+ *     ...
+ * } finally {
+ *     scope.close();
+ * }
+ * </pre>
+ *
+ * Statements are reported by the Hibernate StatementInspector, {@code StatementCounter}.
+ */
+public final class QueryScope implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(QueryScope.class);
+    private static final ThreadLocal<QueryScope> current = new ThreadLocal<>();
+    private static final int THRESHOLD = Config.getInt("N_PLUS_ONE_THRESHOLD", 25);
+    // Distinct SQL strings remembered per checked scope, to name the repeated one
+    private static final int MAX_SHAPES = 64;
+
+    private final String name;
+    private final QueryScope parent;
+    private final Map<String, Integer> shapes;
+    private int statements;
+    private boolean closed;
+
+    private QueryScope(String name, QueryScope parent, boolean checked) {
+        this.name = name;
+        this.parent = parent;
+        this.shapes = checked ? new HashMap<>() : null;
+    }
+
+    public static QueryScope open(String name) {
+        QueryScope parent = current.get();
+        QueryScope scope = new QueryScope(name, parent, false);
+        current.set(scope);
+        return scope;
+    }
+
+    // Only the outermost checked scope on a thread reports, so nested service calls warn once
+    public static QueryScope checked(String name) {
+        QueryScope parent = current.get();
+        QueryScope scope = new QueryScope(name, parent, parent == null || !parent.isWithinChecked());
+        current.set(scope);
+        return scope;
+    }
+
+    // Called for every statement Hibernate prepares on this thread
+    public static void statementPrepared(String sql) {
+        for (QueryScope scope = current.get(); scope != null; scope = scope.parent) {
+            scope.statements++;
+            if (scope.shapes != null && (scope.shapes.size() < MAX_SHAPES || scope.shapes.containsKey(sql))) {
+                scope.shapes.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current.get() == this) {
+            if (parent == null) {
+                current.remove();
+            } else {
+                current.set(parent);
+            }
+        }
+        if (shapes != null && statements > THRESHOLD) {
+            reportExcessiveStatements();
+        }
+    }
+
+    private boolean isWithinChecked() {
+        for (QueryScope scope = this; scope != null; scope = scope.parent) {
+            if (scope.shapes != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reportExcessiveStatements() {
+        Map.Entry<String, Integer> mostRepeated = null;
+        for (Map.Entry<String, Integer> entry : shapes.entrySet()) {
+            if (mostRepeated == null || entry.getValue() > mostRepeated.getValue()) {
+                mostRepeated = entry;
+            }
+        }
+        Metrics.counter("timeflow.n_plus_one", "scope", name).increment();
+        if (mostRepeated != null) {
+            logger.warn("Possible N+1 in {}: {} SQL statements (threshold {}); repeated {} times: {}",
+                    name, statements, THRESHOLD, mostRepeated.getValue(), abbreviate(mostRepeated.getKey()));
+        } else {
+            logger.warn("Possible N+1 in {}: {} SQL statements (threshold {})", name, statements, THRESHOLD);
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() > 300 ? flat.substring(0, 300) + "..." : flat;
+    }
+}
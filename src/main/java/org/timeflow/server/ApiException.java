@@ -0,0 +1,44 @@
+package org.timeflow.server;
+
+import java.util.List;
+
+/**
+ * An error that maps directly onto an API error response:
+ * {"success": false, "error": {"code", "message", "details"}}.
+ */
+public class ApiException extends RuntimeException {
+    private final int status;
+    private final String code;
+    private final List<String> details;
+
+    public ApiException(int status, String code, String message) {
+        this(status, code, message, List.of());
+    }
+
+    public ApiException(int status, String code, String message, List<String> details) {
+        super(message);
+        this.status = status;
+        this.code = code;
+        this.details = details;
+    }
+
+    public static ApiException badRequest(String message) {
+        return new ApiException(400, "VALIDATION_ERROR", message);
+    }
+
+    public static ApiException unauthorized(String message) {
+        return new ApiException(401, "UNAUTHORIZED", message);
+    }
+
+    public static ApiException forbidden(String message) {
+        return new ApiException(403, "FORBIDDEN", message);
+    }
+
+    public static ApiException notFound(String message) {
+        return new ApiException(404, "NOT_FOUND", message);
+    }
+
+    public int getStatus() { return status; }
+    public String getCode() { return code; }
+    public List<String> getDetails() { return details; }
+}
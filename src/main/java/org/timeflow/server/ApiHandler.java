@@ -0,0 +1,169 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.auth.LoginRejectedException;
+import org.timeflow.dao.OptimisticUpdateException;
+import org.timeflow.entity.User;
+import org.timeflow.metrics.QueryScope;
+import org.timeflow.service.InvalidStateException;
+import org.timeflow.service.NotFoundException;
+import org.timeflow.service.PermissionDeniedException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Base class for the JSON endpoints under /api/v1. Authenticates the caller, dispatches to
+ * {@link #handle(ApiRequest)} and wraps the result in the documented envelope:
+ * {"success": true, "data": ..., "message": ..., "timestamp": ...}.
+ */
+public abstract class ApiHandler implements HttpHandler {
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String contextPath;
+    private final RequestAuthenticator authenticator;
+
+    protected ApiHandler(String contextPath, RequestAuthenticator authenticator) {
+        this.contextPath = contextPath;
+        this.authenticator = authenticator;
+    }
+
+    public String getContextPath() {
+        return contextPath;
+    }
+
+    // Endpoints such as login override this to accept anonymous requests
+    protected boolean requiresAuthentication(HttpExchange exchange) {
+        return true;
+    }
+
+    // Returns the response data, or a Binary for non-JSON payloads; throws ApiException for errors
+    protected abstract Object handle(ApiRequest request) throws Exception;
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            boolean authenticationRequired = requiresAuthentication(exchange);
+            User user = authenticationRequired ? authenticator.authenticate(exchange) : null;
+            if (authenticationRequired && user == null) {
+                exchange.getResponseHeaders().add("WWW-Authenticate", "Bearer realm=\"timeflow\"");
+                throw ApiException.unauthorized("Missing or invalid credentials");
+            }
+            Object result;
+            // Named by endpoint rather than full path to keep the n_plus_one metric's tags bounded
+            QueryScope scope = QueryScope.checked(exchange.getRequestMethod() + " " + contextPath);
+            try {
+                result = handle(new ApiRequest(exchange, user, contextPath));
+            } finally {
+                scope.close();
+            }
+            if (result instanceof Binary) {
+                sendBinary(exchange, (Binary) result);
+            } else {
+                Map<String, Object> envelope = new LinkedHashMap<>();
+                envelope.put("success", true);
+                envelope.put("data", result instanceof Message ? null : result);
+                if (result instanceof Message) {
+                    envelope.put("message", ((Message) result).text);
+                }
+                envelope.put("timestamp", Instant.now());
+                sendJson(exchange, 200, envelope);
+            }
+        } catch (ApiException e) {
+            sendError(exchange, e);
+        } catch (LoginRejectedException e) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            sendError(exchange, new ApiException(429, "TOO_MANY_REQUESTS", e.getMessage()));
+        } catch (Exception e) {
+            sendError(exchange, translate(e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Maps the typed exceptions services throw, wherever they sit in the cause chain, to
+    // statuses; anything else is a 500
+    private ApiException translate(Exception e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ApiException) {
+                return (ApiException) t;
+            }
+            if (t instanceof NotFoundException) {
+                return ApiException.notFound(t.getMessage());
+            }
+            if (t instanceof PermissionDeniedException) {
+                return ApiException.forbidden(t.getMessage());
+            }
+            if (t instanceof OptimisticUpdateException || t instanceof InvalidStateException) {
+                return new ApiException(409, "CONFLICT", t.getMessage());
+            }
+        }
+        logger.error("Unhandled API error", e);
+        return new ApiException(500, "INTERNAL_ERROR", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+    }
+
+    private void sendError(HttpExchange exchange, ApiException e) throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", e.getCode());
+        error.put("message", e.getMessage());
+        error.put("details", e.getDetails());
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("success", false);
+        envelope.put("error", error);
+        envelope.put("timestamp", Instant.now());
+        sendJson(exchange, e.getStatus(), envelope);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Map<String, Object> envelope) throws IOException {
+        byte[] body = Json.write(envelope).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendBinary(HttpExchange exchange, Binary binary) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", binary.contentType);
+        if (binary.fileName != null) {
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + binary.fileName + "\"");
+        }
+        exchange.sendResponseHeaders(200, binary.bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(binary.bytes);
+        }
+    }
+
+    protected static ApiException routeNotFound(ApiRequest request) {
+        return ApiException.notFound("No endpoint for " + request.getMethod() + " " + request.getPath());
+    }
+
+    // Response with only a message and no data
+    protected static final class Message {
+        private final String text;
+
+        public Message(String text) {
+            this.text = text;
+        }
+    }
+
+    // Raw, non-JSON response such as a PDF
+    protected static final class Binary {
+        private final String contentType;
+        private final String fileName;
+        private final byte[] bytes;
+
+        public Binary(String contentType, String fileName, byte[] bytes) {
+            this.contentType = contentType;
+            this.fileName = fileName;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.SemesterType;
+import org.timeflow.entity.User;
+import org.timeflow.entity.UserRole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * One API call as seen by an {@link ApiHandler}: the authenticated user, the path below
+ * the handler's context, the query string and the JSON body.
+ */
+public class ApiRequest {
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    private final HttpExchange exchange;
+    private final User user;
+    private final List<String> path;
+    private final Map<String, String> query;
+    private Map<String, Object> body;
+
+    ApiRequest(HttpExchange exchange, User user, String contextPath) {
+        this.exchange = exchange;
+        this.user = user;
+        String relative = exchange.getRequestURI().getPath().substring(contextPath.length());
+        List<String> segments = new ArrayList<>();
+        for (String segment : relative.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        this.path = Collections.unmodifiableList(segments);
+        this.query = EventStreamHandler.parseQuery(exchange.getRequestURI().getRawQuery());
+    }
+
+    public String getMethod() {
+        return exchange.getRequestMethod();
+    }
+
+    public String getClientAddress() {
+        return exchange.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public List<String> getPath() {
+        return path;
+    }
+
+    // True when the method matches and the path has the given segments; "*" matches any segment
+    public boolean matches(String method, String... pattern) {
+        if (!method.equals(getMethod()) || pattern.length != path.size()) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (!"*".equals(pattern[i]) && !pattern[i].equals(path.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Long pathId(int index) {
+        try {
+            return Long.valueOf(path.get(index));
+        } catch (NumberFormatException e) {
+            throw ApiException.badRequest("Invalid id '" + path.get(index) + "'");
+        }
+    }
+
+    public String query(String name) {
+        String value = query.get(name);
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    public String requireQuery(String name) {
+        String value = query(name);
+        if (value == null) {
+            throw ApiException.badRequest("Query parameter '" + name + "' is required");
+        }
+        return value;
+    }
+
+    public <T> T query(String name, Function<String, T> parser) {
+        String value = query(name);
+        return value == null ? null : parse(name, value, parser);
+    }
+
+    public <T> T requireQuery(String name, Function<String, T> parser) {
+        return parse(name, requireQuery(name), parser);
+    }
+
+    // ?semester= with an optional ?year=; without a year, the semester's current or next run
+    public AcademicTerm requireTerm() {
+        return term(requireQuery("semester", SemesterType::valueOf));
+    }
+
+    public AcademicTerm term(SemesterType semester) {
+        Integer year = query("year", Integer::valueOf);
+        return year != null ? new AcademicTerm(year, semester) : AcademicTerm.upcoming(semester);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> body() {
+        if (body == null) {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "PAYLOAD_TOO_LARGE", "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+                }
+                String text = new String(bytes, StandardCharsets.UTF_8).trim();
+                Object parsed;
+                try {
+                    parsed = text.isEmpty() ? Map.of() : Json.parse(text);
+                } catch (IllegalArgumentException e) {
+                    throw ApiException.badRequest(e.getMessage());
+                }
+                if (!(parsed instanceof Map)) {
+                    throw ApiException.badRequest("Request body must be a JSON object");
+                }
+                body = (Map<String, Object>) parsed;
+            } catch (IOException e) {
+                throw ApiException.badRequest("Could not read request body");
+            }
+        }
+        return body;
+    }
+
+    public boolean has(String field) {
+        return body().get(field) != null;
+    }
+
+    public String string(String field) {
+        Object value = body().get(field);
+        return value == null ? null : value.toString();
+    }
+
+    public String requireString(String field) {
+        String value = string(field);
+        if (value == null || value.isBlank()) {
+            throw ApiException.badRequest("Field '" + field + "' is required");
+        }
+        return value;
+    }
+
+    public <T> T field(String field, Function<String, T> parser) {
+        String value = string(field);
+        return value == null ? null : parse(field, value, parser);
+    }
+
+    public <T> T requireField(String field, Function<String, T> parser) {
+        return parse(field, requireString(field), parser);
+    }
+
+    public void requireRole(UserRole... roles) {
+        if (!Arrays.asList(roles).contains(user.getRole())) {
+            throw ApiException.forbidden("This operation requires one of the roles " + Arrays.toString(roles));
+        }
+    }
+
+    private static <T> T parse(String name, String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw ApiException.badRequest("Invalid value '" + value + "' for '" + name + "'");
+        }
+    }
+
+    HttpExchange getExchange() {
+        return exchange;
+    }
+}
@@ -0,0 +1,129 @@
+package org.timeflow.server;
+
+import org.timeflow.entity.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * JSON shapes of the entities the API returns. Entities are never serialised directly so
+ * lazy associations and password hashes cannot leak into responses.
+ */
+final class ApiViews {
+
+    private ApiViews() {
+    }
+
+    static Map<String, Object> user(User user) {
+        if (user == null) {
+            return null;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", user.getId());
+        map.put("username", user.getUsername());
+        map.put("email", user.getEmail());
+        map.put("role", user.getRole());
+        map.put("department", department(user.getDepartment()));
+        if (user.getRole() == UserRole.STUDENT) {
+            map.put("level", user.getLevel());
+        }
+        return map;
+    }
+
+    // Just enough to identify a user inside another resource
+    static Map<String, Object> userRef(User user) {
+        if (user == null) {
+            return null;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", user.getId());
+        map.put("username", user.getUsername());
+        return map;
+    }
+
+    static Map<String, Object> department(Department department) {
+        if (department == null) {
+            return null;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", department.getId());
+        map.put("name", department.getName());
+        map.put("code", department.getCode());
+        return map;
+    }
+
+    static Map<String, Object> course(Course course) {
+        if (course == null) {
+            return null;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", course.getId());
+        map.put("code", course.getCode());
+        map.put("name", course.getName());
+        map.put("level", course.getLevel());
+        map.put("department", department(course.getDepartment()));
+        map.put("lecturer", userRef(course.getLecturer()));
+        return map;
+    }
+
+    static Map<String, Object> room(Room room) {
+        if (room == null) {
+            return null;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", room.getId());
+        map.put("name", room.getName());
+        map.put("capacity", room.getCapacity());
+        map.put("location", room.getLocation());
+        return map;
+    }
+
+    static Map<String, Object> timetable(Timetable timetable) {
+        if (timetable == null) {
+            return null;
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", timetable.getId());
+        map.put("version", timetable.getVersion());
+        map.put("course", course(timetable.getCourse()));
+        map.put("room", room(timetable.getRoom()));
+        map.put("type", timetable.getType());
+        map.put("semester", timetable.getSemester());
+        map.put("academicYear", timetable.getAcademicYear());
+        map.put("dayOfWeek", timetable.getDayOfWeek());
+        map.put("specificDate", timetable.getSpecificDate());
+        map.put("startTime", timetable.getStartTime());
+        map.put("endTime", timetable.getEndTime());
+        map.put("status", timetable.getStatus());
+        map.put("description", timetable.getDescription());
+        map.put("createdAt", timetable.getCreatedAt());
+        map.put("approvedAt", timetable.getApprovedAt());
+        map.put("approvedBy", userRef(timetable.getApprovedBy()));
+        return map;
+    }
+
+    static List<Map<String, Object>> timetables(List<Timetable> timetables) {
+        return timetables.stream().map(ApiViews::timetable).collect(Collectors.toList());
+    }
+
+    static Map<String, Object> conflict(Conflict conflict) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", conflict.getId());
+        map.put("version", conflict.getVersion());
+        map.put("type", conflict.getType());
+        map.put("status", conflict.getStatus());
+        map.put("timetable", timetable(conflict.getTimetable1()));
+        map.put("conflictingTimetable", timetable(conflict.getTimetable2()));
+        map.put("detectedAt", conflict.getDetectedAt());
+        map.put("resolvedAt", conflict.getResolvedAt());
+        map.put("resolvedBy", userRef(conflict.getResolvedBy()));
+        map.put("resolutionNotes", conflict.getResolutionNotes());
+        return map;
+    }
+
+    static List<Map<String, Object>> conflicts(List<Conflict> conflicts) {
+        return conflicts.stream().map(ApiViews::conflict).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,42 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.timeflow.entity.User;
+import org.timeflow.service.AuthenticationService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * HTTP Basic authentication against the user table. Every request pays for a BCrypt
+ * verification, so this suits scripts and testing rather than busy clients.
+ */
+public class BasicAuthenticator implements RequestAuthenticator {
+    private static final String PREFIX = "Basic ";
+
+    private final AuthenticationService authService;
+
+    public BasicAuthenticator(AuthenticationService authService) {
+        this.authService = authService;
+    }
+
+    @Override
+    public User authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith(PREFIX)) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getDecoder().decode(header.substring(PREFIX.length()).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int colon = decoded.indexOf(':');
+        if (colon < 0) {
+            return null;
+        }
+        return authService.authenticate(decoded.substring(0, colon), decoded.substring(colon + 1),
+                exchange.getRemoteAddress().getAddress().getHostAddress());
+    }
+}
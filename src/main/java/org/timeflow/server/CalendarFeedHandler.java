@@ -0,0 +1,120 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.dao.DAOFactory;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Department;
+import org.timeflow.entity.SemesterType;
+import org.timeflow.service.CalendarFeedService;
+import org.timeflow.service.CalendarFeedService.CalendarFeed;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * iCalendar subscriptions for calendar clients.
+ *
+ * GET /api/v1/calendar/cohorts/{departmentId}/{level}/{semester}.ics   the semester's current or next run
+ * GET /api/v1/calendar/feeds/{token}.ics                               a student's or lecturer's own feed
+ *
+ * Calendar clients cannot send the API's credentials, so personal feeds are addressed by a
+ * secret token from POST /api/v1/auth/calendar-token instead.
+ * Responses carry an ETag; a matching If-None-Match gets 304 without a body.
+ */
+public class CalendarFeedHandler implements HttpHandler {
+    private static final Logger logger = LoggerFactory.getLogger(CalendarFeedHandler.class);
+    private static final String PREFIX = "/api/v1/calendar/";
+
+    private final CalendarFeedService calendarFeedService;
+    private final DAOFactory daoFactory = DAOFactory.getInstance();
+
+    public CalendarFeedHandler(CalendarFeedService calendarFeedService) {
+        this.calendarFeedService = calendarFeedService;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        CalendarFeed feed;
+        try {
+            feed = resolve(exchange.getRequestURI().getPath());
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, 400, e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            // The path of a personal feed is its secret, so it is not logged
+            logger.error("Failed to build calendar feed", e);
+            sendText(exchange, 500, "Failed to build calendar feed");
+            return;
+        }
+        if (feed == null) {
+            sendText(exchange, 404, "Not found");
+            return;
+        }
+
+        exchange.getResponseHeaders().add("ETag", feed.getEtag());
+        exchange.getResponseHeaders().add("Cache-Control", "private, max-age=300");
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.contains(feed.getEtag())) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "text/calendar; charset=utf-8");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, feed.getBody().length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(feed.getBody());
+        }
+    }
+
+    private CalendarFeed resolve(String path) {
+        if (!path.startsWith(PREFIX) || !path.endsWith(".ics")) {
+            return null;
+        }
+        String[] parts = path.substring(PREFIX.length(), path.length() - ".ics".length()).split("/");
+        try {
+            switch (parts[0]) {
+                case "cohorts": {
+                    if (parts.length != 4) {
+                        return null;
+                    }
+                    Department department = daoFactory.getDepartmentDAO().findById(Long.valueOf(parts[1]));
+                    if (department == null) {
+                        return null;
+                    }
+                    return calendarFeedService.getCohortFeed(department, Integer.parseInt(parts[2]),
+                            AcademicTerm.upcoming(SemesterType.valueOf(parts[3])));
+                }
+                case "feeds":
+                    return parts.length == 2 ? calendarFeedService.getFeedByToken(parts[1]) : null;
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid identifier in " + path);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.timeflow.server;
+
+import org.timeflow.dao.DAOFactory;
+import org.timeflow.entity.*;
+import org.timeflow.service.ConflictDetectionService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conflict endpoints.
+ *
+ * GET  /api/v1/conflicts                 ?status= or ?department=; lecturers see their own
+ * GET  /api/v1/conflicts/{id}
+ * POST /api/v1/conflicts/{id}/resolve    {"resolution": "..."}
+ */
+public class ConflictApiHandler extends ApiHandler {
+    private final ConflictDetectionService conflictService;
+    private final DAOFactory daoFactory = DAOFactory.getInstance();
+
+    public ConflictApiHandler(RequestAuthenticator authenticator, ConflictDetectionService conflictService) {
+        super("/api/v1/conflicts", authenticator);
+        this.conflictService = conflictService;
+    }
+
+    @Override
+    protected Object handle(ApiRequest request) {
+        request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER, UserRole.LECTURER);
+        if (request.matches("GET")) {
+            return Map.of("conflicts", ApiViews.conflicts(list(request)));
+        }
+        if (request.matches("GET", "*")) {
+            return Map.of("conflict", ApiViews.conflict(find(request.pathId(0))));
+        }
+        if (request.matches("POST", "*", "resolve")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            Long id = request.pathId(0);
+            find(id);
+            conflictService.resolveConflict(id, request.requireString("resolution"), request.getUser());
+            return Map.of("conflict", ApiViews.conflict(find(id)));
+        }
+        throw routeNotFound(request);
+    }
+
+    private List<Conflict> list(ApiRequest request) {
+        if (request.getUser().getRole() == UserRole.LECTURER) {
+            return daoFactory.getConflictDAO().findByLecturer(request.getUser());
+        }
+        Long departmentId = request.query("department", Long::valueOf);
+        if (departmentId != null) {
+            Department department = daoFactory.getDepartmentDAO().findById(departmentId);
+            if (department == null) {
+                throw ApiException.notFound("Department not found");
+            }
+            return daoFactory.getConflictDAO().findByDepartment(department);
+        }
+        ConflictStatus status = request.query("status", ConflictStatus::valueOf);
+        return status != null
+                ? daoFactory.getConflictDAO().findByStatus(status)
+                : daoFactory.getConflictDAO().findAll();
+    }
+
+    private Conflict find(Long id) {
+        Conflict conflict = daoFactory.getConflictDAO().findById(id);
+        if (conflict == null) {
+            throw ApiException.notFound("Conflict not found");
+        }
+        return conflict;
+    }
+}
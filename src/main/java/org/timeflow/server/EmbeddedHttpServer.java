@@ -0,0 +1,73 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.util.Config;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Thin wrapper around the JDK's built-in HTTP server that hosts TimeFlow's endpoints.
+ * Every exchange runs on its own thread, so long-lived event streams do not starve
+ * ordinary requests. On JDK 21+ those are virtual threads; older runtimes fall back to a
+ * cached pool of platform threads. The server listens on the loopback interface unless
+ * HTTP_BIND_HOST names another address (0.0.0.0 for every interface).
+ */
+public class EmbeddedHttpServer {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedHttpServer.class);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public EmbeddedHttpServer(int port) throws IOException {
+        String host = Config.get("HTTP_BIND_HOST", null);
+        InetAddress address = host == null || host.isBlank() ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host);
+        this.server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        this.executor = createExecutor();
+        server.setExecutor(executor);
+    }
+
+    // The project compiles for Java 16, so the JDK 21 virtual-thread executor is looked up reflectively
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            logger.info("HTTP requests will run on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            logger.info("Virtual threads unavailable on Java {}, using a platform thread pool", Runtime.version().feature());
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "timeflow-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public EmbeddedHttpServer addHandler(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+        return this;
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Embedded HTTP server listening on {}:{}", server.getAddress().getHostString(), getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdownNow();
+        logger.info("Embedded HTTP server stopped");
+    }
+}
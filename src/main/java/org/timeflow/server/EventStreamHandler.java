@@ -0,0 +1,185 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.SemesterType;
+import org.timeflow.entity.User;
+import org.timeflow.entity.UserRole;
+import org.timeflow.event.Subscription;
+import org.timeflow.event.TimetableEvent;
+import org.timeflow.event.TimetableEventBus;
+import org.timeflow.service.CohortKey;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events stream of timetable changes, for authenticated users.
+ *
+ * GET /api/v1/events?department=1&level=100&semester=FIRST_SEMESTER  one cohort, in the semester's
+ *                                                                    current or next run, or the
+ *                                                                    run named by &year=2025
+ * GET /api/v1/events?lecturer=7                                      one lecturer
+ * GET /api/v1/events                                                 everything
+ *
+ * Students may follow only their own cohort and lecturers only their own slots; without a
+ * query they get those. Admins and exams officers may follow anything.
+ */
+public class EventStreamHandler implements HttpHandler {
+    private static final Logger logger = LoggerFactory.getLogger(EventStreamHandler.class);
+    private static final long KEEP_ALIVE_SECONDS = 15;
+
+    private final TimetableEventBus eventBus;
+    private final RequestAuthenticator authenticator;
+
+    public EventStreamHandler(TimetableEventBus eventBus, RequestAuthenticator authenticator) {
+        this.eventBus = eventBus;
+        this.authenticator = authenticator;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        User user = authenticator.authenticate(exchange);
+        if (user == null) {
+            exchange.getResponseHeaders().add("WWW-Authenticate", "Bearer realm=\"timeflow\"");
+            sendText(exchange, 401, "Missing or invalid credentials");
+            return;
+        }
+
+        List<String> topics;
+        try {
+            topics = topicsFor(user, parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (ApiException e) {
+            sendText(exchange, e.getStatus(), e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, 400, e.getMessage());
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (Subscription subscription = eventBus.subscribe(topics);
+             OutputStream out = exchange.getResponseBody()) {
+            logger.info("Event stream opened for {} on topics {}", user.getUsername(), topics);
+            out.write(": subscribed\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            while (!subscription.isClosed()) {
+                TimetableEvent event = subscription.poll(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                String frame = event == null
+                        ? ": keep-alive\n\n"
+                        : "event: " + event.getType().name().toLowerCase() + "\ndata: " + Json.write(toMap(event)) + "\n\n";
+                out.write(frame.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException e) {
+            logger.info("Event stream closed by client: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<String> topicsFor(User user, Map<String, String> query) {
+        boolean staff = user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.EXAMS_OFFICER;
+        List<String> topics = new ArrayList<>();
+        if (query.containsKey("department")) {
+            if (!query.containsKey("level") || !query.containsKey("semester")) {
+                throw new IllegalArgumentException("department, level and semester are required together");
+            }
+            SemesterType semester = SemesterType.valueOf(query.get("semester"));
+            AcademicTerm term = query.containsKey("year")
+                    ? new AcademicTerm(Integer.parseInt(query.get("year")), semester)
+                    : AcademicTerm.upcoming(semester);
+            CohortKey cohort = new CohortKey(
+                    Long.valueOf(query.get("department")),
+                    Integer.parseInt(query.get("level")),
+                    term);
+            if (!staff && !isOwnCohort(user, cohort)) {
+                throw ApiException.forbidden("Students may follow only their own cohort");
+            }
+            topics.add(TimetableEvent.cohortTopic(cohort));
+        }
+        if (query.containsKey("lecturer")) {
+            Long lecturerId = Long.valueOf(query.get("lecturer"));
+            if (!staff && !lecturerId.equals(user.getId())) {
+                throw ApiException.forbidden("Lecturers may follow only their own slots");
+            }
+            topics.add(TimetableEvent.lecturerTopic(lecturerId));
+        }
+        if (topics.isEmpty()) {
+            switch (user.getRole()) {
+                case STUDENT:
+                    if (user.getDepartment() == null) {
+                        throw ApiException.forbidden("Student has no cohort");
+                    }
+                    topics.add(TimetableEvent.cohortTopic(new CohortKey(
+                            user.getDepartment().getId(), user.getLevel(), AcademicTerm.current())));
+                    break;
+                case LECTURER:
+                    topics.add(TimetableEvent.lecturerTopic(user.getId()));
+                    break;
+                default:
+                    topics.add(TimetableEvent.TOPIC_ALL);
+            }
+        }
+        return topics;
+    }
+
+    private static boolean isOwnCohort(User user, CohortKey cohort) {
+        return user.getRole() == UserRole.STUDENT
+                && user.getDepartment() != null
+                && user.getDepartment().getId().equals(cohort.departmentId())
+                && user.getLevel() == cohort.level();
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    static Map<String, Object> toMap(TimetableEvent event) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("type", event.getType());
+        map.put("timetableId", event.getTimetableId());
+        map.put("courseCode", event.getCourseCode());
+        map.put("status", event.getStatus());
+        map.put("occurredAt", event.getOccurredAt());
+        return map;
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+}
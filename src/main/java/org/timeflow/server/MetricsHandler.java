@@ -0,0 +1,61 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * GET /metrics in the Prometheus text format. Requests must send the scrape token
+ * (METRICS_TOKEN) as "Authorization: Bearer &lt;token&gt;"; without a token configured the
+ * endpoint is not served at all.
+ */
+public class MetricsHandler implements HttpHandler {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsHandler.class);
+
+    private final byte[] expectedAuthorization;
+
+    public MetricsHandler(String scrapeToken) {
+        if (scrapeToken == null || scrapeToken.isBlank()) {
+            throw new IllegalArgumentException("A scrape token is required");
+        }
+        this.expectedAuthorization = ("Bearer " + scrapeToken).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Mounts /metrics on the server only when a scrape token is configured
+    public static void mount(EmbeddedHttpServer server, String scrapeToken) {
+        if (scrapeToken == null || scrapeToken.isBlank()) {
+            logger.info("/metrics is not served: METRICS_TOKEN is not set");
+            return;
+        }
+        server.addHandler("/metrics", new MetricsHandler(scrapeToken));
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null
+                || !MessageDigest.isEqual(expectedAuthorization, authorization.getBytes(StandardCharsets.UTF_8))) {
+            exchange.sendResponseHeaders(401, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = Metrics.scrape().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
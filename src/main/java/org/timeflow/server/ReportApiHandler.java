@@ -0,0 +1,97 @@
+package org.timeflow.server;
+
+import org.timeflow.dao.DAOFactory;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Department;
+import org.timeflow.entity.SemesterType;
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.UserRole;
+import org.timeflow.service.ReportService;
+import org.timeflow.service.TimetablePdfExporter;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report endpoints.
+ *
+ * GET /api/v1/reports/utilization?department=&semester=[&year=]
+ * GET /api/v1/reports/conflicts?semester=[&year=]
+ * GET /api/v1/reports/lecturer-workload?department=&semester=[&year=]
+ * GET /api/v1/reports/exams?department=&from=&to=
+ * GET /api/v1/reports/timetables/{departmentId}/{level}/{semester}.pdf[?year=]
+ */
+public class ReportApiHandler extends ApiHandler {
+    private final ReportService reportService;
+    private final TimetablePdfExporter pdfExporter;
+    private final DAOFactory daoFactory = DAOFactory.getInstance();
+
+    public ReportApiHandler(RequestAuthenticator authenticator, ReportService reportService, TimetablePdfExporter pdfExporter) {
+        super("/api/v1/reports", authenticator);
+        this.reportService = reportService;
+        this.pdfExporter = pdfExporter;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Object handle(ApiRequest request) {
+        if (request.matches("GET", "timetables", "*", "*", "*")) {
+            // Any signed-in user may fetch a published cohort timetable
+            Department department = department(request.pathId(2));
+            int level;
+            try {
+                level = Integer.parseInt(request.getPath().get(3));
+            } catch (NumberFormatException e) {
+                throw ApiException.badRequest("Invalid level '" + request.getPath().get(3) + "'");
+            }
+            String semesterName = request.getPath().get(4).replaceFirst("\\.pdf$", "");
+            SemesterType semester;
+            try {
+                semester = SemesterType.valueOf(semesterName);
+            } catch (IllegalArgumentException e) {
+                throw ApiException.badRequest("Invalid semester '" + semesterName + "'");
+            }
+            AcademicTerm term = request.term(semester);
+            byte[] pdf = pdfExporter.renderCohort(department, level, term);
+            return new Binary("application/pdf",
+                    department.getCode() + "_L" + level + "_" + semester.name() + "_" + term.academicYear() + ".pdf", pdf);
+        }
+
+        request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+        if (request.matches("GET", "utilization")) {
+            return reportService.generateDepartmentUtilizationReport(
+                    department(request.requireQuery("department", Long::valueOf)),
+                    request.requireTerm());
+        }
+        if (request.matches("GET", "conflicts")) {
+            return reportService.generateConflictReport(request.requireTerm());
+        }
+        if (request.matches("GET", "lecturer-workload")) {
+            return reportService.generateLecturerWorkloadReport(
+                    department(request.requireQuery("department", Long::valueOf)),
+                    request.requireTerm());
+        }
+        if (request.matches("GET", "exams")) {
+            Map<String, Object> report = new LinkedHashMap<>(reportService.generateExamScheduleReport(
+                    department(request.requireQuery("department", Long::valueOf)),
+                    request.requireQuery("from", LocalDate::parse),
+                    request.requireQuery("to", LocalDate::parse)));
+            Object exams = report.get("exams");
+            if (exams instanceof List) {
+                report.put("exams", ApiViews.timetables((List<Timetable>) exams));
+            }
+            return report;
+        }
+        throw routeNotFound(request);
+    }
+
+    private Department department(Long id) {
+        Department department = daoFactory.getDepartmentDAO().findById(id);
+        if (department == null) {
+            throw ApiException.notFound("Department not found");
+        }
+        return department;
+    }
+}
@@ -0,0 +1,26 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.timeflow.entity.User;
+
+/**
+ * Resolves the user behind an API request from its headers.
+ */
+public interface RequestAuthenticator {
+
+    // Returns the authenticated user, or null when the request carries no valid credentials
+    User authenticate(HttpExchange exchange);
+
+    // Tries each authenticator in turn and returns the first user found
+    static RequestAuthenticator firstOf(RequestAuthenticator... authenticators) {
+        return exchange -> {
+            for (RequestAuthenticator authenticator : authenticators) {
+                User user = authenticator.authenticate(exchange);
+                if (user != null) {
+                    return user;
+                }
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package org.timeflow.server;
+
+import org.timeflow.dao.DAOFactory;
+import org.timeflow.entity.*;
+import org.timeflow.service.SandboxService;
+import org.timeflow.service.ScheduleSandbox;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * What-if sandboxes: edits to an in-memory copy of a term, checked for conflicts as they are
+ * made and written only on commit, in one transaction.
+ *
+ * POST   /api/v1/sandboxes                  {"semester", "year"?} open a sandbox on a term
+ * GET    /api/v1/sandboxes/{id}             changed slots and the conflicts added and cleared
+ * POST   /api/v1/sandboxes/{id}/moves       {"timetableId", "dayOfWeek"?, "startTime"?, "endTime"?, "roomId"?}
+ * POST   /api/v1/sandboxes/{id}/removals    {"timetableId"}
+ * POST   /api/v1/sandboxes/{id}/close-room  {"roomId"} move the room's slots to other free rooms
+ * POST   /api/v1/sandboxes/{id}/commit      write the changes; 409 if a changed slot was edited since
+ * DELETE /api/v1/sandboxes/{id}
+ */
+public class SandboxApiHandler extends ApiHandler {
+    private final SandboxService sandboxService;
+    private final DAOFactory daoFactory = DAOFactory.getInstance();
+
+    public SandboxApiHandler(RequestAuthenticator authenticator, SandboxService sandboxService) {
+        super("/api/v1/sandboxes", authenticator);
+        this.sandboxService = sandboxService;
+    }
+
+    @Override
+    protected Object handle(ApiRequest request) {
+        request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+        User user = request.getUser();
+        try {
+            if (request.matches("POST")) {
+                SemesterType semester = request.requireField("semester", SemesterType::valueOf);
+                AcademicTerm term = request.has("year")
+                        ? new AcademicTerm(request.field("year", Integer::valueOf), semester)
+                        : AcademicTerm.upcoming(semester);
+                return view(sandboxService.open(term, user));
+            }
+            if (request.matches("GET", "*")) {
+                return view(find(request));
+            }
+            if (request.matches("POST", "*", "moves")) {
+                ScheduleSandbox sandbox = find(request);
+                Timetable slot = sandbox.move(
+                        request.requireField("timetableId", Long::valueOf),
+                        request.field("dayOfWeek", DayOfWeek::valueOf),
+                        request.field("startTime", LocalTime::parse),
+                        request.field("endTime", LocalTime::parse),
+                        request.has("roomId") ? findRoom(request.requireField("roomId", Long::valueOf)) : null);
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("timetable", ApiViews.timetable(slot));
+                response.put("conflicts", ApiViews.conflicts(sandbox.conflictsOf(slot.getId())));
+                return response;
+            }
+            if (request.matches("POST", "*", "removals")) {
+                ScheduleSandbox sandbox = find(request);
+                sandbox.remove(request.requireField("timetableId", Long::valueOf));
+                return view(sandbox);
+            }
+            if (request.matches("POST", "*", "close-room")) {
+                ScheduleSandbox sandbox = find(request);
+                List<Timetable> stranded = sandbox.closeRoom(findRoom(request.requireField("roomId", Long::valueOf)));
+                Map<String, Object> response = view(sandbox);
+                response.put("stranded", ApiViews.timetables(stranded));
+                return response;
+            }
+            if (request.matches("POST", "*", "commit")) {
+                ScheduleSandbox.Diff diff = sandboxService.commit(request.getPath().get(0), user);
+                return diffView(diff);
+            }
+            if (request.matches("DELETE", "*")) {
+                String id = request.getPath().get(0);
+                if (!sandboxService.discard(id, user)) {
+                    throw ApiException.notFound("Sandbox not found");
+                }
+                return new Message("Sandbox " + id + " discarded");
+            }
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest(e.getMessage());
+        }
+        throw routeNotFound(request);
+    }
+
+    private ScheduleSandbox find(ApiRequest request) {
+        ScheduleSandbox sandbox = sandboxService.get(request.getPath().get(0), request.getUser());
+        if (sandbox == null) {
+            throw ApiException.notFound("Sandbox not found");
+        }
+        return sandbox;
+    }
+
+    private Room findRoom(Long id) {
+        Room room = daoFactory.getRoomDAO().findById(id);
+        if (room == null) {
+            throw ApiException.badRequest("Room not found");
+        }
+        return room;
+    }
+
+    private static Map<String, Object> view(ScheduleSandbox sandbox) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", sandbox.getId());
+        map.put("semester", sandbox.getTerm().semester());
+        map.put("academicYear", sandbox.getTerm().academicYear());
+        map.put("conflictCount", sandbox.conflictCount());
+        map.putAll(diffView(sandbox.diff()));
+        return map;
+    }
+
+    private static Map<String, Object> diffView(ScheduleSandbox.Diff diff) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("changes", diff.getChanges().stream().map(change -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("before", ApiViews.timetable(change.getBefore()));
+            entry.put("after", ApiViews.timetable(change.getAfter()));
+            return entry;
+        }).collect(Collectors.toList()));
+        map.put("conflictsAdded", ApiViews.conflicts(diff.getAdded()));
+        map.put("conflictsCleared", ApiViews.conflicts(diff.getCleared()));
+        return map;
+    }
+}
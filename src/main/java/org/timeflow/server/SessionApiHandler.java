@@ -0,0 +1,83 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.timeflow.auth.AuthSession;
+import org.timeflow.entity.UserRole;
+import org.timeflow.service.AuthenticationService;
+import org.timeflow.service.CalendarFeedService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Session endpoints.
+ *
+ * POST /api/v1/auth/login    {"username", "password"} -> {"token", "expiresAt", "user"}
+ * POST /api/v1/auth/logout
+ * GET  /api/v1/auth/me
+ * GET  /api/v1/auth/metrics  BCrypt pool queueing figures (admin)
+ * POST   /api/v1/auth/calendar-token  a new secret calendar feed address, revoking the old one
+ * DELETE /api/v1/auth/calendar-token  revoke the calendar feed address
+ */
+public class SessionApiHandler extends ApiHandler {
+    private final AuthenticationService authService;
+    private final TokenAuthenticator tokenAuthenticator;
+    private final CalendarFeedService calendarFeedService;
+
+    public SessionApiHandler(RequestAuthenticator authenticator, TokenAuthenticator tokenAuthenticator,
+                             AuthenticationService authService, CalendarFeedService calendarFeedService) {
+        super("/api/v1/auth", authenticator);
+        this.tokenAuthenticator = tokenAuthenticator;
+        this.authService = authService;
+        this.calendarFeedService = calendarFeedService;
+    }
+
+    @Override
+    protected boolean requiresAuthentication(HttpExchange exchange) {
+        return !("POST".equals(exchange.getRequestMethod()) && exchange.getRequestURI().getPath().endsWith("/login"));
+    }
+
+    @Override
+    protected Object handle(ApiRequest request) {
+        if (request.matches("POST", "login")) {
+            AuthSession session = authService.startSession(request.requireString("username"),
+                    request.requireString("password"), request.getClientAddress());
+            if (session == null) {
+                throw ApiException.unauthorized("Invalid username or password");
+            }
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("token", session.getToken());
+            data.put("expiresAt", session.getExpiresAt());
+            data.put("user", ApiViews.user(session.getUser()));
+            return data;
+        }
+        if (request.matches("POST", "logout")) {
+            AuthSession session = tokenAuthenticator.resolve(request.getExchange());
+            if (session != null) {
+                authService.endSession(session);
+            }
+            return new Message("Signed out");
+        }
+        if (request.matches("GET", "metrics")) {
+            request.requireRole(UserRole.ADMIN);
+            return Map.of("passwordVerifier", authService.getPasswordVerifierMetrics());
+        }
+        if (request.matches("POST", "calendar-token")) {
+            // Only students and lecturers have a feed of their own
+            request.requireRole(UserRole.STUDENT, UserRole.LECTURER);
+            String token = calendarFeedService.issueToken(request.getUser());
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("token", token);
+            data.put("url", "/api/v1/calendar/feeds/" + token + ".ics");
+            return data;
+        }
+        if (request.matches("DELETE", "calendar-token")) {
+            calendarFeedService.revokeTokens(request.getUser());
+            return new Message("Calendar feed address revoked");
+        }
+        if (request.matches("GET", "me")) {
+            return Map.of("user", ApiViews.user(request.getUser()));
+        }
+        throw routeNotFound(request);
+    }
+}
@@ -0,0 +1,141 @@
+package org.timeflow.server;
+
+import org.timeflow.dao.DAOFactory;
+import org.timeflow.entity.Course;
+import org.timeflow.entity.Department;
+import org.timeflow.entity.SemesterType;
+import org.timeflow.entity.User;
+import org.timeflow.entity.UserRole;
+import org.timeflow.service.EnrollmentService;
+import org.timeflow.service.StudentProvisioningService;
+import org.timeflow.service.StudentProvisioningService.StudentRow;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Student endpoints.
+ *
+ * POST   /api/v1/students/bulk                            {"departmentId", "level", "students": [{"username", "email", "password"}]}
+ * GET    /api/v1/students/{id}/enrollments[?year=]
+ * POST   /api/v1/students/{id}/enrollments                {"courseId", "academicYear"?}
+ * DELETE /api/v1/students/{id}/enrollments/{courseId}[?year=]
+ */
+public class StudentApiHandler extends ApiHandler {
+    private final StudentProvisioningService provisioningService;
+    private final EnrollmentService enrollmentService;
+    private final DAOFactory daoFactory = DAOFactory.getInstance();
+
+    public StudentApiHandler(RequestAuthenticator authenticator, StudentProvisioningService provisioningService,
+                             EnrollmentService enrollmentService) {
+        super("/api/v1/students", authenticator);
+        this.provisioningService = provisioningService;
+        this.enrollmentService = enrollmentService;
+    }
+
+    @Override
+    protected Object handle(ApiRequest request) {
+        if (request.matches("POST", "bulk")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            Department department = daoFactory.getDepartmentDAO()
+                    .findById(request.requireField("departmentId", Long::valueOf));
+            if (department == null) {
+                throw ApiException.badRequest("Department not found");
+            }
+            // Exams officers enrol students into their own department only
+            User user = request.getUser();
+            if (user.getRole() == UserRole.EXAMS_OFFICER
+                    && (user.getDepartment() == null || !Objects.equals(user.getDepartment().getId(), department.getId()))) {
+                throw ApiException.forbidden("Exams officers can only import students into their own department");
+            }
+            int level = request.requireField("level", Integer::valueOf);
+
+            StudentProvisioningService.Result result =
+                    provisioningService.provisionStudents(rows(request), department, level);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("created", result.getCreated().size());
+            response.put("rejected", result.getRejected());
+            return response;
+        }
+        if (request.matches("GET", "*", "enrollments")) {
+            User student = findStudent(request.pathId(0));
+            // Students see their own enrollments only
+            if (request.getUser().getRole() == UserRole.STUDENT && !Objects.equals(request.getUser().getId(), student.getId())) {
+                throw ApiException.forbidden("Students can only view their own enrollments");
+            }
+            int year = year(request);
+            List<Map<String, Object>> courses = new ArrayList<>();
+            for (Course course : enrollmentService.getCourses(student, year)) {
+                courses.add(ApiViews.course(course));
+            }
+            return Map.of("academicYear", year, "courses", courses);
+        }
+        if (request.matches("POST", "*", "enrollments")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            User student = findStudent(request.pathId(0));
+            Course course = findCourse(request.requireField("courseId", Long::valueOf));
+            int year = request.has("academicYear")
+                    ? request.field("academicYear", Integer::valueOf) : SemesterType.currentAcademicYear();
+            enrollmentService.enroll(student, course, year, request.getUser());
+            return Map.of("academicYear", year, "course", ApiViews.course(course));
+        }
+        if (request.matches("DELETE", "*", "enrollments", "*")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            User student = findStudent(request.pathId(0));
+            Course course = findCourse(request.pathId(2));
+            int year = year(request);
+            if (!enrollmentService.withdraw(student, course, year, request.getUser())) {
+                throw ApiException.notFound(student.getUsername() + " is not enrolled in " + course.getCode() + " for " + year);
+            }
+            return new Message(student.getUsername() + " withdrawn from " + course.getCode() + " for " + year);
+        }
+        throw routeNotFound(request);
+    }
+
+    // ?year=, defaulting to the academic year under way
+    private static int year(ApiRequest request) {
+        Integer year = request.query("year", Integer::valueOf);
+        return year != null ? year : SemesterType.currentAcademicYear();
+    }
+
+    private User findStudent(Long id) {
+        User student = daoFactory.getUserDAO().findById(id);
+        if (student == null || student.getRole() != UserRole.STUDENT) {
+            throw ApiException.notFound("Student " + id + " not found");
+        }
+        return student;
+    }
+
+    private Course findCourse(Long id) {
+        Course course = daoFactory.getCourseDAO().findById(id);
+        if (course == null) {
+            throw ApiException.badRequest("Course " + id + " not found");
+        }
+        return course;
+    }
+
+    private static List<StudentRow> rows(ApiRequest request) {
+        Object students = request.body().get("students");
+        if (!(students instanceof List) || ((List<?>) students).isEmpty()) {
+            throw ApiException.badRequest("Field 'students' must be a non-empty array");
+        }
+        List<StudentRow> rows = new ArrayList<>();
+        for (Object entry : (List<?>) students) {
+            if (!(entry instanceof Map)) {
+                throw ApiException.badRequest("Each entry of 'students' must be an object");
+            }
+            Map<?, ?> student = (Map<?, ?>) entry;
+            rows.add(new StudentRow(text(student.get("username")), text(student.get("email")),
+                    student.get("password") == null ? null : student.get("password").toString()));
+        }
+        return rows;
+    }
+
+    // Usernames and emails from spreadsheets often carry stray spaces; passwords are taken as given
+    private static String text(Object value) {
+        return value == null ? null : value.toString().trim();
+    }
+}
@@ -0,0 +1,63 @@
+package org.timeflow.server;
+
+import org.timeflow.event.TimetableEventBus;
+import org.timeflow.service.AuthenticationService;
+import org.timeflow.service.CalendarFeedService;
+import org.timeflow.service.ConflictDetectionService;
+import org.timeflow.service.EnrollmentService;
+import org.timeflow.service.ReportService;
+import org.timeflow.service.SandboxService;
+import org.timeflow.service.StudentProvisioningService;
+import org.timeflow.service.TimetablePdfExporter;
+import org.timeflow.service.TimetableService;
+import org.timeflow.util.Config;
+
+import java.io.IOException;
+
+/**
+ * Headless server mode: one process holds the database pool and caches and serves the
+ * JSON API, live events and calendar feeds to every client.
+ */
+public class TimeFlowServer {
+    private final EmbeddedHttpServer httpServer;
+
+    public TimeFlowServer(int port) throws IOException {
+        AuthenticationService authService = AuthenticationService.getInstance();
+        TokenAuthenticator tokenAuthenticator = new TokenAuthenticator(authService);
+        // Basic auth costs a BCrypt verification per request, so it is opt-in for scripts
+        RequestAuthenticator authenticator = Boolean.parseBoolean(Config.get("API_ALLOW_BASIC_AUTH", "false"))
+                ? RequestAuthenticator.firstOf(tokenAuthenticator, new BasicAuthenticator(authService))
+                : tokenAuthenticator;
+        ConflictDetectionService conflictService = new ConflictDetectionService();
+
+        ApiHandler[] apiHandlers = {
+                new SessionApiHandler(authenticator, tokenAuthenticator, authService, CalendarFeedService.getInstance()),
+                new TimetableApiHandler(authenticator, new TimetableService(), conflictService),
+                new ConflictApiHandler(authenticator, conflictService),
+                new ReportApiHandler(authenticator, new ReportService(), TimetablePdfExporter.getInstance()),
+                new StudentApiHandler(authenticator, new StudentProvisioningService(), new EnrollmentService()),
+                new SandboxApiHandler(authenticator, SandboxService.getInstance())
+        };
+
+        this.httpServer = new EmbeddedHttpServer(port)
+                .addHandler("/api/v1/events", new EventStreamHandler(TimetableEventBus.getInstance(), authenticator))
+                .addHandler("/api/v1/calendar/", new CalendarFeedHandler(CalendarFeedService.getInstance()));
+        MetricsHandler.mount(httpServer, Config.get("METRICS_TOKEN", null));
+        for (ApiHandler handler : apiHandlers) {
+            httpServer.addHandler(handler.getContextPath(), handler);
+        }
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    public void stop() {
+        httpServer.stop();
+        AuthenticationService.getInstance().getSessionStore().shutdown();
+    }
+
+    public int getPort() {
+        return httpServer.getPort();
+    }
+}
@@ -0,0 +1,306 @@
+package org.timeflow.server;
+
+import org.timeflow.dao.DAOFactory;
+import org.timeflow.entity.*;
+import org.timeflow.service.CohortTimetableCache;
+import org.timeflow.service.ConflictDetectionService;
+import org.timeflow.service.RoomAllocationService;
+import org.timeflow.service.SemesterRolloverService;
+import org.timeflow.service.TimetableService;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Timetable endpoints.
+ *
+ * GET    /api/v1/timetables                   own view (this term, or ?semester=[&year=]), or
+ *                                             ?department=&level=&semester=[&year=] / ?status= for staff,
+ *                                             from the current academic year on unless ?fromYear= says otherwise
+ * GET    /api/v1/timetables/{id}
+ * POST   /api/v1/timetables                   create (conflicts are detected as in the desktop client)
+ * POST   /api/v1/timetables/check-conflicts   dry run, nothing is saved
+ * POST   /api/v1/timetables/approve           {"ids": [...]} bulk approval
+ * POST   /api/v1/timetables/reject            {"ids": [...], "reason": "..."} bulk rejection
+ * POST   /api/v1/timetables/rollover          {"semester", "fromYear", "toYear", "roomReplacements": {old: new},
+ *                                               "lecturerReassignments": {old: new}} copy a term as DRAFT
+ * POST   /api/v1/timetables/repack            {"semester", "year"?} move unapproved slots to best-fitting rooms
+ * PUT    /api/v1/timetables/{id}                  {"version": n, ...} to fail with 409 if changed since read
+ * POST   /api/v1/timetables/{id}/approve
+ * POST   /api/v1/timetables/{id}/reject       {"reason": "..."}
+ * DELETE /api/v1/timetables/{id}
+ */
+public class TimetableApiHandler extends ApiHandler {
+    private final TimetableService timetableService;
+    private final ConflictDetectionService conflictService;
+    private final SemesterRolloverService rolloverService;
+    private final RoomAllocationService roomAllocationService;
+    private final DAOFactory daoFactory = DAOFactory.getInstance();
+
+    public TimetableApiHandler(RequestAuthenticator authenticator, TimetableService timetableService,
+                               ConflictDetectionService conflictService) {
+        super("/api/v1/timetables", authenticator);
+        this.timetableService = timetableService;
+        this.conflictService = conflictService;
+        this.rolloverService = new SemesterRolloverService(conflictService);
+        this.roomAllocationService = new RoomAllocationService(conflictService);
+    }
+
+    @Override
+    protected Object handle(ApiRequest request) {
+        User user = request.getUser();
+        if (request.matches("GET")) {
+            return Map.of("timetables", ApiViews.timetables(list(request)));
+        }
+        if (request.matches("GET", "*")) {
+            Timetable timetable = find(request.pathId(0));
+            if (user.getRole() == UserRole.STUDENT && timetable.getStatus() != TimetableStatus.APPROVED) {
+                throw ApiException.notFound("Timetable not found");
+            }
+            return Map.of("timetable", ApiViews.timetable(timetable));
+        }
+        if (request.matches("POST", "check-conflicts")) {
+            Timetable candidate = apply(request, new Timetable());
+            return Map.of("conflicts", ApiViews.conflicts(conflictService.detectConflicts(candidate)));
+        }
+        if (request.matches("POST", "approve")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            return bulkResult(timetableService.approveTimetables(ids(request), user));
+        }
+        if (request.matches("POST", "reject")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            List<Long> ids = ids(request);
+            return bulkResult(timetableService.rejectTimetables(ids, request.requireString("reason"), user));
+        }
+        if (request.matches("POST", "rollover")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            int fromYear = request.requireField("fromYear", Integer::valueOf);
+            int toYear = request.requireField("toYear", Integer::valueOf);
+            if (fromYear == toYear) {
+                throw ApiException.badRequest("Fields 'fromYear' and 'toYear' must differ");
+            }
+            SemesterRolloverService.RolloverResult result = rolloverService.rollover(
+                    request.requireField("semester", SemesterType::valueOf), fromYear, toYear,
+                    idMap(request, "roomReplacements"),
+                    idMap(request, "lecturerReassignments"),
+                    user);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("copied", result.getCopied());
+            response.put("conflicts", result.getConflicts());
+            response.put("conflictedSlots", result.getConflictedSlots());
+            return response;
+        }
+        if (request.matches("POST", "repack")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            SemesterType semester = request.requireField("semester", SemesterType::valueOf);
+            AcademicTerm term = request.has("year")
+                    ? new AcademicTerm(request.field("year", Integer::valueOf), semester)
+                    : AcademicTerm.upcoming(semester);
+            RoomAllocationService.RepackResult result = roomAllocationService.repackTerm(term, user);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("considered", result.getConsidered());
+            response.put("moved", result.getMoved());
+            response.put("overCapacity", result.getOverCapacity());
+            response.put("conflicts", result.getConflicts());
+            return response;
+        }
+        if (request.matches("POST")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER, UserRole.LECTURER);
+            Timetable timetable = apply(request, new Timetable());
+            requireOwnership(user, timetable);
+            return Map.of("timetable", ApiViews.timetable(timetableService.createTimetable(timetable, user)));
+        }
+        if (request.matches("PUT", "*")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER, UserRole.LECTURER);
+            Timetable timetable = find(request.pathId(0));
+            requireOwnership(user, timetable);
+            // With the version the client last read, a concurrent edit is reported as 409
+            // instead of being overwritten
+            if (request.has("version")) {
+                timetable.setVersion(request.field("version", Long::valueOf));
+            }
+            apply(request, timetable);
+            requireOwnership(user, timetable);
+            return Map.of("timetable", ApiViews.timetable(timetableService.updateTimetable(timetable, user)));
+        }
+        if (request.matches("POST", "*", "approve")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            Long id = request.pathId(0);
+            timetableService.approveTimetable(id, user);
+            return Map.of("timetable", ApiViews.timetable(find(id)));
+        }
+        if (request.matches("POST", "*", "reject")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER);
+            Long id = request.pathId(0);
+            timetableService.rejectTimetable(id, request.requireString("reason"), user);
+            return Map.of("timetable", ApiViews.timetable(find(id)));
+        }
+        if (request.matches("DELETE", "*")) {
+            request.requireRole(UserRole.ADMIN, UserRole.EXAMS_OFFICER, UserRole.LECTURER);
+            Timetable timetable = find(request.pathId(0));
+            requireOwnership(user, timetable);
+            timetableService.deleteTimetable(timetable.getId());
+            return new Message("Timetable " + timetable.getId() + " deleted");
+        }
+        throw routeNotFound(request);
+    }
+
+    private List<Timetable> list(ApiRequest request) {
+        User user = request.getUser();
+        SemesterType semester = request.query("semester", SemesterType::valueOf);
+        switch (user.getRole()) {
+            case STUDENT:
+                return semester != null
+                        ? timetableService.getStudentTimetables(user, request.term(semester))
+                        : timetableService.getStudentTimetables(user);
+            case LECTURER:
+                return semester != null
+                        ? timetableService.getLecturerTimetables(user, request.term(semester))
+                        : timetableService.getLecturerTimetables(user);
+            default:
+                break;
+        }
+
+        Long departmentId = request.query("department", Long::valueOf);
+        TimetableStatus status = request.query("status", TimetableStatus::valueOf);
+        Integer requestedFromYear = request.query("fromYear", Integer::valueOf);
+        int fromYear = requestedFromYear != null ? requestedFromYear : SemesterType.currentAcademicYear();
+        List<Timetable> timetables;
+        if (departmentId != null) {
+            Department department = daoFactory.getDepartmentDAO().findById(departmentId);
+            if (department == null) {
+                throw ApiException.notFound("Department not found");
+            }
+            Integer level = request.query("level", Integer::valueOf);
+            timetables = level != null && semester != null
+                    ? CohortTimetableCache.getInstance().getApprovedTimetables(department, level, request.term(semester))
+                    : timetableService.getDepartmentalTimetables(department, fromYear);
+        } else if (status != null) {
+            return daoFactory.getTimetableDAO().findByStatus(status, fromYear);
+        } else {
+            timetables = timetableService.getAllTimetables(fromYear);
+        }
+        if (status != null) {
+            timetables = timetables.stream().filter(t -> t.getStatus() == status).collect(Collectors.toList());
+        }
+        return timetables;
+    }
+
+    // Copies the fields present in the request body onto the timetable
+    private Timetable apply(ApiRequest request, Timetable timetable) {
+        if (request.has("courseId")) {
+            Course course = daoFactory.getCourseDAO().findById(request.requireField("courseId", Long::valueOf));
+            if (course == null) {
+                throw ApiException.badRequest("Course not found");
+            }
+            timetable.setCourse(course);
+        }
+        if (request.has("roomId")) {
+            Room room = daoFactory.getRoomDAO().findById(request.requireField("roomId", Long::valueOf));
+            if (room == null) {
+                throw ApiException.badRequest("Room not found");
+            }
+            timetable.setRoom(room);
+        }
+        if (request.has("dayOfWeek")) timetable.setDayOfWeek(request.field("dayOfWeek", DayOfWeek::valueOf));
+        if (request.has("specificDate")) timetable.setSpecificDate(request.field("specificDate", LocalDate::parse));
+        if (request.has("startTime")) timetable.setStartTime(request.field("startTime", LocalTime::parse));
+        if (request.has("endTime")) timetable.setEndTime(request.field("endTime", LocalTime::parse));
+        if (request.has("type")) timetable.setType(request.field("type", ActivityType::valueOf));
+        if (request.has("semester")) timetable.setSemester(request.field("semester", SemesterType::valueOf));
+        if (request.has("academicYear")) timetable.setAcademicYear(request.field("academicYear", Integer::valueOf));
+        if (request.has("description")) timetable.setDescription(request.string("description"));
+
+        if (timetable.getCourse() == null) throw ApiException.badRequest("Field 'courseId' is required");
+        if (timetable.getRoom() == null) throw ApiException.badRequest("Field 'roomId' is required");
+        if (timetable.getStartTime() == null || timetable.getEndTime() == null) {
+            throw ApiException.badRequest("Fields 'startTime' and 'endTime' are required");
+        }
+        if (!timetable.getStartTime().isBefore(timetable.getEndTime())) {
+            throw ApiException.badRequest("Start time must be before end time");
+        }
+        if (timetable.getDayOfWeek() == null && timetable.getSpecificDate() == null) {
+            throw ApiException.badRequest("One of 'dayOfWeek' or 'specificDate' is required");
+        }
+        if (timetable.getDayOfWeek() == null) {
+            timetable.setDayOfWeek(timetable.getSpecificDate().getDayOfWeek());
+        }
+        if (timetable.getType() == null) throw ApiException.badRequest("Field 'type' is required");
+        if (timetable.getSemester() == null) throw ApiException.badRequest("Field 'semester' is required");
+        return timetable;
+    }
+
+    private static List<Long> ids(ApiRequest request) {
+        Object ids = request.body().get("ids");
+        if (!(ids instanceof List) || ((List<?>) ids).isEmpty()) {
+            throw ApiException.badRequest("Field 'ids' must be a non-empty array");
+        }
+        List<Long> result = new ArrayList<>();
+        for (Object id : (List<?>) ids) {
+            if (!(id instanceof Long)) {
+                throw ApiException.badRequest("Invalid timetable id '" + id + "' in 'ids'");
+            }
+            result.add((Long) id);
+        }
+        return result;
+    }
+
+    // An optional JSON object of old id -> new id
+    private static Map<Long, Long> idMap(ApiRequest request, String field) {
+        Object value = request.body().get(field);
+        if (value == null) {
+            return Map.of();
+        }
+        if (!(value instanceof Map)) {
+            throw ApiException.badRequest("Field '" + field + "' must be an object of old id to new id");
+        }
+        Map<Long, Long> ids = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            try {
+                ids.put(Long.valueOf(entry.getKey().toString()), Long.valueOf(entry.getValue().toString()));
+            } catch (NumberFormatException | NullPointerException e) {
+                throw ApiException.badRequest("Invalid id mapping '" + entry.getKey() + "' in '" + field + "'");
+            }
+        }
+        return ids;
+    }
+
+    private static Map<String, Object> bulkResult(TimetableService.BulkResult result) {
+        List<Map<String, Object>> skipped = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : result.getSkipped().entrySet()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", entry.getKey());
+            item.put("reason", entry.getValue());
+            skipped.add(item);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("updated", result.getUpdated().stream().map(Timetable::getId).collect(Collectors.toList()));
+        response.put("skipped", skipped);
+        return response;
+    }
+
+    // Lecturers may only schedule their own courses
+    private static void requireOwnership(User user, Timetable timetable) {
+        if (user.getRole() == UserRole.LECTURER) {
+            User lecturer = timetable.getCourse() != null ? timetable.getCourse().getLecturer() : null;
+            if (lecturer == null || !Objects.equals(lecturer.getId(), user.getId())) {
+                throw ApiException.forbidden("Lecturers can only manage timetables for their own courses");
+            }
+        }
+    }
+
+    private Timetable find(Long id) {
+        Timetable timetable = daoFactory.getTimetableDAO().findById(id);
+        if (timetable == null) {
+            throw ApiException.notFound("Timetable not found");
+        }
+        return timetable;
+    }
+}
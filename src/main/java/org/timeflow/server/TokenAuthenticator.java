@@ -0,0 +1,35 @@
+package org.timeflow.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.timeflow.auth.AuthSession;
+import org.timeflow.entity.User;
+import org.timeflow.service.AuthenticationService;
+
+/**
+ * Bearer token authentication against the in-memory session store: an HMAC check and a
+ * map lookup per request, with no BCrypt. The database is read only to refresh a session's
+ * user after users have changed, so deactivations and role changes apply to live sessions.
+ */
+public class TokenAuthenticator implements RequestAuthenticator {
+    private static final String PREFIX = "Bearer ";
+
+    private final AuthenticationService authService;
+
+    public TokenAuthenticator(AuthenticationService authService) {
+        this.authService = authService;
+    }
+
+    @Override
+    public User authenticate(HttpExchange exchange) {
+        AuthSession session = resolve(exchange);
+        return session != null ? session.getUser() : null;
+    }
+
+    public AuthSession resolve(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith(PREFIX)) {
+            return null;
+        }
+        return authService.resolveSession(header.substring(PREFIX.length()).trim());
+    }
+}
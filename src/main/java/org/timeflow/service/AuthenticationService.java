@@ -1,17 +1,44 @@
 package org.timeflow.service;
 
+import org.timeflow.auth.AuthSession;
+import org.timeflow.auth.LoginRejectedException;
+import org.timeflow.auth.LoginThrottle;
+import org.timeflow.auth.PasswordHasher;
+import org.timeflow.auth.PasswordVerifier;
+import org.timeflow.auth.SessionStore;
+import org.timeflow.auth.TokenSigner;
+import org.timeflow.entity.ReferenceDataVersion;
 import org.timeflow.entity.User;
 import org.timeflow.entity.UserRole;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.timeflow.util.Config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 public class AuthenticationService extends BaseService {
     private static final AuthenticationService INSTANCE = new AuthenticationService();
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final PasswordVerifier passwordVerifier;
+    private final LoginThrottle loginThrottle;
+    // Checked for unknown usernames so they take as long to reject as a wrong password
+    private volatile String dummyHash;
     private User currentUser;
+    private SessionStore sessionStore;
 
     private AuthenticationService() {
         super();
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.passwordHasher = PasswordHasher.getInstance();
+        this.passwordVerifier = new PasswordVerifier(passwordHasher,
+                Config.getInt("BCRYPT_THREADS", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+                Config.getInt("BCRYPT_QUEUE", 256),
+                Config.getInt("BCRYPT_TIMEOUT_MS", 5000));
+        this.loginThrottle = new LoginThrottle(
+                Config.getInt("LOGIN_MAX_ACCOUNT_FAILURES", 5),
+                Config.getInt("LOGIN_MAX_ADDRESS_FAILURES", 50),
+                Duration.ofMinutes(Config.getInt("LOGIN_THROTTLE_WINDOW_MINUTES", 15)));
     }
 
     public static AuthenticationService getInstance() {
@@ -19,27 +46,119 @@ public class AuthenticationService extends BaseService {
     }
 
     public boolean login(String username, String password) {
+        User user = authenticate(username, password);
+        if (user != null) {
+            currentUser = user;
+            logger.info("User logged in successfully: {}", username);
+            return true;
+        }
+        return false;
+    }
+
+    // Checks credentials without touching the desktop session; returns null when they don't match.
+    // Throws LoginRejectedException while the account is locked out or the server is saturated.
+    public User authenticate(String username, String password) {
+        return authenticate(username, password, null);
+    }
+
+    public User authenticate(String username, String password, String clientAddress) {
+        loginThrottle.checkAllowed(username, clientAddress);
+
+        User user;
         try {
-            User user = daoFactory.getUserDAO().findByUsername(username);
-            if (user != null && user.isActive() && verifyPassword(password, user.getPassword())) {
-                currentUser = user;
-                logger.info("User logged in successfully: {}", username);
-                return true;
-            }
-            logger.warn("Failed login attempt for username: {}", username);
-            return false;
+            user = daoFactory.getUserDAO().findByUsername(username);
         } catch (Exception e) {
             logger.error("Error during login for username: {}", username, e);
-            return false;
+            return null;
+        }
+
+        boolean matches = passwordVerifier.verify(password, user != null ? user.getPassword() : dummyHash());
+        if (user == null || !user.isActive() || !matches) {
+            loginThrottle.recordFailure(username, clientAddress);
+            logger.warn("Failed login attempt for username: {}", username);
+            return null;
+        }
+        loginThrottle.recordSuccess(username);
+        upgradeHashIfNeeded(user, password);
+        return user;
+    }
+
+    public Map<String, Object> getPasswordVerifierMetrics() {
+        return passwordVerifier.getMetrics();
+    }
+
+    // API login: verifies the password once and issues a signed session token; null on bad credentials
+    public AuthSession startSession(String username, String password, String clientAddress) {
+        // Read first, so a change made while logging in is still picked up on the next request
+        long usersVersion = usersVersion();
+        User user = authenticate(username, password, clientAddress);
+        if (user == null) {
+            return null;
+        }
+        AuthSession session = getSessionStore().create(user);
+        session.refresh(user, usersVersion);
+        logger.info("API session started for user: {}", username);
+        return session;
+    }
+
+    // Resolves a token; null if it is invalid or expired, or its user has been deactivated.
+    // The session's user is read again only when users have changed since it was last read,
+    // so a role change takes effect on the next request and most requests stay off the database
+    public AuthSession resolveSession(String token) {
+        AuthSession session = token == null ? null : getSessionStore().resolve(token);
+        if (session == null) {
+            return null;
+        }
+        long usersVersion = usersVersion();
+        if (session.getUsersVersion() != usersVersion) {
+            User user = daoFactory.getUserDAO().findById(session.getUser().getId());
+            if (user == null || !user.isActive()) {
+                getSessionStore().revoke(session);
+                logger.info("API session ended for deactivated user: {}", session.getUser().getUsername());
+                return null;
+            }
+            session.refresh(user, usersVersion);
+        }
+        return session;
+    }
+
+    private static long usersVersion() {
+        return ReferenceDataCache.getInstance().getVersion(ReferenceDataVersion.USERS);
+    }
+
+    public void endSession(AuthSession session) {
+        getSessionStore().revoke(session);
+        logger.info("API session ended for user: {}", session.getUser().getUsername());
+    }
+
+    // Built on first use to keep a full BCrypt round off the startup path
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = passwordHasher.encode("timeflow-unknown-user");
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    public synchronized SessionStore getSessionStore() {
+        if (sessionStore == null) {
+            sessionStore = new SessionStore(
+                    new TokenSigner(sessionSecret()),
+                    Duration.ofMinutes(Config.getInt("SESSION_IDLE_MINUTES", 30)),
+                    Duration.ofHours(Config.getInt("SESSION_MAX_HOURS", 12)));
         }
+        return sessionStore;
     }
 
     public User registerUser(String username, String email, String password, UserRole role, Long departmentId) {
         try {
-            if (daoFactory.getUserDAO().findByUsername(username) != null) {
+            // Both uniqueness checks in one query; a taken username is reported first
+            List<User> existing = daoFactory.getUserDAO().findByUsernamesOrEmails(List.of(username), List.of(email));
+            if (existing.stream().anyMatch(u -> username.equals(u.getUsername()))) {
                 throw new RuntimeException("Username already exists");
             }
-            if (daoFactory.getUserDAO().findByEmail(email) != null) {
+            if (!existing.isEmpty()) {
                 throw new RuntimeException("Email already exists");
             }
 
@@ -64,6 +183,7 @@ public class AuthenticationService extends BaseService {
             if (currentUser != null && verifyPassword(oldPassword, currentUser.getPassword())) {
                 currentUser.setPassword(hashPassword(newPassword));
                 daoFactory.getUserDAO().update(currentUser);
+                revokeSessions(currentUser);
                 logger.info("Password changed for user: {}", currentUser.getUsername());
                 return true;
             }
@@ -90,22 +210,81 @@ public class AuthenticationService extends BaseService {
     }
 
     public boolean canManageTimetables() {
-        return hasRole(UserRole.ADMIN) || hasRole(UserRole.EXAMS_OFFICER) || hasRole(UserRole.LECTURER);
+        return canManageTimetables(currentUser);
     }
 
     public boolean canApproveTimetables() {
-        return hasRole(UserRole.ADMIN) || hasRole(UserRole.EXAMS_OFFICER);
+        return canApproveTimetables(currentUser);
     }
 
     public boolean canViewAllTimetables() {
-        return hasRole(UserRole.ADMIN) || hasRole(UserRole.EXAMS_OFFICER);
+        return canViewAllTimetables(currentUser);
+    }
+
+    // Per-user variants for server requests, where there is no single current user
+    public static boolean canManageTimetables(User user) {
+        return user != null && (user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.EXAMS_OFFICER
+                || user.getRole() == UserRole.LECTURER);
+    }
+
+    public static boolean canApproveTimetables(User user) {
+        return user != null && (user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.EXAMS_OFFICER);
+    }
+
+    public static boolean canViewAllTimetables(User user) {
+        return user != null && (user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.EXAMS_OFFICER);
+    }
+
+    // Ends the user's API sessions so the change takes effect on their next request
+    public void revokeSessions(User user) {
+        SessionStore store;
+        synchronized (this) {
+            store = sessionStore;
+        }
+        if (store != null && user != null) {
+            int revoked = store.revokeUser(user.getId());
+            if (revoked > 0) {
+                logger.info("Revoked {} API sessions for user: {}", revoked, user.getUsername());
+            }
+        }
+    }
+
+    // SESSION_SECRET keeps tokens valid across restarts; without it a random per-process key is used
+    private byte[] sessionSecret() {
+        String configured = Config.get("SESSION_SECRET", null);
+        if (configured != null && configured.getBytes(StandardCharsets.UTF_8).length >= 32) {
+            return configured.getBytes(StandardCharsets.UTF_8);
+        }
+        if (configured != null) {
+            logger.warn("SESSION_SECRET is shorter than 32 bytes and was ignored");
+        }
+        logger.info("No SESSION_SECRET configured; API tokens will not survive a restart");
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+
+    // Re-hashes at the configured BCRYPT_COST while the plain password is at hand
+    private void upgradeHashIfNeeded(User user, String password) {
+        if (!passwordHasher.needsRehash(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(passwordVerifier.encode(password));
+            daoFactory.getUserDAO().update(user);
+            logger.info("Upgraded password hash for user {} to cost {}", user.getUsername(), passwordHasher.getCost());
+        } catch (LoginRejectedException e) {
+            logger.debug("Skipped hash upgrade for {} while busy; will retry at next login", user.getUsername());
+        } catch (Exception e) {
+            logger.error("Failed to upgrade password hash for user: {}", user.getUsername(), e);
+        }
     }
 
     private String hashPassword(String password) {
-        return passwordEncoder.encode(password);
+        return passwordHasher.encode(password);
     }
 
     private boolean verifyPassword(String password, String hashedPassword) {
-        return passwordEncoder.matches(password, hashedPassword);
+        return passwordHasher.matches(password, hashedPassword);
     }
 }
\ No newline at end of file
@@ -1,15 +1,58 @@
 package org.timeflow.service;
 
 import org.timeflow.dao.DAOFactory;
+import org.timeflow.dao.OptimisticUpdateException;
+import org.timeflow.metrics.Metrics;
+import org.timeflow.metrics.QueryScope;
+import org.timeflow.util.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.function.Supplier;
+
 public abstract class BaseService {
     protected static final Logger logger = LoggerFactory.getLogger(BaseService.class);
+    private static final int OPTIMISTIC_ATTEMPTS = Math.max(1, Config.getInt("OPTIMISTIC_RETRIES", 3));
     protected final DAOFactory daoFactory;
 
     public BaseService() {
         this.daoFactory = DAOFactory.getInstance();
     }
-}
 
+    // Runs a read-modify-write again when a concurrent edit got in first. Only for work that
+    // re-reads everything it changes; an edit made on a copy the user was looking at must
+    // surface the OptimisticUpdateException instead, or it would overwrite the other edit.
+    protected <T> T retryOnConflict(String operation, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (OptimisticUpdateException e) {
+                if (attempt >= OPTIMISTIC_ATTEMPTS) {
+                    throw e;
+                }
+                Metrics.counter("timeflow.optimistic.retries", "op", operation).increment();
+                logger.info("{} lost a concurrent update ({}); retrying", operation, e.getMessage());
+            }
+        }
+    }
+
+    // Times a timetable operation under timeflow.timetable{op} and checks its query count as
+    // the "timetable.<op>" scope
+    protected <T> T timed(String op, Supplier<T> work) {
+        long start = System.nanoTime();
+        QueryScope scope = QueryScope.checked("timetable." + op);
+        try {
+            return work.get();
+        } finally {
+            scope.close();
+            Metrics.timer("timeflow.timetable", "op", op).record(System.nanoTime() - start);
+        }
+    }
+
+    protected void timed(String op, Runnable work) {
+        timed(op, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
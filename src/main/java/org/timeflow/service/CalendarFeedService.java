@@ -0,0 +1,307 @@
+package org.timeflow.service;
+
+import org.timeflow.entity.*;
+import org.timeflow.event.TimetableEvent;
+import org.timeflow.event.TimetableEventBus;
+import org.timeflow.util.Config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Builds iCalendar (.ics) feeds for student cohorts and lecturers. Feeds are cached per
+ * cohort or lecturer and dropped when the event bus reports a change to one of their
+ * slots, so polling calendar clients are answered from memory (or with 304 via the ETag).
+ * A feed's body depends only on its slots, so a regenerated feed keeps its ETag until a slot
+ * actually changes. Personal feeds are addressed by a secret token the user issues, since
+ * calendar clients cannot send the API's credentials.
+ */
+public class CalendarFeedService extends BaseService {
+    private static final CalendarFeedService INSTANCE = new CalendarFeedService();
+
+    private static final DateTimeFormatter LOCAL_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, CalendarFeed> feeds = new ConcurrentHashMap<>();
+    // Safety net for changes made by other processes, which never reach this event bus
+    private final Duration maxAge = Duration.ofMinutes(Config.getInt("CALENDAR_FEED_TTL_MINUTES", 15));
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private CalendarFeedService() {
+        super();
+        TimetableEventBus.getInstance().addListener(this::invalidate);
+    }
+
+    public static CalendarFeedService getInstance() {
+        return INSTANCE;
+    }
+
+    public CalendarFeed getCohortFeed(Department department, int level, AcademicTerm term) {
+        CohortKey cohort = new CohortKey(department.getId(), level, term);
+        return feeds.compute(TimetableEvent.cohortTopic(cohort), (key, existing) -> fresh(existing, () -> {
+            List<Timetable> timetables = CohortTimetableCache.getInstance().getApprovedTimetables(department, level, term);
+            return render(department.getName() + " Level " + level + " - " + term, term, timetables);
+        }));
+    }
+
+    public CalendarFeed getStudentFeed(User student) {
+        return getCohortFeed(student.getDepartment(), student.getLevel(), AcademicTerm.current());
+    }
+
+    public CalendarFeed getLecturerFeed(User lecturer) {
+        AcademicTerm term = AcademicTerm.current();
+        return feeds.compute(lecturerKey(lecturer.getId(), term), (key, existing) -> fresh(existing, () -> {
+            List<Timetable> approved = daoFactory.getTimetableDAO().findByLecturer(lecturer, term).stream()
+                    .filter(t -> t.getStatus() == TimetableStatus.APPROVED)
+                    .collect(Collectors.toList());
+            return render(lecturer.getUsername() + " - " + term, term, approved);
+        }));
+    }
+
+    // A new secret feed address for the user, replacing any earlier one; only its hash is kept
+    public String issueToken(User user) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        daoFactory.getCalendarFeedTokenDAO().replace(new CalendarFeedToken(user, tokenHash(token)));
+        return token;
+    }
+
+    public void revokeTokens(User user) {
+        daoFactory.getCalendarFeedTokenDAO().revokeAll(user);
+    }
+
+    // The feed of the student or lecturer the token was issued to, or null if the token is
+    // unknown or revoked or its user inactive
+    public CalendarFeed getFeedByToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        CalendarFeedToken feedToken = daoFactory.getCalendarFeedTokenDAO().findActiveByHash(tokenHash(token));
+        if (feedToken == null || !feedToken.getUser().isActive()) {
+            return null;
+        }
+        User user = feedToken.getUser();
+        switch (user.getRole()) {
+            case STUDENT:
+                return getStudentFeed(user);
+            case LECTURER:
+                return getLecturerFeed(user);
+            default:
+                return null;
+        }
+    }
+
+    // Lecturer feeds are cached per term under their topic plus "@term", so a new term never
+    // serves the previous term's feed; a lecturer's event drops every term's copy
+    private static String lecturerKey(Long lecturerId, AcademicTerm term) {
+        return TimetableEvent.lecturerTopic(lecturerId) + "@" + term.semester().name() + ":" + term.academicYear();
+    }
+
+    private void invalidate(TimetableEvent event) {
+        Set<String> topics = event.topics();
+        feeds.keySet().removeIf(key -> {
+            int at = key.indexOf('@');
+            return topics.contains(at < 0 ? key : key.substring(0, at));
+        });
+    }
+
+    private CalendarFeed fresh(CalendarFeed existing, Supplier<CalendarFeed> builder) {
+        if (existing != null && existing.getGeneratedAt().plus(maxAge).isAfter(Instant.now())) {
+            return existing;
+        }
+        return builder.get();
+    }
+
+    CalendarFeed render(String calendarName, AcademicTerm term, List<Timetable> timetables) {
+        LocalDate termStart = term.startDate();
+        LocalDate termEnd = term.endDate();
+
+        StringBuilder ics = new StringBuilder();
+        line(ics, "BEGIN:VCALENDAR");
+        line(ics, "VERSION:2.0");
+        line(ics, "PRODID:-//TimeFlow//Timetable Feed//EN");
+        line(ics, "CALSCALE:GREGORIAN");
+        line(ics, "X-WR-CALNAME:" + escape(calendarName));
+        line(ics, "X-WR-TIMEZONE:" + zone.getId());
+        timezone(ics, termStart, termEnd);
+
+        for (Timetable slot : timetables) {
+            LocalDate firstDate;
+            String rule = null;
+            if (slot.getSpecificDate() != null) {
+                firstDate = slot.getSpecificDate();
+            } else if (slot.getDayOfWeek() != null) {
+                firstDate = termStart.with(TemporalAdjusters.nextOrSame(slot.getDayOfWeek()));
+                String until = termEnd.atTime(23, 59, 59).atZone(zone).withZoneSameInstant(ZoneOffset.UTC).format(UTC_FORMAT);
+                rule = "RRULE:FREQ=WEEKLY;BYDAY=" + byDay(slot.getDayOfWeek()) + ";UNTIL=" + until;
+            } else {
+                continue;
+            }
+
+            line(ics, "BEGIN:VEVENT");
+            line(ics, "UID:timetable-" + slot.getId() + "@timeflow");
+            // Taken from the slot rather than the clock, so an unchanged slot renders the same
+            line(ics, "DTSTAMP:" + utc(slot.getApprovedAt() != null ? slot.getApprovedAt() : slot.getCreatedAt(), termStart));
+            line(ics, "SEQUENCE:" + slot.getVersion());
+            line(ics, "DTSTART;TZID=" + zone.getId() + ":" + firstDate.atTime(slot.getStartTime()).format(LOCAL_FORMAT));
+            line(ics, "DTEND;TZID=" + zone.getId() + ":" + firstDate.atTime(slot.getEndTime()).format(LOCAL_FORMAT));
+            if (rule != null) {
+                line(ics, rule);
+            }
+            line(ics, "SUMMARY:" + escape(slot.getCourse().getCode() + " " + slot.getCourse().getName() + " (" + slot.getType() + ")"));
+            if (slot.getRoom() != null) {
+                String location = slot.getRoom().getName()
+                        + (slot.getRoom().getLocation() != null ? ", " + slot.getRoom().getLocation() : "");
+                line(ics, "LOCATION:" + escape(location));
+            }
+            if (slot.getCourse().getLecturer() != null) {
+                line(ics, "DESCRIPTION:" + escape("Lecturer: " + slot.getCourse().getLecturer().getUsername()));
+            }
+            line(ics, "END:VEVENT");
+        }
+        line(ics, "END:VCALENDAR");
+
+        byte[] body = ics.toString().getBytes(StandardCharsets.UTF_8);
+        return new CalendarFeed(body, etag(body), Instant.now());
+    }
+
+    // The VTIMEZONE behind every DTSTART;TZID: the offset in force when the term starts and
+    // each change of offset during the term, so clients need not know the zone by name
+    private void timezone(StringBuilder ics, LocalDate from, LocalDate to) {
+        ZoneRules rules = zone.getRules();
+        Instant start = from.atStartOfDay(zone).toInstant();
+        Instant end = to.plusDays(1).atStartOfDay(zone).toInstant();
+        line(ics, "BEGIN:VTIMEZONE");
+        line(ics, "TZID:" + zone.getId());
+        ZoneOffsetTransition previous = rules.previousTransition(start);
+        if (previous != null) {
+            observance(ics, rules.isDaylightSavings(start), previous);
+        } else {
+            ZoneOffset offset = rules.getOffset(start);
+            observance(ics, false, LocalDateTime.of(1970, 1, 1, 0, 0), offset, offset);
+        }
+        for (ZoneOffsetTransition next = rules.nextTransition(start);
+             next != null && next.getInstant().isBefore(end);
+             next = rules.nextTransition(next.getInstant())) {
+            observance(ics, rules.isDaylightSavings(next.getInstant()), next);
+        }
+        line(ics, "END:VTIMEZONE");
+    }
+
+    private static void observance(StringBuilder ics, boolean daylight, ZoneOffsetTransition transition) {
+        observance(ics, daylight, transition.getDateTimeBefore(), transition.getOffsetBefore(), transition.getOffsetAfter());
+    }
+
+    private static void observance(StringBuilder ics, boolean daylight, LocalDateTime onset,
+                                   ZoneOffset offsetFrom, ZoneOffset offsetTo) {
+        String component = daylight ? "DAYLIGHT" : "STANDARD";
+        line(ics, "BEGIN:" + component);
+        line(ics, "DTSTART:" + onset.format(LOCAL_FORMAT));
+        line(ics, "TZOFFSETFROM:" + offset(offsetFrom));
+        line(ics, "TZOFFSETTO:" + offset(offsetTo));
+        line(ics, "END:" + component);
+    }
+
+    // RFC 5545 UTC offset, e.g. +0100
+    private static String offset(ZoneOffset offset) {
+        int minutes = Math.abs(offset.getTotalSeconds()) / 60;
+        return String.format("%s%02d%02d", offset.getTotalSeconds() < 0 ? "-" : "+", minutes / 60, minutes % 60);
+    }
+
+    // A local timestamp in UTC form; slots without one fall back to the start of the term
+    private String utc(LocalDateTime time, LocalDate fallback) {
+        LocalDateTime local = time != null ? time : fallback.atStartOfDay();
+        return local.atZone(zone).withZoneSameInstant(ZoneOffset.UTC).format(UTC_FORMAT);
+    }
+
+    private static String byDay(DayOfWeek day) {
+        return day.name().substring(0, 2);
+    }
+
+    // RFC 5545 text escaping
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\n", "\\n");
+    }
+
+    // RFC 5545 lines are CRLF-terminated and folded at 75 octets
+    private static void line(StringBuilder ics, String content) {
+        int octets = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            int width = String.valueOf(c).getBytes(StandardCharsets.UTF_8).length;
+            if (octets + width > 75) {
+                ics.append("\r\n ");
+                octets = 1;
+            }
+            ics.append(c);
+            octets += width;
+        }
+        ics.append("\r\n");
+    }
+
+    private static String etag(byte[] body) {
+        return "\"" + hex(sha256(body), 16) + "\"";
+    }
+
+    private static String tokenHash(String token) {
+        return hex(sha256(token.getBytes(StandardCharsets.UTF_8)), 32);
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // The first length bytes in lower-case hex
+    private static String hex(byte[] bytes, int length) {
+        StringBuilder hex = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++) {
+            hex.append(String.format("%02x", bytes[i]));
+        }
+        return hex.toString();
+    }
+
+    public static class CalendarFeed {
+        private final byte[] body;
+        private final String etag;
+        private final Instant generatedAt;
+
+        public CalendarFeed(byte[] body, String etag, Instant generatedAt) {
+            this.body = body;
+            this.etag = etag;
+            this.generatedAt = generatedAt;
+        }
+
+        public byte[] getBody() { return body; }
+        public String getEtag() { return etag; }
+        public Instant getGeneratedAt() { return generatedAt; }
+    }
+}
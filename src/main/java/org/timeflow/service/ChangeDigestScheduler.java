@@ -0,0 +1,50 @@
+package org.timeflow.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends pending change digests at a fixed interval, so students hear about changes even
+ * when nobody presses "Notify Students of Changes" on the approval dashboard.
+ */
+public final class ChangeDigestScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeDigestScheduler.class);
+    private static ScheduledExecutorService scheduler;
+
+    private ChangeDigestScheduler() {
+    }
+
+    public static synchronized void start(int intervalMinutes) {
+        if (scheduler != null || intervalMinutes <= 0) {
+            return;
+        }
+        ChangeDigestService digestService = new ChangeDigestService();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "change-digest-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> flush(digestService), intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        logger.info("Sending change digests every {} minutes", intervalMinutes);
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // An exception escaping a scheduled task would cancel every later run
+    private static void flush(ChangeDigestService digestService) {
+        try {
+            digestService.sendPendingDigests();
+        } catch (Exception e) {
+            logger.error("Scheduled change digest run failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.timeflow.service;
+
+import org.timeflow.dao.TimetableChangeDAO;
+import org.timeflow.entity.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Records changes to approved slots and sends each affected cohort one compact digest
+ * of added, moved and cancelled slots instead of a full timetable or a per-slot email.
+ */
+public class ChangeDigestService extends BaseService {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    // The scheduled flush and the dashboard button must not send the same digest twice
+    private static final Object SEND_LOCK = new Object();
+
+    private final NotificationService notificationService;
+
+    public ChangeDigestService() {
+        this(new NotificationService());
+    }
+
+    public ChangeDigestService(NotificationService notificationService) {
+        super();
+        this.notificationService = notificationService;
+    }
+
+    public void recordAdded(Timetable timetable) {
+        record(timetable, TimetableChangeType.ADDED, null, describeSlot(timetable));
+    }
+
+    public void recordCancelled(Timetable timetable) {
+        record(timetable, TimetableChangeType.CANCELLED, describeSlot(timetable), null);
+    }
+
+    // Bulk approvals and rejections: one batched insert for the whole selection
+    public void recordAddedAll(List<Timetable> timetables) {
+        recordAll(timetables, TimetableChangeType.ADDED, false);
+    }
+
+    public void recordCancelledAll(List<Timetable> timetables) {
+        recordAll(timetables, TimetableChangeType.CANCELLED, true);
+    }
+
+    // Compares the stored slot with its updated version; only approved slots are visible to students
+    public void recordTransition(Timetable before, Timetable after) {
+        boolean wasVisible = before != null && before.getStatus() == TimetableStatus.APPROVED;
+        boolean isVisible = after != null && after.getStatus() == TimetableStatus.APPROVED;
+
+        if (wasVisible && isVisible && CohortKey.of(before).equals(CohortKey.of(after))) {
+            String previousSlot = describeSlot(before);
+            String currentSlot = describeSlot(after);
+            if (!previousSlot.equals(currentSlot)) {
+                record(after, TimetableChangeType.MOVED, previousSlot, currentSlot);
+            }
+            return;
+        }
+        if (wasVisible) {
+            recordCancelled(before);
+        }
+        if (isVisible) {
+            recordAdded(after);
+        }
+    }
+
+    // Sends each cohort its pending digests and returns the number of emails sent. Changes are
+    // claimed under a digest id first and each student's copy is recorded as it goes out, so a
+    // run that fails partway resends only to the students it had not reached
+    public int sendPendingDigests() {
+        synchronized (SEND_LOCK) {
+            TimetableChangeDAO changeDAO = daoFactory.getTimetableChangeDAO();
+            Map<CohortKey, List<TimetableChange>> pendingByCohort = changeDAO.findPending()
+                    .stream()
+                    .collect(Collectors.groupingBy(CohortKey::of, LinkedHashMap::new, Collectors.toList()));
+
+            int sent = 0;
+            for (Map.Entry<CohortKey, List<TimetableChange>> entry : pendingByCohort.entrySet()) {
+                try {
+                    List<TimetableChange> changes = entry.getValue();
+                    if (!claimUnclaimed(changeDAO, changes)) {
+                        logger.warn("Change digest for cohort {} was claimed by another run", entry.getKey());
+                        continue;
+                    }
+                    // Oldest digest first, so students read the changes in the order they happened
+                    Map<Long, List<TimetableChange>> byDigest = changes.stream()
+                            .collect(Collectors.groupingBy(TimetableChange::getDigestId, TreeMap::new, Collectors.toList()));
+                    for (Map.Entry<Long, List<TimetableChange>> digest : byDigest.entrySet()) {
+                        sent += sendDigest(changeDAO, digest.getKey(), digest.getValue());
+                    }
+                } catch (Exception e) {
+                    // Leave the cohort's undelivered digests pending so the next run retries them
+                    logger.error("Failed to send change digest for cohort {}", entry.getKey(), e);
+                }
+            }
+            logger.info("Sent {} timetable change digests for {} cohorts", sent, pendingByCohort.size());
+            return sent;
+        }
+    }
+
+    // Gives the cohort's unclaimed changes one new digest id: the lowest change id among them
+    private boolean claimUnclaimed(TimetableChangeDAO changeDAO, List<TimetableChange> changes) {
+        List<TimetableChange> unclaimed = changes.stream()
+                .filter(change -> change.getDigestId() == null)
+                .collect(Collectors.toList());
+        if (unclaimed.isEmpty()) {
+            return true;
+        }
+        List<Long> ids = unclaimed.stream().map(TimetableChange::getId).collect(Collectors.toList());
+        long digestId = Collections.min(ids);
+        if (changeDAO.claim(ids, digestId) != ids.size()) {
+            return false;
+        }
+        unclaimed.forEach(change -> change.setDigestId(digestId));
+        return true;
+    }
+
+    private int sendDigest(TimetableChangeDAO changeDAO, long digestId, List<TimetableChange> changes) {
+        TimetableChange first = changes.get(0);
+        List<TimetableChange> digest = collapse(changes);
+        int sent = 0;
+        int failed = 0;
+        if (!digest.isEmpty()) {
+            // Rendered once for the cohort, then addressed to each student not yet reached
+            String body = notificationService.createChangeDigestEmailBody(
+                    first.getDepartment(), first.getLevel(), first.getSemester(), digest);
+            Set<Long> delivered = changeDAO.findDeliveredStudentIds(digestId);
+            List<User> students = daoFactory.getUserDAO()
+                    .findStudentsByDepartmentAndLevel(first.getDepartment(), first.getLevel());
+            for (User student : students) {
+                if (delivered.contains(student.getId())) {
+                    continue;
+                }
+                try {
+                    notificationService.sendChangeDigest(student, body);
+                } catch (Exception e) {
+                    failed++;
+                    logger.error("Failed to send change digest {} to {}", digestId, student.getEmail(), e);
+                    continue;
+                }
+                changeDAO.recordDelivery(digestId, student.getId());
+                sent++;
+            }
+        }
+        if (failed == 0) {
+            changeDAO.markNotified(digestId, LocalDateTime.now());
+        } else {
+            logger.warn("Change digest {} reached {} students; {} will be retried", digestId, sent, failed);
+        }
+        return sent;
+    }
+
+    // Reduces each slot's history to its net effect, e.g. added-then-cancelled disappears
+    List<TimetableChange> collapse(List<TimetableChange> changes) {
+        Map<Long, List<TimetableChange>> bySlot = changes.stream()
+                .collect(Collectors.groupingBy(TimetableChange::getTimetableId, LinkedHashMap::new, Collectors.toList()));
+
+        List<TimetableChange> net = new ArrayList<>();
+        for (List<TimetableChange> history : bySlot.values()) {
+            TimetableChange first = history.get(0);
+            TimetableChange last = history.get(history.size() - 1);
+            String previousSlot = first.getPreviousSlot();
+            String currentSlot = last.getCurrentSlot();
+
+            TimetableChangeType type;
+            if (previousSlot == null && currentSlot == null) {
+                continue;
+            } else if (previousSlot == null) {
+                type = TimetableChangeType.ADDED;
+            } else if (currentSlot == null) {
+                type = TimetableChangeType.CANCELLED;
+            } else if (Objects.equals(previousSlot, currentSlot)) {
+                continue;
+            } else {
+                type = TimetableChangeType.MOVED;
+            }
+
+            TimetableChange change = new TimetableChange();
+            change.setTimetableId(last.getTimetableId());
+            change.setChangeType(type);
+            change.setCourseCode(last.getCourseCode());
+            change.setCourseName(last.getCourseName());
+            change.setPreviousSlot(previousSlot);
+            change.setCurrentSlot(currentSlot);
+            net.add(change);
+        }
+        return net;
+    }
+
+    private void record(Timetable timetable, TimetableChangeType type, String previousSlot, String currentSlot) {
+        try {
+            daoFactory.getTimetableChangeDAO().save(new TimetableChange(timetable, type, previousSlot, currentSlot));
+        } catch (Exception e) {
+            // A missed digest entry must never fail the scheduling operation itself
+            logger.error("Failed to record {} change for timetable ID {}", type, timetable.getId(), e);
+        }
+    }
+
+    private void recordAll(List<Timetable> timetables, TimetableChangeType type, boolean cancelled) {
+        List<TimetableChange> changes = new ArrayList<>(timetables.size());
+        for (Timetable timetable : timetables) {
+            String slot = describeSlot(timetable);
+            changes.add(new TimetableChange(timetable, type, cancelled ? slot : null, cancelled ? null : slot));
+        }
+        try {
+            daoFactory.getTimetableChangeDAO().saveAll(changes);
+        } catch (Exception e) {
+            logger.error("Failed to record {} {} changes", changes.size(), type, e);
+        }
+    }
+
+    static String describeSlot(Timetable timetable) {
+        return String.format("%s %s-%s, %s (%s)",
+                timetable.getSpecificDate() != null ? timetable.getSpecificDate() : timetable.getDayOfWeek(),
+                timetable.getStartTime().format(TIME_FORMAT),
+                timetable.getEndTime().format(TIME_FORMAT),
+                timetable.getRoom() != null ? timetable.getRoom().getName() : "No room",
+                timetable.getType());
+    }
+}
@@ -0,0 +1,22 @@
+package org.timeflow.service;
+
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.TimetableChange;
+
+/**
+ * The students who share one timetable: a department, an academic level and a term.
+ */
+public record CohortKey(Long departmentId, int level, AcademicTerm term) {
+
+    public static CohortKey of(Timetable timetable) {
+        return new CohortKey(timetable.getCourse().getDepartment().getId(),
+                timetable.getCourse().getLevel(),
+                timetable.getTerm());
+    }
+
+    public static CohortKey of(TimetableChange change) {
+        return new CohortKey(change.getDepartment().getId(), change.getLevel(),
+                new AcademicTerm(change.getAcademicYear(), change.getSemester()));
+    }
+}
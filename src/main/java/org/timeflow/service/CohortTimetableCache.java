@@ -0,0 +1,91 @@
+package org.timeflow.service;
+
+import org.timeflow.dao.ReferenceDataVersionDAO;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Department;
+import org.timeflow.entity.Timetable;
+import org.timeflow.metrics.Counter;
+import org.timeflow.metrics.Metrics;
+import org.timeflow.util.Config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approved slots per cohort, shared by everything that reads a cohort's timetable: students'
+ * own views and emails, PDF and calendar exports and the API. An entry is tagged with the
+ * cohort's {@link CohortVersions} version and the local reference data write count, both read
+ * before its query, so it is replaced as soon as a slot of that cohort is approved, changed or
+ * deleted, or a course, room or department is edited in this process. Concurrent misses for
+ * one cohort run the query once.
+ *
+ * Returned lists are shared and unmodifiable; callers must not modify the entities in them.
+ */
+public class CohortTimetableCache extends BaseService {
+    private static final CohortTimetableCache INSTANCE = new CohortTimetableCache();
+
+    private final Map<CohortKey, Entry> entries = new ConcurrentHashMap<>();
+    private final CohortVersions cohortVersions = CohortVersions.getInstance();
+    // Safety net for changes made by other processes, which never reach this event bus
+    private final Duration maxAge = Duration.ofMinutes(Config.getInt("COHORT_CACHE_TTL_MINUTES", 5));
+    private final Counter hits = Metrics.counter("timeflow.cache", "cache", "cohort", "result", "hit");
+    private final Counter misses = Metrics.counter("timeflow.cache", "cache", "cohort", "result", "miss");
+
+    private CohortTimetableCache() {
+        super();
+    }
+
+    public static CohortTimetableCache getInstance() {
+        return INSTANCE;
+    }
+
+    public List<Timetable> getApprovedTimetables(Department department, int level, AcademicTerm term) {
+        CohortKey cohort = new CohortKey(department.getId(), level, term);
+        // Hits stay off the map's locks, which only a miss takes
+        Entry entry = entries.get(cohort);
+        if (isFresh(cohort, entry)) {
+            hits.increment();
+            return entry.timetables;
+        }
+        return entries.compute(cohort, (key, existing) -> {
+            // Another reader may have loaded it while this one waited
+            if (isFresh(key, existing)) {
+                hits.increment();
+                return existing;
+            }
+            misses.increment();
+            long version = cohortVersions.current(key);
+            long referenceWrites = ReferenceDataVersionDAO.getLocalWriteCount();
+            List<Timetable> timetables = daoFactory.getTimetableDAO().findApprovedTimetables(department, level, term);
+            return new Entry(version, referenceWrites, List.copyOf(timetables), Instant.now());
+        }).timetables;
+    }
+
+    public void clearCache() {
+        entries.clear();
+    }
+
+    private boolean isFresh(CohortKey cohort, Entry entry) {
+        return entry != null
+                && entry.version == cohortVersions.current(cohort)
+                && entry.referenceWrites == ReferenceDataVersionDAO.getLocalWriteCount()
+                && entry.loadedAt.plus(maxAge).isAfter(Instant.now());
+    }
+
+    private static class Entry {
+        private final long version;
+        private final long referenceWrites;
+        private final List<Timetable> timetables;
+        private final Instant loadedAt;
+
+        private Entry(long version, long referenceWrites, List<Timetable> timetables, Instant loadedAt) {
+            this.version = version;
+            this.referenceWrites = referenceWrites;
+            this.timetables = timetables;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.timeflow.service;
+
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.event.TimetableEvent;
+import org.timeflow.event.TimetableEventBus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-cohort data version, bumped whenever the event bus reports a change to a slot in
+ * that cohort. Caches tag what they build with the version they read beforehand, so an
+ * entry is reusable exactly while the version is unchanged.
+ */
+public class CohortVersions {
+    private static final CohortVersions INSTANCE = new CohortVersions();
+
+    private final Map<CohortKey, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private CohortVersions() {
+        TimetableEventBus.getInstance().addListener(this::onEvent);
+    }
+
+    public static CohortVersions getInstance() {
+        return INSTANCE;
+    }
+
+    public long current(CohortKey cohort) {
+        AtomicLong version = versions.get(cohort);
+        return version == null ? 0 : version.get();
+    }
+
+    // The versions of every cohort of the term seen so far; cohorts missing from it are at 0,
+    // as current reports them
+    public Map<CohortKey, Long> snapshot(AcademicTerm term) {
+        Map<CohortKey, Long> snapshot = new HashMap<>();
+        versions.forEach((cohort, version) -> {
+            if (cohort.term().equals(term)) {
+                snapshot.put(cohort, version.get());
+            }
+        });
+        return snapshot;
+    }
+
+    public void bump(CohortKey cohort) {
+        versions.computeIfAbsent(cohort, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    private void onEvent(TimetableEvent event) {
+        if (event.getCohort() != null) {
+            bump(event.getCohort());
+        }
+        if (event.getPreviousCohort() != null && !event.getPreviousCohort().equals(event.getCohort())) {
+            bump(event.getPreviousCohort());
+        }
+    }
+}
@@ -1,14 +1,48 @@
 package org.timeflow.service;
 
 import org.timeflow.entity.*;
+import org.timeflow.metrics.ConflictCheckEvent;
+import org.timeflow.metrics.Metrics;
+import org.timeflow.metrics.QueryScope;
+import java.time.DayOfWeek;
 import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class ConflictDetectionService extends BaseService {
+    private final StudentClashIndex clashIndex = StudentClashIndex.getInstance();
 
     // Main conflict detection method
     public List<Conflict> detectConflicts(Timetable newTimetable) {
+        ConflictCheckEvent event = new ConflictCheckEvent();
+        event.begin();
+        long start = System.nanoTime();
+        QueryScope scope = QueryScope.checked("conflicts.check");
+        List<Conflict> conflicts;
+        try {
+            conflicts = findConflicts(newTimetable);
+        } finally {
+            scope.close();
+        }
+        Metrics.timer("timeflow.conflicts.check").record(System.nanoTime() - start);
+        Metrics.counter("timeflow.conflicts.found").increment(conflicts.size());
+        event.end();
+        if (event.shouldCommit()) {
+            event.timetableId = newTimetable.getId() != null ? newTimetable.getId() : 0L;
+            event.courseCode = newTimetable.getCourse() != null ? newTimetable.getCourse().getCode() : null;
+            event.conflictsFound = conflicts.size();
+            event.commit();
+        }
+        return conflicts;
+    }
+
+    private List<Conflict> findConflicts(Timetable newTimetable) {
         List<Conflict> conflicts = new ArrayList<>();
 
         try {
@@ -19,7 +53,7 @@ public class ConflictDetectionService extends BaseService {
                             newTimetable.getDayOfWeek(),
                             newTimetable.getStartTime(),
                             newTimetable.getEndTime(),
-                            newTimetable.getSemester(),
+                            newTimetable.getTerm(),
                             newTimetable.getId()
                     );
             for (Timetable conflictingTimetable : roomConflicts) {
@@ -38,7 +72,7 @@ public class ConflictDetectionService extends BaseService {
                                 newTimetable.getDayOfWeek(),
                                 newTimetable.getStartTime(),
                                 newTimetable.getEndTime(),
-                                newTimetable.getSemester(),
+                                newTimetable.getTerm(),
                                 newTimetable.getId()
                         );
 
@@ -54,6 +88,15 @@ public class ConflictDetectionService extends BaseService {
             // 3. Check borrowed course conflicts
             conflicts.addAll(checkBorrowedCourseConflicts(newTimetable));
 
+            // 4. Check clashes for students enrolled in both courses
+            conflicts.addAll(checkStudentClashes(newTimetable, conflicts));
+
+            // 5. Check the room seats the course's students
+            Conflict capacity = checkCapacity(newTimetable);
+            if (capacity != null) {
+                conflicts.add(capacity);
+            }
+
             logger.info("Detected {} conflicts for timetable ID: {}", conflicts.size(), newTimetable.getId());
 
         } catch (Exception e) {
@@ -63,8 +106,81 @@ public class ConflictDetectionService extends BaseService {
         return conflicts;
     }
 
-    // Determine a conflict type based on two timetables
-    private ConflictType determineConflictType(Timetable t1, Timetable t2) {
+    // Finds, in memory, every conflict among one term's slots that involves at least one of the
+    // changed slots. Slots are grouped by day and swept in start order, so each is compared only
+    // with the slots still running when it starts. Bulk operations use this instead of running
+    // detectConflicts, and its queries, once per slot.
+    public List<Conflict> sweep(List<Timetable> termSlots, Set<Long> changedIds) {
+        long start = System.nanoTime();
+        Map<DayOfWeek, List<Timetable>> byDay = new EnumMap<>(DayOfWeek.class);
+        for (Timetable slot : termSlots) {
+            if (slot.getDayOfWeek() != null && slot.getStatus() != TimetableStatus.REJECTED) {
+                byDay.computeIfAbsent(slot.getDayOfWeek(), day -> new ArrayList<>()).add(slot);
+            }
+        }
+
+        List<Conflict> conflicts = new ArrayList<>();
+        for (List<Timetable> daySlots : byDay.values()) {
+            for (Timetable slot : daySlots) {
+                Conflict capacity = changedIds.contains(slot.getId()) ? checkCapacity(slot) : null;
+                if (capacity != null) {
+                    conflicts.add(capacity);
+                }
+            }
+            daySlots.sort(Comparator.comparing(Timetable::getStartTime));
+            List<Timetable> running = new ArrayList<>();
+            for (Timetable slot : daySlots) {
+                running.removeIf(other -> !other.getEndTime().isAfter(slot.getStartTime()));
+                boolean changed = changedIds.contains(slot.getId());
+                for (Timetable other : running) {
+                    if (!changed && !changedIds.contains(other.getId())) {
+                        continue;
+                    }
+                    ConflictType type = conflictBetween(slot, other);
+                    if (type != null) {
+                        conflicts.add(changed ? new Conflict(slot, other, type) : new Conflict(other, slot, type));
+                    }
+                }
+                running.add(slot);
+            }
+        }
+        Metrics.timer("timeflow.conflicts.sweep").record(System.nanoTime() - start);
+        Metrics.counter("timeflow.conflicts.found").increment(conflicts.size());
+        logger.info("Conflict sweep over {} slots ({} changed) found {} conflicts",
+                termSlots.size(), changedIds.size(), conflicts.size());
+        return conflicts;
+    }
+
+    // Conflicts between one slot and the given others, found in memory as the sweep finds them.
+    // The what-if sandbox re-checks each slot it edits against the other slots of its day
+    List<Conflict> detectAgainst(Timetable slot, Collection<Timetable> others) {
+        List<Conflict> conflicts = new ArrayList<>();
+        Conflict capacity = checkCapacity(slot);
+        if (capacity != null) {
+            conflicts.add(capacity);
+        }
+        for (Timetable other : others) {
+            if (Objects.equals(other.getId(), slot.getId()) || other.getStatus() == TimetableStatus.REJECTED) {
+                continue;
+            }
+            ConflictType type = conflictBetween(slot, other);
+            if (type != null) {
+                conflicts.add(new Conflict(slot, other, type));
+            }
+        }
+        return conflicts;
+    }
+
+    private ConflictType conflictBetween(Timetable t1, Timetable t2) {
+        ConflictType type = determineConflictType(t1, t2);
+        if (type == null && studentsClash(t1, t2)) {
+            type = ConflictType.STUDENT_CLASH;
+        }
+        return type;
+    }
+
+    // Determine a conflict type based on two timetables (package-private for the benchmarks)
+    ConflictType determineConflictType(Timetable t1, Timetable t2) {
         // Check room conflict
         if (t1.getRoom().getId().equals(t2.getRoom().getId()) && timesOverlap(t1, t2)) {
             return ConflictType.ROOM_CONFLICT;
@@ -92,6 +208,63 @@ public class ConflictDetectionService extends BaseService {
                 t1.getEndTime().isAfter(t2.getStartTime());
     }
 
+    // The slot's room seats fewer students than its course expects. Rooms without a recorded
+    // capacity are not checked. There is no second slot, so the conflict names this one twice
+    Conflict checkCapacity(Timetable slot) {
+        AcademicTerm term = slot.getTerm();
+        if (term == null || slot.getRoom() == null || slot.getRoom().getCapacity() <= 0) {
+            return null;
+        }
+        int expected = clashIndex.expectedStudents(slot.getCourse(), term.academicYear());
+        if (expected <= slot.getRoom().getCapacity()) {
+            return null;
+        }
+        logger.debug("{} expects {} students in {} ({} seats)", slot.getCourse().getCode(), expected,
+                slot.getRoom().getName(), slot.getRoom().getCapacity());
+        return new Conflict(slot, slot, ConflictType.CAPACITY_VIOLATION);
+    }
+
+    // Students enrolled in both slots' courses, whatever their department and level. Kept out of
+    // determineConflictType because it needs the enrollment index of the slots' year
+    private boolean studentsClash(Timetable t1, Timetable t2) {
+        AcademicTerm term = t1.getTerm();
+        return term != null && !Objects.equals(t1.getCourse().getId(), t2.getCourse().getId()) && timesOverlap(t1, t2)
+                && clashIndex.sharedStudents(t1.getCourse(), t2.getCourse(), term.academicYear()) > 0;
+    }
+
+    // The index names the courses that share students with this one, so only their slots at
+    // the same time are queried
+    private List<Conflict> checkStudentClashes(Timetable newTimetable, List<Conflict> found) {
+        List<Conflict> clashes = new ArrayList<>();
+        AcademicTerm term = newTimetable.getTerm();
+        if (term == null) {
+            return clashes;
+        }
+        try {
+            Set<Long> courseIds = clashIndex.coursesSharingStudents(newTimetable.getCourse(), term.academicYear());
+            List<Timetable> overlapping = daoFactory.getTimetableDAO()
+                    .findCourseConflicts(
+                            courseIds,
+                            newTimetable.getDayOfWeek(),
+                            newTimetable.getStartTime(),
+                            newTimetable.getEndTime(),
+                            term,
+                            newTimetable.getId()
+                    );
+            for (Timetable other : overlapping) {
+                if (!conflictExists(found, newTimetable, other)) {
+                    clashes.add(new Conflict(newTimetable, other, ConflictType.STUDENT_CLASH));
+                    logger.debug("{} students take both {} and {}",
+                            clashIndex.sharedStudents(newTimetable.getCourse(), other.getCourse(), term.academicYear()),
+                            newTimetable.getCourse().getCode(), other.getCourse().getCode());
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error checking student clashes", e);
+        }
+        return clashes;
+    }
+
     // Check borrowed course conflicts
     private List<Conflict> checkBorrowedCourseConflicts(Timetable newTimetable) {
         List<Conflict> borrowedConflicts = new ArrayList<>();
@@ -109,7 +282,7 @@ public class ConflictDetectionService extends BaseService {
                         if (borrowedCourse.getDepartment().equals(newTimetable.getCourse().getDepartment())) {
                             // Check conflicts with this borrowed course's timetables
                             List<Timetable> borrowedTimetables = daoFactory.getTimetableDAO()
-                                    .findByCourse(borrowedCourse);
+                                    .findByCourse(borrowedCourse, newTimetable.getTerm());
 
                             for (Timetable borrowedTimetable : borrowedTimetables) {
                                 if (timesOverlap(newTimetable, borrowedTimetable)) {
@@ -139,28 +312,35 @@ public class ConflictDetectionService extends BaseService {
 
     // Save detected conflicts
     public void saveConflicts(List<Conflict> conflicts) {
+        List<Conflict> newConflicts = new ArrayList<>();
         for (Conflict conflict : conflicts) {
             // Check if conflict already exists in database
             Conflict existingConflict = daoFactory.getConflictDAO()
                     .findExistingConflict(conflict.getTimetable1(), conflict.getTimetable2());
 
             if (existingConflict == null) {
-                daoFactory.getConflictDAO().save(conflict);
+                newConflicts.add(conflict);
             }
         }
+        // One transaction and batched inserts instead of a round trip per conflict
+        daoFactory.getConflictDAO().saveAll(newConflicts);
     }
 
     // Resolve conflict
     public void resolveConflict(Long conflictId, String resolution, User resolvedBy) {
         try {
-            Conflict conflict = daoFactory.getConflictDAO().findById(conflictId);
-            if (conflict != null) {
+            Conflict resolved = retryOnConflict("conflict.resolve", () -> {
+                Conflict conflict = daoFactory.getConflictDAO().findById(conflictId);
+                if (conflict == null) {
+                    return null;
+                }
                 conflict.setStatus(ConflictStatus.RESOLVED);
                 conflict.setResolutionNotes(resolution);
                 conflict.setResolvedBy(resolvedBy);
                 conflict.setResolvedAt(java.time.LocalDateTime.now());
-                daoFactory.getConflictDAO().update(conflict);
-
+                return daoFactory.getConflictDAO().update(conflict);
+            });
+            if (resolved != null) {
                 logger.info("Conflict resolved by {}: {}", resolvedBy.getUsername(), conflictId);
             }
         } catch (Exception e) {
@@ -12,6 +12,8 @@ import org.timeflow.entity.UserRole;
 import org.timeflow.entity.Room;
 import org.timeflow.dao.RoomDAO;
 
+import java.util.List;
+
 public class DataSeeder {
     private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
     private final UserDAO userDAO = new UserDAO();
@@ -20,42 +22,36 @@ public class DataSeeder {
     private final RoomDAO roomDAO = new RoomDAO();
 
     public void seedInitialData() {
-        if (departmentDAO.findAll().isEmpty()) {
+        if (!departmentDAO.existsAny()) {
             logger.info("Database is empty. Seeding initial data...");
             try {
                 logger.info("Creating initial rooms...");
-                roomDAO.save(new Room("1K Capacity", 1000, "CSC LT"));
-                roomDAO.save(new Room("600 Capacity", 150, "ICT I"));
-                roomDAO.save(new Room("Lab 1", 30, "CSC Lab 1"));
-                roomDAO.save(new Room("Lab 2", 30, "Defense Lab 2"));
+                roomDAO.saveAll(List.of(
+                        new Room("1K Capacity", 1000, "CSC LT"),
+                        new Room("600 Capacity", 150, "ICT I"),
+                        new Room("Lab 1", 30, "CSC Lab 1"),
+                        new Room("Lab 2", 30, "Defense Lab 2")));
                 // Step 1: Create Departments
                 Department csDept = new Department("Computer Science", "CSC", "Dr. Ada Lovelace");
                 Department eeDept = new Department("Electrical Engineering", "EEE", "Dr. Nikola Tesla");
-                departmentDAO.save(csDept);
-                departmentDAO.save(eeDept);
+                departmentDAO.saveAll(List.of(csDept, eeDept));
                 logger.info("Created initial departments.");
 
                 // Step 2: Create Users
                 User admin = new User("admin", "admin@timeflow.com", "admin123", UserRole.ADMIN, null);
-                userDAO.save(admin);
-
                 User examsOfficer = new User("eo_csc", "eo.csc@timeflow.com", "officer123", UserRole.EXAMS_OFFICER, csDept);
-                userDAO.save(examsOfficer);
-
                 User lecturer = new User("jdoe", "j.doe@timeflow.com", "lecturer123", UserRole.LECTURER, csDept);
-                userDAO.save(lecturer);
 
                 // --- MODIFIED: Set the level for the student user ---
                 User student = new User("asmith", "a.smith@timeflow.com", "student123", UserRole.STUDENT, csDept);
                 student.setLevel(100); // Set student's level to match CSC101
-                userDAO.save(student);
+                userDAO.saveAll(List.of(admin, examsOfficer, lecturer, student));
                 logger.info("Created initial users.");
 
                 // Step 3: Create Courses
                 Course csc101 = new Course("Introduction to Programming", "CSC101", 3, csDept, lecturer, 100);
                 Course csc201 = new Course("Data Structures", "CSC201", 4, csDept, lecturer, 200);
-                courseDAO.save(csc101);
-                courseDAO.save(csc201);
+                courseDAO.saveAll(List.of(csc101, csc201));
                 logger.info("Created initial courses.");
 
                 logger.info("Initial data seeding completed successfully.");
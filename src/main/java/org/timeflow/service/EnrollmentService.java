@@ -0,0 +1,52 @@
+package org.timeflow.service;
+
+import org.timeflow.entity.Course;
+import org.timeflow.entity.Enrollment;
+import org.timeflow.entity.User;
+import org.timeflow.entity.UserRole;
+
+import java.util.List;
+
+/**
+ * Which courses each student takes in an academic year. Cohorts are enrolled in their own
+ * department and level's courses when they are imported; carry-overs and electives are added
+ * here one by one. Conflict detection reads enrollments through {@link StudentClashIndex}.
+ */
+public class EnrollmentService extends BaseService {
+
+    public List<Course> getCourses(User student, int academicYear) {
+        return daoFactory.getEnrollmentDAO().findCourses(student, academicYear);
+    }
+
+    public Enrollment enroll(User student, Course course, int academicYear, User enrolledBy) {
+        requireStaff(enrolledBy);
+        if (student.getRole() != UserRole.STUDENT) {
+            throw new IllegalArgumentException("Only students can be enrolled in courses");
+        }
+        Enrollment existing = daoFactory.getEnrollmentDAO().find(student, course, academicYear);
+        if (existing != null) {
+            return existing;
+        }
+        Enrollment enrollment = new Enrollment(student, course, academicYear);
+        long version = daoFactory.getEnrollmentDAO().enroll(enrollment);
+        StudentClashIndex.getInstance().courseChanged(course.getId(), academicYear, version);
+        logger.info("{} enrolled {} in {} for {}", enrolledBy.getUsername(), student.getUsername(), course.getCode(), academicYear);
+        return enrollment;
+    }
+
+    public boolean withdraw(User student, Course course, int academicYear, User withdrawnBy) {
+        requireStaff(withdrawnBy);
+        long version = daoFactory.getEnrollmentDAO().withdraw(student, course, academicYear);
+        if (version > 0) {
+            StudentClashIndex.getInstance().courseChanged(course.getId(), academicYear, version);
+            logger.info("{} withdrew {} from {} for {}", withdrawnBy.getUsername(), student.getUsername(), course.getCode(), academicYear);
+        }
+        return version > 0;
+    }
+
+    private static void requireStaff(User user) {
+        if (!AuthenticationService.canApproveTimetables(user)) {
+            throw new PermissionDeniedException("User does not have permission to manage enrollments");
+        }
+    }
+}
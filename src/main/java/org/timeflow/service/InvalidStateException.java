@@ -0,0 +1,13 @@
+package org.timeflow.service;
+
+/**
+ * The operation is not allowed in the current state of the data, e.g. approving a slot with
+ * unresolved conflicts. Nothing was changed; once the state is put right the same request can
+ * succeed. The API answers 409.
+ */
+public class InvalidStateException extends RuntimeException {
+
+    public InvalidStateException(String message) {
+        super(message);
+    }
+}
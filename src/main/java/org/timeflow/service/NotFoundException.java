@@ -0,0 +1,11 @@
+package org.timeflow.service;
+
+/**
+ * The entity an operation was asked to act on does not exist (any more). The API answers 404.
+ */
+public class NotFoundException extends RuntimeException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,33 +1,38 @@
 package org.timeflow.service;
 
 import org.timeflow.entity.*;
+import org.timeflow.mail.InstrumentedMailTransport;
+import org.timeflow.mail.MailTransport;
+import org.timeflow.mail.MailTransports;
 import javax.mail.*;
 import javax.mail.internet.*;
 import java.time.DayOfWeek;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.timeflow.util.*;
 
 public class NotificationService extends BaseService {
 
+    private final MailTransport mailTransport;
+
+    public NotificationService() {
+        this(MailTransports.getDefault());
+    }
+
+    public NotificationService(MailTransport mailTransport) {
+        super();
+        this.mailTransport = InstrumentedMailTransport.wrap(mailTransport);
+    }
+
     private Session getEmailSession() {
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", Config.SMTP_HOST);
-        props.put("mail.smtp.port", Config.SMTP_PORT);
-
-        return Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(Config.USERNAME, Config.EMAIL_PASSWORD);
-            }
-        });
+        return mailTransport.getSession();
     }
+
     public void sendTimetableToStudent(User student, List<Timetable> timetables) {
         try {
             String subject = "Your Current Timetable from TimeFlow";
@@ -40,7 +45,7 @@ public class NotificationService extends BaseService {
             message.setSubject(subject);
             message.setText(emailBody); // Using setText for plain text format
 
-            Transport.send(message);
+            mailTransport.send(message);
             logger.info("Sent timetable email to {}", student.getEmail());
 
         } catch (Exception e) {
@@ -50,7 +55,7 @@ public class NotificationService extends BaseService {
     }
 
     // --- ADD THIS HELPER METHOD for the email body ---
-    private String createStudentTimetableEmailBody(User student, List<Timetable> timetables) {
+    String createStudentTimetableEmailBody(User student, List<Timetable> timetables) {
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("Dear %s,\n\nHere is your current approved timetable:\n\n", student.getUsername()));
 
@@ -82,6 +87,52 @@ public class NotificationService extends BaseService {
         return sb.toString();
     }
 
+    String createChangeDigestEmailBody(Department department, int level, SemesterType semester,
+                                       List<TimetableChange> changes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Your timetable for %s Level %d, %s has changed:\n\n",
+                department.getName(), level, semester));
+
+        for (TimetableChangeType type : TimetableChangeType.values()) {
+            List<TimetableChange> ofType = changes.stream()
+                    .filter(c -> c.getChangeType() == type)
+                    .collect(Collectors.toList());
+            if (ofType.isEmpty()) continue;
+
+            sb.append("--- ").append(type).append(" ---\n");
+            for (TimetableChange change : ofType) {
+                sb.append(change.getCourseCode()).append(" ").append(change.getCourseName()).append(": ");
+                switch (type) {
+                    case ADDED:
+                        sb.append(change.getCurrentSlot());
+                        break;
+                    case MOVED:
+                        sb.append(change.getPreviousSlot()).append("  ->  ").append(change.getCurrentSlot());
+                        break;
+                    case CANCELLED:
+                        sb.append("was ").append(change.getPreviousSlot());
+                        break;
+                }
+                sb.append("\n");
+            }
+            sb.append("\n");
+        }
+
+        sb.append("All other slots are unchanged.\n\nBest regards,\nTimeFlow System");
+        return sb.toString();
+    }
+
+    // The digest body is shared by the whole cohort; only the greeting is per student.
+    // Sent one student at a time so the caller can record each delivery as it succeeds
+    public void sendChangeDigest(User student, String digestBody) throws MessagingException {
+        MimeMessage message = new MimeMessage(getEmailSession());
+        message.setFrom(new InternetAddress(Config.SEND_FROM));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(student.getEmail()));
+        message.setSubject("Timetable Changes from TimeFlow");
+        message.setText("Dear " + student.getUsername() + ",\n\n" + digestBody);
+        mailTransport.send(message);
+    }
+
     // In NotificationService.java
 
     public void notifyTimetableApproved(Timetable timetable) {
@@ -91,77 +142,86 @@ public class NotificationService extends BaseService {
                             timetable.getCourse().getDepartment(),
                             timetable.getCourse().getLevel()
                     );
-            Session session = getEmailSession();
-            for (User student : students) {
-                MimeMessage message = new MimeMessage(session);
-                message.setFrom(new InternetAddress(Config.SEND_FROM));
-                message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(student.getEmail()));
-                message.setSubject("Timetable Approved for " + timetable.getCourse().getName());
-                message.setText(String.format(
-                        "Dear %s,\n\nThe timetable for %s (%s) has been approved.\n\n" +
-                                "Details:\nDay: %s\nTime: %s - %s\nRoom: %s\nType: %s\nSemester: %s\n\n" +
-                                "Best regards,\nTimeFlow",
-                        student.getUsername(),
-                        timetable.getCourse().getName(),
-                        timetable.getCourse().getCode(),
-                        timetable.getSpecificDate() != null ? timetable.getSpecificDate() : timetable.getDayOfWeek(), // Handle single-day events
-                        timetable.getStartTime(),
-                        timetable.getEndTime(),
-                        timetable.getRoom(),
-                        timetable.getType(),
-                        timetable.getSemester().toString() // MODIFIED: Changed .getName() to .toString()
-                ));
-                Transport.send(message);
-                logger.info("Sent approval notification to {}", student.getEmail());
-            }
+            sendApprovalNotifications(timetable, students);
         } catch (Exception e) {
             logger.error("Failed to send timetable approval notification", e);
         }
     }
 
+    public void sendApprovalNotifications(Timetable timetable, List<User> students) throws MessagingException {
+        Session session = getEmailSession();
+        for (User student : students) {
+            MimeMessage message = new MimeMessage(session);
+            message.setFrom(new InternetAddress(Config.SEND_FROM));
+            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(student.getEmail()));
+            message.setSubject("Timetable Approved for " + timetable.getCourse().getName());
+            message.setText(String.format(
+                    "Dear %s,\n\nThe timetable for %s (%s) has been approved.\n\n" +
+                            "Details:\nDay: %s\nTime: %s - %s\nRoom: %s\nType: %s\nSemester: %s\n\n" +
+                            "Best regards,\nTimeFlow",
+                    student.getUsername(),
+                    timetable.getCourse().getName(),
+                    timetable.getCourse().getCode(),
+                    timetable.getSpecificDate() != null ? timetable.getSpecificDate() : timetable.getDayOfWeek(), // Handle single-day events
+                    timetable.getStartTime(),
+                    timetable.getEndTime(),
+                    timetable.getRoom(),
+                    timetable.getType(),
+                    timetable.getSemester().toString() // MODIFIED: Changed .getName() to .toString()
+            ));
+            mailTransport.send(message);
+            logger.info("Sent approval notification to {}", student.getEmail());
+        }
+    }
+
     public void notifyConflicts(List<Conflict> conflicts) {
         try {
-            Session session = getEmailSession();
-            for (Conflict conflict : conflicts) {
-                // Notify lecturer 1
-                User lecturer1 = conflict.getTimetable1().getCourse().getLecturer();
-                if (lecturer1 != null) {
-                    MimeMessage message = new MimeMessage(session);
-                    message.setFrom(new InternetAddress(Config.SEND_FROM));
-                    message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(lecturer1.getEmail()));
-                    message.setSubject("Timetable Conflict Detected");
-                    message.setText(createConflictEmailBody(conflict, lecturer1.getUsername()));
-                    Transport.send(message);
-                    logger.info("Sent conflict notification to {}", lecturer1.getEmail());
-                }
-                // Notify lecturer 2
-                User lecturer2 = conflict.getTimetable2().getCourse().getLecturer();
-                if (lecturer2 != null) {
-                    MimeMessage message = new MimeMessage(session);
-                    message.setFrom(new InternetAddress(Config.SEND_FROM));
-                    message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(lecturer2.getEmail()));
-                    message.setSubject("Timetable Conflict Detected");
-                    message.setText(createConflictEmailBody(conflict, lecturer2.getUsername()));
-                    Transport.send(message);
-                    logger.info("Sent conflict notification to {}", lecturer2.getEmail());
-                }
-                // Notify exams officer
-                List<User> officers = daoFactory.getUserDAO().findByRole(UserRole.EXAMS_OFFICER);
-                for (User officer : officers) {
-                    MimeMessage message = new MimeMessage(session);
-                    message.setFrom(new InternetAddress(Config.SEND_FROM));
-                    message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(officer.getEmail()));
-                    message.setSubject("Timetable Conflict Requires Review");
-                    message.setText(createConflictOfficerEmailBody(conflict));
-                    Transport.send(message);
-                    logger.info("Sent conflict notification to exams officer {}", officer.getEmail());
-                }
-            }
+            // Officers are the same for every conflict in the batch, so look them up once
+            List<User> officers = daoFactory.getUserDAO().findByRole(UserRole.EXAMS_OFFICER);
+            sendConflictNotifications(conflicts, officers);
         } catch (Exception e) {
             logger.error("Failed to send conflict notifications", e);
         }
     }
 
+    public void sendConflictNotifications(List<Conflict> conflicts, List<User> officers) throws MessagingException {
+        Session session = getEmailSession();
+        for (Conflict conflict : conflicts) {
+            // Notify lecturer 1
+            User lecturer1 = conflict.getTimetable1().getCourse().getLecturer();
+            if (lecturer1 != null) {
+                MimeMessage message = new MimeMessage(session);
+                message.setFrom(new InternetAddress(Config.SEND_FROM));
+                message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(lecturer1.getEmail()));
+                message.setSubject("Timetable Conflict Detected");
+                message.setText(createConflictEmailBody(conflict, lecturer1.getUsername()));
+                mailTransport.send(message);
+                logger.info("Sent conflict notification to {}", lecturer1.getEmail());
+            }
+            // Notify lecturer 2; a capacity violation names one slot twice
+            User lecturer2 = conflict.getTimetable2().getCourse().getLecturer();
+            if (lecturer2 != null && !Objects.equals(conflict.getTimetable1().getId(), conflict.getTimetable2().getId())) {
+                MimeMessage message = new MimeMessage(session);
+                message.setFrom(new InternetAddress(Config.SEND_FROM));
+                message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(lecturer2.getEmail()));
+                message.setSubject("Timetable Conflict Detected");
+                message.setText(createConflictEmailBody(conflict, lecturer2.getUsername()));
+                mailTransport.send(message);
+                logger.info("Sent conflict notification to {}", lecturer2.getEmail());
+            }
+            // Notify exams officer
+            for (User officer : officers) {
+                MimeMessage message = new MimeMessage(session);
+                message.setFrom(new InternetAddress(Config.SEND_FROM));
+                message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(officer.getEmail()));
+                message.setSubject("Timetable Conflict Requires Review");
+                message.setText(createConflictOfficerEmailBody(conflict));
+                mailTransport.send(message);
+                logger.info("Sent conflict notification to exams officer {}", officer.getEmail());
+            }
+        }
+    }
+
     public void notifyTimetableRejected(Timetable timetable, String reason) {
         try {
             User lecturer = timetable.getCourse().getLecturer();
@@ -180,7 +240,7 @@ public class NotificationService extends BaseService {
                         timetable.getCourse().getCode(),
                         reason
                 ));
-                Transport.send(message);
+                mailTransport.send(message);
                 logger.info("Sent rejection notification to {}", lecturer.getEmail());
             }
         } catch (Exception e) {
@@ -188,6 +248,42 @@ public class NotificationService extends BaseService {
         }
     }
 
+    // One email per lecturer listing all of their slots rejected in a bulk decision
+    public void notifyTimetablesRejected(List<Timetable> timetables, String reason) {
+        Map<User, List<Timetable>> byLecturer = timetables.stream()
+                .filter(t -> t.getCourse().getLecturer() != null)
+                .collect(Collectors.groupingBy(t -> t.getCourse().getLecturer(), LinkedHashMap::new, Collectors.toList()));
+        Session session = getEmailSession();
+        for (Map.Entry<User, List<Timetable>> entry : byLecturer.entrySet()) {
+            User lecturer = entry.getKey();
+            try {
+                StringBuilder slots = new StringBuilder();
+                for (Timetable timetable : entry.getValue()) {
+                    slots.append(String.format("- %s (%s): %s %s - %s, %s\n",
+                            timetable.getCourse().getName(),
+                            timetable.getCourse().getCode(),
+                            timetable.getSpecificDate() != null ? timetable.getSpecificDate() : timetable.getDayOfWeek(),
+                            timetable.getStartTime(),
+                            timetable.getEndTime(),
+                            timetable.getRoom()));
+                }
+                MimeMessage message = new MimeMessage(session);
+                message.setFrom(new InternetAddress(Config.SEND_FROM));
+                message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(lecturer.getEmail()));
+                message.setSubject(entry.getValue().size() + " Timetable Slot(s) Rejected");
+                message.setText(String.format(
+                        "Dear %s,\n\nThe following timetable slots were rejected:\n\n%s\n" +
+                                "Reason: %s\n\nPlease revise and resubmit.\n\n" +
+                                "Best regards,\nTimeFlow",
+                        lecturer.getUsername(), slots, reason));
+                mailTransport.send(message);
+                logger.info("Sent rejection notification for {} slots to {}", entry.getValue().size(), lecturer.getEmail());
+            } catch (Exception e) {
+                logger.error("Failed to send timetable rejection notification to {}", lecturer.getEmail(), e);
+            }
+        }
+    }
+
     String createConflictEmailBody(Conflict conflict, String perspective) {
         return String.format(
                 "Dear %s,\n\nA scheduling conflict has been detected.\n\n" +
@@ -302,7 +398,7 @@ public class NotificationService extends BaseService {
             message.setSubject(subject);
             message.setText(emailBody);
 
-            Transport.send(message);
+            mailTransport.send(message);
             logger.info("Sent conflict resolution email to {} and {} for conflict ID {}", lecturer1.getEmail(), lecturer2.getEmail(), conflict.getId());
 
         } catch (Exception e) {
@@ -359,7 +455,7 @@ public class NotificationService extends BaseService {
             mimeMessage.setSubject(subject);
             mimeMessage.setText(emailBody);
 
-            Transport.send(mimeMessage);
+            mailTransport.send(mimeMessage);
             logger.info("Sent inquiry from {} to {} regarding timetable ID {}", admin.getUsername(), lecturer.getUsername(), timetable.getId());
 
         } catch (Exception e) {
@@ -0,0 +1,11 @@
+package org.timeflow.service;
+
+/**
+ * The user's role does not allow the operation. Nothing was changed; the API answers 403.
+ */
+public class PermissionDeniedException extends RuntimeException {
+
+    public PermissionDeniedException(String message) {
+        super(message);
+    }
+}
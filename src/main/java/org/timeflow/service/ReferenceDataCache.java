@@ -0,0 +1,123 @@
+package org.timeflow.service;
+
+import org.timeflow.dao.ReferenceDataVersionDAO;
+import org.timeflow.entity.*;
+import org.timeflow.util.Config;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Application-wide copy of the reference data behind the UI's pickers: rooms, departments,
+ * lecturers and courses. Each list is tagged with the version of its row in
+ * reference_data_versions. Writes made by this process are noticed on the next read;
+ * writes from other clients are picked up by a single version query at most every
+ * REFERENCE_CHECK_SECONDS, and only the lists whose version moved are reloaded.
+ *
+ * Returned lists are shared and unmodifiable; callers must not modify the entities in them.
+ */
+public class ReferenceDataCache extends BaseService {
+    private static final ReferenceDataCache INSTANCE = new ReferenceDataCache();
+
+    private final Map<String, Snapshot<?>> snapshots = new ConcurrentHashMap<>();
+    private final Duration checkInterval = Duration.ofSeconds(Config.getInt("REFERENCE_CHECK_SECONDS", 30));
+    private volatile Map<String, Long> knownVersions = Collections.emptyMap();
+    private volatile long lastCheckNanos;
+    private volatile long seenLocalWrites = -1;
+
+    private ReferenceDataCache() {
+        super();
+    }
+
+    public static ReferenceDataCache getInstance() {
+        return INSTANCE;
+    }
+
+    public List<Room> getRooms() {
+        return get(ReferenceDataVersion.ROOMS, ReferenceDataVersion.ROOMS,
+                () -> daoFactory.getRoomDAO().findAll());
+    }
+
+    public List<Department> getDepartments() {
+        return get(ReferenceDataVersion.DEPARTMENTS, ReferenceDataVersion.DEPARTMENTS,
+                () -> daoFactory.getDepartmentDAO().findAll());
+    }
+
+    public List<User> getLecturers() {
+        return get(ReferenceDataVersion.LECTURERS, ReferenceDataVersion.LECTURERS,
+                () -> daoFactory.getUserDAO().findByRole(UserRole.LECTURER));
+    }
+
+    public List<Course> getCourses() {
+        return get(ReferenceDataVersion.COURSES, ReferenceDataVersion.COURSES,
+                () -> daoFactory.getCourseDAO().findAll());
+    }
+
+    public List<Course> getCoursesByLecturer(User lecturer) {
+        return getCourses().stream()
+                .filter(c -> c.getLecturer() != null && Objects.equals(c.getLecturer().getId(), lecturer.getId()))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public List<Course> getCoursesByDepartment(Department department) {
+        return getCourses().stream()
+                .filter(c -> c.getDepartment() != null && Objects.equals(c.getDepartment().getId(), department.getId()))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    // Version of one kind of reference data as last seen, for caches built from it elsewhere
+    public long getVersion(String versionName) {
+        return currentVersion(versionName);
+    }
+
+    // Drops everything; the next read of each list goes to the database
+    public void invalidateAll() {
+        snapshots.clear();
+        lastCheckNanos = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> get(String key, String versionName, Supplier<List<T>> loader) {
+        long version = currentVersion(versionName);
+        Snapshot<T> snapshot = (Snapshot<T>) snapshots.get(key);
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot.items;
+        }
+        // Concurrent misses may both load; the lists are small and the result is the same
+        List<T> items = Collections.unmodifiableList(loader.get());
+        snapshots.put(key, new Snapshot<>(version, items));
+        logger.debug("Loaded {} {} (version {})", items.size(), key, version);
+        return items;
+    }
+
+    private long currentVersion(String versionName) {
+        long localWrites = ReferenceDataVersionDAO.getLocalWriteCount();
+        long now = System.nanoTime();
+        if (localWrites != seenLocalWrites || now - lastCheckNanos > checkInterval.toNanos()) {
+            synchronized (this) {
+                if (localWrites != seenLocalWrites || now - lastCheckNanos > checkInterval.toNanos()) {
+                    knownVersions = daoFactory.getReferenceDataVersionDAO().findVersions();
+                    lastCheckNanos = now;
+                    seenLocalWrites = localWrites;
+                }
+            }
+        }
+        return knownVersions.getOrDefault(versionName, 0L);
+    }
+
+    private static final class Snapshot<T> {
+        private final long version;
+        private final List<T> items;
+
+        private Snapshot(long version, List<T> items) {
+            this.version = version;
+            this.items = items;
+        }
+    }
+}
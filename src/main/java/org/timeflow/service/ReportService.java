@@ -1,42 +1,30 @@
 package org.timeflow.service;
 
 import org.timeflow.entity.*;
+import org.timeflow.metrics.Metrics;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.stream.Collectors;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.element.Table;
-import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.layout.properties.UnitValue;
-import org.timeflow.entity.*;
-
-import org.timeflow.entity.*;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.time.DayOfWeek;
-import java.time.format.DateTimeFormatter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 
 public class ReportService extends BaseService {
+    private final TimetablePdfExporter pdfExporter = TimetablePdfExporter.getInstance();
 
-    // MODIFIED: This method now uses the correct DAO call and filters in-memory.
-    public Map<String, Object> generateDepartmentUtilizationReport(Department department, SemesterType semester) {
+    public Map<String, Object> generateDepartmentUtilizationReport(Department department, AcademicTerm term) {
+        long start = System.nanoTime();
         Map<String, Object> report = new HashMap<>();
 
         try {
-            // Step 1: Fetch all timetables for the department.
-            List<Timetable> allDepartmentTimetables = daoFactory.getTimetableDAO().findAllByDepartment(department);
-
-            // Step 2: Filter the list by the selected semester.
-            List<Timetable> departmentTimetablesInSemester = allDepartmentTimetables.stream()
-                    .filter(t -> t.getSemester() == semester)
-                    .collect(Collectors.toList());
+            List<Timetable> departmentTimetablesInSemester = daoFactory.getTimetableDAO().findByDepartment(department, term);
 
             // Calculation logic now uses the correctly filtered list.
             int totalSlots = departmentTimetablesInSemester.size();
@@ -51,7 +39,7 @@ public class ReportService extends BaseService {
                     .count();
 
             report.put("departmentName", department.getName());
-            report.put("semesterName", semester.toString());
+            report.put("semesterName", term.toString());
             report.put("totalSlots", totalSlots);
             report.put("approvedSlots", approvedSlots);
             report.put("pendingSlots", pendingSlots);
@@ -62,32 +50,31 @@ public class ReportService extends BaseService {
         } catch (Exception e) {
             logger.error("Error generating department utilization report", e);
         }
+        recordReport("utilization", start);
         return report;
     }
 
-    // This method's logic is correct as it fetches all conflicts and then filters.
-    public Map<String, Object> generateConflictReport(SemesterType semester) {
+    public Map<String, Object> generateConflictReport(AcademicTerm term) {
+        long start = System.nanoTime();
         Map<String, Object> report = new HashMap<>();
         try {
-            List<Conflict> allConflicts = daoFactory.getConflictDAO().findAll();
-
-            List<Conflict> semesterConflicts = allConflicts.stream()
-                    .filter(c -> c.getTimetable1().getSemester() == semester || c.getTimetable2().getSemester() == semester)
-                    .collect(Collectors.toList());
+            List<Conflict> semesterConflicts = daoFactory.getConflictDAO().findByTerm(term);
 
-            report.put("semesterName", semester.toString());
+            report.put("semesterName", term.toString());
             report.put("totalConflicts", semesterConflicts.size());
             // ... (add more stats as needed)
 
-            logger.info("Generated conflict report for semester: {}", semester.toString());
+            logger.info("Generated conflict report for term: {}", term);
         } catch (Exception e) {
             logger.error("Error generating conflict report", e);
         }
+        recordReport("conflicts", start);
         return report;
     }
 
     // This method's logic is correct as it calls the updated findByLecturer method.
-    public Map<String, Object> generateLecturerWorkloadReport(Department department, SemesterType semester) {
+    public Map<String, Object> generateLecturerWorkloadReport(Department department, AcademicTerm term) {
+        long start = System.nanoTime();
         Map<String, Object> report = new HashMap<>();
         try {
             List<User> lecturers = daoFactory.getUserDAO().findLecturersByDepartment(department);
@@ -95,21 +82,22 @@ public class ReportService extends BaseService {
 
             for (User lecturer : lecturers) {
                 List<Timetable> lecturerTimetables = daoFactory.getTimetableDAO()
-                        .findByLecturer(lecturer, semester);
+                        .findByLecturer(lecturer, term);
                 lecturerWorkload.put(lecturer.getUsername(), lecturerTimetables.size());
             }
 
             report.put("departmentName", department.getName());
-            report.put("semesterName", semester.toString());
+            report.put("semesterName", term.toString());
             report.put("lecturerWorkloads", lecturerWorkload);
 
             logger.info("Generated lecturer workload report for department: {}", department.getName());
         } catch (Exception e) {
             logger.error("Error generating lecturer workload report", e);
         }
+        recordReport("lecturer-workload", start);
         return report;
     }
-    public void generateTimetablePdf(User student, List<Timetable> timetables) {
+    public void generateTimetablePdf(User student) {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save Timetable as PDF");
         fileChooser.setSelectedFile(new File(student.getUsername() + "_timetable.pdf"));
@@ -117,48 +105,11 @@ public class ReportService extends BaseService {
 
         if (fileChooser.showSaveDialog(null) == JFileChooser.APPROVE_OPTION) {
             File fileToSave = fileChooser.getSelectedFile();
-            try (PdfWriter writer = new PdfWriter(fileToSave.getAbsolutePath())) {
-                PdfDocument pdf = new PdfDocument(writer);
-                Document document = new Document(pdf);
-
-                // Add Title
-                document.add(new Paragraph("Timetable for " + student.getUsername())
-                        .setTextAlignment(TextAlignment.CENTER)
-                        .setFontSize(20)
-                        .setBold());
-
-                // Group and sort data
-                Map<DayOfWeek, List<Timetable>> groupedByDay = timetables.stream()
-                        .filter(t -> t.getDayOfWeek() != null)
-                        .collect(Collectors.groupingBy(Timetable::getDayOfWeek));
-                groupedByDay.values().forEach(list -> list.sort((t1, t2) -> t1.getStartTime().compareTo(t2.getStartTime())));
-
-                DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-
-                // Create table for each day
-                for (DayOfWeek day : DayOfWeek.values()) {
-                    if (day.getValue() > 5) continue; // Skip weekends
-                    List<Timetable> daySchedules = groupedByDay.get(day);
-
-                    if (daySchedules != null && !daySchedules.isEmpty()) {
-                        document.add(new Paragraph(day.toString()).setFontSize(14).setBold().setMarginTop(15));
-                        Table table = new Table(UnitValue.createPercentArray(new float[]{2, 5, 2, 2}));
-                        table.setWidth(UnitValue.createPercentValue(100));
-                        table.addHeaderCell("Time").setBold();
-                        table.addHeaderCell("Course").setBold();
-                        table.addHeaderCell("Room").setBold();
-                        table.addHeaderCell("Type").setBold();
-
-                        for (Timetable entry : daySchedules) {
-                            table.addCell(entry.getStartTime().format(timeFormatter) + " - " + entry.getEndTime().format(timeFormatter));
-                            table.addCell(entry.getCourse().getName() + " (" + entry.getCourse().getCode() + ")");
-                            table.addCell(entry.getRoom().getName());
-                            table.addCell(entry.getType().toString());
-                        }
-                        document.add(table);
-                    }
-                }
-                document.close();
+            long start = System.nanoTime();
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fileToSave))) {
+                // The cohort's rendered PDF, stamped with the student's name
+                pdfExporter.writeStudent(student, AcademicTerm.current(), out);
+                recordReport("student-pdf", start);
                 JOptionPane.showMessageDialog(null, "Timetable saved successfully as PDF.", "Export Successful", JOptionPane.INFORMATION_MESSAGE);
                 logger.info("Successfully generated PDF timetable for user {}", student.getUsername());
             } catch (Exception e) {
@@ -168,8 +119,22 @@ public class ReportService extends BaseService {
         }
     }
 
+    // Writes one PDF per cohort with approved slots in the term, e.g. for printing at semester start
+    public Map<CohortKey, Path> exportAllCohortPdfs(AcademicTerm term, Path directory) {
+        long start = System.nanoTime();
+        try {
+            return pdfExporter.exportAll(term, directory);
+        } catch (IOException e) {
+            logger.error("Error exporting cohort timetables to {}", directory, e);
+            throw new RuntimeException("Failed to export timetables: " + e.getMessage(), e);
+        } finally {
+            recordReport("cohort-pdf-export", start);
+        }
+    }
+
     // This method is also correct.
     public Map<String, Object> generateExamScheduleReport(Department department, LocalDate startDate, LocalDate endDate) {
+        long start = System.nanoTime();
         Map<String, Object> report = new HashMap<>();
         try {
             List<Timetable> exams = daoFactory.getTimetableDAO()
@@ -181,6 +146,11 @@ public class ReportService extends BaseService {
         } catch (Exception e) {
             logger.error("Error generating exam schedule report", e);
         }
+        recordReport("exams", start);
         return report;
     }
-}
\ No newline at end of file
+
+    private static void recordReport(String report, long startNanos) {
+        Metrics.timer("timeflow.report", "report", report).record(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,370 @@
+package org.timeflow.service;
+
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Conflict;
+import org.timeflow.entity.ConflictStatus;
+import org.timeflow.entity.ConflictType;
+import org.timeflow.entity.Room;
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.TimetableStatus;
+import org.timeflow.entity.User;
+import org.timeflow.util.Config;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Matches slots to rooms by size. A course's expected attendance is its enrollments, or its
+ * cohort's size while nobody is enrolled (see StudentClashIndex). Rooms are handed out best-fit
+ * decreasing: the largest classes choose first, each taking the smallest room that seats them
+ * and is free for the whole slot. A class no free room can seat gets the largest free room and
+ * keeps its CAPACITY_VIOLATION.
+ *
+ * Re-packing a term moves only slots students cannot see yet; approved slots keep their rooms.
+ * Weekly days do not share rooms' time, so each day is packed on its own worker.
+ */
+public class RoomAllocationService extends BaseService {
+    private static final Set<TimetableStatus> MOVABLE =
+            Set.of(TimetableStatus.DRAFT, TimetableStatus.PENDING_APPROVAL, TimetableStatus.CONFLICTED);
+
+    private final ConflictDetectionService conflictService;
+    private final StudentClashIndex clashIndex = StudentClashIndex.getInstance();
+    private final int packThreads = Config.getInt("ROOM_PACK_THREADS",
+            Math.max(1, Runtime.getRuntime().availableProcessors()));
+
+    public RoomAllocationService() {
+        this(new ConflictDetectionService());
+    }
+
+    public RoomAllocationService(ConflictDetectionService conflictService) {
+        super();
+        this.conflictService = conflictService;
+    }
+
+    public static class RepackResult {
+        private final int considered;
+        private final int moved;
+        private final int overCapacity;
+        private final int conflicts;
+
+        RepackResult(int considered, int moved, int overCapacity, int conflicts) {
+            this.considered = considered;
+            this.moved = moved;
+            this.overCapacity = overCapacity;
+            this.conflicts = conflicts;
+        }
+
+        // Slots that could be moved: weekly slots that are not approved
+        public int getConsidered() {
+            return considered;
+        }
+
+        public int getMoved() {
+            return moved;
+        }
+
+        // Slots left in a room smaller than their class, because no free room was big enough
+        public int getOverCapacity() {
+            return overCapacity;
+        }
+
+        public int getConflicts() {
+            return conflicts;
+        }
+    }
+
+    public int expectedStudents(Timetable slot) {
+        AcademicTerm term = slot.getTerm();
+        return term == null || slot.getCourse() == null ? 0 : clashIndex.expectedStudents(slot.getCourse(), term.academicYear());
+    }
+
+    // The best-fitting room free for the whole slot, or null when every room is taken then.
+    // The slot need not be saved yet
+    public Room suggestRoom(Timetable slot) {
+        AcademicTerm term = slot.getTerm();
+        if (term == null || slot.getDayOfWeek() == null || slot.getStartTime() == null || slot.getEndTime() == null) {
+            return null;
+        }
+        DayPlan plan = new DayPlan(daoFactory.getRoomDAO().findAll());
+        for (Timetable other : daoFactory.getTimetableDAO().findTerm(term)) {
+            if (other.getDayOfWeek() == slot.getDayOfWeek() && !Objects.equals(other.getId(), slot.getId())) {
+                plan.occupy(other);
+            }
+        }
+        return plan.choose(slot, expectedStudents(slot));
+    }
+
+    public RepackResult repackTerm(AcademicTerm term, User requestedBy) {
+        if (!AuthenticationService.canApproveTimetables(requestedBy)) {
+            throw new PermissionDeniedException("User does not have permission to re-pack rooms");
+        }
+        return timed("repack", () -> {
+            List<Timetable> slots = daoFactory.getTimetableDAO().findTerm(term);
+            List<Room> rooms = daoFactory.getRoomDAO().findAll();
+            // Read once up front so the day workers never wait on the index
+            Map<Long, Integer> expected = new HashMap<>();
+            Map<DayOfWeek, List<Timetable>> byDay = new EnumMap<>(DayOfWeek.class);
+            int considered = 0;
+            for (Timetable slot : slots) {
+                if (slot.getDayOfWeek() == null) {
+                    continue;
+                }
+                byDay.computeIfAbsent(slot.getDayOfWeek(), day -> new ArrayList<>()).add(slot);
+                if (MOVABLE.contains(slot.getStatus())) {
+                    considered++;
+                    expected.computeIfAbsent(slot.getCourse().getId(),
+                            id -> clashIndex.expectedStudents(slot.getCourse(), term.academicYear()));
+                }
+            }
+
+            Map<Long, Room> moves = new HashMap<>(packDays(byDay, rooms, expected));
+            Set<Long> movedIds = daoFactory.getTimetableDAO().moveRooms(slots, moves);
+            // Slots edited or approved since they were read kept their rooms; they are re-read so
+            // the layout checked below is the one written
+            List<Timetable> written = new ArrayList<>(slots.size());
+            int skipped = 0;
+            for (Timetable slot : slots) {
+                if (!moves.containsKey(slot.getId()) || movedIds.contains(slot.getId())) {
+                    written.add(slot);
+                    continue;
+                }
+                skipped++;
+                Timetable current = daoFactory.getTimetableDAO().findById(slot.getId());
+                if (current != null) {
+                    written.add(current);
+                }
+            }
+            moves.keySet().retainAll(movedIds);
+            int moved = movedIds.size();
+
+            int overCapacity = 0;
+            for (Timetable slot : written) {
+                Room room = moves.get(slot.getId());
+                if (room != null) {
+                    slot.setRoom(room);
+                }
+                Integer students = expected.get(slot.getCourse().getId());
+                if (MOVABLE.contains(slot.getStatus()) && slot.getDayOfWeek() != null && students != null
+                        && slot.getRoom() != null && slot.getRoom().getCapacity() > 0 && students > slot.getRoom().getCapacity()) {
+                    overCapacity++;
+                }
+            }
+            List<Conflict> conflicts = moves.isEmpty() ? List.of() : recheck(term, written, moves.keySet(), requestedBy);
+
+            logger.info("Room re-pack of {} by {}: {} slots considered, {} moved, {} skipped as changed since read, "
+                            + "{} still over capacity, {} conflicts",
+                    term, requestedBy.getUsername(), considered, moved, skipped, overCapacity, conflicts.size());
+            return new RepackResult(considered, moved, overCapacity, conflicts.size());
+        });
+    }
+
+    // Returns the slots to move, by id, with their new rooms
+    private Map<Long, Room> packDays(Map<DayOfWeek, List<Timetable>> byDay, List<Room> rooms, Map<Long, Integer> expected) {
+        if (byDay.isEmpty()) {
+            return Map.of();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(packThreads, byDay.size()), r -> {
+            Thread thread = new Thread(r, "room-pack-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Map<Long, Room>>> days = new ArrayList<>();
+            for (List<Timetable> daySlots : byDay.values()) {
+                days.add(pool.submit(() -> packDay(daySlots, rooms, expected)));
+            }
+            Map<Long, Room> moves = new HashMap<>();
+            for (Future<Map<Long, Room>> day : days) {
+                moves.putAll(day.get());
+            }
+            return moves;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while re-packing rooms", e);
+        } catch (ExecutionException e) {
+            logger.error("Error re-packing rooms: {}", e.getCause().getMessage(), e.getCause());
+            throw new RuntimeException("Failed to re-pack rooms", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Map<Long, Room> packDay(List<Timetable> daySlots, List<Room> rooms, Map<Long, Integer> expected) {
+        DayPlan plan = new DayPlan(rooms);
+        List<Timetable> movable = new ArrayList<>();
+        for (Timetable slot : daySlots) {
+            if (MOVABLE.contains(slot.getStatus())) {
+                movable.add(slot);
+            } else {
+                plan.occupy(slot);
+            }
+        }
+        movable.sort(Comparator.<Timetable>comparingInt(slot -> expected.get(slot.getCourse().getId())).reversed()
+                .thenComparing(Comparator.<Timetable, Duration>comparing(
+                        slot -> Duration.between(slot.getStartTime(), slot.getEndTime())).reversed())
+                .thenComparing(Timetable::getId));
+
+        Map<Long, Room> moves = new HashMap<>();
+        for (Timetable slot : movable) {
+            Room room = plan.choose(slot, expected.get(slot.getCourse().getId()));
+            if (room == null) {
+                // Every room is taken at that time; stay put and leave the room conflict to a person
+                plan.occupy(slot);
+                continue;
+            }
+            plan.occupy(room.getId(), slot.getStartTime(), slot.getEndTime());
+            if (slot.getRoom() == null || !room.getId().equals(slot.getRoom().getId())) {
+                moves.put(slot.getId(), room);
+            }
+        }
+        return moves;
+    }
+
+    // New rooms for the slots held in a room that is closing, chosen best-fit among the other
+    // rooms at the times they are free. Unlike a re-pack this moves approved slots too. Slots no
+    // other room is free for are left out of the result
+    Map<Long, Room> rehouse(Collection<Timetable> termSlots, Room closing) {
+        List<Room> rooms = new ArrayList<>(daoFactory.getRoomDAO().findAll());
+        rooms.removeIf(room -> room.getId().equals(closing.getId()));
+        Map<DayOfWeek, DayPlan> plans = new EnumMap<>(DayOfWeek.class);
+        List<Timetable> displaced = new ArrayList<>();
+        for (Timetable slot : termSlots) {
+            if (slot.getDayOfWeek() == null) {
+                continue;
+            }
+            if (slot.getRoom() != null && closing.getId().equals(slot.getRoom().getId())) {
+                displaced.add(slot);
+            } else {
+                plans.computeIfAbsent(slot.getDayOfWeek(), day -> new DayPlan(rooms)).occupy(slot);
+            }
+        }
+        Map<Long, Integer> expected = new HashMap<>();
+        for (Timetable slot : displaced) {
+            expected.put(slot.getId(), expectedStudents(slot));
+        }
+        // Largest classes first, as in a re-pack
+        displaced.sort(Comparator.<Timetable>comparingInt(slot -> expected.get(slot.getId())).reversed()
+                .thenComparing(Timetable::getId));
+
+        Map<Long, Room> moves = new HashMap<>();
+        for (Timetable slot : displaced) {
+            DayPlan plan = plans.computeIfAbsent(slot.getDayOfWeek(), day -> new DayPlan(rooms));
+            Room room = plan.choose(slot, expected.get(slot.getId()));
+            if (room != null) {
+                plan.occupy(room.getId(), slot.getStartTime(), slot.getEndTime());
+                moves.put(slot.getId(), room);
+            }
+        }
+        return moves;
+    }
+
+    // Records the conflicts the moved slots now have, and resolves the room and capacity
+    // conflicts the moves cleared
+    private List<Conflict> recheck(AcademicTerm term, List<Timetable> slots, Set<Long> movedIds, User requestedBy) {
+        List<Conflict> conflicts = conflictService.sweep(slots, movedIds);
+        Set<String> current = new HashSet<>();
+        Set<Long> conflicted = new HashSet<>();
+        for (Conflict conflict : conflicts) {
+            current.add(pairKey(conflict));
+            conflicted.add(conflict.getTimetable1().getId());
+            conflicted.add(conflict.getTimetable2().getId());
+        }
+        conflicted.retainAll(movedIds);
+
+        List<Long> cleared = new ArrayList<>();
+        for (Conflict existing : daoFactory.getConflictDAO().findByTerm(term)) {
+            boolean roomBound = existing.getType() == ConflictType.ROOM_CONFLICT || existing.getType() == ConflictType.CAPACITY_VIOLATION;
+            boolean involvesMoved = movedIds.contains(existing.getTimetable1().getId()) || movedIds.contains(existing.getTimetable2().getId());
+            if (existing.getStatus() == ConflictStatus.DETECTED && roomBound && involvesMoved && !current.contains(pairKey(existing))) {
+                cleared.add(existing.getId());
+            }
+        }
+        daoFactory.getConflictDAO().resolveAll(cleared, "Cleared by room re-pack", requestedBy);
+        conflictService.saveConflicts(conflicts);
+        daoFactory.getTimetableDAO().markConflicted(conflicted);
+        return conflicts;
+    }
+
+    private static String pairKey(Conflict conflict) {
+        long a = conflict.getTimetable1().getId();
+        long b = conflict.getTimetable2().getId();
+        return Math.min(a, b) + ":" + Math.max(a, b) + ":" + conflict.getType();
+    }
+
+    // The rooms of one weekday and the times they are taken
+    private static class DayPlan {
+        // Rooms with a known capacity, smallest first; rooms without one are never chosen
+        private final List<Room> rooms = new ArrayList<>();
+        private final Map<Long, List<LocalTime[]>> busy = new HashMap<>();
+
+        private DayPlan(List<Room> allRooms) {
+            for (Room room : allRooms) {
+                if (room.getCapacity() > 0) {
+                    rooms.add(room);
+                }
+            }
+            rooms.sort(Comparator.comparingInt(Room::getCapacity).thenComparing(Room::getId));
+        }
+
+        private void occupy(Timetable slot) {
+            if (slot.getRoom() != null) {
+                occupy(slot.getRoom().getId(), slot.getStartTime(), slot.getEndTime());
+            }
+        }
+
+        private void occupy(Long roomId, LocalTime start, LocalTime end) {
+            busy.computeIfAbsent(roomId, id -> new ArrayList<>()).add(new LocalTime[]{start, end});
+        }
+
+        private boolean isFree(Room room, LocalTime start, LocalTime end) {
+            for (LocalTime[] taken : busy.getOrDefault(room.getId(), List.of())) {
+                if (taken[0].isBefore(end) && taken[1].isAfter(start)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Smallest free room seating the class, preferring the slot's own room among equals;
+        // otherwise the largest free room; null when none is free
+        private Room choose(Timetable slot, int students) {
+            Long currentId = slot.getRoom() != null ? slot.getRoom().getId() : null;
+            Room best = null;
+            Room largest = null;
+            for (Room room : rooms) {
+                if (!isFree(room, slot.getStartTime(), slot.getEndTime())) {
+                    continue;
+                }
+                if (room.getCapacity() >= students) {
+                    if (best == null) {
+                        best = room;
+                    } else if (room.getCapacity() == best.getCapacity() && room.getId().equals(currentId)) {
+                        best = room;
+                    }
+                }
+                if (largest == null || room.getCapacity() > largest.getCapacity()
+                        || (room.getCapacity() == largest.getCapacity() && room.getId().equals(currentId))) {
+                    largest = room;
+                }
+            }
+            return best != null ? best : largest;
+        }
+    }
+}
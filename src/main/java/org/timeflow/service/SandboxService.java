@@ -0,0 +1,98 @@
+package org.timeflow.service;
+
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.User;
+import org.timeflow.util.Config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The open what-if sandboxes (see {@link ScheduleSandbox}), each private to the planner who
+ * opened it. Sandboxes hold a whole term in memory, so one left alone for SANDBOX_IDLE_MINUTES
+ * is dropped, and a planner can hold at most SANDBOX_MAX_PER_USER at a time.
+ */
+public class SandboxService extends BaseService {
+    private static final SandboxService INSTANCE = new SandboxService();
+
+    private final Map<String, ScheduleSandbox> sandboxes = new ConcurrentHashMap<>();
+    private final Duration maxIdle = Duration.ofMinutes(Config.getInt("SANDBOX_IDLE_MINUTES", 30));
+    private final int maxPerUser = Config.getInt("SANDBOX_MAX_PER_USER", 3);
+    private final ConflictDetectionService conflictService = new ConflictDetectionService();
+    private final RoomAllocationService roomAllocationService = new RoomAllocationService(conflictService);
+    private final TimetableService timetableService = new TimetableService();
+
+    private SandboxService() {
+        super();
+    }
+
+    public static SandboxService getInstance() {
+        return INSTANCE;
+    }
+
+    public ScheduleSandbox open(AcademicTerm term, User planner) {
+        if (!AuthenticationService.canApproveTimetables(planner)) {
+            throw new PermissionDeniedException("User does not have permission to plan timetable changes");
+        }
+        expireIdle();
+        long held = sandboxes.values().stream().filter(sandbox -> ownedBy(sandbox, planner)).count();
+        if (held >= maxPerUser) {
+            throw new InvalidStateException("At most " + maxPerUser + " sandboxes can be open at a time; discard one first");
+        }
+        return timed("openSandbox", () -> {
+            List<Timetable> slots = daoFactory.getTimetableDAO().findTerm(term);
+            ScheduleSandbox sandbox = new ScheduleSandbox(UUID.randomUUID().toString(), term, planner, slots,
+                    conflictService, roomAllocationService);
+            sandboxes.put(sandbox.getId(), sandbox);
+            logger.info("Sandbox {} opened by {} on {}: {} slots, {} conflicts",
+                    sandbox.getId(), planner.getUsername(), term, slots.size(), sandbox.conflictCount());
+            return sandbox;
+        });
+    }
+
+    // The planner's own sandbox, or null if there is none by that id
+    public ScheduleSandbox get(String id, User planner) {
+        expireIdle();
+        ScheduleSandbox sandbox = sandboxes.get(id);
+        return sandbox != null && ownedBy(sandbox, planner) ? sandbox : null;
+    }
+
+    public boolean discard(String id, User planner) {
+        ScheduleSandbox sandbox = get(id, planner);
+        return sandbox != null && sandboxes.remove(id, sandbox);
+    }
+
+    // Writes the sandbox's changes and closes it. A stale sandbox stays open so its diff can
+    // still be read before it is discarded
+    public ScheduleSandbox.Diff commit(String id, User planner) {
+        ScheduleSandbox sandbox = get(id, planner);
+        if (sandbox == null) {
+            throw new NotFoundException("Sandbox not found");
+        }
+        ScheduleSandbox.Diff diff = timetableService.commitSandbox(sandbox, planner);
+        sandboxes.remove(id, sandbox);
+        return diff;
+    }
+
+    private void expireIdle() {
+        Instant cutoff = Instant.now().minus(maxIdle);
+        sandboxes.values().removeIf(sandbox -> {
+            if (sandbox.getLastUsed().isBefore(cutoff)) {
+                logger.info("Sandbox {} of {} expired after {} idle minutes",
+                        sandbox.getId(), sandbox.getOwner().getUsername(), maxIdle.toMinutes());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static boolean ownedBy(ScheduleSandbox sandbox, User user) {
+        return Objects.equals(sandbox.getOwner().getId(), user.getId());
+    }
+}
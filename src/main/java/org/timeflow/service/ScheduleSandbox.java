@@ -0,0 +1,346 @@
+package org.timeflow.service;
+
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Conflict;
+import org.timeflow.entity.ConflictType;
+import org.timeflow.entity.Room;
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.User;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A what-if copy of one term's timetable. The term's slots and their conflicts are read once
+ * when the sandbox is opened and never written to; an edit copies the slot it touches into an
+ * overlay and re-checks only that slot against the others of its day, in memory, so trying
+ * out a change writes nothing and sends no email. {@link #diff()} compares the edited term with the one
+ * that was read, and {@link TimetableService#commitSandbox} writes the diff in one transaction.
+ *
+ * Conflicts are found as ConflictDetectionService.sweep finds them: borrowed course conflicts
+ * are left to the check each slot gets when it is edited outside the sandbox.
+ */
+public class ScheduleSandbox {
+    private final String id;
+    private final AcademicTerm term;
+    private final User owner;
+    private final ConflictDetectionService conflictService;
+    private final RoomAllocationService roomAllocationService;
+
+    private final Map<Long, Timetable> baseline = new LinkedHashMap<>();
+    private final Set<ConflictKey> baselineConflicts;
+
+    // Copies of the edited slots, and the slots taken out, by id
+    private final Map<Long, Timetable> edited = new HashMap<>();
+    private final Set<Long> removed = new HashSet<>();
+
+    // The conflicts of the term as edited, and for each slot the conflicts it is part of
+    private final Map<ConflictKey, Conflict> conflicts = new HashMap<>();
+    private final Map<Long, Set<ConflictKey>> conflictsBySlot = new HashMap<>();
+    private final Map<DayOfWeek, Set<Long>> slotsByDay = new EnumMap<>(DayOfWeek.class);
+
+    private volatile Instant lastUsed = Instant.now();
+
+    ScheduleSandbox(String id, AcademicTerm term, User owner, List<Timetable> termSlots,
+                    ConflictDetectionService conflictService, RoomAllocationService roomAllocationService) {
+        this.id = id;
+        this.term = term;
+        this.owner = owner;
+        this.conflictService = conflictService;
+        this.roomAllocationService = roomAllocationService;
+        for (Timetable slot : termSlots) {
+            baseline.put(slot.getId(), slot);
+            if (slot.getDayOfWeek() != null) {
+                slotsByDay.computeIfAbsent(slot.getDayOfWeek(), day -> new HashSet<>()).add(slot.getId());
+            }
+        }
+        for (Conflict conflict : conflictService.sweep(termSlots, baseline.keySet())) {
+            add(conflict);
+        }
+        this.baselineConflicts = Set.copyOf(conflicts.keySet());
+    }
+
+    // A conflict's identity across the baseline, the edited term and the database
+    record ConflictKey(long low, long high, ConflictType type) {
+        static ConflictKey of(Conflict conflict) {
+            long a = conflict.getTimetable1().getId();
+            long b = conflict.getTimetable2().getId();
+            return new ConflictKey(Math.min(a, b), Math.max(a, b), conflict.getType());
+        }
+
+        boolean involves(Set<Long> slotIds) {
+            return slotIds.contains(low) || slotIds.contains(high);
+        }
+    }
+
+    // One slot as read and as edited; after is null for a removed slot
+    public static class SlotChange {
+        private final Timetable before;
+        private final Timetable after;
+
+        SlotChange(Timetable before, Timetable after) {
+            this.before = before;
+            this.after = after;
+        }
+
+        public Timetable getBefore() {
+            return before;
+        }
+
+        public Timetable getAfter() {
+            return after;
+        }
+    }
+
+    public static class Diff {
+        private final List<SlotChange> changes;
+        private final List<Conflict> added;
+        private final List<Conflict> cleared;
+
+        Diff(List<SlotChange> changes, List<Conflict> added, List<Conflict> cleared) {
+            this.changes = changes;
+            this.added = added;
+            this.cleared = cleared;
+        }
+
+        public List<SlotChange> getChanges() {
+            return changes;
+        }
+
+        // Conflicts the edits would introduce
+        public List<Conflict> getAdded() {
+            return added;
+        }
+
+        // Conflicts of the term as read that the edits would clear
+        public List<Conflict> getCleared() {
+            return cleared;
+        }
+
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public AcademicTerm getTerm() {
+        return term;
+    }
+
+    public User getOwner() {
+        return owner;
+    }
+
+    Instant getLastUsed() {
+        return lastUsed;
+    }
+
+    // Moves a slot to another day, time or room; null arguments keep the slot's own
+    public synchronized Timetable move(Long slotId, DayOfWeek day, LocalTime startTime, LocalTime endTime, Room room) {
+        Timetable current = slot(slotId);
+        DayOfWeek newDay = day != null ? day : current.getDayOfWeek();
+        LocalTime newStart = startTime != null ? startTime : current.getStartTime();
+        LocalTime newEnd = endTime != null ? endTime : current.getEndTime();
+        if (newDay == null) {
+            throw new IllegalArgumentException("Field 'dayOfWeek' is required for a slot without a weekday");
+        }
+        if (!newStart.isBefore(newEnd)) {
+            throw new IllegalArgumentException("Start time must be before end time");
+        }
+        Timetable slot = editable(slotId);
+        if (slot.getDayOfWeek() != null) {
+            slotsByDay.get(slot.getDayOfWeek()).remove(slotId);
+        }
+        slot.setDayOfWeek(newDay);
+        slot.setStartTime(newStart);
+        slot.setEndTime(newEnd);
+        if (room != null) {
+            slot.setRoom(room);
+        }
+        slotsByDay.computeIfAbsent(newDay, key -> new HashSet<>()).add(slotId);
+        recheck(slot);
+        return slot;
+    }
+
+    public synchronized void remove(Long slotId) {
+        Timetable slot = slot(slotId);
+        removed.add(slotId);
+        edited.remove(slotId);
+        if (slot.getDayOfWeek() != null) {
+            slotsByDay.get(slot.getDayOfWeek()).remove(slotId);
+        }
+        clearConflicts(slotId);
+        touch();
+    }
+
+    // Takes a room out of use: each of its slots moves to the best-fitting other room free at
+    // its time, approved slots included. Returns the slots no other room is free for, which stay
+    // where they are
+    public synchronized List<Timetable> closeRoom(Room room) {
+        Map<Long, Room> moves = roomAllocationService.rehouse(currentSlots(), room);
+        List<Timetable> stranded = new ArrayList<>();
+        for (Timetable slot : currentSlots()) {
+            if (slot.getRoom() == null || !room.getId().equals(slot.getRoom().getId()) || slot.getDayOfWeek() == null) {
+                continue;
+            }
+            Room target = moves.get(slot.getId());
+            if (target == null) {
+                stranded.add(slot);
+                continue;
+            }
+            Timetable copy = editable(slot.getId());
+            copy.setRoom(target);
+            recheck(copy);
+        }
+        touch();
+        return stranded;
+    }
+
+    public synchronized Diff diff() {
+        touch();
+        List<SlotChange> changes = new ArrayList<>();
+        for (Timetable before : baseline.values()) {
+            if (removed.contains(before.getId())) {
+                changes.add(new SlotChange(before, null));
+            } else if (edited.containsKey(before.getId()) && !sameSlot(before, edited.get(before.getId()))) {
+                changes.add(new SlotChange(before, edited.get(before.getId())));
+            }
+        }
+        List<Conflict> added = new ArrayList<>();
+        for (Map.Entry<ConflictKey, Conflict> entry : conflicts.entrySet()) {
+            if (!baselineConflicts.contains(entry.getKey())) {
+                added.add(entry.getValue());
+            }
+        }
+        List<Conflict> cleared = new ArrayList<>();
+        for (ConflictKey key : baselineConflicts) {
+            if (!conflicts.containsKey(key)) {
+                cleared.add(new Conflict(baseline.get(key.low()), baseline.get(key.high()), key.type()));
+            }
+        }
+        return new Diff(changes, added, cleared);
+    }
+
+    // Whether the slot, as edited, is part of any conflict
+    synchronized boolean hasConflicts(Long slotId) {
+        Set<ConflictKey> keys = conflictsBySlot.get(slotId);
+        return keys != null && !keys.isEmpty();
+    }
+
+    public synchronized List<Conflict> conflictsOf(Long slotId) {
+        return conflictsBySlot.getOrDefault(slotId, Set.of()).stream()
+                .map(conflicts::get)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized int conflictCount() {
+        return conflicts.size();
+    }
+
+    private Timetable slot(Long slotId) {
+        if (removed.contains(slotId) || !baseline.containsKey(slotId)) {
+            throw new NotFoundException("Timetable " + slotId + " not found in the sandbox");
+        }
+        return edited.getOrDefault(slotId, baseline.get(slotId));
+    }
+
+    // The slot's copy, made on its first edit; the baseline copy is never changed
+    private Timetable editable(Long slotId) {
+        Timetable slot = slot(slotId);
+        return edited.computeIfAbsent(slotId, id -> copyOf(slot));
+    }
+
+    private List<Timetable> currentSlots() {
+        List<Timetable> slots = new ArrayList<>();
+        for (Long slotId : baseline.keySet()) {
+            if (!removed.contains(slotId)) {
+                slots.add(slot(slotId));
+            }
+        }
+        return slots;
+    }
+
+    // Drops the slot's conflicts and finds them again against the slots of its new day
+    private void recheck(Timetable slot) {
+        clearConflicts(slot.getId());
+        List<Timetable> sameDay = new ArrayList<>();
+        for (Long otherId : slotsByDay.getOrDefault(slot.getDayOfWeek(), Set.of())) {
+            sameDay.add(slot(otherId));
+        }
+        for (Conflict conflict : conflictService.detectAgainst(slot, sameDay)) {
+            add(conflict);
+        }
+        touch();
+    }
+
+    private void add(Conflict conflict) {
+        ConflictKey key = ConflictKey.of(conflict);
+        conflicts.putIfAbsent(key, conflict);
+        conflictsBySlot.computeIfAbsent(key.low(), slotId -> new HashSet<>()).add(key);
+        conflictsBySlot.computeIfAbsent(key.high(), slotId -> new HashSet<>()).add(key);
+    }
+
+    private void clearConflicts(Long slotId) {
+        Set<ConflictKey> keys = conflictsBySlot.remove(slotId);
+        if (keys == null) {
+            return;
+        }
+        for (ConflictKey key : keys) {
+            conflicts.remove(key);
+            long other = key.low() == slotId ? key.high() : key.low();
+            Set<ConflictKey> otherKeys = conflictsBySlot.get(other);
+            if (otherKeys != null) {
+                otherKeys.remove(key);
+            }
+        }
+    }
+
+    private void touch() {
+        lastUsed = Instant.now();
+    }
+
+    private static boolean sameSlot(Timetable a, Timetable b) {
+        return a.getDayOfWeek() == b.getDayOfWeek()
+                && a.getStartTime().equals(b.getStartTime())
+                && a.getEndTime().equals(b.getEndTime())
+                && Objects.equals(roomId(a), roomId(b));
+    }
+
+    private static Long roomId(Timetable slot) {
+        return slot.getRoom() != null ? slot.getRoom().getId() : null;
+    }
+
+    static Timetable copyOf(Timetable slot) {
+        Timetable copy = new Timetable();
+        copy.setId(slot.getId());
+        copy.setVersion(slot.getVersion());
+        copy.setCourse(slot.getCourse());
+        copy.setDayOfWeek(slot.getDayOfWeek());
+        copy.setStartTime(slot.getStartTime());
+        copy.setEndTime(slot.getEndTime());
+        copy.setRoom(slot.getRoom());
+        copy.setType(slot.getType());
+        copy.setStatus(slot.getStatus());
+        copy.setTerm(slot.getTerm());
+        copy.setCreatedAt(slot.getCreatedAt());
+        copy.setApprovedAt(slot.getApprovedAt());
+        copy.setApprovedBy(slot.getApprovedBy());
+        copy.setSpecificDate(slot.getSpecificDate());
+        copy.setDescription(slot.getDescription());
+        return copy;
+    }
+}
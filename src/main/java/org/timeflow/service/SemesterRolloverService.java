@@ -0,0 +1,114 @@
+package org.timeflow.service;
+
+import org.timeflow.dao.TimetableDAO;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Conflict;
+import org.timeflow.entity.SemesterType;
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.User;
+import org.timeflow.entity.UserRole;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a new term from the same semester of an earlier year. The approved weekly slots are
+ * copied as DRAFT slots in one set-based statement (see TimetableDAO.copyTerm), then one
+ * in-memory sweep over the target term finds the conflicts the copies introduce. Conflicted
+ * copies are flagged; the rest can be reviewed and bulk-approved from the approval dashboard.
+ * Admins roll over every department; exams officers only their own.
+ */
+public class SemesterRolloverService extends BaseService {
+    private final ConflictDetectionService conflictService;
+
+    public SemesterRolloverService() {
+        this(new ConflictDetectionService());
+    }
+
+    public SemesterRolloverService(ConflictDetectionService conflictService) {
+        super();
+        this.conflictService = conflictService;
+    }
+
+    public static class RolloverResult {
+        private final int copied;
+        private final int conflicts;
+        private final int conflictedSlots;
+
+        RolloverResult(int copied, int conflicts, int conflictedSlots) {
+            this.copied = copied;
+            this.conflicts = conflicts;
+            this.conflictedSlots = conflictedSlots;
+        }
+
+        public int getCopied() {
+            return copied;
+        }
+
+        public int getConflicts() {
+            return conflicts;
+        }
+
+        public int getConflictedSlots() {
+            return conflictedSlots;
+        }
+    }
+
+    // roomReplacements and lecturerReassignments map old ids to new ones
+    public RolloverResult rollover(SemesterType semester, int fromYear, int toYear,
+                                   Map<Long, Long> roomReplacements, Map<Long, Long> lecturerReassignments,
+                                   User requestedBy) {
+        if (!AuthenticationService.canApproveTimetables(requestedBy)) {
+            throw new PermissionDeniedException("User does not have permission to roll over terms");
+        }
+        // Admins roll over the whole campus; an exams officer only their own department's courses
+        if (requestedBy.getRole() != UserRole.ADMIN && requestedBy.getDepartment() == null) {
+            throw new PermissionDeniedException("Exams officer has no department to roll over");
+        }
+        Long scope = requestedBy.getRole() == UserRole.ADMIN ? null : requestedBy.getDepartment().getId();
+        if (fromYear == toYear) {
+            throw new IllegalArgumentException("Source and target year must differ");
+        }
+        return timed("rollover", () -> {
+            daoFactory.getTimetableDAO().ensureTermPartitions(toYear);
+            // A course has one lecturer for every term, so a reassignment is refused for courses
+            // still running or planned in another term; those are reassigned on the course itself
+            TimetableDAO.CopyResult result = daoFactory.getTimetableDAO().copyTerm(semester, fromYear, toYear,
+                    scope, roomReplacements, lecturerReassignments, SemesterType.currentAcademicYear(),
+                    LocalDateTime.now());
+            if (!result.getRefusedCourses().isEmpty()) {
+                throw new InvalidStateException("Lecturer reassignments would also change who teaches "
+                        + String.join(", ", result.getRefusedCourses()) + " in other terms; reassign those courses directly");
+            }
+            List<Long> copied = result.getCopied();
+            if (copied.isEmpty()) {
+                logger.info("Rollover of {} {} to {} by {}: nothing to copy",
+                        semester, fromYear, toYear, requestedBy.getUsername());
+                return new RolloverResult(0, 0, 0);
+            }
+
+            List<Timetable> term = daoFactory.getTimetableDAO().findTerm(new AcademicTerm(toYear, semester));
+            Set<Long> copiedIds = new HashSet<>(copied);
+            List<Conflict> conflicts = conflictService.sweep(term, copiedIds);
+            Set<Long> conflicted = new HashSet<>();
+            for (Conflict conflict : conflicts) {
+                for (Timetable slot : List.of(conflict.getTimetable1(), conflict.getTimetable2())) {
+                    if (copiedIds.contains(slot.getId())) {
+                        conflicted.add(slot.getId());
+                    }
+                }
+            }
+            // The copies are new, so none of these conflicts can already be on record
+            daoFactory.getConflictDAO().saveAll(conflicts);
+            daoFactory.getTimetableDAO().markConflicted(conflicted);
+
+            logger.info("Rollover of {} {} to {} by {} ({}): {} slots copied, {} conflicts on {} of them",
+                    semester, fromYear, toYear, requestedBy.getUsername(), scope == null ? "all departments" : "department " + scope,
+                    copied.size(), conflicts.size(), conflicted.size());
+            return new RolloverResult(copied.size(), conflicts.size(), conflicted.size());
+        });
+    }
+}
@@ -0,0 +1,181 @@
+package org.timeflow.service;
+
+import org.timeflow.entity.Course;
+import org.timeflow.entity.ReferenceDataVersion;
+import org.timeflow.metrics.Metrics;
+import org.timeflow.util.Config;
+import org.timeflow.util.IdBitmap;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The students enrolled in each course, one {@link IdBitmap} of student ids per course and
+ * academic year. "How many students clash if these two courses overlap" is then an
+ * intersection of two bitmaps in memory rather than a join over the enrollments table.
+ * The same bitmaps give each course's expected attendance for room allocation.
+ *
+ * A year's bitmaps are built from one streamed query on first use. Enrollments and withdrawals
+ * made by this process replace only their course's bitmap ({@link #courseChanged}); the year
+ * is rebuilt when its enrollments version in {@link ReferenceDataCache} moves past what the
+ * index reflects, i.e. after another client's write, or after ENROLLMENT_INDEX_TTL_MINUTES.
+ */
+public class StudentClashIndex extends BaseService {
+    private static final StudentClashIndex INSTANCE = new StudentClashIndex();
+
+    private final Map<Integer, YearIndex> years = new ConcurrentHashMap<>();
+    private final Duration maxAge = Duration.ofMinutes(Config.getInt("ENROLLMENT_INDEX_TTL_MINUTES", 60));
+
+    private StudentClashIndex() {
+        super();
+    }
+
+    public static StudentClashIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // Students enrolled in both courses in the academic year
+    public int sharedStudents(Course first, Course second, int academicYear) {
+        if (first == null || second == null || first.getId() == null || second.getId() == null) {
+            return 0;
+        }
+        Map<Long, IdBitmap> byCourse = year(academicYear).byCourse;
+        IdBitmap a = byCourse.get(first.getId());
+        IdBitmap b = byCourse.get(second.getId());
+        return a == null || b == null ? 0 : a.andCardinality(b);
+    }
+
+    // Courses with at least one student in common with this one in the academic year, itself excluded
+    public Set<Long> coursesSharingStudents(Course course, int academicYear) {
+        Map<Long, IdBitmap> byCourse = year(academicYear).byCourse;
+        IdBitmap students = course.getId() != null ? byCourse.get(course.getId()) : null;
+        if (students == null) {
+            return Set.of();
+        }
+        Set<Long> sharing = new HashSet<>();
+        for (Map.Entry<Long, IdBitmap> other : byCourse.entrySet()) {
+            if (!other.getKey().equals(course.getId()) && students.intersects(other.getValue())) {
+                sharing.add(other.getKey());
+            }
+        }
+        return sharing;
+    }
+
+    // Students expected in the course's rooms: its enrollments, or the size of its department
+    // and level's cohort while nobody is enrolled in it yet
+    public int expectedStudents(Course course, int academicYear) {
+        YearIndex index = year(academicYear);
+        IdBitmap students = course.getId() != null ? index.byCourse.get(course.getId()) : null;
+        if (students != null) {
+            return students.cardinality();
+        }
+        if (course.getDepartment() == null) {
+            return 0;
+        }
+        return index.cohortSizes.getOrDefault(cohortKey(course.getDepartment().getId(), course.getLevel()), 0);
+    }
+
+    // Applies an enrollment or withdrawal this process committed, as the year's version after
+    // the write, by reloading the course's students. Writes may be applied out of order; the
+    // index counts as reflecting a version once every version up to it was applied here
+    public void courseChanged(Long courseId, int academicYear, long version) {
+        if (courseId == null || version <= 0) {
+            return;
+        }
+        years.computeIfPresent(academicYear, (key, index) -> {
+            if (version <= index.version || index.ahead.contains(version)) {
+                return index;
+            }
+            IdBitmap students = new IdBitmap();
+            for (Long studentId : daoFactory.getEnrollmentDAO().findStudentIds(courseId, key)) {
+                students.add(studentId);
+            }
+            // Readers hold the old maps, so the change goes into copies
+            Map<Long, IdBitmap> byCourse = new HashMap<>(index.byCourse);
+            if (students.isEmpty()) {
+                byCourse.remove(courseId);
+            } else {
+                byCourse.put(courseId, students);
+            }
+            NavigableSet<Long> ahead = new TreeSet<>(index.ahead);
+            ahead.add(version);
+            long reflected = index.version;
+            while (ahead.remove(reflected + 1)) {
+                reflected++;
+            }
+            return new YearIndex(reflected, ahead, byCourse, index.cohortSizes, index.loadedAt);
+        });
+    }
+
+    public void clearCache() {
+        years.clear();
+    }
+
+    private YearIndex year(int academicYear) {
+        long version = ReferenceDataCache.getInstance().getVersion(ReferenceDataVersion.enrollments(academicYear));
+        YearIndex index = years.get(academicYear);
+        if (isFresh(index, version)) {
+            return index;
+        }
+        // One load per year however many conflict checks are waiting for it
+        return years.compute(academicYear, (key, existing) -> isFresh(existing, version) ? existing : load(key, version));
+    }
+
+    private boolean isFresh(YearIndex index, long version) {
+        return index != null && index.version >= version && index.loadedAt.plus(maxAge).isAfter(Instant.now());
+    }
+
+    private YearIndex load(int academicYear, long version) {
+        long start = System.nanoTime();
+        Map<Long, IdBitmap> byCourse = new HashMap<>();
+        // Rows come ordered by course, so the current bitmap is looked up once per course
+        IdBitmap[] current = new IdBitmap[1];
+        Long[] currentCourse = new Long[1];
+        long rows = daoFactory.getEnrollmentDAO().forEachCourseStudent(academicYear, (courseId, studentId) -> {
+            if (!courseId.equals(currentCourse[0])) {
+                currentCourse[0] = courseId;
+                current[0] = byCourse.computeIfAbsent(courseId, id -> new IdBitmap());
+            }
+            current[0].add(studentId);
+        });
+        Map<String, Integer> cohortSizes = new HashMap<>();
+        for (Object[] row : daoFactory.getUserDAO().countActiveStudentsByCohort()) {
+            cohortSizes.put(cohortKey((Long) row[0], (Integer) row[1]), ((Long) row[2]).intValue());
+        }
+        long elapsed = System.nanoTime() - start;
+        Metrics.timer("timeflow.conflicts.index").record(elapsed);
+        logger.info("Built student clash index for {}: {} enrollments in {} courses in {} ms",
+                academicYear, rows, byCourse.size(), elapsed / 1_000_000);
+        return new YearIndex(version, new TreeSet<>(), byCourse, cohortSizes, Instant.now());
+    }
+
+    private static String cohortKey(Long departmentId, int level) {
+        return departmentId + ":" + level;
+    }
+
+    private static class YearIndex {
+        // Every write up to this version is reflected
+        private final long version;
+        // Later versions applied by courseChanged while an earlier one is still missing
+        private final NavigableSet<Long> ahead;
+        private final Map<Long, IdBitmap> byCourse;
+        private final Map<String, Integer> cohortSizes;
+        private final Instant loadedAt;
+
+        private YearIndex(long version, NavigableSet<Long> ahead, Map<Long, IdBitmap> byCourse,
+                          Map<String, Integer> cohortSizes, Instant loadedAt) {
+            this.version = version;
+            this.ahead = ahead;
+            this.byCourse = byCourse;
+            this.cohortSizes = cohortSizes;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.timeflow.service;
+
+import org.timeflow.auth.PasswordHasher;
+import org.timeflow.dao.UserDAO;
+import org.timeflow.entity.Department;
+import org.timeflow.entity.SemesterType;
+import org.timeflow.entity.User;
+import org.timeflow.entity.UserRole;
+import org.timeflow.util.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports a whole intake of students at once. Rows are validated and checked for taken
+ * usernames and emails with one set query per chunk, passwords are hashed in parallel on a
+ * bounded pool before any transaction is opened, and the accounts are inserted with
+ * {@link UserDAO#saveAll}. Rows that cannot be imported are reported, not fatal. The new
+ * students are then enrolled in their department and level's courses for the academic year.
+ */
+public class StudentProvisioningService extends BaseService {
+    // Values per IN list in the uniqueness query
+    private static final int LOOKUP_CHUNK = 1000;
+
+    private final PasswordHasher passwordHasher = PasswordHasher.getInstance();
+    private final int hashThreads = Config.getInt("PROVISIONING_HASH_THREADS",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+    public record StudentRow(String username, String email, String password) {
+    }
+
+    public static class Result {
+        private final List<User> created;
+        private final List<String> rejected;
+
+        Result(List<User> created, List<String> rejected) {
+            this.created = created;
+            this.rejected = rejected;
+        }
+
+        public List<User> getCreated() {
+            return created;
+        }
+
+        // One message per row that was skipped, naming the row and the reason
+        public List<String> getRejected() {
+            return rejected;
+        }
+    }
+
+    public Result provisionStudents(List<StudentRow> rows, Department department, int level) {
+        List<String> rejected = new ArrayList<>();
+        List<StudentRow> accepted = validate(rows, rejected);
+        accepted = withoutExistingAccounts(accepted, rejected);
+        if (accepted.isEmpty()) {
+            logger.info("Student import into {}: nothing to create, {} rows rejected",
+                    department.getCode(), rejected.size());
+            return new Result(List.of(), rejected);
+        }
+
+        long start = System.nanoTime();
+        List<String> hashes = hashPasswords(accepted);
+        long hashed = System.nanoTime();
+
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            StudentRow row = accepted.get(i);
+            User user = new User(row.username(), row.email(), hashes.get(i), UserRole.STUDENT, department);
+            user.setLevel(level);
+            users.add(user);
+        }
+        List<User> created = daoFactory.getUserDAO().saveAll(users);
+        enrollCohort(department, level);
+        logger.info("Student import into {}: {} created, {} rejected (hashing {} ms on {} threads, insert {} ms)",
+                department.getCode(), created.size(), rejected.size(), (hashed - start) / 1_000_000,
+                hashThreads, (System.nanoTime() - hashed) / 1_000_000);
+        return new Result(created, rejected);
+    }
+
+    // The accounts are in either way; a cohort left unenrolled can be enrolled again by the next import
+    private void enrollCohort(Department department, int level) {
+        int year = SemesterType.currentAcademicYear();
+        try {
+            int enrolled = daoFactory.getEnrollmentDAO().enrollCohort(department, level, year);
+            logger.info("Enrolled {} level {} in {} course places for {}", department.getCode(), level, enrolled, year);
+        } catch (Exception e) {
+            logger.error("Error enrolling imported students of {} level {}", department.getCode(), level, e);
+        }
+    }
+
+    // Drops rows with missing fields and repeats within the import itself
+    private List<StudentRow> validate(List<StudentRow> rows, List<String> rejected) {
+        List<StudentRow> valid = new ArrayList<>(rows.size());
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            StudentRow row = rows.get(i);
+            String label = "Row " + (i + 1);
+            if (row.username() == null || row.username().isBlank()) {
+                rejected.add(label + ": username is required");
+            } else if (row.email() == null || !row.email().contains("@")) {
+                rejected.add(label + " (" + row.username() + "): a valid email is required");
+            } else if (row.password() == null || row.password().isBlank()) {
+                rejected.add(label + " (" + row.username() + "): password is required");
+            } else if (!usernames.add(row.username())) {
+                rejected.add(label + " (" + row.username() + "): username appears more than once in the import");
+            } else if (!emails.add(row.email().toLowerCase(Locale.ROOT))) {
+                rejected.add(label + " (" + row.username() + "): email appears more than once in the import");
+            } else {
+                valid.add(row);
+            }
+        }
+        return valid;
+    }
+
+    private List<StudentRow> withoutExistingAccounts(List<StudentRow> rows, List<String> rejected) {
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        UserDAO userDAO = daoFactory.getUserDAO();
+        for (int from = 0; from < rows.size(); from += LOOKUP_CHUNK) {
+            List<StudentRow> chunk = rows.subList(from, Math.min(rows.size(), from + LOOKUP_CHUNK));
+            List<String> usernames = new ArrayList<>(chunk.size());
+            List<String> emails = new ArrayList<>(chunk.size());
+            for (StudentRow row : chunk) {
+                usernames.add(row.username());
+                emails.add(row.email().toLowerCase(Locale.ROOT));
+            }
+            for (User existing : userDAO.findByUsernamesOrEmails(usernames, emails)) {
+                takenUsernames.add(existing.getUsername());
+                takenEmails.add(existing.getEmail().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        List<StudentRow> available = new ArrayList<>(rows.size());
+        for (StudentRow row : rows) {
+            if (takenUsernames.contains(row.username())) {
+                rejected.add(row.username() + ": username already exists");
+            } else if (takenEmails.contains(row.email().toLowerCase(Locale.ROOT))) {
+                rejected.add(row.username() + ": email already exists");
+            } else {
+                available.add(row);
+            }
+        }
+        return available;
+    }
+
+    // BCrypt is the bulk of an import's cost, so it runs in parallel and before the insert
+    // transaction opens; the pool lives only for the import and is bounded so a large intake
+    // cannot starve sign-ins of CPU
+    private List<String> hashPasswords(List<StudentRow> rows) {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(hashThreads, rows.size()), r -> {
+            Thread thread = new Thread(r, "provisioning-bcrypt-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<String>> futures = new ArrayList<>(rows.size());
+            for (StudentRow row : rows) {
+                futures.add(pool.submit(() -> passwordHasher.encode(row.password())));
+            }
+            List<String> hashes = new ArrayList<>(rows.size());
+            for (Future<String> future : futures) {
+                hashes.add(future.get());
+            }
+            return hashes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while hashing student passwords", e);
+        } catch (ExecutionException e) {
+            logger.error("Error hashing student passwords: {}", e.getCause().getMessage(), e.getCause());
+            throw new RuntimeException("Failed to hash student passwords", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
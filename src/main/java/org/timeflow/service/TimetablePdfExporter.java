@@ -0,0 +1,255 @@
+package org.timeflow.service;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Department;
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.User;
+import org.timeflow.util.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless timetable PDF rendering. A cohort's PDF is rendered once and reused until
+ * {@link CohortVersions} reports a change to that cohort; bulk export renders every cohort
+ * of a term in parallel from a single query.
+ */
+public class TimetablePdfExporter extends BaseService {
+    private static final TimetablePdfExporter INSTANCE = new TimetablePdfExporter();
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final float[] COLUMN_WIDTHS = {2, 5, 2, 2};
+
+    private final Map<CohortKey, RenderedPdf> cache = new ConcurrentHashMap<>();
+    private final CohortVersions cohortVersions = CohortVersions.getInstance();
+    private final CohortTimetableCache cohortCache = CohortTimetableCache.getInstance();
+    // Safety net for changes made by other processes, which never reach this event bus
+    private final Duration maxAge = Duration.ofMinutes(Config.getInt("REPORT_CACHE_TTL_MINUTES", 15));
+
+    private TimetablePdfExporter() {
+        super();
+    }
+
+    public static TimetablePdfExporter getInstance() {
+        return INSTANCE;
+    }
+
+    public void writeCohort(Department department, int level, AcademicTerm term, OutputStream out) throws IOException {
+        out.write(renderCohort(department, level, term));
+    }
+
+    // A student's copy: the cohort's cached PDF with the student named in the top margin of
+    // every page, which costs a re-write of the PDF rather than a new render
+    public void writeStudent(User student, AcademicTerm term, OutputStream out) throws IOException {
+        byte[] cohort = renderCohort(student.getDepartment(), student.getLevel(), term);
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(cohort)), writer)) {
+            Paragraph header = new Paragraph("Timetable of " + student.getUsername()).setFontSize(10);
+            for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+                PdfPage page = pdf.getPage(i);
+                Rectangle area = page.getPageSize();
+                try (Canvas canvas = new Canvas(new PdfCanvas(page), area)) {
+                    canvas.showTextAligned(header, area.getRight() - 36, area.getTop() - 24, TextAlignment.RIGHT);
+                }
+            }
+        }
+    }
+
+    public byte[] renderCohort(Department department, int level, AcademicTerm term) {
+        CohortKey cohort = new CohortKey(department.getId(), level, term);
+        RenderedPdf cached = cached(cohort);
+        if (cached != null) {
+            return cached.bytes;
+        }
+        // Read the version before the data so a change racing the render leaves the entry stale
+        long version = cohortVersions.current(cohort);
+        List<Timetable> timetables = cohortCache.getApprovedTimetables(department, level, term);
+        return store(cohort, version, render(title(department, level, term), timetables));
+    }
+
+    /**
+     * Renders every cohort with approved slots in the given term and writes one PDF per
+     * cohort into the directory. Returns the written files keyed by cohort.
+     */
+    public Map<CohortKey, Path> exportAll(AcademicTerm term, Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        // As in renderCohort, the versions are read before the data, so a change committed
+        // while the term loads leaves that cohort's PDF stale rather than cached as fresh
+        Map<CohortKey, Long> versions = cohortVersions.snapshot(term);
+        Map<CohortKey, List<Timetable>> byCohort = new LinkedHashMap<>();
+        for (Timetable timetable : daoFactory.getTimetableDAO().findApprovedByTerm(term)) {
+            CohortKey cohort = CohortKey.of(timetable);
+            byCohort.computeIfAbsent(cohort, key -> new ArrayList<>()).add(timetable);
+        }
+        if (byCohort.isEmpty()) {
+            return Map.of();
+        }
+
+        int threads = Math.min(byCohort.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "pdf-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<CohortKey, Future<Path>> pending = new LinkedHashMap<>();
+            for (Map.Entry<CohortKey, List<Timetable>> entry : byCohort.entrySet()) {
+                CohortKey cohort = entry.getKey();
+                List<Timetable> timetables = entry.getValue();
+                pending.put(cohort, pool.submit(() -> {
+                    RenderedPdf cached = cached(cohort);
+                    byte[] bytes;
+                    if (cached != null) {
+                        bytes = cached.bytes;
+                    } else {
+                        Department department = timetables.get(0).getCourse().getDepartment();
+                        bytes = store(cohort, versions.getOrDefault(cohort, 0L),
+                                render(title(department, cohort.level(), term), timetables));
+                    }
+                    Path file = directory.resolve(fileName(timetables.get(0).getCourse().getDepartment(), cohort));
+                    Files.write(file, bytes);
+                    return file;
+                }));
+            }
+
+            Map<CohortKey, Path> written = new LinkedHashMap<>();
+            for (Map.Entry<CohortKey, Future<Path>> entry : pending.entrySet()) {
+                written.put(entry.getKey(), entry.getValue().get());
+            }
+            logger.info("Exported {} cohort timetables for {} to {}", written.size(), term, directory);
+            return written;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new RuntimeException("Failed to export timetables", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Timetable export interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public byte[] render(String title, List<Timetable> timetables) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 * 1024);
+        render(title, timetables, buffer);
+        return buffer.toByteArray();
+    }
+
+    // Streams a timetable PDF to the given stream, which is left open
+    public void render(String title, List<Timetable> timetables, OutputStream out) {
+        // Single pass: the DAO already orders by day and start time
+        Map<DayOfWeek, List<Timetable>> byDay = new EnumMap<>(DayOfWeek.class);
+        for (Timetable timetable : timetables) {
+            if (timetable.getDayOfWeek() != null) {
+                byDay.computeIfAbsent(timetable.getDayOfWeek(), day -> new ArrayList<>()).add(timetable);
+            }
+        }
+
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        try (Document document = new Document(new PdfDocument(writer))) {
+            document.add(new Paragraph(title)
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setFontSize(20)
+                    .setBold());
+
+            for (Map.Entry<DayOfWeek, List<Timetable>> entry : byDay.entrySet()) {
+                if (entry.getKey().getValue() > 5) continue; // Skip weekends
+                List<Timetable> daySchedules = entry.getValue();
+                daySchedules.sort(Comparator.comparing(Timetable::getStartTime));
+
+                document.add(new Paragraph(entry.getKey().toString()).setFontSize(14).setBold().setMarginTop(15));
+                Table table = new Table(UnitValue.createPercentArray(COLUMN_WIDTHS));
+                table.setWidth(UnitValue.createPercentValue(100));
+                for (String header : new String[]{"Time", "Course", "Room", "Type"}) {
+                    table.addHeaderCell(new Cell().add(new Paragraph(header).setBold()));
+                }
+                for (Timetable slot : daySchedules) {
+                    table.addCell(slot.getStartTime().format(TIME_FORMAT) + " - " + slot.getEndTime().format(TIME_FORMAT));
+                    table.addCell(slot.getCourse().getName() + " (" + slot.getCourse().getCode() + ")");
+                    table.addCell(slot.getRoom() != null ? slot.getRoom().getName() : "");
+                    table.addCell(slot.getType().toString());
+                }
+                document.add(table);
+            }
+        }
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+
+    private RenderedPdf cached(CohortKey cohort) {
+        RenderedPdf cached = cache.get(cohort);
+        if (cached != null
+                && cached.version == cohortVersions.current(cohort)
+                && cached.renderedAt.plus(maxAge).isAfter(Instant.now())) {
+            return cached;
+        }
+        return null;
+    }
+
+    private byte[] store(CohortKey cohort, long version, byte[] bytes) {
+        cache.put(cohort, new RenderedPdf(version, bytes, Instant.now()));
+        return bytes;
+    }
+
+    private static String title(Department department, int level, AcademicTerm term) {
+        return "Timetable for " + department.getName() + " Level " + level + " (" + term + ")";
+    }
+
+    private static String fileName(Department department, CohortKey cohort) {
+        String prefix = department.getCode() != null ? department.getCode() : "dept" + department.getId();
+        return (prefix + "_L" + cohort.level() + "_" + cohort.term().semester().name()
+                + "_" + cohort.term().academicYear() + ".pdf").replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+
+    private static class RenderedPdf {
+        private final long version;
+        private final byte[] bytes;
+        private final Instant renderedAt;
+
+        private RenderedPdf(long version, byte[] bytes, Instant renderedAt) {
+            this.version = version;
+            this.bytes = bytes;
+            this.renderedAt = renderedAt;
+        }
+    }
+}
@@ -1,28 +1,52 @@
 package org.timeflow.service;
 
+import org.timeflow.dao.OptimisticUpdateException;
+import org.timeflow.dao.TimetableDAO;
 import org.timeflow.entity.*;
+import org.timeflow.event.TimetableEvent;
+import org.timeflow.event.TimetableEventBus;
+import org.timeflow.event.TimetableEventType;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 public class TimetableService extends BaseService {
 
     private final ConflictDetectionService conflictService;
     private final NotificationService notificationService;
+    private final ChangeDigestService changeDigestService;
+    private final TimetableEventBus eventBus;
+    private final CohortTimetableCache cohortCache = CohortTimetableCache.getInstance();
 
     public TimetableService() {
         super();
         this.conflictService = new ConflictDetectionService();
         this.notificationService = new NotificationService();
+        this.changeDigestService = new ChangeDigestService(notificationService);
+        this.eventBus = TimetableEventBus.getInstance();
     }
+    // A department's timetables from the current academic year on; earlier years are archive,
+    // and leaving them out keeps their partitions unread
     public List<Timetable> getDepartmentalTimetables(Department department) {
+        return getDepartmentalTimetables(department, SemesterType.currentAcademicYear());
+    }
+
+    public List<Timetable> getDepartmentalTimetables(Department department, int fromAcademicYear) {
         if (department == null) {
             logger.warn("Attempted to get departmental timetables for a null department.");
             return Collections.emptyList();
         }
         try {
-            return daoFactory.getTimetableDAO().findAllByDepartment(department);
+            return daoFactory.getTimetableDAO().findFromYear(department, fromAcademicYear);
         } catch (Exception e) {
             logger.error("Error getting timetables for department: {}", department.getName(), e);
             return Collections.emptyList();
@@ -31,130 +55,306 @@ public class TimetableService extends BaseService {
 
     // Create new timetable entry
     public Timetable createTimetable(Timetable timetable, User createdBy) {
-        try {
-            // Set initial status
-            timetable.setStatus(TimetableStatus.DRAFT);
-            timetable.setCreatedAt(LocalDateTime.now());
+        return timed("create", () -> {
+            try {
+                // Set initial status
+                timetable.setStatus(TimetableStatus.DRAFT);
+                timetable.setCreatedAt(LocalDateTime.now());
+                if (timetable.getTerm() != null) {
+                    daoFactory.getTimetableDAO().ensureTermPartitions(timetable.getTerm().academicYear());
+                }
 
-            // Save timetable
-            Timetable savedTimetable = daoFactory.getTimetableDAO().save(timetable);
+                // Save timetable
+                Timetable savedTimetable = daoFactory.getTimetableDAO().save(timetable);
 
-            // Detect conflicts
-            List<Conflict> conflicts = conflictService.detectConflicts(savedTimetable);
+                // Detect conflicts
+                List<Conflict> conflicts = conflictService.detectConflicts(savedTimetable);
 
-            if (!conflicts.isEmpty()) {
-                // Set status to conflicted and save conflicts
-                savedTimetable.setStatus(TimetableStatus.CONFLICTED);
-                daoFactory.getTimetableDAO().update(savedTimetable);
-                conflictService.saveConflicts(conflicts);
+                if (!conflicts.isEmpty()) {
+                    // Set status to conflicted and save conflicts
+                    savedTimetable.setStatus(TimetableStatus.CONFLICTED);
+                    savedTimetable = daoFactory.getTimetableDAO().update(savedTimetable);
+                    conflictService.saveConflicts(conflicts);
 
-                // Notify affected parties
-                notificationService.notifyConflicts(conflicts);
+                    // Notify affected parties
+                    notificationService.notifyConflicts(conflicts);
 
-                logger.warn("Timetable created with {} conflicts: {}", conflicts.size(), savedTimetable.getId());
-            } else {
-                // No conflicts, set to pending approval
-                savedTimetable.setStatus(TimetableStatus.PENDING_APPROVAL);
-                daoFactory.getTimetableDAO().update(savedTimetable);
+                    logger.warn("Timetable created with {} conflicts: {}", conflicts.size(), savedTimetable.getId());
+                } else {
+                    // No conflicts, set to pending approval
+                    savedTimetable.setStatus(TimetableStatus.PENDING_APPROVAL);
+                    savedTimetable = daoFactory.getTimetableDAO().update(savedTimetable);
 
-                logger.info("Timetable created successfully: {}", savedTimetable.getId());
-            }
+                    logger.info("Timetable created successfully: {}", savedTimetable.getId());
+                }
 
-            return savedTimetable;
+                publish(TimetableEventType.CREATED, null, savedTimetable);
+                return savedTimetable;
 
-        } catch (Exception e) {
-            logger.error("Error creating timetable", e);
-            throw new RuntimeException("Failed to create timetable", e);
-        }
+            } catch (Exception e) {
+                logger.error("Error creating timetable", e);
+                throw new RuntimeException("Failed to create timetable", e);
+            }
+        });
     }
 
     // Approve timetable
     public void approveTimetable(Long timetableId, User approvedBy) {
-        try {
-            Timetable timetable = daoFactory.getTimetableDAO().findById(timetableId);
-            if (timetable == null) {
-                throw new RuntimeException("Timetable not found");
-            }
+        timed("approve", () -> {
+            try {
+                // Check if user has approval permissions
+                if (!canApproveTimetables(approvedBy)) {
+                    throw new PermissionDeniedException("User does not have approval permissions");
+                }
 
-            // Check if user has approval permissions
-            if (!canApproveTimetables(approvedBy)) {
-                throw new RuntimeException("User does not have approval permissions");
+                // Re-read and re-check on each attempt: an edit that won the race may have moved the slot
+                Timetable timetable = retryOnConflict("timetable.approve", () -> {
+                    Timetable current = daoFactory.getTimetableDAO().findById(timetableId);
+                    if (current == null) {
+                        throw new NotFoundException("Timetable not found");
+                    }
+
+                    // Check for unresolved conflicts
+                    List<Conflict> conflicts = daoFactory.getConflictDAO().findByTimetable(current);
+                    boolean hasUnresolvedConflicts = conflicts.stream()
+                            .anyMatch(
+                                    c -> c.getStatus() == ConflictStatus.DETECTED || c.getStatus() == ConflictStatus.APPEALED);
+
+                    if (hasUnresolvedConflicts) {
+                        throw new InvalidStateException("Cannot approve timetable with unresolved conflicts");
+                    }
+
+                    current.setStatus(TimetableStatus.APPROVED);
+                    current.setApprovedAt(LocalDateTime.now());
+                    current.setApprovedBy(approvedBy);
+                    return daoFactory.getTimetableDAO().update(current);
+                });
+                logger.info("Timetable approved by {}: {}", approvedBy.getUsername(), timetableId);
+
+                // Students hear about it in their cohort's next change digest
+                changeDigestService.recordAdded(timetable);
+                publish(TimetableEventType.APPROVED, null, timetable);
+
+
+            } catch (RuntimeException e) {
+
+                logger.error("Error approving timetable: {}", timetableId, e);
+                throw e;
+            } catch (Exception e) {
+                logger.error("Error approving timetable: {}", timetableId, e);
+                throw new RuntimeException("Failed to approve timetable", e);
             }
+        });
+    }
 
-            // Check for unresolved conflicts
-            List<Conflict> conflicts = daoFactory.getConflictDAO().findByTimetable(timetable);
-            boolean hasUnresolvedConflicts = conflicts.stream()
-                    .anyMatch(
-                            c -> c.getStatus() == ConflictStatus.DETECTED || c.getStatus() == ConflictStatus.APPEALED);
-
-            if (hasUnresolvedConflicts) {
-                throw new RuntimeException("Cannot approve timetable with unresolved conflicts");
-            }
+    // Reject timetable
+    public void rejectTimetable(Long timetableId, String reason, User rejectedBy) {
+        timed("reject", () -> {
+            try {
+                if (!canApproveTimetables(rejectedBy)) {
+                    throw new PermissionDeniedException("User does not have approval permissions");
+                }
+                boolean[] wasApproved = new boolean[1];
+                Timetable timetable = retryOnConflict("timetable.reject", () -> {
+                    Timetable current = daoFactory.getTimetableDAO().findById(timetableId);
+                    if (current == null) {
+                        throw new NotFoundException("Timetable not found");
+                    }
+
+                    wasApproved[0] = current.getStatus() == TimetableStatus.APPROVED;
+                    current.setStatus(TimetableStatus.REJECTED);
+                    current.setDescription(reason);
+                    return daoFactory.getTimetableDAO().update(current);
+                });
+                if (wasApproved[0]) {
+                    changeDigestService.recordCancelled(timetable);
+                }
+                publish(TimetableEventType.REJECTED, null, timetable);
 
-            timetable.setStatus(TimetableStatus.APPROVED);
-            timetable.setApprovedAt(LocalDateTime.now());
-            timetable.setApprovedBy(approvedBy);
+                // Notify lecturer about rejection
+                notificationService.notifyTimetableRejected(timetable, reason);
 
-            daoFactory.getTimetableDAO().update(timetable);
-            logger.info("Timetable approved by {}: {}", approvedBy.getUsername(), timetableId);
+                logger.info("Timetable rejected by {}: {}", rejectedBy.getUsername(), timetableId);
 
-            try {
-                notificationService.notifyTimetableApproved(timetable);
-            } catch (Exception emailException) {
-                logger.error("APPROVAL SUCCEEDED, but failed to send notification emails for timetable ID {}: {}",
-                        timetableId, emailException.getMessage());
-                // We re-throw this as a specific, non-critical exception so the UI can optionally report it
-                throw new RuntimeException("Approval was successful, but notification emails could not be sent. Please check your network or email configuration.", emailException);
+            } catch (Exception e) {
+                logger.error("Error rejecting timetable: {}", timetableId, e);
+                throw new RuntimeException("Failed to reject timetable", e);
             }
+        });
+    }
 
+    // Outcome of a bulk approval or rejection: the slots that changed, and why the others did not
+    public static class BulkResult {
+        private final List<Timetable> updated;
+        private final Map<Long, String> skipped;
 
-        } catch (RuntimeException e) {
+        BulkResult(List<Timetable> updated, Map<Long, String> skipped) {
+            this.updated = updated;
+            this.skipped = skipped;
+        }
 
-            logger.error("Error approving timetable: {}", timetableId, e);
-            throw e;
-        } catch (Exception e) {
-            logger.error("Error approving timetable: {}", timetableId, e);
-            throw new RuntimeException("Failed to approve timetable", e);
+        public List<Timetable> getUpdated() {
+            return updated;
+        }
+
+        public Map<Long, String> getSkipped() {
+            return skipped;
         }
     }
 
-    // Reject timetable
-    public void rejectTimetable(Long timetableId, String reason, User rejectedBy) {
-        try {
-            Timetable timetable = daoFactory.getTimetableDAO().findById(timetableId);
-            if (timetable == null) {
-                throw new RuntimeException("Timetable not found");
+    // Approves a selection in a fixed number of statements, however large it is: one read of
+    // the slots, one conflict check for all of them and one UPDATE. Slots that are missing,
+    // already approved or have unresolved conflicts are skipped and reported, not fatal.
+    public BulkResult approveTimetables(Collection<Long> timetableIds, User approvedBy) {
+        return timed("approveAll", () -> {
+            try {
+                if (!canApproveTimetables(approvedBy)) {
+                    throw new PermissionDeniedException("User does not have approval permissions");
+                }
+                Map<Long, String> skipped = new LinkedHashMap<>();
+                List<Timetable> candidates = new ArrayList<>();
+                for (Timetable timetable : findSelection(timetableIds, skipped)) {
+                    if (timetable.getStatus() == TimetableStatus.APPROVED) {
+                        skipped.put(timetable.getId(), "Already approved");
+                    } else {
+                        candidates.add(timetable);
+                    }
+                }
+                Set<Long> blocked = daoFactory.getConflictDAO().findTimetableIdsWithUnresolvedConflicts(idsOf(candidates));
+                candidates.removeIf(timetable -> {
+                    if (blocked.contains(timetable.getId())) {
+                        skipped.put(timetable.getId(), "Has unresolved conflicts");
+                        return true;
+                    }
+                    return false;
+                });
+
+                LocalDateTime approvedAt = LocalDateTime.now();
+                int updated = daoFactory.getTimetableDAO().approveAll(idsOf(candidates), approvedBy, approvedAt);
+                List<Timetable> approved = candidates;
+                if (updated != candidates.size()) {
+                    // Something changed between the check and the UPDATE; report what actually happened
+                    approved = settled(candidates, TimetableStatus.APPROVED, skipped);
+                } else {
+                    for (Timetable timetable : approved) {
+                        timetable.setStatus(TimetableStatus.APPROVED);
+                        timetable.setApprovedAt(approvedAt);
+                        timetable.setApprovedBy(approvedBy);
+                        timetable.setVersion(timetable.getVersion() + 1);
+                    }
+                }
+
+                // Students hear about the whole selection in their cohorts' next change digests
+                changeDigestService.recordAddedAll(approved);
+                for (Timetable timetable : approved) {
+                    publish(TimetableEventType.APPROVED, null, timetable);
+                }
+                logger.info("{} approved {} timetables in bulk, {} skipped",
+                        approvedBy.getUsername(), approved.size(), skipped.size());
+                return new BulkResult(approved, skipped);
+            } catch (Exception e) {
+                logger.error("Error approving {} timetables", timetableIds.size(), e);
+                throw new RuntimeException("Failed to approve timetables", e);
             }
+        });
+    }
 
-            timetable.setStatus(TimetableStatus.REJECTED);
-            timetable.setDescription(reason);
+    // Rejects a selection with one read and one UPDATE; each lecturer gets a single email
+    // covering all of their rejected slots
+    public BulkResult rejectTimetables(Collection<Long> timetableIds, String reason, User rejectedBy) {
+        return timed("rejectAll", () -> {
+            try {
+                if (!canApproveTimetables(rejectedBy)) {
+                    throw new PermissionDeniedException("User does not have approval permissions");
+                }
+                Map<Long, String> skipped = new LinkedHashMap<>();
+                List<Timetable> candidates = new ArrayList<>();
+                for (Timetable timetable : findSelection(timetableIds, skipped)) {
+                    if (timetable.getStatus() == TimetableStatus.REJECTED) {
+                        skipped.put(timetable.getId(), "Already rejected");
+                    } else {
+                        candidates.add(timetable);
+                    }
+                }
+                List<Timetable> wereApproved = new ArrayList<>();
+                for (Timetable timetable : candidates) {
+                    if (timetable.getStatus() == TimetableStatus.APPROVED) {
+                        wereApproved.add(timetable);
+                    }
+                }
 
-            daoFactory.getTimetableDAO().update(timetable);
+                int updated = daoFactory.getTimetableDAO().rejectAll(idsOf(candidates), reason);
+                List<Timetable> rejected = candidates;
+                if (updated != candidates.size()) {
+                    rejected = settled(candidates, TimetableStatus.REJECTED, skipped);
+                    Set<Long> rejectedIds = new HashSet<>(idsOf(rejected));
+                    wereApproved.removeIf(timetable -> !rejectedIds.contains(timetable.getId()));
+                } else {
+                    for (Timetable timetable : rejected) {
+                        timetable.setStatus(TimetableStatus.REJECTED);
+                        timetable.setDescription(reason);
+                        timetable.setVersion(timetable.getVersion() + 1);
+                    }
+                }
 
-            // Notify lecturer about rejection
-            notificationService.notifyTimetableRejected(timetable, reason);
+                changeDigestService.recordCancelledAll(wereApproved);
+                for (Timetable timetable : rejected) {
+                    publish(TimetableEventType.REJECTED, null, timetable);
+                }
+                notificationService.notifyTimetablesRejected(rejected, reason);
+                logger.info("{} rejected {} timetables in bulk, {} skipped",
+                        rejectedBy.getUsername(), rejected.size(), skipped.size());
+                return new BulkResult(rejected, skipped);
+            } catch (Exception e) {
+                logger.error("Error rejecting {} timetables", timetableIds.size(), e);
+                throw new RuntimeException("Failed to reject timetables", e);
+            }
+        });
+    }
 
-            logger.info("Timetable rejected by {}: {}", rejectedBy.getUsername(), timetableId);
+    // Loads the selected slots in one query; ids that no longer exist are reported as skipped
+    private List<Timetable> findSelection(Collection<Long> timetableIds, Map<Long, String> skipped) {
+        List<Timetable> found = daoFactory.getTimetableDAO().findByIds(new LinkedHashSet<>(timetableIds));
+        Set<Long> foundIds = new HashSet<>(idsOf(found));
+        for (Long id : timetableIds) {
+            if (!foundIds.contains(id)) {
+                skipped.put(id, "Timetable not found");
+            }
+        }
+        return found;
+    }
 
-        } catch (Exception e) {
-            logger.error("Error rejecting timetable: {}", timetableId, e);
-            throw new RuntimeException("Failed to reject timetable", e);
+    // Re-reads slots after a bulk UPDATE that changed fewer rows than expected and returns the
+    // ones that reached the target status; the rest were changed by someone else meanwhile
+    private List<Timetable> settled(List<Timetable> candidates, TimetableStatus target, Map<Long, String> skipped) {
+        List<Timetable> reached = new ArrayList<>();
+        for (Timetable timetable : daoFactory.getTimetableDAO().findByIds(idsOf(candidates))) {
+            if (timetable.getStatus() == target) {
+                reached.add(timetable);
+            } else {
+                skipped.put(timetable.getId(), "Changed by someone else meanwhile");
+            }
         }
+        return reached;
     }
 
-    // Get timetables for student view
-    // In TimetableService.java, replace the getStudentTimetables method
+    private static List<Long> idsOf(List<Timetable> timetables) {
+        List<Long> ids = new ArrayList<>(timetables.size());
+        for (Timetable timetable : timetables) {
+            ids.add(timetable.getId());
+        }
+        return ids;
+    }
 
+    // Get timetables for student view: the cohort's approved slots in the term running today
     public List<Timetable> getStudentTimetables(User student) {
+        return getStudentTimetables(student, AcademicTerm.current());
+    }
+
+    public List<Timetable> getStudentTimetables(User student, AcademicTerm term) {
         try {
-            // Simple logic to determine current semester
-            int month = java.time.LocalDate.now().getMonthValue();
-            SemesterType currentSemester = (month >= 2 && month <= 7) ? SemesterType.SECOND_SEMESTER : SemesterType.FIRST_SEMESTER;
-
-            return daoFactory.getTimetableDAO().findApprovedTimetables(
-                    student.getDepartment(),
-                    getCurrentLevel(student), // You'll need to implement this method
-                    currentSemester);
+            // Everyone in the cohort sees the same slots, so they share one cached read
+            return cohortCache.getApprovedTimetables(student.getDepartment(), getCurrentLevel(student), term);
         } catch (Exception e) {
             logger.error("Error getting student timetables for: {}", student.getUsername(), e);
             throw new RuntimeException("Failed to get student timetables", e);
@@ -162,27 +362,58 @@ public class TimetableService extends BaseService {
     }
 
     // Get timetables for lecturer
-    // In TimetableService.java
-
     public List<Timetable> getLecturerTimetables(User lecturer) {
+        return getLecturerTimetables(lecturer, AcademicTerm.current());
+    }
+
+    public List<Timetable> getLecturerTimetables(User lecturer, AcademicTerm term) {
         try {
-            // --- MODIFIED: Added logic to determine the current semester ---
-            // This mirrors the logic we used in getStudentTimetables
-            int month = java.time.LocalDate.now().getMonthValue();
-            SemesterType currentSemester = (month >= 2 && month <= 7) ? SemesterType.SECOND_SEMESTER : SemesterType.FIRST_SEMESTER;
-
-            return daoFactory.getTimetableDAO().findByLecturer(
-                    lecturer,
-                    currentSemester); // Pass the determined current semester
+            return daoFactory.getTimetableDAO().findByLecturer(lecturer, term);
         } catch (Exception e) {
             logger.error("Error getting lecturer timetables for: {}", lecturer.getUsername(), e);
             throw new RuntimeException("Failed to get lecturer timetables", e);
         }
     }
 
+    // Emails every cohort with pending slot changes a single digest; returns emails sent
+    public int sendChangeDigests() {
+        return changeDigestService.sendPendingDigests();
+    }
+
+    // Pages through all timetables (or one department's) from the current academic year on, for
+    // views that load incrementally
+    public List<Timetable> getTimetablePage(Department department, long afterId, int pageSize) {
+        return getTimetablePage(department, SemesterType.currentAcademicYear(), afterId, pageSize);
+    }
+
+    public List<Timetable> getTimetablePage(Department department, int fromAcademicYear, long afterId, int pageSize) {
+        try {
+            return daoFactory.getTimetableDAO().findPageAfter(department, fromAcademicYear, afterId, pageSize);
+        } catch (Exception e) {
+            logger.error("Error getting timetable page after id {}", afterId, e);
+            throw new RuntimeException("Failed to get timetables", e);
+        }
+    }
+
+    // The listed timetables as getTimetablePage would return them; ids outside the pages are left out
+    public List<Timetable> getTimetablePageRows(Department department, Collection<Long> timetableIds) {
+        try {
+            return daoFactory.getTimetableDAO()
+                    .findInPagesByIds(department, SemesterType.currentAcademicYear(), timetableIds);
+        } catch (Exception e) {
+            logger.error("Error getting {} timetables by id", timetableIds.size(), e);
+            throw new RuntimeException("Failed to get timetables", e);
+        }
+    }
+
+    // Every department's timetables from the current academic year on
     public List<Timetable> getAllTimetables() {
+        return getAllTimetables(SemesterType.currentAcademicYear());
+    }
+
+    public List<Timetable> getAllTimetables(int fromAcademicYear) {
         try {
-            return daoFactory.getTimetableDAO().findAll();
+            return daoFactory.getTimetableDAO().findFromYear(null, fromAcademicYear);
         } catch (Exception e) {
             logger.error("Error getting all timetables", e);
             return Collections.emptyList();
@@ -191,7 +422,15 @@ public class TimetableService extends BaseService {
 
     // Helper methods
     private boolean canApproveTimetables(User user) {
-        return user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.EXAMS_OFFICER;
+        return AuthenticationService.canApproveTimetables(user);
+    }
+
+    private void publish(TimetableEventType type, Timetable before, Timetable after) {
+        try {
+            eventBus.publish(new TimetableEvent(type, before, after));
+        } catch (Exception e) {
+            logger.error("Failed to publish {} event", type, e);
+        }
     }
 
     private int getCurrentLevel(User student) {
@@ -203,40 +442,167 @@ public class TimetableService extends BaseService {
     }
     // In TimetableService.java
     public Timetable updateTimetable(Timetable timetable, User updatedBy) {
-        try {
-            List<Conflict> conflicts = conflictService.detectConflicts(timetable);
-            if (!conflicts.isEmpty()) {
-                timetable.setStatus(TimetableStatus.CONFLICTED);
-                conflictService.saveConflicts(conflicts);
-                notificationService.notifyConflicts(conflicts);
-            } else if (timetable.getStatus() == TimetableStatus.CONFLICTED) {
-                timetable.setStatus(TimetableStatus.PENDING_APPROVAL);
+        return timed("update", () -> {
+            try {
+                Timetable stored = timetable.getId() != null ? daoFactory.getTimetableDAO().findById(timetable.getId()) : null;
+                if (stored != null && !stored.getTerm().equals(timetable.getTerm())) {
+                    throw new InvalidStateException("A timetable's term cannot be changed from " + stored.getTerm()
+                            + "; create the slot in " + timetable.getTerm() + " and delete this one");
+                }
+                List<Conflict> conflicts = conflictService.detectConflicts(timetable);
+                if (!conflicts.isEmpty()) {
+                    timetable.setStatus(TimetableStatus.CONFLICTED);
+                } else if (timetable.getStatus() == TimetableStatus.CONFLICTED) {
+                    timetable.setStatus(TimetableStatus.PENDING_APPROVAL);
+                }
+                Timetable updatedTimetable = daoFactory.getTimetableDAO().update(timetable);
+                // Recorded only once the edit is in, so a stale edit leaves no conflicts behind
+                if (!conflicts.isEmpty()) {
+                    conflictService.saveConflicts(conflicts);
+                    notificationService.notifyConflicts(conflicts);
+                }
+                changeDigestService.recordTransition(stored, updatedTimetable);
+                publish(TimetableEventType.UPDATED, stored, updatedTimetable);
+                logger.info("Timetable updated by {}: {}", updatedBy.getUsername(), timetable.getId());
+                return updatedTimetable;
+            } catch (OptimisticUpdateException | InvalidStateException e) {
+                // The caller edited an out-of-date copy or asked for a term change; retrying
+                // would overwrite the other edit, and the caller has to act on either
+                throw e;
+            } catch (Exception e) {
+                logger.error("Error updating timetable: {}", timetable.getId(), e);
+                throw new RuntimeException("Failed to update timetable", e);
+            }
+        });
+    }
+
+    // Writes a what-if sandbox's diff in one transaction. Slots someone else changed since the
+    // sandbox was opened fail the whole commit with OptimisticUpdateException. The sandbox checked
+    // its edits against the term as it was read, so the conflicts are found again in the commit's
+    // transaction against the term as stored, which may have gained or moved slots or enrollments
+    // since: edited slots take their statuses from that check as in updateTimetable, and the
+    // returned diff carries the conflicts the commit recorded and cleared. The sandbox itself is
+    // not changed, so after a failed commit it still shows the planner's edits as made. Events,
+    // digests and conflict emails go out only for what was committed
+    public ScheduleSandbox.Diff commitSandbox(ScheduleSandbox sandbox, User committedBy) {
+        return timed("commitSandbox", () -> {
+            try {
+                ScheduleSandbox.Diff diff = sandbox.diff();
+                if (diff.isEmpty()) {
+                    return diff;
+                }
+                List<Timetable> updated = new ArrayList<>();
+                List<Timetable> deleted = new ArrayList<>();
+                Set<Long> updatedIds = new HashSet<>();
+                for (ScheduleSandbox.SlotChange change : diff.getChanges()) {
+                    if (change.getAfter() == null) {
+                        deleted.add(change.getBefore());
+                        continue;
+                    }
+                    // Written from a copy, so a commit that fails leaves the open sandbox as it was
+                    updated.add(ScheduleSandbox.copyOf(change.getAfter()));
+                    updatedIds.add(change.getAfter().getId());
+                }
+
+                TimetableDAO.ConflictChanges[] found = new TimetableDAO.ConflictChanges[1];
+                List<Timetable> merged = daoFactory.getTimetableDAO().commitChanges(updated, deleted, sandbox.getTerm(),
+                        (termSlots, recorded) -> found[0] = recheckCommit(termSlots, recorded, updatedIds),
+                        "Cleared by sandbox " + sandbox.getId(), committedBy);
+                List<Conflict> detected = found[0].getDetected();
+
+                Map<Long, Timetable> before = new HashMap<>();
+                for (ScheduleSandbox.SlotChange change : diff.getChanges()) {
+                    before.put(change.getBefore().getId(), change.getBefore());
+                }
+                for (Timetable timetable : merged) {
+                    changeDigestService.recordTransition(before.get(timetable.getId()), timetable);
+                    publish(TimetableEventType.UPDATED, before.get(timetable.getId()), timetable);
+                }
+                for (Timetable timetable : deleted) {
+                    if (timetable.getStatus() == TimetableStatus.APPROVED) {
+                        changeDigestService.recordCancelled(timetable);
+                    }
+                    publish(TimetableEventType.DELETED, timetable, null);
+                }
+                if (!detected.isEmpty()) {
+                    notificationService.notifyConflicts(detected);
+                }
+                logger.info("Sandbox {} for {} committed by {}: {} slots updated, {} deleted, {} conflicts added, {} cleared",
+                        sandbox.getId(), sandbox.getTerm(), committedBy.getUsername(), merged.size(), deleted.size(),
+                        detected.size(), found[0].getCleared().size());
+                return new ScheduleSandbox.Diff(diff.getChanges(), detected, found[0].getCleared());
+            } catch (OptimisticUpdateException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.error("Error committing sandbox: {}", sandbox.getId(), e);
+                throw new RuntimeException("Failed to commit sandbox", e);
+            }
+        });
+    }
+
+    // The conflicts of a sandbox commit's edited slots against the term as stored, run inside the
+    // commit's transaction. Sets the edited slots' statuses, and returns the conflicts not yet on
+    // record and the recorded ones involving an edited slot that no longer hold
+    private TimetableDAO.ConflictChanges recheckCommit(List<Timetable> termSlots, List<Conflict> recorded, Set<Long> updatedIds) {
+        List<Conflict> found = conflictService.sweep(termSlots, updatedIds);
+        Set<ScheduleSandbox.ConflictKey> foundKeys = new HashSet<>();
+        Set<Long> conflicted = new HashSet<>();
+        for (Conflict conflict : found) {
+            foundKeys.add(ScheduleSandbox.ConflictKey.of(conflict));
+            conflicted.add(conflict.getTimetable1().getId());
+            conflicted.add(conflict.getTimetable2().getId());
+        }
+        for (Timetable slot : termSlots) {
+            if (!updatedIds.contains(slot.getId())) {
+                continue;
+            }
+            if (conflicted.contains(slot.getId())) {
+                slot.setStatus(TimetableStatus.CONFLICTED);
+            } else if (slot.getStatus() == TimetableStatus.CONFLICTED) {
+                slot.setStatus(TimetableStatus.PENDING_APPROVAL);
+            }
+        }
+
+        Set<ScheduleSandbox.ConflictKey> recordedKeys = new HashSet<>();
+        List<Conflict> cleared = new ArrayList<>();
+        for (Conflict existing : recorded) {
+            ScheduleSandbox.ConflictKey key = ScheduleSandbox.ConflictKey.of(existing);
+            recordedKeys.add(key);
+            if (key.involves(updatedIds) && !foundKeys.contains(key)) {
+                cleared.add(existing);
             }
-            Timetable updatedTimetable = daoFactory.getTimetableDAO().update(timetable);
-            logger.info("Timetable updated by {}: {}", updatedBy.getUsername(), timetable.getId());
-            return updatedTimetable;
-        } catch (Exception e) {
-            logger.error("Error updating timetable: {}", timetable.getId(), e);
-            throw new RuntimeException("Failed to update timetable", e);
         }
+        List<Conflict> detected = new ArrayList<>();
+        for (Conflict conflict : found) {
+            if (recordedKeys.add(ScheduleSandbox.ConflictKey.of(conflict))) {
+                detected.add(conflict);
+            }
+        }
+        return new TimetableDAO.ConflictChanges(detected, cleared);
     }
 
     public void deleteTimetable(Long timetableId) {
-        try {
-            Timetable timetableToDelete = daoFactory.getTimetableDAO().findById(timetableId);
-            if (timetableToDelete != null) {
-                List<Conflict> relatedConflicts = daoFactory.getConflictDAO().findByTimetable(timetableToDelete);
-                for (Conflict conflict : relatedConflicts) {
-                    daoFactory.getConflictDAO().delete(conflict);
-                    logger.info("Deleted associated conflict with ID: {}", conflict.getId());
-                }
-                daoFactory.getTimetableDAO().deleteById(timetableId);
-                logger.info("Successfully deleted timetable with ID: {}", timetableId);
+        timed("delete", () -> {
+            try {
+                Timetable timetableToDelete = daoFactory.getTimetableDAO().findById(timetableId);
+                if (timetableToDelete != null) {
+                    List<Conflict> relatedConflicts = daoFactory.getConflictDAO().findByTimetable(timetableToDelete);
+                    for (Conflict conflict : relatedConflicts) {
+                        daoFactory.getConflictDAO().delete(conflict);
+                        logger.info("Deleted associated conflict with ID: {}", conflict.getId());
+                    }
+                    daoFactory.getTimetableDAO().deleteById(timetableId);
+                    if (timetableToDelete.getStatus() == TimetableStatus.APPROVED) {
+                        changeDigestService.recordCancelled(timetableToDelete);
+                    }
+                    publish(TimetableEventType.DELETED, timetableToDelete, null);
+                    logger.info("Successfully deleted timetable with ID: {}", timetableId);
+                }
+            } catch (Exception e) {
+                logger.error("Error deleting timetable with ID: {}", timetableId, e);
+                throw new RuntimeException("Failed to delete timetable", e);
             }
-        } catch (Exception e) {
-            logger.error("Error deleting timetable with ID: {}", timetableId, e);
-            throw new RuntimeException("Failed to delete timetable", e);
-        }
+        });
     }
 
 }
@@ -3,6 +3,7 @@ package org.timeflow.ui;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.timeflow.dao.TimetableDAO;
+import org.timeflow.entity.SemesterType;
 import org.timeflow.entity.Timetable;
 import org.timeflow.entity.TimetableStatus;
 import org.timeflow.entity.User;
@@ -11,8 +12,11 @@ import org.timeflow.service.TimetableService;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class ApprovalDashboardFrame extends JFrame {
     private static final Logger logger = LoggerFactory.getLogger(ApprovalDashboardFrame.class);
@@ -23,6 +27,7 @@ public class ApprovalDashboardFrame extends JFrame {
     private DefaultTableModel tableModel;
     private JButton approveButton;
     private JButton rejectButton;
+    private AsyncLoader<List<Object[]>> pendingLoader;
 
     public ApprovalDashboardFrame(User user) {
         this.user = user;
@@ -30,6 +35,7 @@ public class ApprovalDashboardFrame extends JFrame {
         this.timetableService = new TimetableService();
         initComponents();
         setTitle("TimeFlow - Approve Schedules");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setSize(1000, 600);
         setLocationRelativeTo(null);
     }
@@ -44,12 +50,13 @@ public class ApprovalDashboardFrame extends JFrame {
         titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 24));
         mainPanel.add(titleLabel, BorderLayout.NORTH);
 
-        String[] columns = {"ID", "Course", "Day/Date", "Time", "Room", "Type", "Semester"};
+        String[] columns = {"ID", "Course", "Day/Date", "Time", "Room", "Type", "Term"};
         tableModel = new DefaultTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) { return false; }
         };
         pendingTable = new JTable(tableModel);
+        pendingTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         pendingTable.setRowHeight(30);
         pendingTable.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         pendingTable.getColumnModel().getColumn(0).setMinWidth(0);
@@ -63,18 +70,30 @@ public class ApprovalDashboardFrame extends JFrame {
         buttonPanel.setBackground(Color.WHITE);
         approveButton = createStyledButton("Approve Selected");
         rejectButton = createStyledButton("Reject Selected");
+        JButton selectAllButton = createStyledButton("Select All");
         JButton refreshButton = createStyledButton("Refresh");
+        JButton notifyButton = createStyledButton("Notify Students of Changes");
 
         approveButton.setEnabled(false);
         rejectButton.setEnabled(false);
 
         buttonPanel.add(approveButton);
         buttonPanel.add(rejectButton);
+        buttonPanel.add(selectAllButton);
         buttonPanel.add(refreshButton);
+        buttonPanel.add(notifyButton);
 
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
         add(mainPanel, BorderLayout.CENTER);
 
+        LoadingStatusBar statusBar = new LoadingStatusBar();
+        add(statusBar, BorderLayout.SOUTH);
+        pendingLoader = new AsyncLoader<>("pending schedules", this::fetchPendingRows, this::showPendingRows)
+                .withStatusBar(statusBar)
+                .withBusyCursor(this)
+                .withSummary(rows -> rows.size() + " schedule(s) pending approval")
+                .reloadOnTimetableChanges(this);
+
         pendingTable.getSelectionModel().addListSelectionListener(e -> {
             boolean isRowSelected = pendingTable.getSelectedRow() != -1;
             approveButton.setEnabled(isRowSelected);
@@ -83,104 +102,170 @@ public class ApprovalDashboardFrame extends JFrame {
 
         approveButton.addActionListener(e -> handleApprove());
         rejectButton.addActionListener(e -> handleReject());
+        selectAllButton.addActionListener(e -> pendingTable.selectAll());
         refreshButton.addActionListener(e -> loadPendingSchedules());
+        notifyButton.addActionListener(e -> handleSendDigests(notifyButton));
 
-        loadPendingSchedules();
+        pendingLoader.reloadNow();
     }
 
     private void loadPendingSchedules() {
+        pendingLoader.reload();
+    }
+
+    // Runs on a worker thread; rows are built here so the EDT only swaps them in
+    private List<Object[]> fetchPendingRows() {
+        List<Timetable> pending = timetableDAO.findByStatus(TimetableStatus.PENDING_APPROVAL, SemesterType.currentAcademicYear());
+        List<Object[]> rows = new ArrayList<>(pending.size());
+        for (Timetable t : pending) {
+            rows.add(new Object[]{
+                    t.getId(),
+                    t.getCourse().getCode() + " - " + t.getCourse().getName(),
+                    t.getSpecificDate() != null ? t.getSpecificDate().toString() : t.getDayOfWeek().toString(),
+                    t.getStartTime() + " - " + t.getEndTime(),
+                    t.getRoom(),
+                    t.getType(),
+                    t.getTerm().toString()
+            });
+        }
+        logger.info("Loaded {} pending schedules.", pending.size());
+        return rows;
+    }
+
+    private void showPendingRows(List<Object[]> rows) {
         tableModel.setRowCount(0);
-        try {
-            List<Timetable> pending = timetableDAO.findByStatus(TimetableStatus.PENDING_APPROVAL);
-            for (Timetable t : pending) {
-                tableModel.addRow(new Object[]{
-                        t.getId(),
-                        t.getCourse().getCode() + " - " + t.getCourse().getName(),
-                        t.getSpecificDate() != null ? t.getSpecificDate().toString() : t.getDayOfWeek().toString(),
-                        t.getStartTime() + " - " + t.getEndTime(),
-                        t.getRoom(),
-                        t.getType(),
-                        t.getSemester().toString()
-                });
-            }
-            logger.info("Loaded {} pending schedules.", pending.size());
-        } catch (Exception e) {
-            logger.error("Failed to load pending schedules", e);
-            JOptionPane.showMessageDialog(this, "Could not load data.", "Error", JOptionPane.ERROR_MESSAGE);
+        for (Object[] row : rows) {
+            tableModel.addRow(row);
         }
     }
 
 
     private void handleApprove() {
-        int selectedRow = pendingTable.getSelectedRow();
-        if (selectedRow == -1) return;
+        List<Long> timetableIds = selectedTimetableIds();
+        if (timetableIds.isEmpty()) return;
 
-        Long timetableId = (Long) tableModel.getValueAt(selectedRow, 0);
-        int confirmation = JOptionPane.showConfirmDialog(this, "Are you sure you want to approve this schedule?", "Confirm Approval", JOptionPane.YES_NO_OPTION);
+        String question = timetableIds.size() == 1
+                ? "Are you sure you want to approve this schedule?"
+                : "Are you sure you want to approve the " + timetableIds.size() + " selected schedules?";
+        int confirmation = JOptionPane.showConfirmDialog(this, question, "Confirm Approval", JOptionPane.YES_NO_OPTION);
 
         if (confirmation == JOptionPane.YES_OPTION) {
-            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-            approveButton.setEnabled(false);
-
-            SwingWorker<String, Void> worker = new SwingWorker<>() {
-                @Override
-                protected String doInBackground() throws Exception {
-                    timetableService.approveTimetable(timetableId, user);
-                    return "Schedule approved successfully.";
-                }
-
-                @Override
-                protected void done() {
-                    try {
-                        String result = get();
-                        JOptionPane.showMessageDialog(ApprovalDashboardFrame.this, result, "Success", JOptionPane.INFORMATION_MESSAGE);
-                    } catch (Exception e) {
-                        // --- MODIFIED: Catch the specific conflict error ---
-                        String errorMessage = e.getCause().getMessage();
-                        logger.error("Error approving timetable with ID {}: {}", timetableId, errorMessage);
-
-                        if (errorMessage.contains("unresolved conflicts")) {
-                            JOptionPane.showMessageDialog(
-                                    ApprovalDashboardFrame.this,
-                                    "This schedule cannot be approved because it has unresolved conflicts.\n" +
-                                            "Please go to the 'Resolve Conflicts' screen to manage them first.",
-                                    "Approval Failed: Unresolved Conflicts",
-                                    JOptionPane.WARNING_MESSAGE
-                            );
-                        } else {
-                            JOptionPane.showMessageDialog(ApprovalDashboardFrame.this, "Failed to approve schedule: " + errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
-                        }
-                    } finally {
-                        loadPendingSchedules();
-                        setCursor(Cursor.getDefaultCursor());
-                    }
-                }
-            };
-            worker.execute();
+            runBulkDecision("approve", () -> timetableService.approveTimetables(timetableIds, user));
         }
     }
 
     private void handleReject() {
-        int selectedRow = pendingTable.getSelectedRow();
-        if (selectedRow == -1) return;
+        List<Long> timetableIds = selectedTimetableIds();
+        if (timetableIds.isEmpty()) return;
 
-        Long timetableId = (Long) tableModel.getValueAt(selectedRow, 0);
-        String reason = JOptionPane.showInputDialog(this, "Please provide a reason for rejection:");
+        String reason = JOptionPane.showInputDialog(this, timetableIds.size() == 1
+                ? "Please provide a reason for rejection:"
+                : "Please provide a reason for rejecting the " + timetableIds.size() + " selected schedules:");
 
         if (reason != null && !reason.trim().isEmpty()) {
-            try {
-                timetableService.rejectTimetable(timetableId, reason, user);
-                JOptionPane.showMessageDialog(this, "Schedule rejected.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadPendingSchedules();
-            } catch (Exception e) {
-                logger.error("Error rejecting timetable with ID {}", timetableId, e);
-                JOptionPane.showMessageDialog(this, "Failed to reject schedule: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            runBulkDecision("reject", () -> timetableService.rejectTimetables(timetableIds, reason, user));
         } else if (reason != null) {
             JOptionPane.showMessageDialog(this, "Rejection reason cannot be empty.", "Warning", JOptionPane.WARNING_MESSAGE);
         }
     }
 
+    private List<Long> selectedTimetableIds() {
+        List<Long> ids = new ArrayList<>();
+        for (int row : pendingTable.getSelectedRows()) {
+            ids.add((Long) tableModel.getValueAt(row, 0));
+        }
+        return ids;
+    }
+
+    // The whole selection is decided in one service call; slots that could not be changed are
+    // listed with their reason instead of failing the rest
+    private void runBulkDecision(String action, Supplier<TimetableService.BulkResult> decision) {
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        approveButton.setEnabled(false);
+        rejectButton.setEnabled(false);
+
+        SwingWorker<TimetableService.BulkResult, Void> worker = new SwingWorker<>() {
+            @Override
+            protected TimetableService.BulkResult doInBackground() {
+                return decision.get();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    showBulkResult(action, get());
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.error("Error trying to {} timetables", action, cause);
+                    JOptionPane.showMessageDialog(ApprovalDashboardFrame.this,
+                            "Failed to " + action + " schedules: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    loadPendingSchedules();
+                    setCursor(Cursor.getDefaultCursor());
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private void showBulkResult(String action, TimetableService.BulkResult result) {
+        String done = action.equals("approve") ? "approved" : "rejected";
+        StringBuilder message = new StringBuilder(result.getUpdated().size() + " schedule(s) " + done + ".");
+        if (result.getSkipped().isEmpty()) {
+            JOptionPane.showMessageDialog(this, message.toString(), "Success", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        Map<Long, String> courses = new HashMap<>();
+        for (int row = 0; row < tableModel.getRowCount(); row++) {
+            courses.put((Long) tableModel.getValueAt(row, 0), String.valueOf(tableModel.getValueAt(row, 1)));
+        }
+        message.append("\n\n").append(result.getSkipped().size()).append(" could not be ").append(done).append(":\n");
+        int shown = 0;
+        for (Map.Entry<Long, String> entry : result.getSkipped().entrySet()) {
+            if (shown++ == 15) {
+                message.append("... and ").append(result.getSkipped().size() - 15).append(" more\n");
+                break;
+            }
+            message.append("- ").append(courses.getOrDefault(entry.getKey(), "Schedule " + entry.getKey()))
+                    .append(": ").append(entry.getValue()).append("\n");
+        }
+        if (result.getSkipped().containsValue("Has unresolved conflicts")) {
+            message.append("\nResolve conflicts on the 'Resolve Conflicts' screen first.");
+        }
+        JOptionPane.showMessageDialog(this, message.toString(), "Partially Completed", JOptionPane.WARNING_MESSAGE);
+    }
+
+    private void handleSendDigests(JButton notifyButton) {
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        notifyButton.setEnabled(false);
+
+        SwingWorker<Integer, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Integer doInBackground() {
+                return timetableService.sendChangeDigests();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    int sent = get();
+                    String message = sent == 0
+                            ? "No students have pending timetable changes."
+                            : "Sent " + sent + " change digest email(s) to students.";
+                    JOptionPane.showMessageDialog(ApprovalDashboardFrame.this, message, "Notifications Sent", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    logger.error("Failed to send change digests", e);
+                    JOptionPane.showMessageDialog(ApprovalDashboardFrame.this, "Could not send change digests: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    notifyButton.setEnabled(true);
+                    setCursor(Cursor.getDefaultCursor());
+                }
+            }
+        };
+        worker.execute();
+    }
+
     private JButton createStyledButton(String text) {
         JButton button = new JButton(text);
         button.setFont(new Font("Segoe UI", Font.BOLD, 14));
@@ -0,0 +1,178 @@
+package org.timeflow.ui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.event.TimetableEvent;
+import org.timeflow.event.TimetableEventBus;
+import org.timeflow.metrics.QueryScope;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Loads a frame's data off the Event Dispatch Thread and hands the result back on it.
+ *
+ * Every load gets a generation number; a result is applied only if no newer load has
+ * started since, so a slow query can never overwrite fresher data. {@link #reload()} is
+ * coalesced: a burst of refresh requests (button clicks, change events) within the delay
+ * results in a single query. All methods must be called on the EDT.
+ */
+public class AsyncLoader<T> {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLoader.class);
+    private static final int DEFAULT_COALESCE_MILLIS = 200;
+
+    private final String description;
+    private final Callable<T> fetch;
+    private final Consumer<T> apply;
+    private final Timer coalesceTimer;
+    private LoadingStatusBar statusBar;
+    private Component cursorTarget;
+    private Function<T, String> summary = result -> "Up to date";
+    private Consumer<Exception> onError;
+    private Consumer<TimetableEvent> busListener;
+
+    private long generation;
+    private SwingWorker<T, Void> current;
+
+    public AsyncLoader(String description, Callable<T> fetch, Consumer<T> apply) {
+        this.description = description;
+        this.fetch = fetch;
+        this.apply = apply;
+        this.coalesceTimer = new Timer(DEFAULT_COALESCE_MILLIS, e -> reloadNow());
+        this.coalesceTimer.setRepeats(false);
+    }
+
+    public AsyncLoader<T> withStatusBar(LoadingStatusBar statusBar) {
+        this.statusBar = statusBar;
+        return this;
+    }
+
+    // Shows a wait cursor over the component while loading
+    public AsyncLoader<T> withBusyCursor(Component cursorTarget) {
+        this.cursorTarget = cursorTarget;
+        return this;
+    }
+
+    // Text shown in the status bar once a load completes
+    public AsyncLoader<T> withSummary(Function<T, String> summary) {
+        this.summary = summary;
+        return this;
+    }
+
+    // Replaces the default error handling (status bar message and log entry)
+    public AsyncLoader<T> onError(Consumer<Exception> onError) {
+        this.onError = onError;
+        return this;
+    }
+
+    // Schedules a coalesced reload whenever any timetable changes, until the window closes
+    public AsyncLoader<T> reloadOnTimetableChanges(Window window) {
+        busListener = event -> SwingUtilities.invokeLater(this::reload);
+        TimetableEventBus.getInstance().addListener(busListener);
+        return bindTo(window);
+    }
+
+    // Stops pending and running loads when the window is closed
+    public AsyncLoader<T> bindTo(Window window) {
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                dispose();
+            }
+        });
+        return this;
+    }
+
+    public void reload() {
+        coalesceTimer.restart();
+    }
+
+    public void reloadNow() {
+        coalesceTimer.stop();
+        long loadGeneration = ++generation;
+        if (current != null) {
+            // Results of superseded loads are discarded; the query itself is left to finish
+            // rather than interrupting the JDBC call underneath it
+            current.cancel(false);
+        }
+        setBusy(true);
+        if (statusBar != null) {
+            statusBar.showLoading("Loading " + description + "...");
+        }
+
+        current = new SwingWorker<>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                QueryScope scope = QueryScope.checked("load " + description);
+                try {
+                    return fetch.call();
+                } finally {
+                    scope.close();
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (loadGeneration != generation || isCancelled()) {
+                    return;
+                }
+                current = null;
+                setBusy(false);
+                try {
+                    T result = get();
+                    apply.accept(result);
+                    if (statusBar != null) {
+                        statusBar.showDone(summary.apply(result));
+                    }
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    fail(cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+            }
+        };
+        current.execute();
+    }
+
+    public boolean isLoading() {
+        return current != null;
+    }
+
+    public void dispose() {
+        generation++;
+        coalesceTimer.stop();
+        if (current != null) {
+            current.cancel(false);
+            current = null;
+        }
+        if (busListener != null) {
+            TimetableEventBus.getInstance().removeListener(busListener);
+            busListener = null;
+        }
+    }
+
+    private void fail(Exception e) {
+        logger.error("Failed to load {}", description, e);
+        if (statusBar != null) {
+            statusBar.showError("Could not load " + description + ": " + e.getMessage());
+        }
+        if (onError != null) {
+            onError.accept(e);
+        }
+    }
+
+    private void setBusy(boolean busy) {
+        if (cursorTarget != null) {
+            cursorTarget.setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+        }
+    }
+}
@@ -12,7 +12,9 @@ import org.timeflow.service.NotificationService;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ConflictManagementFrame extends JFrame {
     private static final Logger logger = LoggerFactory.getLogger(ConflictManagementFrame.class);
@@ -23,6 +25,8 @@ public class ConflictManagementFrame extends JFrame {
     private JTable conflictTable;
     private DefaultTableModel tableModel;
     private JButton manageButton;
+    private AsyncLoader<List<Conflict>> conflictLoader;
+    private final Map<Long, Conflict> loadedConflicts = new HashMap<>();
 
     public ConflictManagementFrame(User user) {
         this.user = user;
@@ -31,6 +35,7 @@ public class ConflictManagementFrame extends JFrame {
         this.notificationService = new NotificationService();
         initComponents();
         setTitle("TimeFlow - Conflict Management");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setSize(1200, 700);
         setLocationRelativeTo(null);
     }
@@ -78,6 +83,14 @@ public class ConflictManagementFrame extends JFrame {
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
         add(mainPanel, BorderLayout.CENTER);
 
+        LoadingStatusBar statusBar = new LoadingStatusBar();
+        add(statusBar, BorderLayout.SOUTH);
+        conflictLoader = new AsyncLoader<>("conflicts", conflictDAO::findUnresolvedConflicts, this::showConflicts)
+                .withStatusBar(statusBar)
+                .withBusyCursor(this)
+                .withSummary(conflicts -> conflicts.size() + " unresolved conflict(s)")
+                .reloadOnTimetableChanges(this);
+
         // Add Listeners
         conflictTable.getSelectionModel().addListSelectionListener(e -> {
             manageButton.setEnabled(conflictTable.getSelectedRow() != -1);
@@ -86,42 +99,42 @@ public class ConflictManagementFrame extends JFrame {
         manageButton.addActionListener(e -> handleManageConflict());
         refreshButton.addActionListener(e -> loadConflicts());
 
-        loadConflicts();
+        conflictLoader.reloadNow();
     }
 
     private void loadConflicts() {
+        conflictLoader.reload();
+    }
+
+    private void showConflicts(List<Conflict> conflicts) {
         tableModel.setRowCount(0);
-        try {
-            List<Conflict> conflicts = conflictDAO.findUnresolvedConflicts();
-            for (Conflict c : conflicts) {
-                Timetable t1 = c.getTimetable1();
-                Timetable t2 = c.getTimetable2();
-
-                // Null checks for safety
-                String lecturer1 = (t1.getCourse().getLecturer() != null) ? t1.getCourse().getLecturer().getUsername() : "N/A";
-                String lecturer2 = (t2.getCourse().getLecturer() != null) ? t2.getCourse().getLecturer().getUsername() : "N/A";
-
-                tableModel.addRow(new Object[]{
-                        c.getId(),
-                        c.getType(),
-                        c.getStatus(),
-                        t1.getCourse().getCode(),
-                        lecturer1,
-                        t1.getDayOfWeek() != null ? t1.getDayOfWeek() : t1.getSpecificDate(),
-                        t1.getStartTime() + " - " + t1.getEndTime(),
-                        t1.getRoom().getName(),
-                        t2.getCourse().getCode(),
-                        lecturer2,
-                        t2.getDayOfWeek() != null ? t2.getDayOfWeek() : t2.getSpecificDate(),
-                        t2.getStartTime() + " - " + t2.getEndTime(),
-                        t2.getRoom().getName()
-                });
-            }
-            logger.info("Loaded {} unresolved conflicts.", conflicts.size());
-        } catch (Exception e) {
-            logger.error("Failed to load conflicts", e);
-            JOptionPane.showMessageDialog(this, "Could not load conflicts: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        loadedConflicts.clear();
+        for (Conflict c : conflicts) {
+            Timetable t1 = c.getTimetable1();
+            Timetable t2 = c.getTimetable2();
+
+            // Null checks for safety
+            String lecturer1 = (t1.getCourse().getLecturer() != null) ? t1.getCourse().getLecturer().getUsername() : "N/A";
+            String lecturer2 = (t2.getCourse().getLecturer() != null) ? t2.getCourse().getLecturer().getUsername() : "N/A";
+
+            loadedConflicts.put(c.getId(), c);
+            tableModel.addRow(new Object[]{
+                    c.getId(),
+                    c.getType(),
+                    c.getStatus(),
+                    t1.getCourse().getCode(),
+                    lecturer1,
+                    t1.getDayOfWeek() != null ? t1.getDayOfWeek() : t1.getSpecificDate(),
+                    t1.getStartTime() + " - " + t1.getEndTime(),
+                    t1.getRoom().getName(),
+                    t2.getCourse().getCode(),
+                    lecturer2,
+                    t2.getDayOfWeek() != null ? t2.getDayOfWeek() : t2.getSpecificDate(),
+                    t2.getStartTime() + " - " + t2.getEndTime(),
+                    t2.getRoom().getName()
+            });
         }
+        logger.info("Loaded {} unresolved conflicts.", conflicts.size());
     }
 
     private void handleManageConflict() {
@@ -129,7 +142,8 @@ public class ConflictManagementFrame extends JFrame {
         if (selectedRow == -1) return;
 
         Long conflictId = (Long) tableModel.getValueAt(selectedRow, 0);
-        Conflict conflict = conflictDAO.findById(conflictId);
+        // The last load already fetched the conflict with both timetables
+        Conflict conflict = loadedConflicts.get(conflictId);
         if (conflict == null) {
             JOptionPane.showMessageDialog(this, "Could not find the selected conflict.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
@@ -148,8 +162,9 @@ public class ConflictManagementFrame extends JFrame {
         );
 
         if (choice == 0) { // Email Lecturers
-            notificationService.notifyLecturersToResolve(conflict);
-            JOptionPane.showMessageDialog(this, "An email has been sent to the involved lecturers.", "Email Sent", JOptionPane.INFORMATION_MESSAGE);
+            runInBackground(() -> notificationService.notifyLecturersToResolve(conflict),
+                    "An email has been sent to the involved lecturers.", "Email Sent",
+                    "Failed to email lecturers for conflict with ID " + conflictId);
         } else if (choice == 1) { // Mark as Resolved
             handleResolveConflict(conflictId);
         }
@@ -164,19 +179,44 @@ public class ConflictManagementFrame extends JFrame {
         );
 
         if (resolutionNotes != null && !resolutionNotes.trim().isEmpty()) {
-            try {
-                conflictService.resolveConflict(conflictId, resolutionNotes, user);
-                JOptionPane.showMessageDialog(this, "Conflict marked as resolved.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadConflicts(); // Refresh the table
-            } catch (Exception e) {
-                logger.error("Failed to resolve conflict with ID {}", conflictId, e);
-                JOptionPane.showMessageDialog(this, "Failed to resolve conflict: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            runInBackground(() -> conflictService.resolveConflict(conflictId, resolutionNotes, user),
+                    "Conflict marked as resolved.", "Success",
+                    "Failed to resolve conflict with ID " + conflictId);
         } else if (resolutionNotes != null) {
             JOptionPane.showMessageDialog(this, "Resolution notes cannot be empty.", "Warning", JOptionPane.WARNING_MESSAGE);
         }
     }
 
+    private void runInBackground(Runnable action, String successMessage, String successTitle, String failureMessage) {
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        manageButton.setEnabled(false);
+
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() {
+                action.run();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(ConflictManagementFrame.this, successMessage, successTitle, JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.error(failureMessage, cause);
+                    JOptionPane.showMessageDialog(ConflictManagementFrame.this, failureMessage + ": " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    setCursor(Cursor.getDefaultCursor());
+                    manageButton.setEnabled(conflictTable.getSelectedRow() != -1);
+                    loadConflicts();
+                }
+            }
+        };
+        worker.execute();
+    }
+
     private JButton createStyledButton(String text) {
         JButton button = new JButton(text);
         button.setFont(new Font("Segoe UI", Font.BOLD, 14));
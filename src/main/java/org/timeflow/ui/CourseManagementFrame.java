@@ -3,25 +3,25 @@ package org.timeflow.ui;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.timeflow.dao.CourseDAO;
-import org.timeflow.dao.DepartmentDAO;
-import org.timeflow.dao.UserDAO;
+import org.timeflow.dao.OptimisticUpdateException;
 import org.timeflow.entity.Course;
 import org.timeflow.entity.Department;
 import org.timeflow.entity.User;
 import org.timeflow.entity.UserRole;
 import org.timeflow.service.AuthenticationService;
+import org.timeflow.service.ReferenceDataCache;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CourseManagementFrame extends JFrame {
     private static final Logger logger = LoggerFactory.getLogger(CourseManagementFrame.class);
     private final User user;
     private final CourseDAO courseDAO;
-    private final UserDAO userDAO;
-    private final DepartmentDAO departmentDAO;
     private JTable courseTable;
     private DefaultTableModel tableModel;
     // --- NEW: Buttons for edit and delete ---
@@ -29,14 +29,21 @@ public class CourseManagementFrame extends JFrame {
     private JButton deleteButton;
     private static final String NO_LECTURERS = "No lecturers available";
     private static final String NO_DEPARTMENTS = "No departments available";
+    private AsyncLoader<CourseData> courseLoader;
+    // Reference data from the last load, reused by the add/edit dialog
+    private List<User> lecturers = List.of();
+    private List<Department> departments = List.of();
+    private final Map<Long, Course> loadedCourses = new HashMap<>();
+
+    private record CourseData(List<Course> courses, List<User> lecturers, List<Department> departments) {
+    }
 
     public CourseManagementFrame(User user) {
         this.user = user;
         this.courseDAO = new CourseDAO();
-        this.userDAO = new UserDAO();
-        this.departmentDAO = new DepartmentDAO();
         initComponents();
         setTitle("TimeFlow - Course Management");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setSize(800, 600);
         setMinimumSize(new Dimension(600, 400));
         setLocationRelativeTo(null);
@@ -115,7 +122,15 @@ public class CourseManagementFrame extends JFrame {
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
         add(mainPanel, BorderLayout.CENTER);
 
-        loadCourses();
+        LoadingStatusBar statusBar = new LoadingStatusBar();
+        add(statusBar, BorderLayout.SOUTH);
+        boolean loadAllCourses = AuthenticationService.getInstance().hasRole(UserRole.ADMIN);
+        courseLoader = new AsyncLoader<>("courses", () -> fetchCourseData(loadAllCourses), this::showCourses)
+                .withStatusBar(statusBar)
+                .withBusyCursor(this)
+                .withSummary(data -> data.courses().size() + " course(s)")
+                .bindTo(this);
+        courseLoader.reloadNow();
     }
 
     // --- MODIFIED: This dialog now handles both Add and Edit ---
@@ -158,7 +173,6 @@ public class CourseManagementFrame extends JFrame {
                 return this;
             }
         });
-        List<User> lecturers = userDAO.findByRole(UserRole.LECTURER);
         if (lecturers.isEmpty()) {
             lecturerComboBox.addItem(NO_LECTURERS);
             lecturerComboBox.setEnabled(false);
@@ -184,7 +198,6 @@ public class CourseManagementFrame extends JFrame {
                 return this;
             }
         });
-        List<Department> departments = departmentDAO.findAll();
         if (departments.isEmpty()) {
             deptComboBox.addItem(NO_DEPARTMENTS);
             deptComboBox.setEnabled(false);
@@ -234,6 +247,12 @@ public class CourseManagementFrame extends JFrame {
                 JOptionPane.showMessageDialog(dialog, "Course saved successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
                 loadCourses();
                 dialog.dispose();
+            } catch (OptimisticUpdateException ex) {
+                JOptionPane.showMessageDialog(dialog,
+                        "This course was changed by someone else while you were editing it.\n"
+                                + "Close the dialog and edit it again to see their changes.",
+                        "Course Changed", JOptionPane.WARNING_MESSAGE);
+                loadCourses();
             } catch (Exception ex) {
                 logger.error("Failed to save course: {}", ex.getMessage(), ex);
                 JOptionPane.showMessageDialog(dialog, "Failed to save course: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -273,7 +292,7 @@ public class CourseManagementFrame extends JFrame {
         }
         // Retrieve the ID from our hidden first column
         Long courseId = (Long) tableModel.getValueAt(selectedRow, 0);
-        Course courseToEdit = courseDAO.findById(courseId);
+        Course courseToEdit = loadedCourses.get(courseId);
         if (courseToEdit != null) {
             showAddOrEditDialog(courseToEdit);
         } else {
@@ -312,23 +331,36 @@ public class CourseManagementFrame extends JFrame {
     }
 
     private void loadCourses() {
-        tableModel.setRowCount(0);
-        List<Course> courses;
+        courseLoader.reload();
+    }
 
-        if (AuthenticationService.getInstance().hasRole(UserRole.ADMIN)) {
+    // Runs on a worker thread
+    private CourseData fetchCourseData(boolean loadAllCourses) {
+        List<Course> courses;
+        if (loadAllCourses) {
             logger.info("Admin user detected, loading all courses.");
             courses = courseDAO.findAll();
         } else {
             Department userDept = user.getDepartment();
             if (userDept == null) {
                 logger.warn("User {} has no department, cannot load courses.", user.getUsername());
-                return;
+                courses = List.of();
+            } else {
+                logger.info("Loading courses for department: {}", userDept.getName());
+                courses = courseDAO.findByDepartment(userDept);
             }
-            logger.info("Loading courses for department: {}", userDept.getName());
-            courses = courseDAO.findByDepartment(userDept);
         }
+        ReferenceDataCache referenceData = ReferenceDataCache.getInstance();
+        return new CourseData(courses, referenceData.getLecturers(), referenceData.getDepartments());
+    }
 
-        for (Course c : courses) {
+    private void showCourses(CourseData data) {
+        lecturers = data.lecturers();
+        departments = data.departments();
+        tableModel.setRowCount(0);
+        loadedCourses.clear();
+        for (Course c : data.courses()) {
+            loadedCourses.put(c.getId(), c);
             tableModel.addRow(new Object[]{
                     c.getId(), // Add the ID here
                     c.getCode(),
@@ -0,0 +1,48 @@
+package org.timeflow.ui;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Thin status strip shown at the bottom of a frame while its data loads in the background.
+ */
+public class LoadingStatusBar extends JPanel {
+    private final JProgressBar progressBar;
+    private final JLabel messageLabel;
+
+    public LoadingStatusBar() {
+        super(new BorderLayout(8, 0));
+        setBorder(BorderFactory.createEmptyBorder(4, 20, 6, 20));
+        setBackground(Color.WHITE);
+
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setPreferredSize(new Dimension(120, 8));
+        progressBar.setVisible(false);
+
+        messageLabel = new JLabel(" ");
+        messageLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        messageLabel.setForeground(new Color(108, 117, 125));
+
+        add(progressBar, BorderLayout.WEST);
+        add(messageLabel, BorderLayout.CENTER);
+    }
+
+    public void showLoading(String message) {
+        progressBar.setVisible(true);
+        messageLabel.setForeground(new Color(108, 117, 125));
+        messageLabel.setText(message);
+    }
+
+    public void showDone(String message) {
+        progressBar.setVisible(false);
+        messageLabel.setForeground(new Color(108, 117, 125));
+        messageLabel.setText(message);
+    }
+
+    public void showError(String message) {
+        progressBar.setVisible(false);
+        messageLabel.setForeground(new Color(220, 53, 69));
+        messageLabel.setText(message);
+    }
+}
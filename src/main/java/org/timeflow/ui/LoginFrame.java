@@ -2,7 +2,9 @@ package org.timeflow.ui;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.timeflow.auth.LoginRejectedException;
 import org.timeflow.service.AuthenticationService;
+import org.timeflow.util.HibernateUtil;
 
 import javax.swing.*;
 import java.awt.*;
@@ -12,13 +14,15 @@ public class LoginFrame extends JFrame {
     private JTextField usernameField;
     private JPasswordField passwordField;
     private AuthenticationService authService;
+    private JButton loginButton;
+    private LoadingStatusBar statusBar;
 
     public LoginFrame() {
         authService = AuthenticationService.getInstance();
         initComponents();
         setTitle("TimeFlow - Login");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(400, 300);
+        setSize(400, 330);
         setLocationRelativeTo(null);
         setResizable(false);
     }
@@ -57,7 +61,7 @@ public class LoginFrame extends JFrame {
         gbc.gridy = 1;
         mainPanel.add(passwordField, gbc);
 
-        JButton loginButton = new JButton("Login");
+        loginButton = new JButton("Login");
         loginButton.setFont(new Font("Segoe UI", Font.BOLD, 14));
         loginButton.setBackground(new Color(7, 8, 9));
         loginButton.setForeground(Color.WHITE);
@@ -80,19 +84,74 @@ public class LoginFrame extends JFrame {
         mainPanel.add(signupButton, gbc);
 
         add(mainPanel, BorderLayout.CENTER);
+
+        statusBar = new LoadingStatusBar();
+        add(statusBar, BorderLayout.SOUTH);
+        waitForDatabase();
+    }
+
+    // The window opens while Hibernate is still starting; sign-in is enabled once it is ready
+    private void waitForDatabase() {
+        if (HibernateUtil.isReady()) {
+            return;
+        }
+        loginButton.setEnabled(false);
+        statusBar.showLoading("Connecting to the database...");
+        HibernateUtil.startAsync().whenComplete((factory, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                statusBar.showError("Database unavailable: " + error.getMessage());
+            } else {
+                statusBar.showDone(" ");
+                loginButton.setEnabled(true);
+            }
+        }));
     }
 
+    // The password check (bcrypt) and account lookup run on a worker thread; the window stays
+    // responsive and the button is disabled until they finish
     private void handleLogin() {
         String username = usernameField.getText().trim();
         String password = new String(passwordField.getPassword()).trim();
         logger.info("Login attempt: username={}", username);
-        if (authService.login(username, password)) {
-            logger.info("Login successful: username={}, role={}", username, authService.getCurrentUser().getRole());
-            dispose();
-            new MainDashboardFrame().setVisible(true);
-        } else {
-            logger.warn("Login failed: invalid credentials for username={}", username);
-            JOptionPane.showMessageDialog(this, "Invalid username or password", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        loginButton.setEnabled(false);
+        statusBar.showLoading("Signing in...");
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        SwingWorker<Boolean, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Boolean doInBackground() {
+                return authService.login(username, password);
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                loginButton.setEnabled(true);
+                statusBar.showDone(" ");
+                boolean loggedIn;
+                try {
+                    loggedIn = get();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof LoginRejectedException) {
+                        logger.warn("Login refused for username={}: {}", username, cause.getMessage());
+                        JOptionPane.showMessageDialog(LoginFrame.this, cause.getMessage(), "Sign-in Unavailable", JOptionPane.WARNING_MESSAGE);
+                    } else {
+                        logger.error("Login failed for username={}", username, cause);
+                        JOptionPane.showMessageDialog(LoginFrame.this, "Could not sign in: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                    return;
+                }
+                if (loggedIn) {
+                    logger.info("Login successful: username={}, role={}", username, authService.getCurrentUser().getRole());
+                    dispose();
+                    new MainDashboardFrame().setVisible(true);
+                } else {
+                    logger.warn("Login failed: invalid credentials for username={}", username);
+                    JOptionPane.showMessageDialog(LoginFrame.this, "Invalid username or password", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
     }
-}
\ No newline at end of file
+}
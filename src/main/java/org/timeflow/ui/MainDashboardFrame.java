@@ -2,6 +2,8 @@ package org.timeflow.ui;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.SemesterType;
 import org.timeflow.entity.Timetable;
 import org.timeflow.service.AuthenticationService;
 import org.timeflow.entity.User;
@@ -12,6 +14,7 @@ import org.timeflow.service.TimetableService;
 
 import javax.swing.*;
 import java.awt.*;
+import java.nio.file.Path;
 import java.util.List; // <-- FIX: Added the missing import
 
 public class MainDashboardFrame extends JFrame {
@@ -107,6 +110,7 @@ public class MainDashboardFrame extends JFrame {
         panel.add(createStyledButton("Manage Courses", e -> new CourseManagementFrame(authService.getCurrentUser()).setVisible(true)));
         panel.add(createStyledButton("Resolve Conflicts", e -> new ConflictManagementFrame(authService.getCurrentUser()).setVisible(true)));
         panel.add(createStyledButton("Approve Schedules", e -> new ApprovalDashboardFrame(authService.getCurrentUser()).setVisible(true)));
+        panel.add(createStyledButton("Roll Over Term", e -> new TermRolloverFrame(authService.getCurrentUser()).setVisible(true)));
     }
 
     private void addLecturerButtons(JPanel panel) {
@@ -122,6 +126,50 @@ public class MainDashboardFrame extends JFrame {
         panel.add(createStyledButton("Manage Exam Timetable", e -> new TimetableFrame(authService.getCurrentUser(), false).setVisible(true)));
         panel.add(createStyledButton("View Conflicts", e -> new ConflictManagementFrame(authService.getCurrentUser()).setVisible(true)));
         panel.add(createStyledButton("Approve Schedules", e -> new ApprovalDashboardFrame(authService.getCurrentUser()).setVisible(true)));
+        panel.add(createStyledButton("Roll Over Term", e -> new TermRolloverFrame(authService.getCurrentUser()).setVisible(true)));
+        panel.add(createStyledButton("Export All Timetables to PDF", e -> exportAllTimetables(panel)));
+    }
+
+    // Writes one PDF per cohort for the chosen semester into a folder, off the EDT
+    private void exportAllTimetables(JPanel panel) {
+        SemesterType semester = (SemesterType) JOptionPane.showInputDialog(panel, "Semester to export:", "Export All Timetables",
+                JOptionPane.QUESTION_MESSAGE, null, SemesterType.values(), SemesterType.current());
+        if (semester == null) {
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Choose Export Folder");
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showSaveDialog(panel) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path directory = chooser.getSelectedFile().toPath();
+
+        ReportService reportService = new ReportService();
+        panel.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        SwingWorker<Integer, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Integer doInBackground() {
+                return reportService.exportAllCohortPdfs(AcademicTerm.upcoming(semester), directory).size();
+            }
+
+            @Override
+            protected void done() {
+                panel.setCursor(Cursor.getDefaultCursor());
+                try {
+                    int written = get();
+                    String message = written == 0
+                            ? "There are no approved schedules for " + semester + "."
+                            : "Exported " + written + " timetable PDF(s) to " + directory + ".";
+                    JOptionPane.showMessageDialog(panel, message, "Export Complete", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    logger.error("Error exporting all timetables", e);
+                    JOptionPane.showMessageDialog(panel, "Could not export timetables: " + e.getCause().getMessage(),
+                            "Export Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
     }
 
     // --- FIX: This is the single, correct version of the method ---
@@ -143,7 +191,7 @@ public class MainDashboardFrame extends JFrame {
                     JOptionPane.showMessageDialog(panel, "You have no approved schedules to print.", "No Timetable", JOptionPane.INFORMATION_MESSAGE);
                     return;
                 }
-                reportService.generateTimetablePdf(currentUser, timetables);
+                reportService.generateTimetablePdf(currentUser);
             });
         });
         panel.add(printPdfButton);
@@ -0,0 +1,249 @@
+package org.timeflow.ui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.event.TimetableEvent;
+import org.timeflow.event.TimetableEventBus;
+import org.timeflow.metrics.QueryScope;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.AdjustmentListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Paged counterpart of {@link AsyncLoader}: fetches the first page of a result set on a
+ * worker thread and each further page only when asked to, typically as the table is
+ * scrolled towards its end (see {@link #loadMoreNearEnd}). Timetable changes can be
+ * applied to the loaded rows instead of starting over (see {@link #updateOnTimetableChanges}).
+ * Generation, cancellation and coalescing behave as in {@code AsyncLoader}. All methods
+ * must be called on the EDT.
+ */
+public class PagedLoader<E> {
+    private static final Logger logger = LoggerFactory.getLogger(PagedLoader.class);
+    private static final int DEFAULT_COALESCE_MILLIS = 200;
+
+    @FunctionalInterface
+    public interface PageFetcher<E> {
+        // Returns up to pageSize items following the given one (null for the first page)
+        List<E> fetch(E last, int pageSize) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ChangeFetcher<E> {
+        // Current state of those changed timetables that belong in the view; the others are removed
+        List<E> fetch(Set<Long> timetableIds) throws Exception;
+    }
+
+    private final String description;
+    private final PageFetcher<E> fetcher;
+    private final int pageSize;
+    private final Runnable reset;
+    private final Consumer<List<E>> appendPage;
+    private final Timer coalesceTimer;
+    private LoadingStatusBar statusBar;
+    private Consumer<TimetableEvent> busListener;
+
+    private ChangeFetcher<E> changeFetcher;
+    private BiConsumer<Set<Long>, List<E>> applyChanges;
+    private final Set<Long> changedIds = new LinkedHashSet<>();
+    private Timer changeTimer;
+
+    private long generation;
+    private SwingWorker<List<E>, Void> current;
+    private E last;
+    private int loaded;
+    private boolean exhausted;
+
+    public PagedLoader(String description, PageFetcher<E> fetcher, int pageSize,
+                       Runnable reset, Consumer<List<E>> appendPage) {
+        this.description = description;
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.reset = reset;
+        this.appendPage = appendPage;
+        this.coalesceTimer = new Timer(DEFAULT_COALESCE_MILLIS, e -> reloadNow());
+        this.coalesceTimer.setRepeats(false);
+    }
+
+    public PagedLoader<E> withStatusBar(LoadingStatusBar statusBar) {
+        this.statusBar = statusBar;
+        return this;
+    }
+
+    // Fetches the next page once the scroll pane is within one screen of the last loaded row
+    public PagedLoader<E> loadMoreNearEnd(JScrollPane scrollPane) {
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        AdjustmentListener listener = e -> {
+            if (bar.getValue() + 2 * bar.getVisibleAmount() >= bar.getMaximum()) {
+                loadMore();
+            }
+        };
+        bar.addAdjustmentListener(listener);
+        return this;
+    }
+
+    // Applies timetable changes to the loaded rows, coalesced and fetched off the EDT, until
+    // the window closes. applyChanges receives the changed ids and the rows fetched for them
+    public PagedLoader<E> updateOnTimetableChanges(Window window, ChangeFetcher<E> changeFetcher,
+                                                   BiConsumer<Set<Long>, List<E>> applyChanges) {
+        this.changeFetcher = changeFetcher;
+        this.applyChanges = applyChanges;
+        this.changeTimer = new Timer(DEFAULT_COALESCE_MILLIS, e -> applyPendingChanges());
+        this.changeTimer.setRepeats(false);
+        busListener = event -> SwingUtilities.invokeLater(() -> {
+            changedIds.add(event.getTimetableId());
+            changeTimer.restart();
+        });
+        TimetableEventBus.getInstance().addListener(busListener);
+        return bindTo(window);
+    }
+
+    public PagedLoader<E> bindTo(Window window) {
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                dispose();
+            }
+        });
+        return this;
+    }
+
+    public void reload() {
+        coalesceTimer.restart();
+    }
+
+    // Starts over from the first page
+    public void reloadNow() {
+        coalesceTimer.stop();
+        generation++;
+        if (current != null) {
+            current.cancel(false);
+            current = null;
+        }
+        changedIds.clear();
+        if (changeTimer != null) {
+            changeTimer.stop();
+        }
+        last = null;
+        loaded = 0;
+        exhausted = false;
+        reset.run();
+        fetchPage();
+    }
+
+    // Fetches the page after the last loaded row, unless one is already on its way
+    public void loadMore() {
+        if (current == null && !exhausted) {
+            fetchPage();
+        }
+    }
+
+    private void fetchPage() {
+        long loadGeneration = generation;
+        E after = last;
+        if (statusBar != null) {
+            statusBar.showLoading("Loading " + description + "...");
+        }
+
+        current = new SwingWorker<>() {
+            @Override
+            protected List<E> doInBackground() throws Exception {
+                // Checked per page: each page is one service call
+                try (QueryScope scope = QueryScope.checked("load " + description + " page")) {
+                    return fetcher.fetch(after, pageSize);
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (loadGeneration != generation || isCancelled()) {
+                    return;
+                }
+                current = null;
+                try {
+                    List<E> page = get();
+                    exhausted = page.size() < pageSize;
+                    if (!page.isEmpty()) {
+                        last = page.get(page.size() - 1);
+                        loaded += page.size();
+                        appendPage.accept(page);
+                    }
+                    if (statusBar != null) {
+                        statusBar.showDone(loaded + " " + description + " loaded"
+                                + (exhausted ? "" : ", scroll down for more"));
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.error("Failed to load {}", description, cause);
+                    if (statusBar != null) {
+                        statusBar.showError("Could not load " + description + ": " + cause.getMessage());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        current.execute();
+    }
+
+    private void applyPendingChanges() {
+        if (changedIds.isEmpty()) {
+            return;
+        }
+        long loadGeneration = generation;
+        Set<Long> ids = new LinkedHashSet<>(changedIds);
+        changedIds.clear();
+
+        new SwingWorker<List<E>, Void>() {
+            @Override
+            protected List<E> doInBackground() throws Exception {
+                try (QueryScope scope = QueryScope.checked("update " + description)) {
+                    return changeFetcher.fetch(ids);
+                }
+            }
+
+            @Override
+            protected void done() {
+                // A reload since started over and will pick these changes up itself
+                if (loadGeneration != generation) {
+                    return;
+                }
+                try {
+                    applyChanges.accept(ids, get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.error("Failed to update {}", description, cause);
+                    if (statusBar != null) {
+                        statusBar.showError("Could not update " + description + ": " + cause.getMessage());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    public void dispose() {
+        generation++;
+        coalesceTimer.stop();
+        if (changeTimer != null) {
+            changeTimer.stop();
+        }
+        if (current != null) {
+            current.cancel(false);
+            current = null;
+        }
+        if (busListener != null) {
+            TimetableEventBus.getInstance().removeListener(busListener);
+            busListener = null;
+        }
+    }
+}
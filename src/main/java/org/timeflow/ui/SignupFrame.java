@@ -6,6 +6,7 @@ import org.timeflow.dao.UserDAO;
 import org.timeflow.entity.Department;
 import org.timeflow.entity.User;
 import org.timeflow.entity.UserRole;
+import org.timeflow.service.ReferenceDataCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -224,7 +225,7 @@ public class SignupFrame extends JDialog {
 
     private void loadDepartments() {
         try {
-            List<Department> departments = departmentDAO.findAll();
+            List<Department> departments = ReferenceDataCache.getInstance().getDepartments();
             departmentComboBox.removeAllItems();
             nonStudentDeptComboBox.removeAllItems();
 
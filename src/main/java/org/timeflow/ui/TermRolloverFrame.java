@@ -0,0 +1,300 @@
+package org.timeflow.ui;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Room;
+import org.timeflow.entity.SemesterType;
+import org.timeflow.entity.User;
+import org.timeflow.entity.UserRole;
+import org.timeflow.service.ReferenceDataCache;
+import org.timeflow.service.RoomAllocationService;
+import org.timeflow.service.SemesterRolloverService;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts a new term from the same semester of an earlier year. Rooms that were retired and
+ * lecturers who handed over their courses are listed with their replacements; the copy and
+ * the conflict sweep then run in the background. The new term's rooms can then be re-packed
+ * to fit each class's size.
+ */
+public class TermRolloverFrame extends JFrame {
+    private static final Logger logger = LoggerFactory.getLogger(TermRolloverFrame.class);
+    private final User user;
+    private final SemesterRolloverService rolloverService;
+    private final RoomAllocationService roomAllocationService;
+    private JComboBox<SemesterType> semesterComboBox;
+    private JSpinner fromYearSpinner;
+    private JSpinner toYearSpinner;
+    private DefaultTableModel roomModel;
+    private DefaultTableModel lecturerModel;
+    private JButton rolloverButton;
+    private JButton repackButton;
+    private AsyncLoader<ReferenceData> referenceLoader;
+    private List<Choice> rooms = List.of();
+    private List<Choice> lecturers = List.of();
+
+    // Table cells hold these so the combo box editors show names but the mapping keeps ids
+    private record Choice(Long id, String label) {
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private record ReferenceData(List<Choice> rooms, List<Choice> lecturers) {
+    }
+
+    public TermRolloverFrame(User user) {
+        this.user = user;
+        this.rolloverService = new SemesterRolloverService();
+        this.roomAllocationService = new RoomAllocationService();
+        initComponents();
+        setTitle("TimeFlow - Roll Over Term");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(800, 600);
+        setLocationRelativeTo(null);
+    }
+
+    private void initComponents() {
+        setLayout(new BorderLayout(10, 10));
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        mainPanel.setBackground(Color.WHITE);
+
+        JPanel header = new JPanel(new BorderLayout());
+        header.setBackground(Color.WHITE);
+        JLabel titleLabel = new JLabel("Roll Over Term");
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 24));
+        header.add(titleLabel, BorderLayout.NORTH);
+
+        JPanel termPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        termPanel.setBackground(Color.WHITE);
+        int upcoming = SemesterType.current().upcomingAcademicYear();
+        semesterComboBox = new JComboBox<>(SemesterType.values());
+        semesterComboBox.setSelectedItem(SemesterType.current());
+        fromYearSpinner = yearSpinner(upcoming - 1);
+        toYearSpinner = yearSpinner(upcoming);
+        termPanel.add(new JLabel("Copy approved"));
+        termPanel.add(semesterComboBox);
+        termPanel.add(new JLabel("slots of academic year"));
+        termPanel.add(fromYearSpinner);
+        termPanel.add(new JLabel("into"));
+        termPanel.add(toYearSpinner);
+        header.add(termPanel, BorderLayout.CENTER);
+        mainPanel.add(header, BorderLayout.NORTH);
+
+        roomModel = mappingModel("Retired room", "Replacement room");
+        lecturerModel = mappingModel("Previous lecturer", "New lecturer");
+        JPanel mappings = new JPanel(new GridLayout(1, 2, 10, 0));
+        mappings.setBackground(Color.WHITE);
+        mappings.add(mappingPanel("Room replacements", roomModel, () -> rooms));
+        mappings.add(mappingPanel("Lecturer reassignments", lecturerModel, () -> lecturers));
+        mainPanel.add(mappings, BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttonPanel.setBackground(Color.WHITE);
+        rolloverButton = createStyledButton("Roll Over");
+        rolloverButton.addActionListener(e -> handleRollover());
+        buttonPanel.add(rolloverButton);
+        repackButton = createStyledButton("Re-pack Rooms");
+        repackButton.setToolTipText("Move the target term's unapproved slots to rooms that fit their class size");
+        repackButton.addActionListener(e -> handleRepack());
+        buttonPanel.add(repackButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+        add(mainPanel, BorderLayout.CENTER);
+
+        LoadingStatusBar statusBar = new LoadingStatusBar();
+        add(statusBar, BorderLayout.SOUTH);
+        referenceLoader = new AsyncLoader<>("rooms and lecturers", this::fetchReferenceData, data -> {
+            rooms = data.rooms();
+            lecturers = data.lecturers();
+        })
+                .withStatusBar(statusBar)
+                .withBusyCursor(this)
+                .bindTo(this);
+        referenceLoader.reloadNow();
+    }
+
+    private ReferenceData fetchReferenceData() {
+        ReferenceDataCache cache = ReferenceDataCache.getInstance();
+        List<Choice> roomChoices = new ArrayList<>();
+        for (Room room : cache.getRooms()) {
+            roomChoices.add(new Choice(room.getId(), room.toString()));
+        }
+        List<Choice> lecturerChoices = new ArrayList<>();
+        for (User lecturer : cache.getLecturers()) {
+            lecturerChoices.add(new Choice(lecturer.getId(), lecturer.getUsername()));
+        }
+        return new ReferenceData(roomChoices, lecturerChoices);
+    }
+
+    private static JSpinner yearSpinner(int year) {
+        JSpinner spinner = new JSpinner(new SpinnerNumberModel(year, 2000, 2100, 1));
+        spinner.setEditor(new JSpinner.NumberEditor(spinner, "#"));
+        return spinner;
+    }
+
+    private static DefaultTableModel mappingModel(String from, String to) {
+        return new DefaultTableModel(new String[]{from, to}, 0);
+    }
+
+    private JPanel mappingPanel(String title, DefaultTableModel model, java.util.function.Supplier<List<Choice>> choices) {
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBackground(Color.WHITE);
+        panel.setBorder(BorderFactory.createTitledBorder(title));
+
+        JTable table = new JTable(model);
+        table.setRowHeight(28);
+        JScrollPane scrollPane = new JScrollPane(table);
+        panel.add(scrollPane, BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttons.setBackground(Color.WHITE);
+        JButton addButton = new JButton("Add");
+        addButton.addActionListener(e -> {
+            // Editors are built from the latest load, which may have finished after the frame opened
+            JComboBox<Choice> editor = new JComboBox<>(choices.get().toArray(new Choice[0]));
+            for (int column = 0; column < 2; column++) {
+                table.getColumnModel().getColumn(column).setCellEditor(new DefaultCellEditor(editor));
+            }
+            model.addRow(new Object[]{null, null});
+        });
+        JButton removeButton = new JButton("Remove");
+        removeButton.addActionListener(e -> {
+            int row = table.getSelectedRow();
+            if (row != -1) {
+                if (table.isEditing()) {
+                    table.getCellEditor().cancelCellEditing();
+                }
+                model.removeRow(row);
+            }
+        });
+        buttons.add(addButton);
+        buttons.add(removeButton);
+        panel.add(buttons, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    // Complete rows only; a row left half filled in is ignored
+    private static Map<Long, Long> mapping(DefaultTableModel model) {
+        Map<Long, Long> ids = new LinkedHashMap<>();
+        for (int row = 0; row < model.getRowCount(); row++) {
+            Object from = model.getValueAt(row, 0);
+            Object to = model.getValueAt(row, 1);
+            if (from instanceof Choice && to instanceof Choice && !from.equals(to)) {
+                ids.put(((Choice) from).id(), ((Choice) to).id());
+            }
+        }
+        return ids;
+    }
+
+    private void handleRollover() {
+        SemesterType semester = (SemesterType) semesterComboBox.getSelectedItem();
+        int fromYear = (Integer) fromYearSpinner.getValue();
+        int toYear = (Integer) toYearSpinner.getValue();
+        if (fromYear == toYear) {
+            JOptionPane.showMessageDialog(this, "Choose two different academic years.", "Warning", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        Map<Long, Long> roomReplacements = mapping(roomModel);
+        Map<Long, Long> lecturerReassignments = mapping(lecturerModel);
+
+        String question = String.format("Copy the approved %s slots of %d/%d%s into %d/%d as drafts?%s",
+                semester, fromYear, fromYear + 1,
+                user.getRole() == UserRole.ADMIN || user.getDepartment() == null ? "" : " in " + user.getDepartment().getName(),
+                toYear, toYear + 1,
+                lecturerReassignments.isEmpty() ? ""
+                        : "\nReassigned lecturers take over the affected courses. Courses also running or planned"
+                        + "\nin another term are refused; reassign those on the course itself.");
+        if (JOptionPane.showConfirmDialog(this, question, "Confirm Rollover", JOptionPane.YES_NO_OPTION)
+                != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        rolloverButton.setEnabled(false);
+        SwingWorker<SemesterRolloverService.RolloverResult, Void> worker = new SwingWorker<>() {
+            @Override
+            protected SemesterRolloverService.RolloverResult doInBackground() {
+                return rolloverService.rollover(semester, fromYear, toYear, roomReplacements, lecturerReassignments, user);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    SemesterRolloverService.RolloverResult result = get();
+                    String message = result.getCopied() == 0
+                            ? "There were no approved slots left to copy."
+                            : result.getCopied() + " slot(s) copied as drafts.\n"
+                            + (result.getConflictedSlots() == 0
+                            ? "No conflicts were found; approve them from 'Approve Schedules'."
+                            : result.getConflictedSlots() + " of them have conflicts to resolve first.");
+                    JOptionPane.showMessageDialog(TermRolloverFrame.this, message, "Rollover Complete", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.error("Term rollover failed", cause);
+                    JOptionPane.showMessageDialog(TermRolloverFrame.this, "Rollover failed: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    rolloverButton.setEnabled(true);
+                    setCursor(Cursor.getDefaultCursor());
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private void handleRepack() {
+        AcademicTerm term = new AcademicTerm((Integer) toYearSpinner.getValue(), (SemesterType) semesterComboBox.getSelectedItem());
+        String question = "Move the unapproved slots of " + term + " to the smallest free rooms that seat their classes?";
+        if (JOptionPane.showConfirmDialog(this, question, "Confirm Re-pack", JOptionPane.YES_NO_OPTION)
+                != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        repackButton.setEnabled(false);
+        SwingWorker<RoomAllocationService.RepackResult, Void> worker = new SwingWorker<>() {
+            @Override
+            protected RoomAllocationService.RepackResult doInBackground() {
+                return roomAllocationService.repackTerm(term, user);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    RoomAllocationService.RepackResult result = get();
+                    String message = result.getMoved() + " of " + result.getConsidered() + " slot(s) moved.\n"
+                            + (result.getOverCapacity() == 0
+                            ? "Every class now fits its room."
+                            : result.getOverCapacity() + " class(es) are still larger than any free room.");
+                    JOptionPane.showMessageDialog(TermRolloverFrame.this, message, "Re-pack Complete", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.error("Room re-pack failed", cause);
+                    JOptionPane.showMessageDialog(TermRolloverFrame.this, "Re-pack failed: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    repackButton.setEnabled(true);
+                    setCursor(Cursor.getDefaultCursor());
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private JButton createStyledButton(String text) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        button.setBackground(new Color(7, 8, 9));
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        return button;
+    }
+}
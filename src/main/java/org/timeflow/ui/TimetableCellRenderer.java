@@ -0,0 +1,83 @@
+package org.timeflow.ui;
+
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.TimetableStatus;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The one renderer used for every cell of the timetable table. Swing stamps it onto each
+ * visible cell in turn, so painting cost depends on the viewport, not on the number of rows.
+ */
+public class TimetableCellRenderer extends DefaultTableCellRenderer {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final Color STRIPE = new Color(248, 249, 250);
+    private static final Color PENDING = new Color(255, 193, 7);
+    private static final Color CONFLICTED = new Color(220, 53, 69);
+    private static final Color APPROVED = new Color(40, 167, 69);
+    private static final EmptyBorder PADDING = new EmptyBorder(0, 8, 0, 8);
+
+    private final Font plainFont = new Font("Segoe UI", Font.PLAIN, 14);
+    private final Font boldFont = new Font("Segoe UI", Font.BOLD, 14);
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        setBorder(PADDING);
+
+        TimetableTableModel model = (TimetableTableModel) table.getModel();
+        Timetable t = model.getTimetableAt(table.convertRowIndexToModel(row));
+        int modelColumn = table.convertColumnIndexToModel(column);
+
+        setFont(modelColumn == TimetableTableModel.DAY || modelColumn == TimetableTableModel.TIME ? boldFont : plainFont);
+        setText(format(t, modelColumn));
+        if (!isSelected) {
+            setBackground(row % 2 == 0 ? Color.WHITE : STRIPE);
+            setForeground(modelColumn == TimetableTableModel.STATUS ? statusColor(t.getStatus()) : table.getForeground());
+        }
+        return this;
+    }
+
+    private static String format(Timetable t, int column) {
+        switch (column) {
+            case TimetableTableModel.DAY:
+                return t.getSpecificDate() != null ? t.getSpecificDate().toString()
+                        : t.getDayOfWeek() != null ? t.getDayOfWeek().toString() : "";
+            case TimetableTableModel.TIME:
+                return t.getStartTime().format(TIME_FORMAT) + " - " + t.getEndTime().format(TIME_FORMAT);
+            case TimetableTableModel.COURSE:
+                return t.getCourse().getName() + " (" + t.getCourse().getCode() + ")";
+            case TimetableTableModel.TYPE:
+                return t.getType() != null ? t.getType().toString() : "";
+            case TimetableTableModel.ROOM:
+                return t.getRoom() != null ? t.getRoom().getName() : "";
+            case TimetableTableModel.LECTURER:
+                return t.getCourse().getLecturer() != null ? t.getCourse().getLecturer().getUsername() : "N/A";
+            case TimetableTableModel.STATUS:
+                return t.getStatus() != null ? t.getStatus().toString() : "";
+            default:
+                return "";
+        }
+    }
+
+    private static Color statusColor(TimetableStatus status) {
+        if (status == null) {
+            return Color.DARK_GRAY;
+        }
+        switch (status) {
+            case APPROVED:
+                return APPROVED;
+            case CONFLICTED:
+                return CONFLICTED;
+            case PENDING_APPROVAL:
+                return PENDING;
+            default:
+                return Color.DARK_GRAY;
+        }
+    }
+}
@@ -2,36 +2,37 @@ package org.timeflow.ui;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.timeflow.dao.CourseDAO;
-import org.timeflow.dao.RoomDAO;
+import org.timeflow.dao.OptimisticUpdateException;
 import org.timeflow.entity.*;
 import org.timeflow.service.AuthenticationService;
 import org.timeflow.service.NotificationService;
+import org.timeflow.service.ReferenceDataCache;
+import org.timeflow.service.RoomAllocationService;
 import org.timeflow.service.TimetableService;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class TimetableFrame extends JDialog {
     private static final Logger logger = LoggerFactory.getLogger(TimetableFrame.class);
     private final User user;
     private final TimetableService timetableService;
-    private final CourseDAO courseDAO;
-    private final RoomDAO roomDAO;
+    private final ReferenceDataCache referenceData;
     private final NotificationService notificationService;
+    private final RoomAllocationService roomAllocationService;
     private Timetable timetableToEdit;
     private JPanel mainViewPanel;
 
@@ -41,10 +42,25 @@ public class TimetableFrame extends JDialog {
     private JSpinner startTimeSpinner;
     private JSpinner endTimeSpinner;
     private JComboBox<Room> roomComboBox;
+    private JButton bestFitButton;
     private JComboBox<ActivityType> typeComboBox;
     private JComboBox<SemesterType> semesterComboBox;
     private JSpinner specificDateSpinner;
     private JCheckBox isSingleDayEventCheckBox;
+    private JButton saveButton;
+
+    private static final int PAGE_SIZE = 500;
+
+    private TimetableTableModel timetableModel;
+    private JTable timetableTable;
+    private JScrollPane timetableScrollPane;
+    private PagedLoader<Timetable> timetableLoader;
+    private JPopupMenu entryPopup;
+    private JMenuItem contactLecturerItem;
+    private AsyncLoader<FormData> formLoader;
+
+    private record FormData(List<Course> courses, List<Room> rooms) {
+    }
 
     public TimetableFrame(User user, boolean createMode) {
         this(user, createMode, null);
@@ -54,12 +70,13 @@ public class TimetableFrame extends JDialog {
         super((Frame) null, true);
         this.user = user;
         this.timetableService = new TimetableService();
-        this.courseDAO = new CourseDAO();
-        this.roomDAO = new RoomDAO();
+        this.referenceData = ReferenceDataCache.getInstance();
         this.notificationService = new NotificationService();
+        this.roomAllocationService = new RoomAllocationService();
         this.timetableToEdit = timetableToEdit;
         initComponents(createMode);
         setTitle(createMode ? (timetableToEdit == null ? "Create Schedule" : "Edit Schedule") : "View/Manage Timetable");
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
         setSize(createMode ? 600 : 800, 700);
         setMinimumSize(new Dimension(createMode ? 450 : 600, 550));
         setLocationRelativeTo(null);
@@ -67,56 +84,146 @@ public class TimetableFrame extends JDialog {
     }
 
     private void initComponents(boolean createMode) {
+        LoadingStatusBar statusBar = new LoadingStatusBar();
+        add(statusBar, BorderLayout.SOUTH);
         if (createMode && AuthenticationService.getInstance().canManageTimetables()) {
             add(createSchedulePanel(), BorderLayout.CENTER);
+            formLoader = new AsyncLoader<>("courses and rooms", this::fetchFormData, this::populateForm)
+                    .withStatusBar(statusBar)
+                    .withSummary(data -> "Ready")
+                    .bindTo(this);
+            formLoader.reloadNow();
         } else {
-            mainViewPanel = new JPanel(new BorderLayout());
-            mainViewPanel.add(new JScrollPane(createTimetableViewPanel()), BorderLayout.CENTER);
+            mainViewPanel = createTimetableViewPanel();
             add(mainViewPanel, BorderLayout.CENTER);
+            timetableLoader = new PagedLoader<>("timetable entries", this::fetchTimetablePage, PAGE_SIZE,
+                    timetableModel::clear, timetableModel::appendPage)
+                    .withStatusBar(statusBar)
+                    .loadMoreNearEnd(timetableScrollPane)
+                    .updateOnTimetableChanges(this, this::fetchChangedTimetables, timetableModel::applyChanges);
+            timetableLoader.reloadNow();
         }
     }
 
     private JPanel createTimetableViewPanel() {
-        JPanel mainPanel = new JPanel();
-        mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
+        JPanel mainPanel = new JPanel(new BorderLayout());
         mainPanel.setBackground(Color.WHITE);
         mainPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
 
-        List<Timetable> timetables = getTimetablesForUser();
-        Map<DayOfWeek, List<Timetable>> groupedByDay = timetables.stream()
-                .filter(t -> t.getDayOfWeek() != null)
-                .collect(Collectors.groupingBy(Timetable::getDayOfWeek));
-        groupedByDay.values().forEach(list -> list.sort((t1, t2) -> t1.getStartTime().compareTo(t2.getStartTime())));
-
-        boolean hasSchedules = false;
-        for (DayOfWeek day : DayOfWeek.values()) {
-            if (day.getValue() > 5) continue;
-            List<Timetable> daySchedules = groupedByDay.get(day);
-
-            if (daySchedules != null && !daySchedules.isEmpty()) {
-                hasSchedules = true;
-                JLabel dayLabel = new JLabel(day.toString());
-                dayLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
-                dayLabel.setBorder(BorderFactory.createMatteBorder(0, 0, 2, 0, new Color(220, 220, 220)));
-                dayLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-                mainPanel.add(dayLabel);
-                mainPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-
-                for (Timetable entry : daySchedules) {
-                    JPanel entryPanel = createTimetableEntryPanel(entry);
-                    entryPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
-                    mainPanel.add(entryPanel);
-                    mainPanel.add(Box.createRigidArea(new Dimension(0, 15)));
-                }
-            }
+        timetableModel = new TimetableTableModel();
+        timetableTable = new JTable(timetableModel);
+        timetableTable.setRowHeight(30);
+        timetableTable.setFillsViewportHeight(true);
+        timetableTable.setShowVerticalLines(false);
+        timetableTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        TimetableCellRenderer renderer = new TimetableCellRenderer();
+        for (int i = 0; i < timetableTable.getColumnCount(); i++) {
+            timetableTable.getColumnModel().getColumn(i).setCellRenderer(renderer);
         }
+        timetableTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
+
+        TableRowSorter<TimetableTableModel> sorter = new TableRowSorter<>(timetableModel);
+        sorter.setSortKeys(List.of(
+                new RowSorter.SortKey(TimetableTableModel.DAY, SortOrder.ASCENDING),
+                new RowSorter.SortKey(TimetableTableModel.TIME, SortOrder.ASCENDING)));
+        timetableTable.setRowSorter(sorter);
+
+        if (user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.EXAMS_OFFICER) {
+            entryPopup = createEntryPopup();
+            timetableTable.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    maybeShowPopup(e);
+                }
 
-        if (!hasSchedules) {
-            mainPanel.add(new JLabel("No schedules found for this timetable."));
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    maybeShowPopup(e);
+                }
+            });
         }
+
+        timetableScrollPane = new JScrollPane(timetableTable);
+        mainPanel.add(timetableScrollPane, BorderLayout.CENTER);
         return mainPanel;
     }
 
+    // Runs on a worker thread. Admins and exams officers page through what can be the whole
+    // campus; students and lecturers get their own (small) timetable as a single page.
+    private List<Timetable> fetchTimetablePage(Timetable last, int pageSize) {
+        long afterId = last != null ? last.getId() : 0L;
+        switch (user.getRole()) {
+            case ADMIN:
+                return timetableService.getTimetablePage(null, afterId, pageSize);
+            case EXAMS_OFFICER:
+                return user.getDepartment() != null
+                        ? timetableService.getTimetablePage(user.getDepartment(), afterId, pageSize)
+                        : Collections.emptyList();
+            default:
+                return last == null ? getTimetablesForUser() : Collections.emptyList();
+        }
+    }
+
+    // Runs on a worker thread: the changed slots as this view shows them, for in-place row updates
+    private List<Timetable> fetchChangedTimetables(Set<Long> timetableIds) {
+        switch (user.getRole()) {
+            case ADMIN:
+                return timetableService.getTimetablePageRows(null, timetableIds);
+            case EXAMS_OFFICER:
+                return user.getDepartment() != null
+                        ? timetableService.getTimetablePageRows(user.getDepartment(), timetableIds)
+                        : Collections.emptyList();
+            default:
+                return getTimetablesForUser().stream()
+                        .filter(timetable -> timetableIds.contains(timetable.getId()))
+                        .collect(Collectors.toList());
+        }
+    }
+
+    // One popup for the whole table, acting on the row under the cursor
+    private void maybeShowPopup(MouseEvent e) {
+        if (!e.isPopupTrigger()) {
+            return;
+        }
+        int viewRow = timetableTable.rowAtPoint(e.getPoint());
+        if (viewRow < 0) {
+            return;
+        }
+        timetableTable.setRowSelectionInterval(viewRow, viewRow);
+        Timetable entry = timetableModel.getTimetableAt(timetableTable.convertRowIndexToModel(viewRow));
+        contactLecturerItem.setEnabled(entry.getCourse().getLecturer() != null);
+        entryPopup.show(timetableTable, e.getX(), e.getY());
+    }
+
+    private Timetable selectedEntry() {
+        int viewRow = timetableTable.getSelectedRow();
+        return viewRow < 0 ? null : timetableModel.getTimetableAt(timetableTable.convertRowIndexToModel(viewRow));
+    }
+
+    private JPopupMenu createEntryPopup() {
+        JPopupMenu popupMenu = new JPopupMenu();
+        JMenuItem editItem = new JMenuItem("Edit Schedule");
+        JMenuItem deleteItem = new JMenuItem("Delete Schedule");
+        contactLecturerItem = new JMenuItem("Contact Lecturer");
+
+        editItem.addActionListener(e -> withSelectedEntry(this::handleEdit));
+        deleteItem.addActionListener(e -> withSelectedEntry(this::handleDelete));
+        contactLecturerItem.addActionListener(e -> withSelectedEntry(this::handleContactLecturer));
+
+        popupMenu.add(editItem);
+        popupMenu.add(deleteItem);
+        popupMenu.addSeparator();
+        popupMenu.add(contactLecturerItem);
+        return popupMenu;
+    }
+
+    private void withSelectedEntry(Consumer<Timetable> action) {
+        Timetable entry = selectedEntry();
+        if (entry != null) {
+            action.accept(entry);
+        }
+    }
+
     private List<Timetable> getTimetablesForUser() {
         UserRole role = user.getRole();
         logger.info("Loading timetable view for user role: {}", role);
@@ -134,65 +241,6 @@ public class TimetableFrame extends JDialog {
         }
     }
 
-    private JPanel createTimetableEntryPanel(Timetable entry) {
-        JPanel panel = new JPanel(new BorderLayout(15, 5));
-        panel.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(new Color(230, 230, 230)),
-                new EmptyBorder(10, 10, 10, 10)));
-        panel.setBackground(new Color(248, 249, 250));
-        panel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 80));
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-        String timeString = "<html>" + entry.getStartTime().format(formatter) + "<br>" + entry.getEndTime().format(formatter) + "</html>";
-        JLabel timeLabel = new JLabel(timeString);
-        timeLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        timeLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        panel.add(timeLabel, BorderLayout.WEST);
-
-        JPanel detailsPanel = new JPanel();
-        detailsPanel.setLayout(new BoxLayout(detailsPanel, BoxLayout.Y_AXIS));
-        detailsPanel.setOpaque(false);
-
-        JLabel courseLabel = new JLabel(entry.getCourse().getName() + " (" + entry.getCourse().getCode() + ")");
-        courseLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        detailsPanel.add(courseLabel);
-
-        String lecturerInfo = (entry.getCourse().getLecturer() != null) ? " | " + entry.getCourse().getLecturer().getUsername() : "";
-        JLabel locationLabel = new JLabel(entry.getRoom().getName() + " (" + entry.getType() + ")" + lecturerInfo);
-        locationLabel.setFont(new Font("Segoe UI", Font.ITALIC, 12));
-        detailsPanel.add(locationLabel);
-
-        panel.add(detailsPanel, BorderLayout.CENTER);
-
-        if (user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.EXAMS_OFFICER) {
-            JPopupMenu popupMenu = new JPopupMenu();
-            JMenuItem editItem = new JMenuItem("Edit Schedule");
-            JMenuItem deleteItem = new JMenuItem("Delete Schedule");
-            JMenuItem contactItem = new JMenuItem("Contact Lecturer");
-
-            editItem.addActionListener(e -> handleEdit(entry));
-            deleteItem.addActionListener(e -> handleDelete(entry));
-            contactItem.addActionListener(e -> handleContactLecturer(entry));
-
-            popupMenu.add(editItem);
-            popupMenu.add(deleteItem);
-            popupMenu.addSeparator();
-            popupMenu.add(contactItem);
-
-            contactItem.setEnabled(entry.getCourse().getLecturer() != null);
-
-            panel.addMouseListener(new MouseAdapter() {
-                public void mousePressed(MouseEvent e) {
-                    if (SwingUtilities.isRightMouseButton(e)) {
-                        popupMenu.show(e.getComponent(), e.getX(), e.getY());
-                    }
-                }
-            });
-        }
-        return panel;
-    }
-
     private void handleContactLecturer(Timetable entry) {
         User lecturer = entry.getCourse().getLecturer();
         if (lecturer == null) {
@@ -201,15 +249,15 @@ public class TimetableFrame extends JDialog {
         }
         String message = JOptionPane.showInputDialog(this, "Enter message for " + lecturer.getUsername() + ":", "Contact Lecturer", JOptionPane.PLAIN_MESSAGE);
         if (message != null && !message.trim().isEmpty()) {
-            notificationService.sendAdminInquiryToLecturer(user, lecturer, entry, message);
-            JOptionPane.showMessageDialog(this, "Message sent.", "Success", JOptionPane.INFORMATION_MESSAGE);
+            // SMTP can take seconds; send off the EDT
+            runInBackground(() -> notificationService.sendAdminInquiryToLecturer(user, lecturer, entry, message),
+                    "Message sent.", "Could not send message");
         }
     }
 
     private void handleEdit(Timetable entry) {
         logger.info("User {} is editing timetable ID: {}", user.getUsername(), entry.getId());
         new TimetableFrame(user, true, entry).setVisible(true);
-        refreshTimetableView();
     }
 
     private void handleDelete(Timetable entry) {
@@ -218,21 +266,39 @@ public class TimetableFrame extends JDialog {
                 "Confirm Deletion", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (choice == JOptionPane.YES_OPTION) {
-            try {
-                timetableService.deleteTimetable(entry.getId());
-                refreshTimetableView();
-            } catch (Exception e) {
-                logger.error("Failed to delete timetable ID: {}", entry.getId(), e);
-                JOptionPane.showMessageDialog(this, "Could not delete schedule: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            // The table drops the row when the deletion's timetable event arrives
+            runInBackground(() -> timetableService.deleteTimetable(entry.getId()),
+                    null, "Could not delete schedule");
         }
     }
 
-    private void refreshTimetableView() {
-        mainViewPanel.removeAll();
-        mainViewPanel.add(new JScrollPane(createTimetableViewPanel()), BorderLayout.CENTER);
-        mainViewPanel.revalidate();
-        mainViewPanel.repaint();
+    // Runs a service call on a worker thread with a wait cursor, then reports the outcome;
+    // a null success message reports failures only
+    private void runInBackground(Runnable action, String successMessage, String failureMessage) {
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() {
+                action.run();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    get();
+                    if (successMessage != null) {
+                        JOptionPane.showMessageDialog(TimetableFrame.this, successMessage, "Success", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.error(failureMessage, cause);
+                    JOptionPane.showMessageDialog(TimetableFrame.this, failureMessage + ": " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
     }
 
     private JPanel createSchedulePanel() {
@@ -247,7 +313,7 @@ public class TimetableFrame extends JDialog {
 
         gbc.gridx = 0; gbc.gridy = 0; formPanel.add(new JLabel("Course:"), gbc);
         courseComboBox = new JComboBox<>();
-        loadCourses();
+        courseComboBox.setEnabled(false);
         gbc.gridx = 1; gbc.gridy = 0; gbc.weightx = 1.0; formPanel.add(courseComboBox, gbc);
 
         gbc.gridx = 0; gbc.gridy = 1; formPanel.add(new JLabel("Semester:"), gbc);
@@ -261,8 +327,26 @@ public class TimetableFrame extends JDialog {
 
         gbc.gridx = 0; gbc.gridy = 3; formPanel.add(new JLabel("Room:"), gbc);
         roomComboBox = new JComboBox<>();
-        loadRooms();
-        gbc.gridx = 1; gbc.gridy = 3; formPanel.add(roomComboBox, gbc);
+        roomComboBox.setEnabled(false);
+        roomComboBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value instanceof Room && ((Room) value).getCapacity() > 0) {
+                    setText(value + " (" + ((Room) value).getCapacity() + " seats)");
+                }
+                return this;
+            }
+        });
+        // Picks the smallest room free at the chosen time that seats the course's students
+        bestFitButton = new JButton("Best Fit");
+        bestFitButton.setEnabled(false);
+        bestFitButton.addActionListener(e -> suggestRoom());
+        JPanel roomPanel = new JPanel(new BorderLayout(5, 0));
+        roomPanel.setOpaque(false);
+        roomPanel.add(roomComboBox, BorderLayout.CENTER);
+        roomPanel.add(bestFitButton, BorderLayout.EAST);
+        gbc.gridx = 1; gbc.gridy = 3; formPanel.add(roomPanel, gbc);
 
         gbc.gridx = 0; gbc.gridy = 4; formPanel.add(new JLabel("Start Time:"), gbc);
         startTimeSpinner = new JSpinner(new SpinnerDateModel());
@@ -290,12 +374,10 @@ public class TimetableFrame extends JDialog {
         isSingleDayEventCheckBox.addActionListener(e -> toggleEventFields());
         toggleEventFields();
 
-        if (timetableToEdit != null) {
-            prefillFormForEdit();
-        }
-
-        JButton saveButton = new JButton(timetableToEdit == null ? "Save Schedule" : "Update Schedule");
+        // Enabled once courses and rooms have loaded
+        saveButton = new JButton(timetableToEdit == null ? "Save Schedule" : "Update Schedule");
         saveButton.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        saveButton.setEnabled(false);
         saveButton.addActionListener(e -> saveSchedule());
         gbc.gridx = 0; gbc.gridy = 9; gbc.gridwidth = 2; gbc.fill = GridBagConstraints.NONE; formPanel.add(saveButton, gbc);
 
@@ -328,32 +410,94 @@ public class TimetableFrame extends JDialog {
         toggleEventFields();
     }
 
+    // Copies the form's values into the timetable
+    private Timetable readForm(Timetable timetable) {
+        Date startTimeDate = (Date) startTimeSpinner.getValue();
+        Date endTimeDate = (Date) endTimeSpinner.getValue();
+        timetable.setCourse((Course) courseComboBox.getSelectedItem());
+        timetable.setSemester((SemesterType) semesterComboBox.getSelectedItem());
+        timetable.setRoom((Room) roomComboBox.getSelectedItem());
+        timetable.setType((ActivityType) typeComboBox.getSelectedItem());
+        timetable.setStartTime(startTimeDate.toInstant().atZone(ZoneId.systemDefault()).toLocalTime());
+        timetable.setEndTime(endTimeDate.toInstant().atZone(ZoneId.systemDefault()).toLocalTime());
+
+        if (isSingleDayEventCheckBox.isSelected()) {
+            Date specificDateValue = (Date) specificDateSpinner.getValue();
+            timetable.setSpecificDate(specificDateValue.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+            timetable.setDayOfWeek(null);
+        } else {
+            timetable.setDayOfWeek((DayOfWeek) dayComboBox.getSelectedItem());
+            timetable.setSpecificDate(null);
+        }
+        return timetable;
+    }
+
+    private void suggestRoom() {
+        if (isSingleDayEventCheckBox.isSelected()) {
+            JOptionPane.showMessageDialog(this, "Best fit is available for weekly slots only.", "Best Fit", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        // A scratch copy, so the slot being edited is only changed on save
+        Timetable slot = readForm(new Timetable());
+        if (timetableToEdit != null) {
+            slot.setId(timetableToEdit.getId());
+            slot.setAcademicYear(timetableToEdit.getAcademicYear());
+        }
+        bestFitButton.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        SwingWorker<Room, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Room doInBackground() {
+                return roomAllocationService.suggestRoom(slot);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    Room room = get();
+                    if (room == null) {
+                        JOptionPane.showMessageDialog(TimetableFrame.this, "Every room is taken at that time.", "Best Fit", JOptionPane.INFORMATION_MESSAGE);
+                        return;
+                    }
+                    for (int i = 0; i < roomComboBox.getItemCount(); i++) {
+                        if (roomComboBox.getItemAt(i).getId().equals(room.getId())) {
+                            roomComboBox.setSelectedIndex(i);
+                        }
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to suggest a room", e);
+                    JOptionPane.showMessageDialog(TimetableFrame.this, "Failed to suggest a room: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    bestFitButton.setEnabled(true);
+                    setCursor(Cursor.getDefaultCursor());
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    // False when the room is too small for the course and the planner chose not to go ahead
+    private boolean confirmCapacity(Timetable timetable) {
+        Room room = timetable.getRoom();
+        if (room == null || room.getCapacity() <= 0) {
+            return true;
+        }
+        int expected = roomAllocationService.expectedStudents(timetable);
+        if (expected <= room.getCapacity()) {
+            return true;
+        }
+        String question = String.format("%s seats %d, but %d students are expected in %s.%n"
+                        + "Save anyway? It will be recorded as a capacity conflict.",
+                room.getName(), room.getCapacity(), expected, timetable.getCourse().getCode());
+        return JOptionPane.showConfirmDialog(this, question, "Room Too Small", JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION;
+    }
+
     private void saveSchedule() {
         try {
-            Course course = (Course) courseComboBox.getSelectedItem();
-            SemesterType semester = (SemesterType) semesterComboBox.getSelectedItem();
-            Room room = (Room) roomComboBox.getSelectedItem();
-            ActivityType type = (ActivityType) typeComboBox.getSelectedItem();
-            Date startTimeDate = (Date) startTimeSpinner.getValue();
-            LocalTime startTime = startTimeDate.toInstant().atZone(ZoneId.systemDefault()).toLocalTime();
-            Date endTimeDate = (Date) endTimeSpinner.getValue();
-            LocalTime endTime = endTimeDate.toInstant().atZone(ZoneId.systemDefault()).toLocalTime();
-
-            Timetable timetable = (timetableToEdit != null) ? timetableToEdit : new Timetable();
-            timetable.setCourse(course);
-            timetable.setSemester(semester);
-            timetable.setRoom(room);
-            timetable.setType(type);
-            timetable.setStartTime(startTime);
-            timetable.setEndTime(endTime);
-
-            if (isSingleDayEventCheckBox.isSelected()) {
-                Date specificDateValue = (Date) specificDateSpinner.getValue();
-                timetable.setSpecificDate(specificDateValue.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
-                timetable.setDayOfWeek(null);
-            } else {
-                timetable.setDayOfWeek((DayOfWeek) dayComboBox.getSelectedItem());
-                timetable.setSpecificDate(null);
+            Timetable timetable = readForm((timetableToEdit != null) ? timetableToEdit : new Timetable());
+            if (!confirmCapacity(timetable)) {
+                return;
             }
 
             if (timetableToEdit != null) {
@@ -368,6 +512,11 @@ public class TimetableFrame extends JDialog {
                 JOptionPane.showMessageDialog(this, feedbackMessage, "Success", JOptionPane.INFORMATION_MESSAGE);
             }
             dispose();
+        } catch (OptimisticUpdateException e) {
+            JOptionPane.showMessageDialog(this,
+                    "This schedule was changed by someone else while you were editing it.\n"
+                            + "Close this window and open it again to see their changes.",
+                    "Schedule Changed", JOptionPane.WARNING_MESSAGE);
         } catch (Exception e) {
             logger.error("Failed to save schedule", e);
             JOptionPane.showMessageDialog(this, "Failed to save schedule: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -380,39 +529,48 @@ public class TimetableFrame extends JDialog {
         dayComboBox.setEnabled(!isSingleDay);
     }
 
-    private void loadCourses() {
+    // Runs on a worker thread; usually answered from the shared reference data cache
+    private FormData fetchFormData() {
         List<Course> courses;
         UserRole userRole = user.getRole();
         if (userRole == UserRole.LECTURER) {
-            courses = courseDAO.findByLecturer(user);
+            courses = referenceData.getCoursesByLecturer(user);
         } else if (userRole == UserRole.ADMIN || userRole == UserRole.EXAMS_OFFICER) {
-            courses = courseDAO.findAll();
+            courses = referenceData.getCourses();
         } else {
             Department userDept = user.getDepartment();
-            courses = (userDept != null) ? courseDAO.findByDepartment(userDept) : Collections.emptyList();
+            courses = (userDept != null) ? referenceData.getCoursesByDepartment(userDept) : Collections.emptyList();
         }
+        return new FormData(courses, referenceData.getRooms());
+    }
+
+    private void populateForm(FormData data) {
         courseComboBox.removeAllItems();
-        if (courses.isEmpty()) {
+        if (data.courses().isEmpty()) {
             courseComboBox.setEnabled(false);
         } else {
-            courses.forEach(courseComboBox::addItem);
+            data.courses().forEach(courseComboBox::addItem);
             courseComboBox.setEnabled(true);
         }
-    }
 
-    private void loadRooms() {
-        List<Room> rooms = roomDAO.findAll();
         roomComboBox.removeAllItems();
-        if (rooms.isEmpty()) {
+        if (data.rooms().isEmpty()) {
             roomComboBox.setEnabled(false);
         } else {
-            rooms.forEach(roomComboBox::addItem);
+            data.rooms().forEach(roomComboBox::addItem);
             roomComboBox.setEnabled(true);
+            bestFitButton.setEnabled(true);
+        }
+
+        if (timetableToEdit != null) {
+            prefillFormForEdit();
         }
+        saveButton.setEnabled(true);
     }
 
     private void loadSemesters() {
         semesterComboBox.setModel(new DefaultComboBoxModel<>(SemesterType.values()));
-        semesterComboBox.setEnabled(true);
+        // A saved slot stays in its term; moving it means creating it in the other one
+        semesterComboBox.setEnabled(timetableToEdit == null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package org.timeflow.ui;
+
+import org.timeflow.entity.ActivityType;
+import org.timeflow.entity.Timetable;
+import org.timeflow.entity.TimetableStatus;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table model over a list of timetables that grows one page at a time and takes changed
+ * slots row by row.
+ *
+ * Cells hold sortable keys rather than display text; {@link TimetableCellRenderer} formats
+ * them from the underlying {@link Timetable}, so no per-row strings or components are built.
+ */
+public class TimetableTableModel extends AbstractTableModel {
+    public static final int DAY = 0;
+    public static final int TIME = 1;
+    public static final int COURSE = 2;
+    public static final int TYPE = 3;
+    public static final int ROOM = 4;
+    public static final int LECTURER = 5;
+    public static final int STATUS = 6;
+
+    private static final String[] COLUMNS = {"Day", "Time", "Course", "Type", "Room", "Lecturer", "Status"};
+    private static final Class<?>[] COLUMN_CLASSES = {
+            Long.class, LocalTime.class, String.class, ActivityType.class, String.class, String.class, TimetableStatus.class
+    };
+
+    private final List<Timetable> rows = new ArrayList<>();
+    private final Map<Long, Integer> rowById = new HashMap<>();
+
+    // Rows already present (e.g. added by a change while paging) are replaced, not duplicated
+    public void appendPage(List<Timetable> page) {
+        int first = rows.size();
+        for (Timetable timetable : page) {
+            if (!replace(timetable)) {
+                rowById.put(timetable.getId(), rows.size());
+                rows.add(timetable);
+            }
+        }
+        if (rows.size() > first) {
+            fireTableRowsInserted(first, rows.size() - 1);
+        }
+    }
+
+    // Applies changed slots in place: current ones are updated or added, and changed ids
+    // missing from current (deleted, or no longer in this view) are removed
+    public void applyChanges(Set<Long> changedIds, List<Timetable> current) {
+        Set<Long> removed = new HashSet<>(changedIds);
+        List<Timetable> added = new ArrayList<>();
+        for (Timetable timetable : current) {
+            removed.remove(timetable.getId());
+            if (!replace(timetable)) {
+                added.add(timetable);
+            }
+        }
+        removed.retainAll(rowById.keySet());
+        if (!removed.isEmpty()) {
+            rows.removeIf(timetable -> removed.contains(timetable.getId()));
+            reindex();
+            fireTableDataChanged();
+        }
+        appendPage(added);
+    }
+
+    public void clear() {
+        rows.clear();
+        rowById.clear();
+        fireTableDataChanged();
+    }
+
+    public Timetable getTimetableAt(int modelRow) {
+        return rows.get(modelRow);
+    }
+
+    private boolean replace(Timetable timetable) {
+        Integer row = rowById.get(timetable.getId());
+        if (row == null) {
+            return false;
+        }
+        rows.set(row, timetable);
+        fireTableRowsUpdated(row, row);
+        return true;
+    }
+
+    private void reindex() {
+        rowById.clear();
+        for (int i = 0; i < rows.size(); i++) {
+            rowById.put(rows.get(i).getId(), i);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Timetable t = rows.get(row);
+        switch (column) {
+            case DAY:
+                return dayKey(t);
+            case TIME:
+                return t.getStartTime();
+            case COURSE:
+                return t.getCourse().getCode();
+            case TYPE:
+                return t.getType();
+            case ROOM:
+                return t.getRoom() != null ? t.getRoom().getName() : "";
+            case LECTURER:
+                return t.getCourse().getLecturer() != null ? t.getCourse().getLecturer().getUsername() : "";
+            case STATUS:
+                return t.getStatus();
+            default:
+                return null;
+        }
+    }
+
+    // Weekly slots sort Monday to Sunday, followed by single-day events in date order
+    private static long dayKey(Timetable t) {
+        if (t.getSpecificDate() != null) {
+            return DayOfWeek.SUNDAY.getValue() + 1L + t.getSpecificDate().toEpochDay();
+        }
+        return t.getDayOfWeek() != null ? t.getDayOfWeek().getValue() : Long.MAX_VALUE;
+    }
+}
@@ -4,20 +4,43 @@ import io.github.cdimascio.dotenv.Dotenv;
 
 public class Config {
 
-    private static final Dotenv dotenv = Dotenv.load();
+    // A missing .env is fine: every value falls back to the process environment,
+    // and SMTP credentials are only demanded when the SMTP transport is used.
+    private static final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
 
     public static final String USERNAME = dotenv.get("SMTP_USERNAME");
     public static final String EMAIL_PASSWORD = dotenv.get("SMTP_PASSWORD");
     public static final String SMTP_HOST = dotenv.get("SMTP_HOST");
     public static final String SMTP_PORT = dotenv.get("SMTP_PORT");
-    public static final String SEND_FROM = dotenv.get("SEND_FROM");
+    public static final String SEND_FROM = dotenv.get("SEND_FROM", "timeflow@localhost");
 
-    // Optional: fail fast if env vars are missing
-    static {
-        if (USERNAME == null || EMAIL_PASSWORD == null) {
-            throw new IllegalStateException("Missing EMAIL_USERNAME or EMAIL_PASSWORD in .env");
+    // smtp (default), capture (in-memory) or local (in-process SMTP server)
+    public static final String MAIL_TRANSPORT = dotenv.get("MAIL_TRANSPORT", "smtp");
+    public static final String LOCAL_SMTP_PORT = dotenv.get("LOCAL_SMTP_PORT", "2525");
+
+    // A -D system property of the same name wins over .env and the environment, so tools such as
+    // the benchmarks can point the application at another database from inside the JVM
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        return value != null ? value : dotenv.get(key, defaultValue);
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
         }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid integer for " + key + ": " + value, e);
+        }
+    }
 
+    public static void requireSmtpCredentials() {
+        if (USERNAME == null || EMAIL_PASSWORD == null) {
+            throw new IllegalStateException("Missing SMTP_USERNAME or SMTP_PASSWORD in .env");
+        }
     }
 
     @Override
@@ -28,6 +51,7 @@ public class Config {
                 ", SMTP_HOST='" + SMTP_HOST + '\'' +
                 ", SMTP_PORT='" + SMTP_PORT + '\'' +
                 ", SEND_FROM='" + SEND_FROM + '\'' +
+                ", MAIL_TRANSPORT='" + MAIL_TRANSPORT + '\'' +
                 '}';
     }
 
@@ -1,32 +1,165 @@
 package org.timeflow.util;
 
 import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
 import org.slf4j.Logger;
+import org.hibernate.stat.Statistics;
 import org.slf4j.LoggerFactory;
+import org.timeflow.dao.StatementCounter;
+import org.timeflow.metrics.Metrics;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Owns the application's SessionFactory. Building it is the slowest part of startup, so
+ * {@link #startAsync()} kicks it off on a background thread while the UI comes up;
+ * {@link #getSessionFactory()} waits for it only if it is not ready yet.
+ *
+ * With TIMEFLOW_ENV=production the schema is expected to be migrated already: hbm2ddl is
+ * off and Hibernate does not read JDBC metadata at boot. HBM2DDL_AUTO overrides either mode.
+ *
+ * Statement counting (see QueryScope) is always on. HIBERNATE_STATISTICS=false turns off
+ * Hibernate's own statistics, which are otherwise published as timeflow.hibernate gauges;
+ * SQL slower than SLOW_QUERY_MS is logged by Hibernate under org.hibernate.SQL_SLOW.
+ */
 public class HibernateUtil {
     private static final Logger logger = LoggerFactory.getLogger(HibernateUtil.class);
-    private static SessionFactory sessionFactory;
+    private static CompletableFuture<SessionFactory> sessionFactory;
+
+    public static synchronized CompletableFuture<SessionFactory> startAsync() {
+        if (sessionFactory == null) {
+            sessionFactory = new CompletableFuture<>();
+            Thread bootstrap = new Thread(HibernateUtil::build, "hibernate-bootstrap");
+            bootstrap.setDaemon(true);
+            bootstrap.start();
+        }
+        return sessionFactory;
+    }
+
+    public static SessionFactory getSessionFactory() {
+        try {
+            return startAsync().join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Hibernate SessionFactory is not available", e.getCause());
+        }
+    }
+
+    public static synchronized boolean isReady() {
+        return sessionFactory != null && sessionFactory.isDone() && !sessionFactory.isCompletedExceptionally();
+    }
+
+    public static boolean isProduction() {
+        return "production".equalsIgnoreCase(Config.get("TIMEFLOW_ENV", "development"));
+    }
+
+    public static Configuration createConfiguration() {
+        // hibernate.cfg.xml holds the defaults; the environment overrides connection and schema settings
+        Configuration configuration = new Configuration().configure();
+        String driver = Config.get("DB_DRIVER", null);
+        if (driver != null) {
+            configuration.setProperty("hibernate.connection.driver_class", driver);
+        }
+        String url = Config.get("DB_URL", null);
+        if (url != null) {
+            configuration.setProperty("hibernate.connection.url", url);
+        }
+        String username = Config.get("DB_USERNAME", null);
+        if (username != null) {
+            configuration.setProperty("hibernate.connection.username", username);
+        }
+        String password = Config.get("DB_PASSWORD", null);
+        if (password != null) {
+            configuration.setProperty("hibernate.connection.password", password);
+        }
+        if (isProduction()) {
+            configuration.setProperty("hibernate.hbm2ddl.auto", "none");
+            configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+            configuration.setProperty("hibernate.boot.allow_jdbc_metadata_access", "false");
+        }
+        // Sequence ids (see IdGeneration) leave inserts free to be batched
+        configuration.setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+        configuration.setProperty("hibernate.jdbc.batch_size", String.valueOf(getJdbcBatchSize()));
+        configuration.setProperty("hibernate.order_inserts", "true");
+        configuration.setProperty("hibernate.order_updates", "true");
+        String effectiveUrl = configuration.getProperty("hibernate.connection.url");
+        if (effectiveUrl != null && effectiveUrl.startsWith("jdbc:postgresql:")) {
+            // Lets the driver send a batch of inserts as multi-row INSERT statements
+            configuration.setProperty("hibernate.connection.reWriteBatchedInserts", "true");
+        }
+        configuration.setProperty("hibernate.session_factory.statement_inspector", StatementCounter.class.getName());
+        configuration.setProperty("hibernate.generate_statistics",
+                String.valueOf(Boolean.parseBoolean(Config.get("HIBERNATE_STATISTICS", "true"))));
+        configuration.setProperty("hibernate.log_slow_query", String.valueOf(Config.getInt("SLOW_QUERY_MS", 500)));
+        String hbm2ddl = Config.get("HBM2DDL_AUTO", null);
+        if (hbm2ddl != null) {
+            configuration.setProperty("hibernate.hbm2ddl.auto", hbm2ddl);
+        }
+        return configuration;
+    }
+
+    // Statements per JDBC batch; also how many rows BaseDAO.saveAll flushes at a time
+    public static int getJdbcBatchSize() {
+        return Math.max(1, Config.getInt("JDBC_BATCH_SIZE", 100));
+    }
+
+    // Loads and resolves every mapping without opening a connection; used by the AppCDS
+    // training run so the archive covers Hibernate's boot classes
+    public static void buildMetadataOnly() {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .configure()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .applySetting("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .build();
+        try {
+            new MetadataSources(registry).buildMetadata();
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
 
-    static {
+    private static void build() {
+        long start = System.nanoTime();
         try {
-            // Create the SessionFactory from hibernate.cfg.xml
-            sessionFactory = new Configuration().configure().buildSessionFactory();
-            logger.info("Hibernate SessionFactory created successfully");
+            SessionFactory factory = createConfiguration().buildSessionFactory();
+            Metrics.timer("timeflow.startup", "phase", "hibernate").record(System.nanoTime() - start);
+            logger.info("Hibernate SessionFactory created in {} ms ({} mode)",
+                    (System.nanoTime() - start) / 1_000_000, isProduction() ? "production" : "development");
+            registerStatistics(factory.getStatistics());
+            sessionFactory.complete(factory);
         } catch (Throwable ex) {
             logger.error("Initial SessionFactory creation failed", ex);
-            throw new ExceptionInInitializerError(ex);
+            sessionFactory.completeExceptionally(ex);
         }
     }
 
-    public static SessionFactory getSessionFactory() {
-        return sessionFactory;
+    private static void registerStatistics(Statistics statistics) {
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        Metrics.gauge("timeflow.hibernate.statements_prepared", statistics::getPrepareStatementCount);
+        Metrics.gauge("timeflow.hibernate.queries", statistics::getQueryExecutionCount);
+        Metrics.gauge("timeflow.hibernate.query_max_ms", statistics::getQueryExecutionMaxTime);
+        Metrics.gauge("timeflow.hibernate.entity_loads", statistics::getEntityLoadCount);
+        Metrics.gauge("timeflow.hibernate.entity_fetches", statistics::getEntityFetchCount);
+        Metrics.gauge("timeflow.hibernate.collection_loads", statistics::getCollectionLoadCount);
+        Metrics.gauge("timeflow.hibernate.collection_fetches", statistics::getCollectionFetchCount);
+        Metrics.gauge("timeflow.hibernate.sessions_opened", statistics::getSessionOpenCount);
+        Metrics.gauge("timeflow.hibernate.l2_hits", statistics::getSecondLevelCacheHitCount);
+        Metrics.gauge("timeflow.hibernate.l2_misses", statistics::getSecondLevelCacheMissCount);
+        Metrics.gauge("timeflow.hibernate.l2_hit_ratio", () -> {
+            long hits = statistics.getSecondLevelCacheHitCount();
+            long lookups = hits + statistics.getSecondLevelCacheMissCount();
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        });
     }
 
-    public static void shutdown() {
-        if (sessionFactory != null) {
-            sessionFactory.close();
+    public static synchronized void shutdown() {
+        if (isReady()) {
+            sessionFactory.join().close();
         }
     }
 }
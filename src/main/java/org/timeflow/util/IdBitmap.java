@@ -0,0 +1,227 @@
+package org.timeflow.util;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative ids below 2^32, laid out like a Roaring bitmap: ids are
+ * split by their upper 16 bits into chunks of 65536, and each chunk holds its lower 16 bits
+ * either as a sorted array (up to 4096 ids, 2 bytes each) or as a 65536-bit bitmap (8 KB),
+ * whichever is smaller. Intersections then walk matching chunks only and use word-wide ANDs
+ * where both sides are dense.
+ *
+ * Not thread-safe while it is being filled; safe to share once it no longer changes.
+ */
+public final class IdBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 65536 / 64;
+
+    // Upper 16 bits of each chunk, ascending, with the chunk at the same index
+    private int[] keys = new int[0];
+    private Chunk[] chunks = new Chunk[0];
+    private int size;
+
+    public void add(long id) {
+        if (id < 0 || id > 0xFFFF_FFFFL) {
+            throw new IllegalArgumentException("Id out of range: " + id);
+        }
+        int key = (int) (id >>> 16);
+        char low = (char) id;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new ArrayChunk());
+        }
+        chunks[index] = chunks[index].add(low);
+    }
+
+    public boolean contains(long id) {
+        if (id < 0 || id > 0xFFFF_FFFFL) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, (int) (id >>> 16));
+        return index >= 0 && chunks[index].contains((char) id);
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += chunks[i].cardinality();
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Number of ids in both sets, without building the intersection
+    public int andCardinality(IdBitmap other) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += chunks[i].andCardinality(other.chunks[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public boolean intersects(IdBitmap other) {
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else if (chunks[i].andCardinality(other.chunks[j]) > 0) {
+                return true;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return false;
+    }
+
+    private void insertChunk(int index, int key, Chunk chunk) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(chunks, index, chunks, index + 1, size - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        size++;
+    }
+
+    private abstract static class Chunk {
+        // Returns the chunk holding the result, which is a new bitmap once an array outgrows ARRAY_LIMIT
+        abstract Chunk add(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract int andCardinality(Chunk other);
+    }
+
+    private static final class ArrayChunk extends Chunk {
+        private char[] values = new char[4];
+        private int count;
+
+        @Override
+        Chunk add(char value) {
+            // Ids usually arrive in ascending order, which makes this an append
+            int index = count > 0 && values[count - 1] < value ? -count - 1 : Arrays.binarySearch(values, 0, count, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (count == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (count == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, count * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, count - index);
+            values[index] = value;
+            count++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, count, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return count;
+        }
+
+        @Override
+        int andCardinality(Chunk other) {
+            if (other instanceof BitmapChunk) {
+                return other.andCardinality(this);
+            }
+            ArrayChunk array = (ArrayChunk) other;
+            int total = 0;
+            int i = 0;
+            int j = 0;
+            while (i < count && j < array.count) {
+                if (values[i] < array.values[j]) {
+                    i++;
+                } else if (values[i] > array.values[j]) {
+                    j++;
+                } else {
+                    total++;
+                    i++;
+                    j++;
+                }
+            }
+            return total;
+        }
+
+        private BitmapChunk toBitmap() {
+            BitmapChunk bitmap = new BitmapChunk();
+            for (int i = 0; i < count; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapChunk extends Chunk {
+        private final long[] words = new long[BITMAP_WORDS];
+        private int count;
+
+        @Override
+        Chunk add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                count++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return count;
+        }
+
+        @Override
+        int andCardinality(Chunk other) {
+            int total = 0;
+            if (other instanceof BitmapChunk) {
+                long[] otherWords = ((BitmapChunk) other).words;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    total += Long.bitCount(words[i] & otherWords[i]);
+                }
+            } else {
+                ArrayChunk array = (ArrayChunk) other;
+                for (int i = 0; i < array.count; i++) {
+                    if (contains(array.values[i])) {
+                        total++;
+                    }
+                }
+            }
+            return total;
+        }
+    }
+}
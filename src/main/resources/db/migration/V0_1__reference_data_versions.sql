@@ -0,0 +1,24 @@
+-- Creates reference_data_versions, which every write to users, courses, rooms and departments
+-- bumps in its own transaction (see ReferenceDataVersion) and V5 adds enrollments to.
+-- Databases that ran the application with hbm2ddl=update already have the table; existing
+-- rows are left as they are.
+--
+-- Run once against an existing PostgreSQL database after V0 and before V1, with the
+-- application stopped:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V0_1__reference_data_versions.sql
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS reference_data_versions (
+    name VARCHAR(50) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO reference_data_versions (name, version) VALUES
+    ('courses', 1),
+    ('rooms', 1),
+    ('departments', 1),
+    ('users', 1)
+ON CONFLICT (name) DO NOTHING;
+
+COMMIT;
@@ -0,0 +1,28 @@
+-- Creates the timetable_changes table behind the per-cohort change digests (see
+-- ChangeDigestService), which V1 and V4 alter. Databases that ran the application with
+-- hbm2ddl=update already have it, and this script then changes nothing.
+--
+-- Run once against an existing PostgreSQL database before V1, with the application stopped:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V0__timetable_changes.sql
+--
+-- The id column is an identity column here; V1 moves it to the pooled timetable_changes_seq
+-- and V4 adds academic_year.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS timetable_changes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    timetable_id BIGINT NOT NULL,
+    department_id BIGINT REFERENCES departments (id),
+    academic_level INTEGER NOT NULL,
+    semester VARCHAR(255),
+    change_type VARCHAR(255) NOT NULL,
+    course_code VARCHAR(255),
+    course_name VARCHAR(255),
+    previous_slot VARCHAR(255),
+    current_slot VARCHAR(255),
+    changed_at TIMESTAMP(6),
+    notified_at TIMESTAMP(6)
+);
+
+COMMIT;
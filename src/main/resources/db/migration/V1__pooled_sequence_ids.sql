@@ -0,0 +1,63 @@
+-- Moves generated ids from IDENTITY/serial columns to one pooled sequence per table
+-- (see org.timeflow.entity.IdGeneration). INCREMENT BY must equal IdGeneration.ALLOCATION_SIZE.
+--
+-- Run once against an existing PostgreSQL database, with the application stopped:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V1__pooled_sequence_ids.sql
+-- Fresh databases created by hbm2ddl already have the sequences.
+--
+-- With the pooled-lo optimizer each nextval is the first id of a block, so every sequence
+-- starts just above the table's current maximum id.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS departments_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('departments_seq', COALESCE((SELECT MAX(id) FROM departments), 0) + 1, false);
+ALTER TABLE departments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE departments ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS rooms_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('rooms_seq', COALESCE((SELECT MAX(id) FROM rooms), 0) + 1, false);
+ALTER TABLE rooms ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE rooms ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('users_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 1, false);
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS courses_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('courses_seq', COALESCE((SELECT MAX(id) FROM courses), 0) + 1, false);
+ALTER TABLE courses ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE courses ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS semesters_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('semesters_seq', COALESCE((SELECT MAX(id) FROM semesters), 0) + 1, false);
+ALTER TABLE semesters ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE semesters ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS timetables_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('timetables_seq', COALESCE((SELECT MAX(id) FROM timetables), 0) + 1, false);
+ALTER TABLE timetables ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE timetables ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS conflicts_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('conflicts_seq', COALESCE((SELECT MAX(id) FROM conflicts), 0) + 1, false);
+ALTER TABLE conflicts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE conflicts ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS timetable_changes_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('timetable_changes_seq', COALESCE((SELECT MAX(id) FROM timetable_changes), 0) + 1, false);
+ALTER TABLE timetable_changes ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE timetable_changes ALTER COLUMN id DROP DEFAULT;
+
+-- serial columns leave their old sequences behind once the default is gone
+DROP SEQUENCE IF EXISTS departments_id_seq;
+DROP SEQUENCE IF EXISTS rooms_id_seq;
+DROP SEQUENCE IF EXISTS users_id_seq;
+DROP SEQUENCE IF EXISTS courses_id_seq;
+DROP SEQUENCE IF EXISTS semesters_id_seq;
+DROP SEQUENCE IF EXISTS timetables_id_seq;
+DROP SEQUENCE IF EXISTS conflicts_id_seq;
+DROP SEQUENCE IF EXISTS timetable_changes_id_seq;
+
+COMMIT;
@@ -0,0 +1,13 @@
+-- Adds the optimistic-locking version column to timetables, courses and conflicts
+-- (see the @Version fields on those entities). Existing rows start at version 0.
+--
+-- Run once against an existing PostgreSQL database, with the application stopped:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V2__optimistic_versions.sql
+
+BEGIN;
+
+ALTER TABLE timetables ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE conflicts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+COMMIT;
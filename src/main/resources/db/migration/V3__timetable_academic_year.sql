@@ -0,0 +1,27 @@
+-- Adds the academic year to timetables, so slots of the same semester in different years
+-- are told apart (see Timetable.academicYear and SemesterType.upcomingAcademicYear).
+-- Academic years are named by the calendar year they start in, in August.
+--
+-- Run once against an existing PostgreSQL database, with the application stopped:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V3__timetable_academic_year.sql
+--
+-- Existing slots get the year their semester was upcoming when they were created: the
+-- academic year running at created_at, or the next one for first-semester slots created
+-- between February and July.
+
+BEGIN;
+
+ALTER TABLE timetables ADD COLUMN IF NOT EXISTS academic_year INTEGER;
+
+UPDATE timetables
+SET academic_year =
+        CASE WHEN EXTRACT(MONTH FROM COALESCE(created_at, now())) >= 8
+             THEN EXTRACT(YEAR FROM COALESCE(created_at, now()))
+             ELSE EXTRACT(YEAR FROM COALESCE(created_at, now())) - 1 END
+        + CASE WHEN semester = 'FIRST_SEMESTER' AND EXTRACT(MONTH FROM COALESCE(created_at, now())) BETWEEN 2 AND 7
+               THEN 1 ELSE 0 END
+WHERE academic_year IS NULL;
+
+ALTER TABLE timetables ALTER COLUMN academic_year SET NOT NULL;
+
+COMMIT;
@@ -0,0 +1,124 @@
+-- Partitions timetables and conflicts by academic term (see AcademicTerm): one partition per
+-- academic year, split into one partition per semester, e.g. timetables_2025_first. Queries
+-- that name the term (TimetableDAO) then read a single partition, and old terms can be
+-- detached or archived without touching the current one. Conflicts and pending digest
+-- changes gain the academic year of their slots.
+--
+-- Run once against an existing PostgreSQL (12 or later) database after V3, with the
+-- application stopped:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V4__term_partitioning.sql
+--
+-- The primary keys become (id, academic_year, semester), as PostgreSQL requires of
+-- partitioned tables; ids stay unique through timetables_seq and conflicts_seq. Conflicts
+-- between slots of different years were false positives of the year-less checks and are
+-- dropped. Slots without a semester stop the migration and must be fixed or deleted first.
+--
+-- The application creates the partitions of a new academic year on first write through
+-- timeflow_create_term_partitions. To archive a year, detach the conflicts before the
+-- timetables they reference:
+--     ALTER TABLE conflicts DETACH PARTITION conflicts_2021;
+--     ALTER TABLE timetables DETACH PARTITION timetables_2021;
+
+BEGIN;
+
+ALTER TABLE conflicts ADD COLUMN IF NOT EXISTS academic_year INTEGER;
+ALTER TABLE conflicts ADD COLUMN IF NOT EXISTS semester VARCHAR(255);
+
+UPDATE conflicts c
+SET academic_year = t.academic_year, semester = t.semester
+FROM timetables t
+WHERE t.id = c.timetable_id_1 AND c.academic_year IS NULL;
+
+DELETE FROM conflicts c
+WHERE c.academic_year IS NULL
+   OR EXISTS (SELECT 1 FROM timetables t WHERE t.id = c.timetable_id_2
+              AND (t.academic_year <> c.academic_year OR t.semester <> c.semester));
+
+ALTER TABLE conflicts ALTER COLUMN academic_year SET NOT NULL;
+ALTER TABLE conflicts ALTER COLUMN semester SET NOT NULL;
+ALTER TABLE timetables ALTER COLUMN semester SET NOT NULL;
+
+-- Digests are grouped by cohort and term; changes to deleted slots get the year they were made in
+ALTER TABLE timetable_changes ADD COLUMN IF NOT EXISTS academic_year INTEGER;
+
+UPDATE timetable_changes ch
+SET academic_year = t.academic_year
+FROM timetables t
+WHERE t.id = ch.timetable_id AND ch.academic_year IS NULL;
+
+UPDATE timetable_changes
+SET academic_year = CASE WHEN EXTRACT(MONTH FROM COALESCE(changed_at, now())) >= 8
+                         THEN EXTRACT(YEAR FROM COALESCE(changed_at, now()))
+                         ELSE EXTRACT(YEAR FROM COALESCE(changed_at, now())) - 1 END
+WHERE academic_year IS NULL;
+
+ALTER TABLE conflicts RENAME TO conflicts_unpartitioned;
+ALTER TABLE timetables RENAME TO timetables_unpartitioned;
+
+CREATE TABLE timetables (
+    LIKE timetables_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+    PRIMARY KEY (id, academic_year, semester),
+    FOREIGN KEY (course_id) REFERENCES courses (id),
+    FOREIGN KEY (room_id) REFERENCES rooms (id),
+    FOREIGN KEY (approved_by) REFERENCES users (id)
+) PARTITION BY LIST (academic_year);
+
+CREATE TABLE conflicts (
+    LIKE conflicts_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+    PRIMARY KEY (id, academic_year, semester),
+    FOREIGN KEY (timetable_id_1, academic_year, semester) REFERENCES timetables (id, academic_year, semester),
+    FOREIGN KEY (timetable_id_2, academic_year, semester) REFERENCES timetables (id, academic_year, semester),
+    FOREIGN KEY (resolved_by) REFERENCES users (id)
+) PARTITION BY LIST (academic_year);
+
+-- Created on the parents, so every partition gets them
+CREATE INDEX timetables_room_day_idx ON timetables (room_id, dayOfWeek);
+CREATE INDEX timetables_course_idx ON timetables (course_id);
+CREATE INDEX timetables_status_idx ON timetables (status);
+CREATE INDEX conflicts_status_idx ON conflicts (status);
+
+-- Creates one academic year's partitions of both tables if missing and returns how many
+-- tables it created
+CREATE OR REPLACE FUNCTION timeflow_create_term_partitions(year INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    parent TEXT;
+    sem TEXT;
+    year_table TEXT;
+    term_table TEXT;
+    created INTEGER := 0;
+BEGIN
+    FOREACH parent IN ARRAY ARRAY['timetables', 'conflicts'] LOOP
+        year_table := parent || '_' || year;
+        IF to_regclass(year_table) IS NULL THEN
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES IN (%s) PARTITION BY LIST (semester)',
+                           year_table, parent, year);
+            created := created + 1;
+        END IF;
+        FOREACH sem IN ARRAY ARRAY['FIRST_SEMESTER', 'SECOND_SEMESTER'] LOOP
+            term_table := year_table || '_' || lower(split_part(sem, '_', 1));
+            IF to_regclass(term_table) IS NULL THEN
+                EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES IN (%L)',
+                               term_table, year_table, sem);
+                created := created + 1;
+            END IF;
+        END LOOP;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Every year with data, plus the current and next academic year
+SELECT timeflow_create_term_partitions(year)
+FROM (SELECT DISTINCT academic_year AS year FROM timetables_unpartitioned
+      UNION
+      SELECT CAST(CASE WHEN EXTRACT(MONTH FROM now()) >= 8 THEN EXTRACT(YEAR FROM now())
+                       ELSE EXTRACT(YEAR FROM now()) - 1 END AS INTEGER) + n
+      FROM generate_series(0, 1) AS n) AS years;
+
+INSERT INTO timetables SELECT * FROM timetables_unpartitioned;
+INSERT INTO conflicts SELECT * FROM conflicts_unpartitioned;
+
+DROP TABLE conflicts_unpartitioned;
+DROP TABLE timetables_unpartitioned;
+
+COMMIT;
@@ -0,0 +1,39 @@
+-- Adds per-student course enrollments (see Enrollment), which conflict detection reads
+-- through StudentClashIndex to find STUDENT_CLASH conflicts across departments and levels.
+--
+-- Run once against an existing PostgreSQL database after V4, with the application stopped:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V5__enrollments.sql
+--
+-- Every active student is enrolled, for the academic year under way, in the courses of their
+-- own department and level, which is what clash checks assumed so far.
+-- Carry-overs and electives are then added through POST /api/v1/students/{id}/enrollments.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS enrollments_seq INCREMENT BY 50 START WITH 1;
+
+CREATE TABLE IF NOT EXISTS enrollments (
+    id BIGINT PRIMARY KEY,
+    student_id BIGINT NOT NULL REFERENCES users (id),
+    course_id BIGINT NOT NULL REFERENCES courses (id),
+    academic_year INTEGER NOT NULL,
+    enrolled_at TIMESTAMP(6),
+    UNIQUE (student_id, course_id, academic_year)
+);
+
+CREATE INDEX IF NOT EXISTS enrollments_year_course_idx ON enrollments (academic_year, course_id);
+
+INSERT INTO enrollments (id, student_id, course_id, academic_year, enrolled_at)
+SELECT nextval('enrollments_seq'), u.id, c.id,
+       CAST(CASE WHEN EXTRACT(MONTH FROM now()) >= 8 THEN EXTRACT(YEAR FROM now())
+                 ELSE EXTRACT(YEAR FROM now()) - 1 END AS INTEGER),
+       now()
+FROM users u
+JOIN courses c ON c.department_id = u.department_id AND c.academic_level = u.academic_level
+WHERE u.role = 'STUDENT' AND u.is_active
+ON CONFLICT (student_id, course_id, academic_year) DO NOTHING;
+
+INSERT INTO reference_data_versions (name, version) VALUES ('enrollments', 1)
+ON CONFLICT (name) DO UPDATE SET version = reference_data_versions.version + 1;
+
+COMMIT;
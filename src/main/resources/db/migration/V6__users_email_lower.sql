@@ -0,0 +1,12 @@
+-- Indexes users by lower(email), which the duplicate checks of sign-up and bulk student
+-- provisioning (UserDAO.findByUsernamesOrEmails) compare against, so that an address
+-- differing only in case is found and the lookup stays an index scan.
+--
+-- Run once against an existing PostgreSQL database after V5:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V6__users_email_lower.sql
+
+BEGIN;
+
+CREATE INDEX IF NOT EXISTS users_email_lower_idx ON users (lower(email));
+
+COMMIT;
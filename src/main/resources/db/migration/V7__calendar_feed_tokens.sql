@@ -0,0 +1,25 @@
+-- Adds secret calendar feed addresses (see CalendarFeedToken). Personal feeds were served by
+-- user id without authentication; they are now served only at /api/v1/calendar/feeds/<token>.ics
+-- for a token the user issued through POST /api/v1/auth/calendar-token.
+--
+-- Run once against an existing PostgreSQL database after V6:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V7__calendar_feed_tokens.sql
+--
+-- Existing subscriptions to /students/<id>.ics and /lecturers/<id>.ics stop working; users
+-- issue a token and subscribe again.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS calendar_feed_tokens_seq INCREMENT BY 50 START WITH 1;
+
+CREATE TABLE IF NOT EXISTS calendar_feed_tokens (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    created_at TIMESTAMP(6) NOT NULL,
+    revoked_at TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS calendar_feed_tokens_user_idx ON calendar_feed_tokens (user_id);
+
+COMMIT;
@@ -0,0 +1,22 @@
+-- Makes change digests resumable (see ChangeDigestService). Pending changes are claimed under a
+-- digest id before any email goes out, and each student's sent copy is recorded, so a run that
+-- fails partway through resends only to the students it had not reached.
+--
+-- Run once against an existing PostgreSQL database after V7:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V8__change_digest_deliveries.sql
+
+BEGIN;
+
+ALTER TABLE timetable_changes ADD COLUMN IF NOT EXISTS digest_id BIGINT;
+
+CREATE SEQUENCE IF NOT EXISTS change_digest_deliveries_seq INCREMENT BY 50 START WITH 1;
+
+CREATE TABLE IF NOT EXISTS change_digest_deliveries (
+    id BIGINT PRIMARY KEY,
+    digest_id BIGINT NOT NULL,
+    student_id BIGINT NOT NULL,
+    sent_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT change_digest_deliveries_key UNIQUE (digest_id, student_id)
+);
+
+COMMIT;
@@ -0,0 +1,13 @@
+-- Versions the lecturer pickers (see ReferenceDataCache.getLecturers) under their own
+-- reference_data_versions row. They were versioned under 'users', which every signup, student
+-- import and password rehash moves; now only writes to lecturer accounts move 'lecturers'.
+--
+-- Run once against an existing PostgreSQL database after V8:
+--     psql -d timeflow_db -f src/main/resources/db/migration/V9__lecturers_version.sql
+
+BEGIN;
+
+INSERT INTO reference_data_versions (name, version) VALUES ('lecturers', 1)
+ON CONFLICT (name) DO NOTHING;
+
+COMMIT;
@@ -0,0 +1,51 @@
+package org.timeflow.benchmarks;
+
+import org.timeflow.util.HibernateUtil;
+
+/**
+ * Points the application at the benchmark database and loads a generated campus into it.
+ * Without DB_URL that is an in-memory H2 in PostgreSQL mode with a freshly created schema.
+ * With DB_URL the given local database is used as configured; it must be empty, and
+ * -DHBM2DDL_AUTO=create can be passed to have the schema recreated.
+ *
+ * The SessionFactory is process-wide, so one JVM holds one campus. JMH forks a JVM per
+ * parameter combination; running with -f 0 and several scales is refused.
+ */
+public final class BenchmarkDatabase {
+    private static final String H2_URL =
+            "jdbc:h2:mem:timeflow-bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    private static CampusGenerator.Campus loaded;
+
+    private BenchmarkDatabase() {
+    }
+
+    public static synchronized CampusGenerator.Campus load(int scale) {
+        if (loaded != null) {
+            if (loaded.scale != scale) {
+                throw new IllegalStateException("This JVM already holds a scale " + loaded.scale
+                        + " campus; run each scale in its own fork");
+            }
+            return loaded;
+        }
+        if (System.getProperty("DB_URL") == null) {
+            System.setProperty("DB_URL", H2_URL);
+            System.setProperty("DB_DRIVER", "org.h2.Driver");
+            System.setProperty("DB_USERNAME", "sa");
+            System.setProperty("DB_PASSWORD", "");
+            System.setProperty("HBM2DDL_AUTO", "create");
+        }
+        // Slow-query and N+1 warnings are expected at 100x; skip building them
+        System.setProperty("SLOW_QUERY_MS", String.valueOf(Integer.MAX_VALUE));
+        System.setProperty("N_PLUS_ONE_THRESHOLD", String.valueOf(Integer.MAX_VALUE));
+
+        CampusGenerator.Campus campus = CampusGenerator.generate(scale);
+        CampusGenerator.persist(campus, HibernateUtil.getSessionFactory());
+        loaded = campus;
+        return campus;
+    }
+
+    public static synchronized void shutdown() {
+        HibernateUtil.shutdown();
+        loaded = null;
+    }
+}
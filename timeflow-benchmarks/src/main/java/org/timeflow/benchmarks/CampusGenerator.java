@@ -0,0 +1,180 @@
+package org.timeflow.benchmarks;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.timeflow.auth.PasswordHasher;
+import org.timeflow.entity.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds a synthetic campus. Scale 1 is roughly our own size (8 departments, 40 rooms,
+ * 80 lecturers, 192 courses and about 770 weekly slots); scale 10 and 100 multiply the number
+ * of departments, so per-cohort data stays realistic while the tables grow. The same scale
+ * and seed always produce the same campus.
+ */
+public class CampusGenerator {
+    public static final int DEPARTMENTS = 8;
+    public static final int ROOMS_PER_DEPARTMENT = 5;
+    public static final int LECTURERS_PER_DEPARTMENT = 10;
+    public static final int COURSES_PER_LEVEL = 6;
+    public static final int STUDENTS_PER_COHORT = 10;
+    public static final int[] LEVELS = {100, 200, 300, 400};
+    // Weekly slots per course and semester
+    public static final int SLOTS_PER_COURSE = 2;
+
+    private static final DayOfWeek[] WEEKDAYS = {
+            DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY
+    };
+    private static final int FLUSH_EVERY = 500;
+
+    public static class Campus {
+        public final int scale;
+        public final List<Department> departments = new ArrayList<>();
+        public final List<Room> rooms = new ArrayList<>();
+        public final List<User> lecturers = new ArrayList<>();
+        public final List<User> students = new ArrayList<>();
+        public final List<Course> courses = new ArrayList<>();
+        public final List<Timetable> timetables = new ArrayList<>();
+        public final List<Conflict> conflicts = new ArrayList<>();
+
+        Campus(int scale) {
+            this.scale = scale;
+        }
+
+        public List<Timetable> timetablesOf(Department department, int level, SemesterType semester) {
+            List<Timetable> result = new ArrayList<>();
+            for (Timetable timetable : timetables) {
+                Course course = timetable.getCourse();
+                if (course.getDepartment() == department && course.getLevel() == level
+                        && timetable.getSemester() == semester) {
+                    result.add(timetable);
+                }
+            }
+            return result;
+        }
+    }
+
+    public static Campus generate(int scale) {
+        return generate(scale, 42L);
+    }
+
+    public static Campus generate(int scale, long seed) {
+        Random random = new Random(seed);
+        Campus campus = new Campus(scale);
+        // One real hash shared by every generated user; hashing per user would take minutes at 100x
+        String password = PasswordHasher.getInstance().encode("benchmark");
+
+        for (int d = 0; d < DEPARTMENTS * scale; d++) {
+            Department department = new Department("Department " + d, "D" + d, "Head " + d);
+            campus.departments.add(department);
+
+            for (int r = 0; r < ROOMS_PER_DEPARTMENT; r++) {
+                int capacity = r == 0 ? 400 : 30 + random.nextInt(150);
+                campus.rooms.add(new Room("Room " + d + "-" + r, capacity, "Block " + d));
+            }
+
+            List<User> departmentLecturers = new ArrayList<>();
+            for (int l = 0; l < LECTURERS_PER_DEPARTMENT; l++) {
+                User lecturer = new User("lecturer" + d + "_" + l, "lecturer" + d + "_" + l + "@bench.timeflow",
+                        password, UserRole.LECTURER, department);
+                departmentLecturers.add(lecturer);
+                campus.lecturers.add(lecturer);
+            }
+
+            for (int level : LEVELS) {
+                for (int s = 0; s < STUDENTS_PER_COHORT; s++) {
+                    User student = new User("student" + d + "_" + level + "_" + s,
+                            "student" + d + "_" + level + "_" + s + "@bench.timeflow",
+                            password, UserRole.STUDENT, department);
+                    student.setLevel(level);
+                    campus.students.add(student);
+                }
+                for (int c = 0; c < COURSES_PER_LEVEL; c++) {
+                    User lecturer = departmentLecturers.get(random.nextInt(departmentLecturers.size()));
+                    Course course = new Course("Course " + d + "-" + level + "-" + c, "D" + d + "C" + (level + c),
+                            2 + random.nextInt(3), department, lecturer, level);
+                    campus.courses.add(course);
+                    for (SemesterType semester : SemesterType.values()) {
+                        for (int s = 0; s < SLOTS_PER_COURSE; s++) {
+                            campus.timetables.add(slot(random, campus, d, course, semester));
+                        }
+                    }
+                }
+            }
+        }
+
+        // Every CONFLICTED slot gets a detected conflict with the slot generated before it
+        Timetable previous = null;
+        for (Timetable timetable : campus.timetables) {
+            if (timetable.getStatus() == TimetableStatus.CONFLICTED && previous != null) {
+                campus.conflicts.add(new Conflict(timetable, previous, ConflictType.ROOM_CONFLICT));
+            }
+            previous = timetable;
+        }
+        return campus;
+    }
+
+    private static Timetable slot(Random random, Campus campus, int departmentIndex, Course course,
+                                 SemesterType semester) {
+        // Mostly the department's own rooms, sometimes the previous department's
+        if (random.nextInt(5) == 0 && departmentIndex > 0) {
+            departmentIndex--;
+        }
+        Room room = campus.rooms.get(departmentIndex * ROOMS_PER_DEPARTMENT + random.nextInt(ROOMS_PER_DEPARTMENT));
+        LocalTime start = LocalTime.of(8 + random.nextInt(9), 0);
+        LocalTime end = start.plusHours(1 + random.nextInt(2));
+        ActivityType type = random.nextInt(4) == 0 ? ActivityType.LAB : ActivityType.LECTURE;
+
+        Timetable timetable = new Timetable(course, WEEKDAYS[random.nextInt(WEEKDAYS.length)], start, end,
+                room, type, semester);
+        int status = random.nextInt(20);
+        timetable.setStatus(status < 16 ? TimetableStatus.APPROVED
+                : status < 19 ? TimetableStatus.PENDING_APPROVAL : TimetableStatus.CONFLICTED);
+        return timetable;
+    }
+
+    // For in-memory benchmarks: gives every entity the id the database would, since the
+    // entities compare by id. A campus with ids cannot be persisted afterwards.
+    public static void assignIds(Campus campus) {
+        long id = 1;
+        for (Department department : campus.departments) department.setId(id++);
+        for (Room room : campus.rooms) room.setId(id++);
+        for (User lecturer : campus.lecturers) lecturer.setId(id++);
+        for (User student : campus.students) student.setId(id++);
+        for (Course course : campus.courses) course.setId(id++);
+        for (Timetable timetable : campus.timetables) timetable.setId(id++);
+        for (Conflict conflict : campus.conflicts) conflict.setId(id++);
+    }
+
+    // Inserts the campus in one transaction, clearing the session every few hundred rows
+    public static void persist(Campus campus, SessionFactory sessionFactory) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory.openSession()) {
+            transaction = session.beginTransaction();
+            int pending = 0;
+            List<List<?>> groups = List.of(campus.departments, campus.rooms, campus.lecturers, campus.students,
+                    campus.courses, campus.timetables, campus.conflicts);
+            for (List<?> group : groups) {
+                for (Object entity : group) {
+                    session.persist(entity);
+                    if (++pending % FLUSH_EVERY == 0) {
+                        session.flush();
+                        session.clear();
+                    }
+                }
+            }
+            transaction.commit();
+        } catch (RuntimeException e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+}
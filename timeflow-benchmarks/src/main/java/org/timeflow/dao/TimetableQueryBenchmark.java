@@ -0,0 +1,78 @@
+package org.timeflow.dao;
+
+import org.openjdk.jmh.annotations.*;
+import org.timeflow.benchmarks.BenchmarkDatabase;
+import org.timeflow.benchmarks.CampusGenerator;
+import org.timeflow.entity.Conflict;
+import org.timeflow.entity.Timetable;
+import org.timeflow.service.ConflictDetectionService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The conflict queries behind every create and update, plus the full check built on them
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+@State(Scope.Benchmark)
+public class TimetableQueryBenchmark {
+    // Probes rotate through a spread of slots so no single row stays hot in the database cache
+    private static final int PROBES = 64;
+
+    @Param({"1", "10", "100"})
+    public int scale;
+
+    private TimetableDAO timetableDAO;
+    private ConflictDetectionService conflictService;
+    private Timetable[] probes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CampusGenerator.Campus campus = BenchmarkDatabase.load(scale);
+        timetableDAO = DAOFactory.getInstance().getTimetableDAO();
+        conflictService = new ConflictDetectionService();
+        probes = new Timetable[PROBES];
+        int step = campus.timetables.size() / PROBES;
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = campus.timetables.get(i * step);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.shutdown();
+    }
+
+    private Timetable nextProbe() {
+        return probes[next++ % PROBES];
+    }
+
+    @Benchmark
+    public List<Timetable> roomConflicts() {
+        Timetable t = nextProbe();
+        return timetableDAO.findRoomConflicts(t.getRoom(), t.getDayOfWeek(), t.getStartTime(), t.getEndTime(),
+                t.getTerm(), t.getId());
+    }
+
+    @Benchmark
+    public List<Timetable> lecturerConflicts() {
+        Timetable t = nextProbe();
+        return timetableDAO.findLecturerConflicts(t.getCourse().getLecturer(), t.getDayOfWeek(), t.getStartTime(),
+                t.getEndTime(), t.getTerm(), t.getId());
+    }
+
+    @Benchmark
+    public List<Timetable> cohortTimetable() {
+        Timetable t = nextProbe();
+        return timetableDAO.findApprovedTimetables(t.getCourse().getDepartment(), t.getCourse().getLevel(),
+                t.getTerm());
+    }
+
+    @Benchmark
+    public List<Conflict> detectConflicts() {
+        return conflictService.detectConflicts(nextProbe());
+    }
+}
@@ -0,0 +1,57 @@
+package org.timeflow.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.timeflow.benchmarks.CampusGenerator;
+import org.timeflow.entity.Timetable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Pairwise overlap classification, the in-memory core of every conflict check
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+@State(Scope.Benchmark)
+public class ConflictDetectionBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int scale;
+
+    private final ConflictDetectionService service = new ConflictDetectionService();
+    private Timetable candidate;
+    private List<Timetable> semesterSlots;
+    private List<Timetable> sameDaySlots;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CampusGenerator.Campus campus = CampusGenerator.generate(scale);
+        CampusGenerator.assignIds(campus);
+        candidate = campus.timetables.get(campus.timetables.size() / 2);
+        semesterSlots = campus.timetables.stream()
+                .filter(t -> t.getSemester() == candidate.getSemester() && t != candidate)
+                .collect(Collectors.toList());
+        sameDaySlots = semesterSlots.stream()
+                .filter(t -> t.getDayOfWeek() == candidate.getDayOfWeek())
+                .collect(Collectors.toList());
+    }
+
+    // Classifying against every slot of the semester
+    @Benchmark
+    public void classifySemester(Blackhole blackhole) {
+        for (Timetable slot : semesterSlots) {
+            blackhole.consume(service.determineConflictType(candidate, slot));
+        }
+    }
+
+    // The same after narrowing to the candidate's weekday, as the conflict queries do
+    @Benchmark
+    public void classifySameDay(Blackhole blackhole) {
+        for (Timetable slot : sameDaySlots) {
+            blackhole.consume(service.determineConflictType(candidate, slot));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.timeflow.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.timeflow.benchmarks.CampusGenerator;
+import org.timeflow.entity.*;
+import org.timeflow.mail.MailTransports;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Email bodies are rendered once per recipient, so a cohort mailing multiplies these costs
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+@State(Scope.Benchmark)
+public class NotificationRenderingBenchmark {
+
+    private NotificationService service;
+    private User student;
+    private List<Timetable> cohortTimetable;
+    private Department department;
+    private List<TimetableChange> changes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Body size depends on the cohort, not on the campus, so one scale is enough
+        CampusGenerator.Campus campus = CampusGenerator.generate(1);
+        CampusGenerator.assignIds(campus);
+        service = new NotificationService(MailTransports.create("capture"));
+        student = campus.students.get(0);
+        department = student.getDepartment();
+        cohortTimetable = campus.timetablesOf(department, student.getLevel(), SemesterType.FIRST_SEMESTER);
+
+        changes = new ArrayList<>();
+        for (int i = 0; i < cohortTimetable.size(); i++) {
+            Timetable timetable = cohortTimetable.get(i);
+            String slot = ChangeDigestService.describeSlot(timetable);
+            switch (i % 3) {
+                case 0:
+                    changes.add(new TimetableChange(timetable, TimetableChangeType.ADDED, null, slot));
+                    break;
+                case 1:
+                    changes.add(new TimetableChange(timetable, TimetableChangeType.MOVED, slot, slot));
+                    break;
+                default:
+                    changes.add(new TimetableChange(timetable, TimetableChangeType.CANCELLED, slot, null));
+            }
+        }
+    }
+
+    @Benchmark
+    public String studentTimetableEmail() {
+        return service.createStudentTimetableEmailBody(student, new ArrayList<>(cohortTimetable));
+    }
+
+    @Benchmark
+    public String changeDigestEmail() {
+        return service.createChangeDigestEmailBody(department, student.getLevel(), SemesterType.FIRST_SEMESTER, changes);
+    }
+}
@@ -0,0 +1,111 @@
+package org.timeflow.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.timeflow.benchmarks.CampusGenerator;
+import org.timeflow.entity.*;
+import org.timeflow.mail.CapturingMailTransport;
+import org.timeflow.mail.LocalSmtpServer;
+import org.timeflow.mail.SmtpMailTransport;
+
+import javax.mail.MessagingException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Notifications built, rendered and delivered, with no database or SMTP account: "capture"
+// keeps messages in memory, "local" delivers them over SMTP to an in-process server
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+public class NotificationSendBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Transport {
+        @Param({"capture", "local"})
+        public String transport;
+
+        NotificationService service;
+        List<Timetable> cohortTimetable;
+        Department department;
+        User student;
+        private LocalSmtpServer server;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            if (transport.equals("local")) {
+                server = new LocalSmtpServer(0);
+                service = new NotificationService(new SmtpMailTransport("localhost", server.getPort()));
+            } else {
+                CapturingMailTransport capturing = new CapturingMailTransport();
+                capturing.setRetainMessages(false);
+                service = new NotificationService(capturing);
+            }
+            CampusGenerator.Campus campus = CampusGenerator.generate(1);
+            CampusGenerator.assignIds(campus);
+            student = campus.students.get(0);
+            department = student.getDepartment();
+            cohortTimetable = campus.timetablesOf(department, student.getLevel(), SemesterType.FIRST_SEMESTER);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Cohort {
+        @Param({"10", "100", "1000", "10000"})
+        public int size;
+
+        List<User> students;
+        List<User> officers;
+
+        @Setup(Level.Trial)
+        public void setUp(Transport transport) {
+            students = recipients(transport.department, UserRole.STUDENT, 1L);
+            officers = recipients(transport.department, UserRole.EXAMS_OFFICER, 1_000_000L);
+        }
+
+        private List<User> recipients(Department department, UserRole role, long firstId) {
+            List<User> users = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String username = role.name().toLowerCase(Locale.ROOT) + i;
+                User user = new User(username, username + "@timeflow.test", "x", role, department);
+                user.setId(firstId + i);
+                users.add(user);
+            }
+            return users;
+        }
+    }
+
+    // One message per operation, so the samples are the latency of a single send
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void studentTimetableSend(Transport transport) {
+        transport.service.sendTimetableToStudent(transport.student, transport.cohortTimetable);
+    }
+
+    // A whole cohort's approval mailing
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void approvalMailing(Transport transport, Cohort cohort) throws MessagingException {
+        transport.service.sendApprovalNotifications(transport.cohortTimetable.get(0), cohort.students);
+    }
+
+    // One conflict reported to every exams officer
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void conflictMailing(Transport transport, Cohort cohort) throws MessagingException {
+        Conflict conflict = new Conflict(transport.cohortTimetable.get(0), transport.cohortTimetable.get(1),
+                ConflictType.ROOM_CONFLICT);
+        transport.service.sendConflictNotifications(List.of(conflict), cohort.officers);
+    }
+}
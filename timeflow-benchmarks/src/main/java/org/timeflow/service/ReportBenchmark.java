@@ -0,0 +1,54 @@
+package org.timeflow.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.timeflow.benchmarks.BenchmarkDatabase;
+import org.timeflow.benchmarks.CampusGenerator;
+import org.timeflow.entity.AcademicTerm;
+import org.timeflow.entity.Department;
+import org.timeflow.entity.SemesterType;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Report aggregations, including their queries, against a campus loaded into the database
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-bench.xml")
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int scale;
+
+    private ReportService service;
+    private Department department;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CampusGenerator.Campus campus = BenchmarkDatabase.load(scale);
+        service = new ReportService();
+        department = campus.departments.get(campus.departments.size() / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, Object> departmentUtilization() {
+        return service.generateDepartmentUtilizationReport(department, AcademicTerm.upcoming(SemesterType.FIRST_SEMESTER));
+    }
+
+    @Benchmark
+    public Map<String, Object> conflictReport() {
+        return service.generateConflictReport(AcademicTerm.upcoming(SemesterType.FIRST_SEMESTER));
+    }
+
+    @Benchmark
+    public Map<String, Object> lecturerWorkload() {
+        return service.generateLecturerWorkloadReport(department, AcademicTerm.upcoming(SemesterType.FIRST_SEMESTER));
+    }
+}